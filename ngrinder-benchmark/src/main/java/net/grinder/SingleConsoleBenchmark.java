@@ -0,0 +1,136 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.grinder;
+
+import net.grinder.console.common.ConsoleException;
+import net.grinder.console.model.ConsoleCommunicationSetting;
+import net.grinder.console.model.ConsoleProperties;
+import net.grinder.console.model.SampleModelImplementationEx;
+import net.grinder.statistics.StatisticsIndexMap;
+import net.grinder.statistics.StatisticsSet;
+import net.grinder.statistics.TestStatisticsMap;
+import net.grinder.util.ConsolePropertiesFactory;
+import org.apache.commons.io.FileUtils;
+import org.ngrinder.benchmark.StatisticsFixture;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of {@link SingleConsole#update(StatisticsSet, StatisticsSet)} which the console runs
+ * for every sampling interval.
+ * <p/>
+ * The sample model captures the reports of all agents first so that the console knows the
+ * statistics of every test. Then its timer is postponed and the benchmarks drive the console.
+ *
+ * @since 3.5.3
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SingleConsoleBenchmark {
+	private static final int WARM_UP_SAMPLE_INTERVAL = 200;
+	private static final int SAMPLE_INTERVAL = 1000;
+
+	@Param({"1", "500"})
+	private int tests;
+
+	@Param({"200"})
+	private int agents;
+
+	private File reportDirectory;
+	private SingleConsole console;
+	private StatisticsSet intervalStatistics;
+	private StatisticsSet cumulativeStatistics;
+	private StatisticsIndexMap.LongIndex periodIndex;
+	private long period;
+
+	@Setup
+	public void setUp() throws IOException, InterruptedException, ConsoleException {
+		StatisticsFixture fixture = new StatisticsFixture(tests, agents);
+		reportDirectory = Files.createTempDirectory("single_console_benchmark").toFile();
+		ConsoleProperties properties = ConsolePropertiesFactory.createEmptyConsoleProperties();
+		properties.setSampleInterval(WARM_UP_SAMPLE_INTERVAL);
+		properties.setIgnoreSampleCount(0);
+		console = new SingleConsole("", getFreePort(), ConsoleCommunicationSetting.asDefault(), properties);
+		console.setReportPath(reportDirectory);
+		console.startSampling();
+
+		SampleModelImplementationEx sampleModel = console.getSampleModel();
+		sampleModel.registerTests(fixture.getTests());
+		while (getTestCount() < tests) {
+			for (TestStatisticsMap each : fixture.getReports()) {
+				sampleModel.addTestReport(each);
+			}
+			Thread.sleep(WARM_UP_SAMPLE_INTERVAL);
+		}
+		// Postpone the next sample. The sample already scheduled is waited for.
+		properties.setSampleInterval(Integer.MAX_VALUE);
+		Thread.sleep(WARM_UP_SAMPLE_INTERVAL * 3);
+
+		periodIndex = sampleModel.getPeriodIndex();
+		intervalStatistics = fixture.getStatisticsServices().getStatisticsSetFactory().create();
+		for (TestStatisticsMap each : fixture.getReports()) {
+			intervalStatistics.add(each.nonCompositeStatisticsTotals());
+		}
+		intervalStatistics.setValue(periodIndex, SAMPLE_INTERVAL);
+		cumulativeStatistics = sampleModel.getTotalCumulativeStatistics().snapshot();
+		period = cumulativeStatistics.getValue(periodIndex);
+	}
+
+	@TearDown
+	public void tearDown() {
+		console.unregisterSampling();
+		console.shutdown();
+		FileUtils.deleteQuietly(reportDirectory);
+	}
+
+	/**
+	 * Update the console with a sample. It includes writing the report files.
+	 */
+	@Benchmark
+	public void update() {
+		// Each call is regarded as the next sample of the postponed sample interval.
+		period += Integer.MAX_VALUE;
+		cumulativeStatistics.setValue(periodIndex, period);
+		console.update(intervalStatistics, cumulativeStatistics);
+	}
+
+	/**
+	 * Build the statistics shown in the running page.
+	 */
+	@Benchmark
+	public void updateStatistics() {
+		console.updateStatistics(intervalStatistics, cumulativeStatistics);
+	}
+
+	private int getTestCount() {
+		List<?> statistics = (List<?>) console.getStatisticsData().get("cumulativeStatistics");
+		return statistics == null ? 0 : statistics.size();
+	}
+
+	private static int getFreePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.grinder.console.model;
+
+import net.grinder.common.Test;
+import net.grinder.statistics.StatisticsIndexMap;
+import net.grinder.statistics.StatisticsServices;
+import net.grinder.statistics.StatisticsSet;
+import net.grinder.statistics.TestStatisticsMap;
+import org.ngrinder.benchmark.StatisticsFixture;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the total sample accumulation which the console does for every sampling interval.
+ *
+ * @since 3.5.3
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SampleAccumulatorExBenchmark {
+	private static final long SAMPLE_INTERVAL = 1000;
+
+	@Param({"500"})
+	private int tests;
+
+	@Param({"1", "200"})
+	private int agents;
+
+	private StatisticsFixture fixture;
+	private SampleAccumulatorEx accumulator;
+	private long period;
+
+	@Setup
+	public void setUp() {
+		fixture = new StatisticsFixture(tests, agents);
+		StatisticsServices statisticsServices = fixture.getStatisticsServices();
+		StatisticsIndexMap indexMap = statisticsServices.getStatisticsIndexMap();
+		accumulator = new SampleAccumulatorEx(statisticsServices.getStatisticExpressionFactory()
+			.createPeak(indexMap.getDoubleIndex("peakTPS"), statisticsServices.getTPSExpression()),
+			indexMap.getLongIndex("period"), statisticsServices.getStatisticsSetFactory());
+	}
+
+	/**
+	 * Accumulate the reports of all agents in an interval.
+	 */
+	@Benchmark
+	public void accumulate() {
+		for (TestStatisticsMap each : fixture.getReports()) {
+			(each.new ForEach() {
+				@Override
+				public void next(Test test, StatisticsSet statistics) {
+					accumulator.addIntervalStatistics(statistics);
+					accumulator.addCumulativeStatistics(statistics);
+				}
+			}).iterate();
+		}
+	}
+
+	/**
+	 * Take a snapshot and fire it to a listener like
+	 * {@link SampleModelImplementationEx} does at the end of an interval.
+	 *
+	 * @param blackhole blackhole which consumes the fired statistics
+	 */
+	@Benchmark
+	public void fireSample(final Blackhole blackhole) {
+		period += SAMPLE_INTERVAL;
+		SampleAccumulatorEx snapshot = new SampleAccumulatorEx(accumulator);
+		accumulator.refreshIntervalStatistics(SAMPLE_INTERVAL, period);
+		snapshot.addSampleListener(new SampleListener() {
+			@Override
+			public void update(StatisticsSet intervalStatistics, StatisticsSet cumulativeStatistics) {
+				blackhole.consume(intervalStatistics.snapshot());
+				blackhole.consume(cumulativeStatistics.snapshot());
+			}
+		});
+		snapshot.fireSample(SAMPLE_INTERVAL, period);
+	}
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.grinder.util;
+
+import HTTPClient.NVPair;
+import net.grinder.common.GrinderProperties;
+import net.grinder.script.Grinder;
+import net.grinder.script.InternalScriptContext;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the {@link GrinderUtils} helpers which scripts call in every test run.
+ * <p/>
+ * The worker thread context is given as a stub of 10 agents, 10 processes and 100 threads.
+ *
+ * @since 3.5.3
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GrinderUtilsBenchmark {
+	private final Map<Object, Object> headers = new LinkedHashMap<>();
+	private final List<String> values = new ArrayList<>();
+
+	@Setup
+	public void setUp() {
+		for (int i = 0; i < 10; i++) {
+			headers.put("X-Header-" + i, "value" + i);
+		}
+		for (int i = 0; i < 1000; i++) {
+			values.add("user" + i);
+		}
+		GrinderProperties properties = new GrinderProperties();
+		properties.setInt("grinder.agents", 10);
+		properties.setInt("grinder.processes", 10);
+		properties.setInt("grinder.threads", 100);
+		final Map<String, Object> context = new HashMap<>();
+		context.put("getProperties", properties);
+		context.put("getAgentNumber", 3);
+		context.put("getProcessNumber", 5);
+		context.put("getThreadNumber", 7);
+		// Mocking frameworks are too slow to be a part of the measurement.
+		Grinder.grinder = (InternalScriptContext) Proxy.newProxyInstance(getClass().getClassLoader(),
+			new Class[]{InternalScriptContext.class}, (proxy, method, args) -> context.get(method.getName()));
+		System.setProperty("param", "100");
+	}
+
+	@TearDown
+	public void tearDown() {
+		Grinder.grinder = null;
+		System.clearProperty("param");
+	}
+
+	@Benchmark
+	public NVPair[] nvs() {
+		return GrinderUtils.nvs(headers);
+	}
+
+	@Benchmark
+	public String any() {
+		return GrinderUtils.any(values);
+	}
+
+	@Benchmark
+	public int getThreadUniqId() {
+		return GrinderUtils.getThreadUniqId();
+	}
+
+	@Benchmark
+	public int getParamInt() {
+		return GrinderUtils.getParamInt();
+	}
+}
@@ -0,0 +1,99 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compare two JMH results written in the JSON format.
+ * <p/>
+ * Each benchmark is matched by its name and parameters. The change of the score is shown in
+ * percent and it's regarded as a regression when it's worse than the threshold. Lower scores are
+ * better in the time modes and higher scores are better in the throughput mode.
+ * <pre>
+ * BenchmarkComparator baseline.json result.json [threshold percent. 10 by default]
+ * </pre>
+ * The exit code is 1 if there are regressions.
+ *
+ * @since 3.5.3
+ */
+public class BenchmarkComparator {
+	private static final double DEFAULT_THRESHOLD = 10;
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("Usage: BenchmarkComparator <baseline.json> <result.json> [threshold percent]");
+			System.exit(2);
+		}
+		double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD;
+		Map<String, JsonNode> baseline = read(new File(args[0]));
+		Map<String, JsonNode> current = read(new File(args[1]));
+
+		int regressions = 0;
+		System.out.println(String.format("%-80s %14s %14s %9s", "Benchmark", "Baseline", "Current", "Change"));
+		for (Map.Entry<String, JsonNode> each : current.entrySet()) {
+			JsonNode result = each.getValue();
+			JsonNode metric = result.get("primaryMetric");
+			double score = metric.get("score").asDouble();
+			String unit = metric.get("scoreUnit").asText();
+			JsonNode base = baseline.get(each.getKey());
+			if (base == null) {
+				System.out.println(String.format("%-80s %14s %14.3f %9s", each.getKey(), "-", score, "new"));
+				continue;
+			}
+			double baseScore = base.get("primaryMetric").get("score").asDouble();
+			double change = baseScore == 0 ? 0 : (score - baseScore) / baseScore * 100;
+			boolean higherIsBetter = "thrpt".equals(result.get("mode").asText());
+			boolean regressed = (higherIsBetter ? -change : change) > threshold;
+			if (regressed) {
+				regressions++;
+			}
+			System.out.println(String.format("%-80s %14.3f %14.3f %+8.1f%% %s%s", each.getKey(), baseScore, score,
+				change, unit, regressed ? " REGRESSION" : ""));
+		}
+		System.out.println(String.format("%d regression(s) over %.1f%%", regressions, threshold));
+		System.exit(regressions > 0 ? 1 : 0);
+	}
+
+	private static Map<String, JsonNode> read(File file) throws IOException {
+		Map<String, JsonNode> results = new LinkedHashMap<>();
+		for (JsonNode each : new ObjectMapper().readTree(file)) {
+			results.put(getKey(each), each);
+		}
+		return results;
+	}
+
+	private static String getKey(JsonNode result) {
+		StringBuilder key = new StringBuilder(result.get("benchmark").asText());
+		JsonNode params = result.get("params");
+		if (params != null) {
+			Map<String, String> sorted = new TreeMap<>();
+			Iterator<Map.Entry<String, JsonNode>> fields = params.fields();
+			while (fields.hasNext()) {
+				Map.Entry<String, JsonNode> field = fields.next();
+				sorted.put(field.getKey(), field.getValue().asText());
+			}
+			key.append(sorted);
+		}
+		return key.toString();
+	}
+}
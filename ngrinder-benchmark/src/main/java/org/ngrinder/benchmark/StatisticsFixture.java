@@ -0,0 +1,119 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.benchmark;
+
+import net.grinder.common.AbstractTestSemantics;
+import net.grinder.common.Test;
+import net.grinder.statistics.StatisticsIndexMap;
+import net.grinder.statistics.StatisticsServices;
+import net.grinder.statistics.StatisticsServicesImplementation;
+import net.grinder.statistics.StatisticsSet;
+import net.grinder.statistics.TestStatisticsMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Synthetic statistics which agents report to the console during a sampling interval.
+ * <p/>
+ * Every agent reports all tests. The values are random but the same for the same seed. So the
+ * benchmarks of the different commits consume the same input.
+ *
+ * @since 3.5.3
+ */
+public class StatisticsFixture {
+	private static final long SEED = 353;
+
+	private final StatisticsServices statisticsServices = StatisticsServicesImplementation.getInstance();
+	private final List<Test> tests = new ArrayList<>();
+	private final List<TestStatisticsMap> reports = new ArrayList<>();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param testCount  the number of tests in a script
+	 * @param agentCount the number of agents
+	 */
+	public StatisticsFixture(int testCount, int agentCount) {
+		Random random = new Random(SEED);
+		for (int i = 1; i <= testCount; i++) {
+			tests.add(new FixtureTest(i, "Test " + i));
+		}
+		for (int i = 0; i < agentCount; i++) {
+			TestStatisticsMap report = new TestStatisticsMap(statisticsServices.getStatisticsSetFactory());
+			for (Test each : tests) {
+				report.put(each, createStatistics(random));
+			}
+			reports.add(report);
+		}
+	}
+
+	/**
+	 * Create the statistics of a test reported by a worker in a second.
+	 *
+	 * @param random random
+	 * @return statistics
+	 */
+	public StatisticsSet createStatistics(Random random) {
+		StatisticsIndexMap indexMap = statisticsServices.getStatisticsIndexMap();
+		StatisticsSet statistics = statisticsServices.getStatisticsSetFactory().create();
+		StatisticsIndexMap.LongSampleIndex timedTests = indexMap.getLongSampleIndex("timedTests");
+		int count = 10 + random.nextInt(90);
+		for (int i = 0; i < count; i++) {
+			statistics.addSample(timedTests, 5 + random.nextInt(500));
+		}
+		statistics.addValue(indexMap.getLongIndex("errors"), random.nextInt(3));
+		statistics.addValue(indexMap.getLongIndex(StatisticsIndexMap.HTTP_PLUGIN_RESPONSE_LENGTH_KEY),
+			count * 2048L);
+		return statistics;
+	}
+
+	public StatisticsServices getStatisticsServices() {
+		return statisticsServices;
+	}
+
+	public List<Test> getTests() {
+		return tests;
+	}
+
+	/**
+	 * Get the reports of all agents.
+	 *
+	 * @return test statistics per agent
+	 */
+	public List<TestStatisticsMap> getReports() {
+		return reports;
+	}
+
+	private static final class FixtureTest extends AbstractTestSemantics {
+		private final int number;
+		private final String description;
+
+		FixtureTest(int number, String description) {
+			this.number = number;
+			this.description = description;
+		}
+
+		@Override
+		public int getNumber() {
+			return number;
+		}
+
+		@Override
+		public String getDescription() {
+			return description;
+		}
+	}
+}
@@ -0,0 +1,103 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.perftest.service;
+
+import org.apache.commons.io.FileUtils;
+import org.ngrinder.common.model.Home;
+import org.ngrinder.infra.config.Config;
+import org.ngrinder.report.ReportDataWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.ngrinder.report.ReportDataFormat.REPORT_DATA_FILE;
+
+/**
+ * Benchmark of reading the report data of a 24 hours test sampled every second.
+ * <p/>
+ * The text report is read by <code>PerfTestService#getFileDataAsList</code> which the reports
+ * written before the binary report data file are still served by. The binary one is given for
+ * comparison.
+ *
+ * @since 3.5.3
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PerfTestServiceBenchmark {
+	private static final long TEXT_TEST_ID = 1;
+	private static final long BINARY_TEST_ID = 2;
+	private static final int ROW_COUNT = 24 * 60 * 60;
+	private static final String KEY = "TPS";
+
+	@Param({"1", "60"})
+	private int interval;
+
+	private File homeDirectory;
+	private PerfTestService perfTestService;
+
+	@Setup
+	public void setUp() throws IOException {
+		homeDirectory = Files.createTempDirectory("perftest_service_benchmark").toFile();
+		Home home = new Home(homeDirectory);
+		Config config = mock(Config.class);
+		when(config.getHome()).thenReturn(home);
+		perfTestService = new PerfTestService(null, null, null, config, null, null, null, null, null);
+
+		Random random = new Random(ROW_COUNT);
+		File textReport = perfTestService.getReportDataFile(TEXT_TEST_ID, KEY);
+		FileUtils.forceMkdir(textReport.getParentFile());
+		try (BufferedWriter writer = new BufferedWriter(new FileWriter(textReport))) {
+			for (int i = 0; i < ROW_COUNT; i++) {
+				// Rows in which no test was performed are written as null.
+				writer.write(i % 600 == 0 ? "null" : String.valueOf(1000 + random.nextInt(100) / 10.0));
+				writer.newLine();
+			}
+		}
+		File binaryReportDirectory = home.getPerfTestReportDirectory(String.valueOf(BINARY_TEST_ID));
+		FileUtils.forceMkdir(binaryReportDirectory);
+		try (ReportDataWriter writer = new ReportDataWriter(new File(binaryReportDirectory, REPORT_DATA_FILE))) {
+			for (int i = 0; i < ROW_COUNT; i++) {
+				writer.append(KEY, i % 600 == 0 ? null : 1000 + random.nextInt(100) / 10.0);
+			}
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		FileUtils.deleteQuietly(homeDirectory);
+	}
+
+	@Benchmark
+	public List<Float> getTextReportData() {
+		return perfTestService.getSingleReportData(TEXT_TEST_ID, KEY, interval);
+	}
+
+	@Benchmark
+	public List<Float> getBinaryReportData() {
+		return perfTestService.getSingleReportData(BINARY_TEST_ID, KEY, interval);
+	}
+}
@@ -0,0 +1,82 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.sm;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.FilePermission;
+import java.lang.reflect.ReflectPermission;
+import java.net.SocketPermission;
+import java.security.Permission;
+import java.util.PropertyPermission;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the checks which {@link NGrinderSecurityManager} runs on every sensitive call of
+ * worker threads.
+ * <p/>
+ * The security manager is not installed. Its methods are called directly.
+ *
+ * @since 3.5.3
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NGrinderSecurityManagerBenchmark {
+	private static final int TARGET_HOST_COUNT = 50;
+
+	private final Permission[] permissions = {
+		new PropertyPermission("user.dir", "read"),
+		new RuntimePermission("accessDeclaredMembers"),
+		new ReflectPermission("suppressAccessChecks"),
+		new FilePermission("/tmp/ngrinder.log", "read"),
+		new SocketPermission("localhost:8080", "connect,resolve")
+	};
+
+	private NGrinderSecurityManager securityManager;
+	private String writableFile;
+	private String allowedHost;
+	private int index;
+
+	@Setup
+	public void setUp() {
+		StringBuilder etcHosts = new StringBuilder();
+		for (int i = 0; i < TARGET_HOST_COUNT; i++) {
+			etcHosts.append(i == 0 ? "" : ",").append("host").append(i).append(".ngrinder.test:10.0.0.").append(i);
+		}
+		System.setProperty("ngrinder.etc.hosts", etcHosts.toString());
+		securityManager = new NGrinderSecurityManager();
+		writableFile = System.getProperty("java.io.tmpdir") + File.separator + "ngrinder" + File.separator + "data.csv";
+		allowedHost = "10.0.0." + (TARGET_HOST_COUNT - 1);
+	}
+
+	@Benchmark
+	public void checkPermission() {
+		securityManager.checkPermission(permissions[index++ % permissions.length]);
+	}
+
+	@Benchmark
+	public void checkWrite() {
+		securityManager.checkWrite(writableFile);
+	}
+
+	@Benchmark
+	public void checkConnect() {
+		securityManager.checkConnect(allowedHost, 80);
+	}
+}
@@ -38,6 +38,8 @@ public interface CacheConstants {
 
 	String AGENT_TOPIC_NAME = "agent_topic";
 	String AGENT_TOPIC_LISTENER_NAME = "agent_topic_listener";
+	String SAMPLE_TOPIC_NAME = "sample_topic";
+	String SAMPLE_TOPIC_LISTENER_NAME = "sample_topic_listener";
 
 	String CACHE_USER_ENTITY = "org.ngrinder.model.User";
 
@@ -85,4 +85,8 @@ public interface ControllerConstants {
 	public static final String PROP_CONTROLLER_ENABLE_STATISTICS = "controller.enable_statistics";
 	public static final String PROP_CONTROLLER_CSV_SEPARATOR = "controller.csv_separator";
 	public static final String PROP_CONTROLLER_GITHUB_BASE_URL = "controller.github_base_url";
+	public static final String PROP_CONTROLLER_MAVEN_DEPENDENCY_CACHE_SIZE = "controller.maven_dependency_cache_size";
+	public static final String PROP_CONTROLLER_MAX_AGENT_LOG_SIZE = "controller.max_agent_log_size";
+	public static final String PROP_CONTROLLER_AGENT_STATISTICS = "controller.agent_statistics";
+	public static final String PROP_CONTROLLER_LOG_ALL_ERRORS = "controller.log_all_errors";
 }
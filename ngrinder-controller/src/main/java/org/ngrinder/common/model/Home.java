@@ -51,6 +51,7 @@ public class Home {
 	private static final String PATH_REPORT = "report";
 	private static final String PATH_DIST = "dist";
 	private static final String PATH_STAT = "stat";
+	private static final String PATH_MAVEN_DEPENDENCY_CACHE = "maven_dependency_cache";
 	private final static Logger LOGGER = LoggerFactory.getLogger(Home.class);
 	private final File directory;
 	private static final String REPORT_CSV = "output.csv";
@@ -418,6 +419,16 @@ public class Home {
 		return getSubFile("messages");
 	}
 
+	/**
+	 * Get the directory where the resolved maven dependencies are cached.
+	 *
+	 * @return maven dependency cache directory
+	 * @since 3.5.3
+	 */
+	public File getMavenDependencyCacheDirectory() {
+		return getSubFile(PATH_MAVEN_DEPENDENCY_CACHE);
+	}
+
 	/**
 	 * Get the script directory for the given user.
 	 *
@@ -9,6 +9,7 @@ import org.ngrinder.model.User;
 import org.ngrinder.perftest.controller.PerfTestApiController;
 import org.ngrinder.perftest.service.AgentManager;
 import org.ngrinder.perftest.service.PerfTestService;
+import org.ngrinder.perftest.service.SampleStreamService;
 import org.ngrinder.perftest.service.TagService;
 import org.ngrinder.region.service.RegionService;
 import org.ngrinder.script.handler.ScriptHandlerFactory;
@@ -35,8 +36,8 @@ import static org.springframework.http.MediaType.APPLICATION_FORM_URLENCODED_VAL
 @Deprecated
 public class PerfTestFormTypeApiController extends PerfTestApiController {
 
-	public PerfTestFormTypeApiController(PerfTestService perfTestService, TagService tagService, AgentManager agentManager, RegionService regionService, AgentService agentService, FileEntryService fileEntryService, UserService userService, HazelcastService hazelcastService, ScriptHandlerFactory scriptHandlerFactory, UserContext userContext, Config config, MessageSource messageSource) {
-		super(perfTestService, tagService, agentManager, regionService, agentService, fileEntryService, userService, hazelcastService, scriptHandlerFactory, userContext, config, messageSource);
+	public PerfTestFormTypeApiController(PerfTestService perfTestService, TagService tagService, AgentManager agentManager, RegionService regionService, AgentService agentService, FileEntryService fileEntryService, UserService userService, HazelcastService hazelcastService, ScriptHandlerFactory scriptHandlerFactory, UserContext userContext, Config config, MessageSource messageSource, SampleStreamService sampleStreamService) {
+		super(perfTestService, tagService, agentManager, regionService, agentService, fileEntryService, userService, hazelcastService, scriptHandlerFactory, userContext, config, messageSource, sampleStreamService);
 	}
 
 	@PostMapping("/save")
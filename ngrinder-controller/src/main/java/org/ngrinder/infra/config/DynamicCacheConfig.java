@@ -93,7 +93,8 @@ public class DynamicCacheConfig implements ClusterConstants {
 		hazelcastConfig.setMapConfigs(cacheConfigMap().getHazelcastCacheConfigs());
 		hazelcastConfig.addExecutorConfig(getExecutorConfig(REGION_EXECUTOR_SERVICE_NAME));
 		hazelcastConfig.addExecutorConfig(getExecutorConfig(AGENT_EXECUTOR_SERVICE_NAME));
-		hazelcastConfig.addTopicConfig(getTopicConfig());
+		hazelcastConfig.addTopicConfig(getTopicConfig(AGENT_TOPIC_NAME));
+		hazelcastConfig.addTopicConfig(getTopicConfig(SAMPLE_TOPIC_NAME));
 		NetworkConfig networkConfig = hazelcastConfig.getNetworkConfig();
 		networkConfig.setPort(getClusterPort()).setPortAutoIncrement(false);
 
@@ -114,6 +115,8 @@ public class DynamicCacheConfig implements ClusterConstants {
 		HazelcastInstance hazelcastInstance = Hazelcast.newHazelcastInstance(hazelcastConfig);
 		ITopic<TopicEvent> topic = hazelcastInstance.getTopic(AGENT_TOPIC_NAME);
 		topic.addMessageListener(topicSubscriber());
+		ITopic<TopicEvent> sampleTopic = hazelcastInstance.getTopic(SAMPLE_TOPIC_NAME);
+		sampleTopic.addMessageListener(topicSubscriber());
 		return hazelcastInstance;
 	}
 
@@ -123,11 +126,11 @@ public class DynamicCacheConfig implements ClusterConstants {
 		return config;
 	}
 
-	private TopicConfig getTopicConfig() {
+	private TopicConfig getTopicConfig(String name) {
 		TopicConfig topicConfig = new TopicConfig();
 		topicConfig.setGlobalOrderingEnabled(true);
 		topicConfig.setStatisticsEnabled(true);
-		topicConfig.setName(AGENT_TOPIC_NAME);
+		topicConfig.setName(name);
 		return topicConfig;
 	}
 
@@ -14,7 +14,10 @@
 package org.ngrinder.perftest.controller;
 
 import lombok.RequiredArgsConstructor;
+import net.grinder.util.LogCompressUtils;
 import net.grinder.util.Pair;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.math.NumberUtils;
 import org.apache.commons.lang.mutable.MutableInt;
@@ -25,11 +28,15 @@ import org.ngrinder.common.util.JsonUtils;
 import org.ngrinder.infra.config.Config;
 import org.ngrinder.infra.hazelcast.HazelcastService;
 import org.ngrinder.infra.logger.CoreLogger;
+import org.ngrinder.infra.spring.RemainedPath;
 import org.ngrinder.model.*;
 import org.ngrinder.perftest.model.SamplingModel;
 import org.ngrinder.perftest.service.AgentManager;
+import org.ngrinder.perftest.service.AgentSkewDetector;
 import org.ngrinder.perftest.service.PerfTestService;
+import org.ngrinder.perftest.service.SampleStreamService;
 import org.ngrinder.perftest.service.TagService;
+import org.ngrinder.report.Downsampling;
 import org.ngrinder.region.service.RegionService;
 import org.ngrinder.script.handler.ScriptHandlerFactory;
 import org.ngrinder.script.model.FileCategory;
@@ -45,8 +52,15 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
 import java.util.*;
 
@@ -101,6 +115,8 @@ public class PerfTestApiController {
 
 	private final MessageSource messageSource;
 
+	private final SampleStreamService sampleStreamService;
+
 	/**
 	 * Get the perf test lists.
 	 *
@@ -339,6 +355,84 @@ public class PerfTestApiController {
 		return map;
 	}
 
+	/**
+	 * Stream the samples of the running perf test having the given id as server-sent events.
+	 * <p/>
+	 * The whole sample is sent as the <code>snapshot</code> event first and then only changed
+	 * values are sent as the <code>delta</code> event in each sampling. The <code>end</code>
+	 * event is sent when the test is finished.
+	 *
+	 * @param user user
+	 * @param id   test id
+	 * @return emitter of the sample events
+	 * @since 3.5.3
+	 */
+	@GetMapping(value = "/{id}/sample/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter streamTestRunning(User user, @PathVariable long id) {
+		PerfTest test = checkNotNull(getOneWithPermissionCheck(user, id, false), "given test should be exist : " + id);
+		return sampleStreamService.subscribe(test.getId(), () -> {
+			PerfTest current = perfTestService.getOne(test.getId());
+			return current != null && current.getStatus().getCategory() == StatusCategory.TESTING;
+		});
+	}
+
+	/**
+	 * Get the statistics of each agent of the running perf test having the given id. The agents
+	 * whose recent TPS or mean test time deviates from the median of all agents more than the
+	 * given threshold are marked as skewed.
+	 *
+	 * @param user      user
+	 * @param id        test id
+	 * @param threshold allowed deviation ratio from the median
+	 * @return agent statistics. the agent list is empty if the test is not running or
+	 * 				the workers don't report their summaries.
+	 * @since 3.5.3
+	 */
+	@SuppressWarnings("unchecked")
+	@GetMapping("/{id}/agent_statistics")
+	public Map<String, Object> getAgentStatistics(User user, @PathVariable long id,
+												  @RequestParam(defaultValue = "0.2") double threshold) {
+		PerfTest test = checkNotNull(getOneWithPermissionCheck(user, id, false), "given test should be exist : " + id);
+		SamplingModel samplingModel = hazelcastService.get(DIST_MAP_NAME_SAMPLING, test.getId());
+		List<Map<String, Object>> agentStatistics = Collections.emptyList();
+		if (samplingModel != null && samplingModel.getAgentStatistics() != null) {
+			agentStatistics = JsonUtils.deserialize(samplingModel.getAgentStatistics(), List.class);
+		}
+		return AgentSkewDetector.detect(agentStatistics, threshold);
+	}
+
+	/**
+	 * Get the failure counts of the perf test having the given id by their categories like
+	 * HTTP_5xx, Read_Timeout or Assertion.
+	 *
+	 * @param user user
+	 * @param id   test id
+	 * @return failure counts by the category in total and of each test
+	 * @since 3.5.3
+	 */
+	@GetMapping("/{id}/error_categories")
+	public Map<String, Object> getErrorCategories(User user, @PathVariable long id) {
+		PerfTest test = checkNotNull(getOneWithPermissionCheck(user, id, false), "given test should be exist : " + id);
+		return perfTestService.getErrorCategories(test.getId());
+	}
+
+	/**
+	 * Get the time buckets of the perf test having the given id, in which the finished tests are
+	 * counted by the time bucket size of the test.
+	 *
+	 * @param user user
+	 * @param id   test id
+	 * @return time bucket size in milliseconds and the series of the buckets
+	 * @since 3.5.3
+	 */
+	@GetMapping("/{id}/time_buckets")
+	public Map<String, Object> getTimeBuckets(User user, @PathVariable long id) {
+		PerfTest test = checkNotNull(getOneWithPermissionCheck(user, id, false), "given test should be exist : " + id);
+		Map<String, Object> timeBuckets = perfTestService.getTimeBuckets(test.getId());
+		timeBuckets.put("bucketSize", test.getTimeBucketSize());
+		return timeBuckets;
+	}
+
 	@GetMapping("/{id}/detail_report")
 	public Map<String, Object> getReport(@PathVariable long id) {
 		Map<String, Object> model = newHashMap();
@@ -595,6 +689,38 @@ public class PerfTestApiController {
 		return perfTestService.getLogFiles(id);
 	}
 
+	/**
+	 * Get the last part of the given log of the given perf test.
+	 * <p/>
+	 * The compressed log is decompressed while it's streamed. So only the last part is kept in memory.
+	 *
+	 * @param user     user
+	 * @param id       perftest id
+	 * @param path     log file name
+	 * @param limit    the max size of the log to be returned. it's reduced to {@link LogCompressUtils#MAX_TAIL_SIZE}.
+	 * @param response response
+	 * @throws IOException occurs when the log is not readable
+	 * @since 3.5.3
+	 */
+	@GetMapping("/{id}/logs/**")
+	public void getLog(User user, @PathVariable long id, @RemainedPath String path,
+					   @RequestParam(defaultValue = "1048576") int limit, HttpServletResponse response) throws IOException {
+		getOneWithPermissionCheck(user, id, false);
+		checkArgument(limit > 0, "limit should be positive");
+		limit = Math.min(limit, LogCompressUtils.MAX_TAIL_SIZE);
+		File logFile = perfTestService.getLogFile(id, path);
+		checkTrue(logFile.isFile(), "log file " + path + " does not exist");
+		response.setContentType("text/plain");
+		response.setCharacterEncoding("UTF-8");
+		try (InputStream in = new FileInputStream(logFile)) {
+			if (FilenameUtils.isExtension(logFile.getName(), "zip")) {
+				LogCompressUtils.decompressTail(in, response.getOutputStream(), limit);
+			} else {
+				IOUtils.copyLarge(in, response.getOutputStream(), Math.max(logFile.length() - limit, 0), limit);
+			}
+		}
+	}
+
 	/**
 	 * Get the detailed report graph data for the given perf test id.
 	 * This method returns the appropriate points based on the given imgWidth.
@@ -602,25 +728,24 @@ public class PerfTestApiController {
 	 * @param id       test id
 	 * @param dataType which data
 	 * @param imgWidth imageWidth
+	 * @param downsampling the way to reduce the data into points. sample, average, min, max or lttb
 	 * @return perf test result list.
 	 */
 	@GetMapping({"/{id}/perf", "/{id}/graph"})
 	public Map<String, Object> getPerfGraph(@PathVariable long id,
 											@RequestParam(defaultValue = "") String dataType,
 											@RequestParam(defaultValue = "false") boolean onlyTotal,
-											@RequestParam int imgWidth) {
+											@RequestParam int imgWidth,
+											@RequestParam(defaultValue = "sample") String downsampling) {
 		String[] dataTypes = checkNotEmpty(StringUtils.split(dataType, ","), "dataType argument should be provided");
-		return getPerfGraphData(id, dataTypes, onlyTotal, imgWidth);
+		return getPerfGraphData(id, dataTypes, onlyTotal, imgWidth, Downsampling.of(downsampling));
 	}
 
-	private Map<String, Object> getPerfGraphData(Long id, String[] dataTypes, boolean onlyTotal, int imgWidth) {
+	private Map<String, Object> getPerfGraphData(Long id, String[] dataTypes, boolean onlyTotal, int imgWidth,
+												 Downsampling downsampling) {
 		final PerfTest test = perfTestService.getOne(id);
-		int interval = perfTestService.getReportDataInterval(id, dataTypes[0], imgWidth);
 		Map<String, Object> resultMap = Maps.newHashMap();
-		for (String each : dataTypes) {
-			Map<String, List<Float>> result = perfTestService.getReportData(id, each, onlyTotal, interval);
-			resultMap.put(each, result);
-		}
+		int interval = perfTestService.getReportGraphData(id, dataTypes, onlyTotal, imgWidth, downsampling, resultMap);
 		resultMap.put(PARAM_TEST_CHART_INTERVAL, interval * test.getSamplingInterval());
 		return resultMap;
 	}
@@ -631,13 +756,16 @@ public class PerfTestApiController {
 	 * @param id       test Id
 	 * @param targetIP targetIP
 	 * @param imgWidth image width
+	 * @param downsampling the way to reduce the data into points. sample, average, min, max or lttb
 	 * @return json message
 	 */
 	@GetMapping("/{id}/monitor")
 	public Map<String, Object> getMonitorGraph(@PathVariable long id,
-											   @RequestParam String targetIP, @RequestParam int imgWidth) {
+											   @RequestParam String targetIP, @RequestParam int imgWidth,
+											   @RequestParam(defaultValue = "sample") String downsampling) {
 		int interval = perfTestService.getMonitorGraphInterval(id, targetIP, imgWidth);
-		Map<String, Object> sysMonitorMap = perfTestService.getMonitorGraph(id, targetIP, interval);
+		Map<String, Object> sysMonitorMap = perfTestService.getMonitorGraph(id, targetIP, interval,
+			Downsampling.of(downsampling));
 		PerfTest perfTest = perfTestService.getOne(id);
 		sysMonitorMap.put("interval", String.valueOf(interval * (perfTest != null ? perfTest.getSamplingInterval() : 1)));
 		return sysMonitorMap;
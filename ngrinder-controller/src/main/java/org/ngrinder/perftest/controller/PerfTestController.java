@@ -135,7 +135,7 @@ public class PerfTestController {
 				// Limit log view to 1MB
 				outputStream.println(" Only the last 1MB of a log shows.\n");
 				outputStream.println("==========================================================================\n\n");
-				LogCompressUtils.decompress(fileInputStream, outputStream, 1 * 1024 * 1024);
+				LogCompressUtils.decompressTail(fileInputStream, outputStream, 1 * 1024 * 1024);
 			} else {
 				IOUtils.copy(fileInputStream, outputStream);
 			}
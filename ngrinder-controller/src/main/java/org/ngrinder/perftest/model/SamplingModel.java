@@ -13,9 +13,20 @@ import java.io.Serializable;
 public class SamplingModel implements Serializable {
 	private String runningSample;
 	private String agentState;
+	/**
+	 * Statistics of each agent. null if the workers don't report their summaries.
+	 *
+	 * @since 3.5.3
+	 */
+	private String agentStatistics;
 
 	public SamplingModel(String runningSample, String agentState) {
+		this(runningSample, agentState, null);
+	}
+
+	public SamplingModel(String runningSample, String agentState, String agentStatistics) {
 		this.runningSample = runningSample;
 		this.agentState = agentState;
+		this.agentStatistics = agentStatistics;
 	}
 }
@@ -45,6 +45,7 @@ import org.springframework.stereotype.Component;
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.net.Socket;
@@ -93,16 +94,28 @@ public class AgentManager implements ControllerConstants, AgentDownloadRequestLi
 		agentControllerServerDaemon = new AgentControllerServerDaemon(config.getCurrentIP(), config.getControllerPort(), consoleCommunicationSetting);
 		agentControllerServerDaemon.start();
 		agentControllerServerDaemon.addAgentDownloadRequestListener(this);
-		agentControllerServerDaemon.addLogArrivedListener((testId, agentAddress, logs) -> {
+		agentControllerServerDaemon.addLogArrivedListener((testId, agentAddress, logs, append) -> {
 			AgentControllerIdentityImplementation agentIdentity = convert(agentAddress.getIdentity());
-			if (ArrayUtils.isEmpty(logs)) {
+			if (ArrayUtils.isEmpty(logs) && !append) {
 				LOGGER.error("Log is arrived from {} but no log content", agentIdentity.getIp());
 			}
-			File logFile = null;
+			File logFile = new File(config.getHome().getPerfTestLogDirectory(testId.replace("test_", "")),
+					agentIdentity.getName() + "-" + agentIdentity.getRegion() + "-log.zip");
+			// The log is streamed in chunks. The chunks over the limit are dropped.
+			long written = append ? logFile.length() : 0;
+			long limit = config.getControllerProperties().getPropertyLong(PROP_CONTROLLER_MAX_AGENT_LOG_SIZE) * 1024 * 1024;
+			int length = limit > 0 ? (int) Math.max(Math.min(logs.length, limit - written), 0) : logs.length;
+			if (length < logs.length && written < limit) {
+				LOGGER.warn("Log from {} is truncated to {} bytes", agentIdentity.getName(), limit);
+			}
+			if (length == 0 && append) {
+				return;
+			}
 			try {
-				logFile = new File(config.getHome().getPerfTestLogDirectory(testId.replace("test_", "")),
-						agentIdentity.getName() + "-" + agentIdentity.getRegion() + "-log.zip");
-				FileUtils.writeByteArrayToFile(logFile, logs);
+				FileUtils.forceMkdir(logFile.getParentFile());
+				try (FileOutputStream out = new FileOutputStream(logFile, append)) {
+					out.write(logs, 0, length);
+				}
 			} catch (IOException e) {
 				LOGGER.error("Error while write logs from {} to {}", agentAddress.getIdentity().getName(),
 						logFile.getAbsolutePath());
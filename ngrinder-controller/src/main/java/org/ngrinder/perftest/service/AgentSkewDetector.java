@@ -0,0 +1,97 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.perftest.service;
+
+import org.apache.commons.collections.MapUtils;
+
+import java.util.*;
+
+import static org.ngrinder.common.util.Preconditions.checkArgument;
+
+/**
+ * Find the agents whose recent TPS or mean test time deviates from the median of all agents.
+ * <p/>
+ * A load generator which is short of CPU or network tests less and looks slower than the others
+ * while the target is fine. Comparing each agent to the median rather than the mean keeps a single
+ * bad agent from shifting the reference.
+ *
+ * @since 3.5.3
+ */
+public final class AgentSkewDetector {
+	public static final String KEY_TPS = "TPS";
+	public static final String KEY_MEAN_TEST_TIME = "Mean_Test_Time_(ms)";
+
+	private AgentSkewDetector() {
+	}
+
+	/**
+	 * Mark the skewed agents in the given agent statistics.
+	 *
+	 * @param agentStatistics statistics of each agent given by
+	 *                        {@link net.grinder.SingleConsole#getAgentStatisticsData()}
+	 * @param threshold       allowed deviation ratio from the median. 0.2 means 20%.
+	 * @return agents with their deviations, medians and threshold
+	 */
+	public static Map<String, Object> detect(List<Map<String, Object>> agentStatistics, double threshold) {
+		checkArgument(threshold >= 0, "threshold should be positive");
+		double tpsMedian = median(agentStatistics, KEY_TPS);
+		double meanTestTimeMedian = median(agentStatistics, KEY_MEAN_TEST_TIME);
+
+		List<Map<String, Object>> agents = new ArrayList<>(agentStatistics.size());
+		for (Map<String, Object> each : agentStatistics) {
+			Map<String, Object> agent = new LinkedHashMap<>(each);
+			double tpsDeviation = deviation(MapUtils.getDoubleValue(each, KEY_TPS), tpsMedian);
+			double meanTestTimeDeviation = deviation(MapUtils.getDoubleValue(each, KEY_MEAN_TEST_TIME),
+				meanTestTimeMedian);
+			agent.put("TPS_Deviation", tpsDeviation);
+			agent.put("Mean_Test_Time_Deviation", meanTestTimeDeviation);
+			agent.put("skewed", Math.abs(tpsDeviation) > threshold || Math.abs(meanTestTimeDeviation) > threshold);
+			agents.add(agent);
+		}
+
+		Map<String, Object> medians = new LinkedHashMap<>();
+		medians.put(KEY_TPS, tpsMedian);
+		medians.put(KEY_MEAN_TEST_TIME, meanTestTimeMedian);
+
+		Map<String, Object> result = new LinkedHashMap<>();
+		result.put("agents", agents);
+		result.put("medians", medians);
+		result.put("threshold", threshold);
+		return result;
+	}
+
+	static double median(List<Map<String, Object>> agentStatistics, String key) {
+		if (agentStatistics.isEmpty()) {
+			return 0;
+		}
+		double[] values = new double[agentStatistics.size()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = MapUtils.getDoubleValue(agentStatistics.get(i), key);
+		}
+		Arrays.sort(values);
+		int middle = values.length / 2;
+		return values.length % 2 == 1 ? values[middle] : (values[middle - 1] + values[middle]) / 2;
+	}
+
+	/**
+	 * Get the deviation ratio of the value from the median. The value deviates fully when the
+	 * median is 0 and the value is not.
+	 */
+	static double deviation(double value, double median) {
+		if (median == 0) {
+			return value == 0 ? 0 : Math.signum(value);
+		}
+		return (value - median) / median;
+	}
+}
@@ -105,6 +105,8 @@ public class PerfTestRunnable implements ControllerConstants {
 
 	private final WebhookConfigService webhookConfigService;
 
+	private final SampleStreamService sampleStreamService;
+
 	private Runnable startRunnable;
 
 	private Runnable finishRunnable;
@@ -251,6 +253,7 @@ public class PerfTestRunnable implements ControllerConstants {
 
 	/**
 	 * Extract non cached distribution files for send to each agents.
+	 * A file is cached when every agent has it in the same path or keeps its content in the blob store.
 	 *
 	 * @param distFilesDigest					Required file's digest for currently running test.
 	 * @param agentCachedDistFilesDigestList    Digest of files in each agent cache directory.
@@ -262,7 +265,8 @@ public class PerfTestRunnable implements ControllerConstants {
 			.stream()
 			.filter(distFileDigest -> agentCachedDistFilesDigestList
 				.stream()
-				.allMatch(agentCachedDistFilesDigest -> agentCachedDistFilesDigest.contains(distFileDigest)))
+				.allMatch(agentCachedDistFilesDigest -> agentCachedDistFilesDigest.contains(distFileDigest)
+					|| agentCachedDistFilesDigest.contains(getBlobDigest(getDigestMd5(distFileDigest)))))
 			.collect(toSet());
 	}
 
@@ -413,7 +417,7 @@ public class PerfTestRunnable implements ControllerConstants {
 	protected void addSamplingListeners(final PerfTest perfTest, final SingleConsole singleConsole) {
 		// Add SamplingLifeCycleListener
 		singleConsole.addSamplingLifeCycleListener(new PerfTestSamplingCollectorListener(singleConsole,
-				perfTest.getId(), perfTestService, scheduledTaskService));
+				perfTest.getId(), perfTestService, sampleStreamService, scheduledTaskService));
 		singleConsole.addSamplingLifeCycleListener(new AgentLostDetectionListener(singleConsole, perfTest,
 				perfTestService, scheduledTaskService));;
 		List<OnTestSamplingRunnable> testSamplingPlugins = pluginManager.getEnabledModulesByClass
@@ -501,6 +505,7 @@ public class PerfTestRunnable implements ControllerConstants {
 		perfTestService.cleanUpDistFolder(perfTest);
 		hazelcastService.delete(DIST_MAP_NAME_MONITORING, perfTest.getId());
 		hazelcastService.delete(DIST_MAP_NAME_SAMPLING, perfTest.getId());
+		sampleStreamService.finish(perfTest.getId());
 	}
 
 	/**
@@ -21,6 +21,7 @@ import net.grinder.StopReason;
 import net.grinder.common.GrinderProperties;
 import net.grinder.console.communication.AgentProcessControlImplementation.AgentStatus;
 import net.grinder.console.model.ConsoleProperties;
+import net.grinder.console.model.TimeBucketAccumulator;
 import net.grinder.util.ConsolePropertiesFactory;
 import net.grinder.util.Directory;
 import net.grinder.util.Pair;
@@ -32,12 +33,14 @@ import org.apache.commons.io.filefilter.WildcardFileFilter;
 import org.apache.commons.io.output.ByteArrayOutputStream;
 import org.apache.commons.lang.BooleanUtils;
 import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.math.NumberUtils;
 import org.hibernate.Hibernate;
 import org.kohsuke.github.GHRepository;
 import org.kohsuke.github.GitHub;
 import org.ngrinder.common.constant.ControllerConstants;
 import org.ngrinder.common.constants.GrinderConstants;
 import org.ngrinder.common.exception.PerfTestPrepareException;
+import org.ngrinder.common.util.DateUtils;
 import org.ngrinder.common.util.JsonUtils;
 import org.ngrinder.infra.config.Config;
 import org.ngrinder.infra.hazelcast.HazelcastService;
@@ -47,6 +50,10 @@ import org.ngrinder.perftest.model.PerfTestStatistics;
 import org.ngrinder.perftest.model.ProcessAndThread;
 import org.ngrinder.perftest.model.SamplingModel;
 import org.ngrinder.perftest.repository.PerfTestRepository;
+import org.ngrinder.report.Downsampling;
+import org.ngrinder.report.ReportDataFormat;
+import org.ngrinder.report.ReportDataReader;
+import org.ngrinder.report.ReportDataWriter;
 import org.ngrinder.script.handler.NullScriptHandler;
 import org.ngrinder.script.handler.ProcessingResultPrintStream;
 import org.ngrinder.script.handler.ScriptHandler;
@@ -91,6 +98,7 @@ import static org.ngrinder.common.util.TypeConvertUtils.cast;
 import static org.ngrinder.model.Status.PREPARE_DISTRIBUTION;
 import static org.ngrinder.model.Status.getProcessingOrTestingTestStatus;
 import static org.ngrinder.perftest.repository.PerfTestSpecification.*;
+import static org.ngrinder.report.ReportDataFormat.REPORT_DATA_FILE;
 
 /**
  * {@link PerfTest} Service Class.
@@ -108,6 +116,8 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 
 	private static final String NULL_STRING = "null";
 	private static final String UNDEFINED_STRING = "undefined";
+	private static final String[] MONITOR_GRAPH_KEYS = {"cpu", "memory", "received", "sent", "customData1",
+		"customData2", "customData3", "customData4", "customData5"};
 
 	@Getter
 	private final PerfTestRepository perfTestRepository;
@@ -378,6 +388,7 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 	public PerfTest markProgressAndStatusAndFinishTimeAndStatistics(PerfTest perfTest, Status status, String message) {
 		perfTest.setFinishTime(new Date());
 		updatePerfTestAfterTestFinish(perfTest);
+		convertMonitorData(perfTest.getId());
 		return markProgressAndStatus(perfTest, status, message);
 	}
 
@@ -607,9 +618,16 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 				grinderProperties.setInt(GRINDER_PROP_PROCESS_INCREMENT, 0);
 			}
 			grinderProperties.setInt(GRINDER_PROP_REPORT_TO_CONSOLE, 500);
+			grinderProperties.setBoolean(GRINDER_PROP_AGENT_STATISTICS,
+					config.getControllerProperties().getPropertyBoolean(PROP_CONTROLLER_AGENT_STATISTICS));
+			grinderProperties.setBoolean(GRINDER_PROP_LOG_ALL_ERRORS,
+					config.getControllerProperties().getPropertyBoolean(PROP_CONTROLLER_LOG_ALL_ERRORS));
 			grinderProperties.setProperty(GRINDER_PROP_USER, perfTest.getCreatedUser().getUserId());
 			grinderProperties.setProperty(GRINDER_PROP_JVM_USER_LIBRARY_CLASSPATH, geUserLibraryClassPath(perfTest));
 			grinderProperties.setInt(GRINDER_PROP_IGNORE_SAMPLE_COUNT, getSafe(perfTest.getIgnoreSampleCount()));
+			if (getSafe(perfTest.getTimeBucketSize()) > 0) {
+				grinderProperties.setInt(GRINDER_PROP_TIME_BUCKET_SIZE, perfTest.getTimeBucketSize());
+			}
 			grinderProperties.setBoolean(GRINDER_PROP_SECURITY, config.isSecurityEnabled());
 			grinderProperties.setProperty(GRINDER_PROP_SECURITY_LEVEL, config.getSecurityLevel());
 			// For backward agent compatibility.
@@ -744,6 +762,15 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 		return new ProcessAndThread(1, 1);
 	}
 
+	private int getReportDataInterval(ReportDataReader reader, long testId, String dataType, int imgWidth) {
+		if (!reader.hasColumn(dataType)) {
+			LOGGER.warn("Report {} for test {} does not exist.", dataType, testId);
+			return 0;
+		}
+		int pointCount = Math.max(imgWidth, MAX_POINT_COUNT);
+		return ReportDataReader.alignInterval(Math.max(reader.getRowCount(dataType) / pointCount, 1));
+	}
+
 	/**
 	 * get the data point interval of report data. Use dataPointCount / imgWidth as the interval. if interval is 1, it
 	 * means we will get all point from report. If interval is 2, it means we will get 1 point from every 2 data.
@@ -756,6 +783,15 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 	public int getReportDataInterval(long testId, String dataType, int imgWidth) {
 		int pointCount = Math.max(imgWidth, MAX_POINT_COUNT);
 		File reportFolder = config.getHome().getPerfTestReportDirectory(String.valueOf(testId));
+		File reportDataFile = new File(reportFolder, REPORT_DATA_FILE);
+		if (reportDataFile.exists()) {
+			try (ReportDataReader reader = new ReportDataReader(reportDataFile)) {
+				return getReportDataInterval(reader, testId, dataType, imgWidth);
+			} catch (IOException e) {
+				LOGGER.error("Failed to get report data for {}", dataType, e);
+				return 0;
+			}
+		}
 		int interval = 0;
 		File targetFile = new File(reportFolder, dataType + REPORT_DATA);
 		if (!targetFile.exists()) {
@@ -861,7 +897,9 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 	public void saveStatistics(SingleConsole singleConsole, Long perfTestId) {
 		String runningSample = getProperSizeRunningSample(singleConsole);
 		String agentState = getProperSizedStatusString(singleConsole);
-		hazelcastService.put(DIST_MAP_NAME_SAMPLING, perfTestId, new SamplingModel(runningSample, agentState));
+		List<Map<String, Object>> agentStatistics = singleConsole.getAgentStatisticsData();
+		hazelcastService.put(DIST_MAP_NAME_SAMPLING, perfTestId, new SamplingModel(runningSample, agentState,
+				agentStatistics.isEmpty() ? null : JsonUtils.serialize(agentStatistics)));
 	}
 
 	private String getProperSizeRunningSample(SingleConsole singleConsole) {
@@ -890,12 +928,22 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 	 * @return converted json
 	 */
 	public String getProperSizedStatusString(SingleConsole singleConsole) {
+		return getProperSizedStatusString(getAgentStatusMap(singleConsole));
+	}
+
+	/**
+	 * Get the system data of the agents which are connected to the given console.
+	 *
+	 * @param singleConsole console which is connecting agents
+	 * @return map of agent name and its system data
+	 */
+	public Map<String, SystemDataModel> getAgentStatusMap(SingleConsole singleConsole) {
 		Map<String, SystemDataModel> agentStatusMap = Maps.newHashMap();
 		final int singleConsolePort = singleConsole.getConsolePort();
 		for (AgentStatus each : agentManager.getAttachedAgentStatusSetConnectingToPort(singleConsolePort)) {
 			agentStatusMap.put(each.getAgentName(), each.getSystemDataModel());
 		}
-		return getProperSizedStatusString(agentStatusMap);
+		return agentStatusMap;
 	}
 
 	String getProperSizedStatusString(Map<String, SystemDataModel> agentStatusMap) {
@@ -987,8 +1035,44 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 		perfTest.setTps(parseDoubleWithSafety(totalStatistics, "TPS", 0D));
 		perfTest.setMeanTestTime(parseDoubleWithSafety(totalStatistics, "Mean_Test_Time_(ms)", 0D));
 		perfTest.setPeakTps(parseDoubleWithSafety(totalStatistics, "Peak_TPS", 0D));
+		perfTest.setTestTimeP50(parseDoubleWithSafety(totalStatistics, "Test_Time_P50_(ms)", 0D));
+		perfTest.setTestTimeP90(parseDoubleWithSafety(totalStatistics, "Test_Time_P90_(ms)", 0D));
+		perfTest.setTestTimeP95(parseDoubleWithSafety(totalStatistics, "Test_Time_P95_(ms)", 0D));
+		perfTest.setTestTimeP99(parseDoubleWithSafety(totalStatistics, "Test_Time_P99_(ms)", 0D));
+		perfTest.setTestTimeP999(parseDoubleWithSafety(totalStatistics, "Test_Time_P999_(ms)", 0D));
 		perfTest.setTests(MapUtils.getDouble(totalStatistics, "Tests", 0D).longValue());
 		perfTest.setErrors(MapUtils.getDouble(totalStatistics, "Errors", 0D).longValue());
+		String generatorSaturation = summarizeGeneratorSaturation(MapUtils.getMap(result, "generatorSaturation"));
+		if (StringUtils.isNotEmpty(generatorSaturation)) {
+			LOGGER.warn("Load generators of test {} were saturated. The results may not reflect the target.\n{}",
+				perfTest.getId(), generatorSaturation);
+		}
+		perfTest.setGeneratorSaturation(generatorSaturation);
+	}
+
+	/**
+	 * Summarize the saturations of the load generators found by the console into a line for each.
+	 *
+	 * @param generatorSaturation generator saturation of the statistics data. null if not reported.
+	 * @return summary. empty if no load generator was saturated.
+	 */
+	String summarizeGeneratorSaturation(Map<?, ?> generatorSaturation) {
+		Object saturations = MapUtils.getObject(generatorSaturation, "saturations");
+		if (!(saturations instanceof List)) {
+			return "";
+		}
+		StringBuilder summary = new StringBuilder();
+		for (Object each : (List<?>) saturations) {
+			Map<?, ?> saturation = (Map<?, ?>) each;
+			Object reasons = saturation.get("reasons");
+			summary.append(MapUtils.getString(saturation, "agent")).append(" : ")
+				.append(reasons instanceof Collection ? StringUtils.join((Collection<?>) reasons, ", ") : reasons)
+				.append(" from ").append(DateUtils.dateToString(new Date(MapUtils.getLongValue(saturation, "startTime"))));
+			Long endTime = MapUtils.getLong(saturation, "endTime");
+			summary.append(endTime == null ? " until the end" : " to " + DateUtils.dateToString(new Date(endTime)))
+				.append("\n");
+		}
+		return summary.toString();
 	}
 
 	/**
@@ -1168,10 +1252,16 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 	 * @return interval value.
 	 */
 	public int getMonitorGraphInterval(long testId, String targetIP, int imageWidth) {
-		File monitorDataFile = new File(config.getHome().getPerfTestReportDirectory(String.valueOf(testId)),
-				MONITOR_FILE_PREFIX + targetIP + ".data");
-
+		File monitorDataFile = getMonitorDataFile(testId, targetIP);
 		int pointCount = Math.max(imageWidth, MAX_POINT_COUNT);
+		File monitorReportDataFile = getConvertedDataFile(monitorDataFile);
+		if (monitorReportDataFile != null) {
+			try (ReportDataReader reader = new ReportDataReader(monitorReportDataFile)) {
+				return ReportDataReader.alignInterval(Math.max(reader.getRowCount(MONITOR_GRAPH_KEYS[0]) / pointCount, 1));
+			} catch (IOException e) {
+				LOGGER.info("Error while getting monitor:{} data file:{}", targetIP, monitorReportDataFile);
+			}
+		}
 		FileInputStream in = null;
 		InputStreamReader isr = null;
 		LineNumberReader lnr = null;
@@ -1205,9 +1295,37 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 	 * @return return the data in map
 	 */
 	public Map<String, Object> getMonitorGraph(long testId, String targetIP, int dataInterval) {
+		return getMonitorGraph(testId, targetIP, dataInterval, Downsampling.SAMPLE);
+	}
+
+	/**
+	 * Get system monitor data reduced by the given {@link Downsampling}. The monitor data of the finished test is
+	 * read from the report data format converted by {@link #convertMonitorData(long)}, so that the rollup levels are
+	 * used. Otherwise, records are sampled.
+	 *
+	 * @param testId       test id
+	 * @param targetIP     ip address of the monitor target
+	 * @param dataInterval interval value to get data. Interval value "2" means, get one record for every "2" records.
+	 * @param downsampling the way to reduce every interval records into a point
+	 * @return return the data in map
+	 * @since 3.5.3
+	 */
+	public Map<String, Object> getMonitorGraph(long testId, String targetIP, int dataInterval,
+											   Downsampling downsampling) {
 		Map<String, Object> returnMap = Maps.newHashMap();
-		File monitorDataFile = new File(config.getHome().getPerfTestReportDirectory(String.valueOf(testId)),
-				MONITOR_FILE_PREFIX + targetIP + ".data");
+		File monitorDataFile = getMonitorDataFile(testId, targetIP);
+		File monitorReportDataFile = getConvertedDataFile(monitorDataFile);
+		if (monitorReportDataFile != null) {
+			try (ReportDataReader reader = new ReportDataReader(monitorReportDataFile)) {
+				for (String each : MONITOR_GRAPH_KEYS) {
+					returnMap.put(each, reader.read(each, dataInterval, downsampling));
+				}
+				return returnMap;
+			} catch (IOException e) {
+				LOGGER.info("Error while getting monitor {} data file at {}", targetIP, monitorReportDataFile);
+				returnMap.clear();
+			}
+		}
 		BufferedReader br = null;
 		try {
 			List<Long> userMemoryMetrics = new ArrayList<>();
@@ -1267,6 +1385,114 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 	}
 
 
+	private File getMonitorDataFile(long testId, String targetIP) {
+		return new File(config.getHome().getPerfTestReportDirectory(String.valueOf(testId)),
+				MONITOR_FILE_PREFIX + targetIP + ".data");
+	}
+
+	/**
+	 * Convert the system and plugin monitor data of the finished test into the report data format, so that the
+	 * graphs of the test are read with the rollup levels. The monitor data files are kept as they are and are used
+	 * when the conversion fails.
+	 *
+	 * @param testId test id
+	 * @since 3.5.3
+	 */
+	public void convertMonitorData(long testId) {
+		File reportDir = getReportFileDirectory(testId);
+		File[] files = reportDir.listFiles();
+		if (files == null) {
+			return;
+		}
+		for (File each : files) {
+			if (each.isDirectory()) {
+				File[] pluginDataFiles = each.listFiles((dir, name) -> name.endsWith(".data"));
+				for (File pluginDataFile : pluginDataFiles == null ? new File[0] : pluginDataFiles) {
+					convertDataFile(pluginDataFile, this::convertPluginData);
+				}
+			} else if (each.getName().startsWith(MONITOR_FILE_PREFIX) && each.getName().endsWith(".data")) {
+				convertDataFile(each, this::convertSystemMonitorData);
+			}
+		}
+	}
+
+	/*
+	 * Get the monitor data converted by convertMonitorData. null if it's not converted.
+	 */
+	private File getConvertedDataFile(File dataFile) {
+		File convertedFile = new File(dataFile.getParentFile(), FilenameUtils.getBaseName(dataFile.getName()) + ".bin");
+		if (!dataFile.exists() || !convertedFile.exists() || convertedFile.lastModified() < dataFile.lastModified()) {
+			return null;
+		}
+		return convertedFile;
+	}
+
+	private interface DataConverter {
+		void convert(BufferedReader reader, ReportDataWriter writer) throws IOException;
+	}
+
+	private void convertDataFile(File dataFile, DataConverter converter) {
+		File convertedFile = new File(dataFile.getParentFile(), FilenameUtils.getBaseName(dataFile.getName()) + ".bin");
+		File tempFile = new File(convertedFile.getPath() + ".tmp");
+		deleteQuietly(tempFile);
+		try (BufferedReader br = new BufferedReader(new FileReader(dataFile));
+			 ReportDataWriter writer = new ReportDataWriter(tempFile)) {
+			converter.convert(br, writer);
+		} catch (IOException | NumberFormatException e) {
+			LOGGER.info("Error while converting monitor data file at {}", dataFile);
+			deleteQuietly(tempFile);
+			return;
+		}
+		deleteQuietly(convertedFile);
+		if (!tempFile.renameTo(convertedFile)) {
+			LOGGER.info("Failed to move the converted monitor data into {}", convertedFile);
+			deleteQuietly(tempFile);
+		}
+	}
+
+	private void convertSystemMonitorData(BufferedReader br, ReportDataWriter writer) throws IOException {
+		br.readLine(); // skip the header.
+		String line = br.readLine();
+		while (StringUtils.isNotBlank(line)) {
+			String[] dataList = StringUtils.split(line, ",");
+			writer.append(MONITOR_GRAPH_KEYS[0], parseMonitorValue(dataList, 5));
+			Double free = parseMonitorValue(dataList, 3);
+			Double total = parseMonitorValue(dataList, 4);
+			writer.append(MONITOR_GRAPH_KEYS[1], (free == null || total == null) ? null : total - free);
+			for (int i = 2; i < MONITOR_GRAPH_KEYS.length; i++) {
+				writer.append(MONITOR_GRAPH_KEYS[i], parseMonitorValue(dataList, i + 4));
+			}
+			line = br.readLine();
+		}
+	}
+
+	private void convertPluginData(BufferedReader br, ReportDataWriter writer) throws IOException {
+		String[] headers = getPluginDataHeaders(br.readLine());
+		String line = br.readLine();
+		while (StringUtils.isNotBlank(line)) {
+			String[] records = StringUtils.split(line, ",");
+			for (int i = 0; i < headers.length; i++) {
+				writer.append(headers[i], parseMonitorValue(records, i));
+			}
+			line = br.readLine();
+		}
+	}
+
+	private String[] getPluginDataHeaders(String header) {
+		String[] headers = StringUtils.split(StringUtils.defaultString(header), ",");
+		for (int i = 0; i < headers.length; i++) {
+			headers[i] = headers[i].trim().replaceAll(" ", "_");
+		}
+		return headers;
+	}
+
+	private Double parseMonitorValue(String[] data, int index) {
+		if (data.length <= index || NULL_STRING.equals(data[index]) || UNDEFINED_STRING.equals(data[index])) {
+			return null;
+		}
+		return Double.valueOf(data[index]);
+	}
+
 	private <T> void addCustomData(List<T> list, int index, T[] data) {
 		if (data.length > index) {
 			list.add(data[index]);
@@ -1283,6 +1509,81 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 		return config.getHome().getPerfTestReportDirectory(String.valueOf(testId));
 	}
 
+	/**
+	 * Get the failure counts of the given test by their categories. They are summed up from the
+	 * error categories report which is written in each sampling, so the counts of a running test
+	 * are the ones sampled so far.
+	 *
+	 * @param testId test id
+	 * @return failure counts by the category in total and of each test. empty if no test failed.
+	 * @since 3.5.3
+	 */
+	public Map<String, Object> getErrorCategories(long testId) {
+		Map<String, Long> total = new TreeMap<>();
+		Map<Integer, Map<String, Long>> tests = new TreeMap<>();
+		File errorCategoriesFile = new File(getReportFileDirectory(testId), SingleConsole.REPORT_ERROR_CATEGORIES_CSV);
+		if (errorCategoriesFile.exists()) {
+			String separator = config.getCsvSeparator();
+			try (BufferedReader reader = new BufferedReader(new FileReader(errorCategoriesFile))) {
+				// Skip the header.
+				String line = reader.readLine();
+				while ((line = reader.readLine()) != null) {
+					String[] columns = StringUtils.splitByWholeSeparatorPreserveAllTokens(line, separator);
+					if (columns.length < 4) {
+						continue;
+					}
+					long errors = NumberUtils.toLong(columns[3]);
+					total.merge(columns[2], errors, Long::sum);
+					tests.computeIfAbsent(NumberUtils.toInt(columns[1]), key -> new TreeMap<>())
+						.merge(columns[2], errors, Long::sum);
+				}
+			} catch (IOException e) {
+				LOGGER.error("Failed to read the error categories of {}", testId, e);
+			}
+		}
+		return buildMap("total", total, "tests", tests);
+	}
+
+	/**
+	 * Get the time buckets of the given test. They are read from the time bucket report which is
+	 * written as the buckets are closed, so the buckets of a running test are the ones closed so far.
+	 *
+	 * @param testId test id
+	 * @return start times of the buckets in milliseconds since Epoch, and TPS, errors, mean and max
+	 * 			test times in milliseconds of each bucket. empty if the tests are not counted in the time buckets.
+	 * @since 3.5.3
+	 */
+	public Map<String, Object> getTimeBuckets(long testId) {
+		List<Long> startTimes = new ArrayList<>();
+		List<Double> tps = new ArrayList<>();
+		List<Long> errors = new ArrayList<>();
+		List<Double> meanTestTimes = new ArrayList<>();
+		List<Long> maxTestTimes = new ArrayList<>();
+		File timeBucketFile = new File(getReportFileDirectory(testId), TimeBucketAccumulator.REPORT_CSV);
+		if (timeBucketFile.exists()) {
+			String separator = config.getCsvSeparator();
+			try (BufferedReader reader = new BufferedReader(new FileReader(timeBucketFile))) {
+				// Skip the header.
+				String line = reader.readLine();
+				while ((line = reader.readLine()) != null) {
+					String[] columns = StringUtils.splitByWholeSeparatorPreserveAllTokens(line, separator);
+					if (columns.length < 5) {
+						continue;
+					}
+					startTimes.add(NumberUtils.toLong(columns[0]));
+					tps.add(NumberUtils.toDouble(columns[1]));
+					errors.add(NumberUtils.toLong(columns[2]));
+					meanTestTimes.add(NumberUtils.toDouble(columns[3]));
+					maxTestTimes.add(NumberUtils.toLong(columns[4]));
+				}
+			} catch (IOException e) {
+				LOGGER.error("Failed to read the time buckets of {}", testId, e);
+			}
+		}
+		return buildMap("startTimes", startTimes, "tps", tps, "errors", errors, "meanTestTimes", meanTestTimes,
+			"maxTestTimes", maxTestTimes);
+	}
+
 	/**
 	 * Get interval value of the monitor data of a plugin, like jvm monitor plugin.
 	 * The usage of interval value is same as system monitor data.
@@ -1294,7 +1595,19 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 	 * @return interval value.
 	 */
 	public int getReportPluginGraphInterval(long testId, String plugin, String kind, int imageWidth) {
-		return getRecordInterval(imageWidth, getReportPluginDataFile(testId, plugin, kind));
+		File pluginDataFile = getReportPluginDataFile(testId, plugin, kind);
+		File pluginReportDataFile = getConvertedDataFile(pluginDataFile);
+		if (pluginReportDataFile != null) {
+			try (BufferedReader br = new BufferedReader(new FileReader(pluginDataFile));
+				 ReportDataReader reader = new ReportDataReader(pluginReportDataFile)) {
+				String[] headers = getPluginDataHeaders(br.readLine());
+				int rowCount = headers.length == 0 ? 0 : reader.getRowCount(headers[0]);
+				return Math.max(rowCount / Math.max(imageWidth, MAX_POINT_COUNT), 1);
+			} catch (IOException e) {
+				LOGGER.info("Error while getting monitor: {} data file:{}", plugin, pluginReportDataFile);
+			}
+		}
+		return getRecordInterval(imageWidth, pluginDataFile);
 	}
 
 	/**
@@ -1373,6 +1686,25 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 	public Map<String, Object> getReportPluginGraph(long testId, String plugin, String kind, int interval) {
 		Map<String, Object> returnMap = Maps.newHashMap();
 		File pluginDataFile = getReportPluginDataFile(testId, plugin, kind);
+		File pluginReportDataFile = getConvertedDataFile(pluginDataFile);
+		if (pluginReportDataFile != null) {
+			try (BufferedReader br = new BufferedReader(new FileReader(pluginDataFile));
+				 ReportDataReader reader = new ReportDataReader(pluginReportDataFile)) {
+				String[] headers = getPluginDataHeaders(br.readLine());
+				returnMap.put("header", "['" + StringUtils.join(headers, "','") + "']");
+				for (String each : headers) {
+					StringBuilder data = new StringBuilder("[");
+					for (Float value : reader.read(each, interval)) {
+						data.append(data.length() == 1 ? "" : ",").append(value);
+					}
+					returnMap.put(each, data.append("]").toString());
+				}
+				return returnMap;
+			} catch (IOException e) {
+				LOGGER.info("Error while getting monitor: {} data file:{}", plugin, pluginReportDataFile);
+				returnMap.clear();
+			}
+		}
 		BufferedReader br = null;
 		try {
 			br = new BufferedReader(new FileReader(pluginDataFile));
@@ -1437,8 +1769,11 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 	 * @return json list
 	 */
 	public List<Float> getSingleReportData(long testId, String key, int interval) {
-		File reportDataFile = getReportDataFile(testId, key);
-		return getFileDataAsList(reportDataFile, interval);
+		File reportDataFile = getBinaryReportDataFile(testId);
+		if (reportDataFile.exists()) {
+			return getReportData(testId, key, true, interval).get(key);
+		}
+		return getFileDataAsList(getReportDataFile(testId, key), interval);
 	}
 
 	/**
@@ -1451,14 +1786,98 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 	 * @return list containing label and tps value list
 	 */
 	public Map<String, List<Float>> getReportData(long testId, String key, boolean onlyTotal, int interval) {
+		return getReportData(testId, key, onlyTotal, interval, Downsampling.SAMPLE);
+	}
+
+	/**
+	 * Get list that contains test report data reduced by the given {@link Downsampling}. The downsampling is only
+	 * applied to the reports stored in {@link ReportDataFormat#REPORT_DATA_FILE}. Otherwise, rows are sampled.
+	 *
+	 * @param testId       test id
+	 * @param key          report key
+	 * @param onlyTotal    true if only total show be passed
+	 * @param interval     interval to collect data
+	 * @param downsampling the way to reduce every interval rows into a point
+	 * @return list containing label and tps value list
+	 * @since 3.5.3
+	 */
+	public Map<String, List<Float>> getReportData(long testId, String key, boolean onlyTotal, int interval,
+												  Downsampling downsampling) {
 		Map<String, List<Float>> resultMap = new TreeMap<>();
+		File reportDataFile = getBinaryReportDataFile(testId);
+		if (reportDataFile.exists()) {
+			try (ReportDataReader reader = new ReportDataReader(reportDataFile)) {
+				readReportData(reader, key, onlyTotal, interval, downsampling, resultMap);
+			} catch (IOException e) {
+				LOGGER.error("Report data retrieval is failed: {}", e.getMessage());
+				LOGGER.debug("Trace is : ", e);
+			}
+			return resultMap;
+		}
 		List<File> reportDataFiles = onlyTotal ? Lists.newArrayList(getReportDataFile(testId, key)) : getReportDataFiles(testId, key);
 		reportDataFiles.forEach(each -> resultMap.put(removeExtension(each.getName()), getFileDataAsList(each, interval)));
 		return resultMap;
 	}
 
+	private void readReportData(ReportDataReader reader, String key, boolean onlyTotal, int interval,
+								Downsampling downsampling, Map<String, List<Float>> resultMap) throws IOException {
+		List<String> columns = onlyTotal ? Lists.newArrayList(key) : reader.getColumnNames(key);
+		for (String each : columns) {
+			resultMap.put(each, reader.read(each, interval, downsampling));
+		}
+	}
+
+	/**
+	 * Get the graph data of the given report keys. The interval is calculated by the first key as
+	 * {@link #getReportDataInterval(long, String, int)} does, and
+	 * {@link ReportDataFormat#REPORT_DATA_FILE} is opened once for the interval and all keys.
+	 *
+	 * @param testId       test id
+	 * @param keys         report keys
+	 * @param onlyTotal    true if only total show be passed
+	 * @param imgWidth     image width
+	 * @param downsampling the way to reduce every interval rows into a point
+	 * @param dataByKey    map to which the data of each key is put
+	 * @return interval used
+	 * @since 3.5.3
+	 */
+	public int getReportGraphData(long testId, String[] keys, boolean onlyTotal, int imgWidth,
+								  Downsampling downsampling, Map<String, Object> dataByKey) {
+		File reportDataFile = getBinaryReportDataFile(testId);
+		if (!reportDataFile.exists()) {
+			int interval = getReportDataInterval(testId, keys[0], imgWidth);
+			for (String each : keys) {
+				dataByKey.put(each, getReportData(testId, each, onlyTotal, interval, downsampling));
+			}
+			return interval;
+		}
+		int interval = 0;
+		// Keys which are not read by a failure are left empty.
+		for (String each : keys) {
+			dataByKey.put(each, new TreeMap<String, List<Float>>());
+		}
+		try (ReportDataReader reader = new ReportDataReader(reportDataFile)) {
+			interval = getReportDataInterval(reader, testId, keys[0], imgWidth);
+			for (String each : keys) {
+				Map<String, List<Float>> resultMap = new TreeMap<>();
+				readReportData(reader, each, onlyTotal, interval, downsampling, resultMap);
+				dataByKey.put(each, resultMap);
+			}
+		} catch (IOException e) {
+			LOGGER.error("Report data retrieval is failed: {}", e.getMessage());
+			LOGGER.debug("Trace is : ", e);
+		}
+		return interval;
+	}
+
+	private File getBinaryReportDataFile(long testId) {
+		File reportFolder = config.getHome().getPerfTestReportDirectory(String.valueOf(testId));
+		return new File(reportFolder, REPORT_DATA_FILE);
+	}
+
 	/**
-	 * Get a single file for the given report key.
+	 * Get a single file for the given report key. It's used for the reports written in the text format
+	 * before {@link ReportDataFormat#REPORT_DATA_FILE} is introduced.
 	 *
 	 * @param testId test id
 	 * @param key    key
@@ -1470,7 +1889,8 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 	}
 
 	/**
-	 * Get files respectively if there are multiple tests.
+	 * Get files respectively if there are multiple tests. It's used for the reports written in the
+	 * text format.
 	 *
 	 * @param testId test id
 	 * @param key    report key
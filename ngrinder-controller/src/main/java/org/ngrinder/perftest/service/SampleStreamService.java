@@ -0,0 +1,319 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.perftest.service;
+
+import lombok.RequiredArgsConstructor;
+import org.ngrinder.common.util.JsonUtils;
+import org.ngrinder.infra.hazelcast.HazelcastService;
+import org.ngrinder.infra.hazelcast.topic.listener.TopicListener;
+import org.ngrinder.infra.hazelcast.topic.message.TopicEvent;
+import org.ngrinder.infra.hazelcast.topic.subscriber.TopicSubscriber;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.ngrinder.common.constant.CacheConstants.DIST_MAP_NAME_MONITORING;
+import static org.ngrinder.common.constant.CacheConstants.SAMPLE_TOPIC_LISTENER_NAME;
+import static org.ngrinder.common.constant.CacheConstants.SAMPLE_TOPIC_NAME;
+
+/**
+ * Push the samples of running tests to the viewers through server-sent events.
+ * <p/>
+ * The controller running a test publishes each sample to all controllers in the cluster once.
+ * Each controller keeps the last sample of the test and sends the viewers connected to it only
+ * the values changed from the last sample. A viewer gets the whole sample first when it connects
+ * or reconnects.
+ * <ul>
+ * <li><code>snapshot</code> event : <code>{"version": 1, "data": {"perf": ..., "agent": ..., "monitor": ...}}</code></li>
+ * <li><code>delta</code> event : <code>{"version": 2, "changed": {"/perf/totalStatistics/TPS": 10.0}, "removed": []}</code></li>
+ * <li><code>end</code> event : the test is finished.</li>
+ * </ul>
+ * The keys of delta are JSON pointers of the changed values. A list whose size is changed is sent
+ * as a whole.
+ * <p/>
+ * The samples of a test are kept only while it has viewers in this controller.
+ *
+ * @since 3.5.3
+ */
+@Service
+@RequiredArgsConstructor
+public class SampleStreamService implements TopicListener<String> {
+	private static final Logger LOGGER = LoggerFactory.getLogger(SampleStreamService.class);
+
+	/**
+	 * Viewers reconnect after the timeout and they are given the whole sample again.
+	 */
+	private static final long STREAM_TIMEOUT = TimeUnit.MINUTES.toMillis(30);
+
+	private final HazelcastService hazelcastService;
+
+	private final TopicSubscriber topicSubscriber;
+
+	private final Map<Long, SampleStream> streams = new ConcurrentHashMap<>();
+
+	@PostConstruct
+	public void init() {
+		topicSubscriber.addListener(SAMPLE_TOPIC_LISTENER_NAME, this);
+	}
+
+	/**
+	 * Publish the sample of the given test to all controllers. The target host monitoring data
+	 * collected last is included.
+	 *
+	 * @param perfTestId perf test id
+	 * @param perf       statistics data of the console
+	 * @param agent      agent system data
+	 */
+	public void publish(long perfTestId, Map<String, Object> perf, Map<String, ?> agent) {
+		StringBuilder sample = new StringBuilder("{\"perf\":").append(JsonUtils.serialize(perf))
+			.append(",\"agent\":").append(JsonUtils.serialize(agent));
+		String monitor = hazelcastService.get(DIST_MAP_NAME_MONITORING, perfTestId);
+		if (monitor != null) {
+			sample.append(",\"monitor\":").append(monitor);
+		}
+		sample.append("}");
+		hazelcastService.publish(SAMPLE_TOPIC_NAME, new TopicEvent<>(SAMPLE_TOPIC_LISTENER_NAME,
+			String.valueOf(perfTestId), sample.toString()));
+	}
+
+	/**
+	 * Notify all controllers that the given test is finished.
+	 *
+	 * @param perfTestId perf test id
+	 */
+	public void finish(long perfTestId) {
+		hazelcastService.publish(SAMPLE_TOPIC_NAME, new TopicEvent<String>(SAMPLE_TOPIC_LISTENER_NAME,
+			String.valueOf(perfTestId), null));
+	}
+
+	@Override
+	public void execute(TopicEvent<String> event) {
+		long perfTestId = Long.parseLong(event.getKey());
+		if (event.getData() == null) {
+			SampleStream stream = streams.remove(perfTestId);
+			if (stream != null) {
+				stream.end();
+			}
+		} else {
+			// A sample published after the test is finished doesn't create the stream again.
+			SampleStream stream = streams.get(perfTestId);
+			if (stream != null) {
+				stream.update(event.getData());
+			}
+		}
+	}
+
+	/**
+	 * Subscribe the samples of the given test.
+	 *
+	 * @param perfTestId perf test id
+	 * @param running    tells if the test is running. Otherwise, the emitter is ended right away.
+	 *                   It's checked again after subscribing not to miss the end of the test.
+	 * @return emitter of the sample events
+	 */
+	public SseEmitter subscribe(long perfTestId, BooleanSupplier running) {
+		SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT);
+		if (!running.getAsBoolean()) {
+			end(emitter);
+			return emitter;
+		}
+		Runnable unsubscribe = () -> unsubscribe(perfTestId, emitter);
+		emitter.onCompletion(unsubscribe);
+		emitter.onTimeout(unsubscribe);
+		emitter.onError(e -> unsubscribe.run());
+		SampleStream stream = streams.compute(perfTestId, (id, existing) -> {
+			SampleStream each = existing == null ? new SampleStream() : existing;
+			each.add(emitter);
+			return each;
+		});
+		if (!running.getAsBoolean()) {
+			// The test was finished before subscribing, so the end event was not sent to it.
+			unsubscribe.run();
+			end(emitter);
+		} else {
+			stream.sendSnapshot(emitter);
+		}
+		return emitter;
+	}
+
+	private void unsubscribe(long perfTestId, SseEmitter emitter) {
+		streams.computeIfPresent(perfTestId, (id, stream) -> stream.remove(emitter) ? null : stream);
+	}
+
+	private static void end(SseEmitter emitter) {
+		try {
+			emitter.send(SseEmitter.event().name("end").data(""));
+			emitter.complete();
+		} catch (IOException | IllegalStateException e) {
+			emitter.completeWithError(e);
+		}
+	}
+
+	/**
+	 * Get the count of the tests having viewers in this controller.
+	 *
+	 * @return count of the tests
+	 */
+	int getStreamCount() {
+		return streams.size();
+	}
+
+	/**
+	 * Samples of a test and the viewers of them in this controller.
+	 */
+	static class SampleStream {
+		private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+		private long version = 0;
+		private String json;
+		// The last sample deserialized only when it's compared with the next one.
+		private Map<String, Object> sample;
+
+		void update(String json) {
+			String delta;
+			String id;
+			synchronized (this) {
+				id = String.valueOf(++version);
+				if (emitters.isEmpty()) {
+					this.json = json;
+					this.sample = null;
+					return;
+				}
+				Map<String, Object> current = deserialize(json);
+				Map<String, Object> changed = new LinkedHashMap<>();
+				List<String> removed = new ArrayList<>();
+				diff("", this.json == null ? null : getSample(), current, changed, removed);
+				this.json = json;
+				this.sample = current;
+				Map<String, Object> message = new LinkedHashMap<>();
+				message.put("version", version);
+				message.put("changed", changed);
+				message.put("removed", removed);
+				delta = JsonUtils.serialize(message);
+			}
+			// The same message is sent to all viewers.
+			for (SseEmitter each : emitters) {
+				send(each, SseEmitter.event().id(id).name("delta").data(delta));
+			}
+		}
+
+		synchronized void add(SseEmitter emitter) {
+			emitters.add(emitter);
+		}
+
+		/**
+		 * Remove the given viewer.
+		 *
+		 * @return true if no viewer is left
+		 */
+		synchronized boolean remove(SseEmitter emitter) {
+			emitters.remove(emitter);
+			return emitters.isEmpty();
+		}
+
+		void sendSnapshot(SseEmitter emitter) {
+			String snapshot = null;
+			String id = null;
+			synchronized (this) {
+				if (json != null) {
+					id = String.valueOf(version);
+					snapshot = "{\"version\":" + version + ",\"data\":" + json + "}";
+				}
+			}
+			if (snapshot != null) {
+				send(emitter, SseEmitter.event().id(id).name("snapshot").data(snapshot));
+			}
+		}
+
+		void end() {
+			for (SseEmitter each : emitters) {
+				SampleStreamService.end(each);
+			}
+			emitters.clear();
+		}
+
+		private Map<String, Object> getSample() {
+			if (sample == null) {
+				sample = deserialize(json);
+			}
+			return sample;
+		}
+
+		private void send(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+			try {
+				emitter.send(event);
+			} catch (IOException | IllegalStateException e) {
+				LOGGER.debug("Sample viewer is disconnected : {}", e.getMessage());
+				emitters.remove(emitter);
+				emitter.completeWithError(e);
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		private static Map<String, Object> deserialize(String json) {
+			return JsonUtils.deserialize(json, HashMap.class);
+		}
+	}
+
+	/**
+	 * Collect the values changed from the previous one into the JSON pointer keyed map.
+	 *
+	 * @param path     JSON pointer of the given values
+	 * @param previous previous value
+	 * @param current  current value
+	 * @param changed  map in which the changed values are put
+	 * @param removed  list in which the pointers of the removed values are put
+	 */
+	@SuppressWarnings("unchecked")
+	static void diff(String path, Object previous, Object current, Map<String, Object> changed, List<String> removed) {
+		if (previous instanceof Map && current instanceof Map) {
+			Map<String, Object> previousMap = (Map<String, Object>) previous;
+			Map<String, Object> currentMap = (Map<String, Object>) current;
+			for (Map.Entry<String, Object> each : currentMap.entrySet()) {
+				String childPath = path + "/" + escape(each.getKey());
+				if (previousMap.containsKey(each.getKey())) {
+					diff(childPath, previousMap.get(each.getKey()), each.getValue(), changed, removed);
+				} else {
+					changed.put(childPath, each.getValue());
+				}
+			}
+			for (String each : previousMap.keySet()) {
+				if (!currentMap.containsKey(each)) {
+					removed.add(path + "/" + escape(each));
+				}
+			}
+		} else if (previous instanceof List && current instanceof List
+			&& ((List<?>) previous).size() == ((List<?>) current).size()) {
+			List<?> previousList = (List<?>) previous;
+			List<?> currentList = (List<?>) current;
+			for (int i = 0; i < currentList.size(); i++) {
+				diff(path + "/" + i, previousList.get(i), currentList.get(i), changed, removed);
+			}
+		} else if (!Objects.equals(previous, current)) {
+			changed.put(path, current);
+		}
+	}
+
+	private static String escape(String key) {
+		return key.replace("~", "~0").replace("/", "~1");
+	}
+}
@@ -18,6 +18,7 @@ import net.grinder.SingleConsole.SamplingLifeCycleListener;
 import net.grinder.statistics.StatisticsSet;
 import org.ngrinder.infra.schedule.ScheduledTaskService;
 import org.ngrinder.perftest.service.PerfTestService;
+import org.ngrinder.perftest.service.SampleStreamService;
 
 import java.io.File;
 
@@ -36,14 +37,20 @@ public class PerfTestSamplingCollectorListener implements SamplingLifeCycleListe
 	 * @param singleConsole        singleConsole to monitor
 	 * @param perfTestId           perfTest id which this sampling start
 	 * @param perfTestService      perfTestService
+	 * @param sampleStreamService  sampleStreamService
 	 * @param scheduledTaskService scheduledTaskService
 	 */
 	public PerfTestSamplingCollectorListener(final SingleConsole singleConsole, final Long perfTestId,
 	                                         final PerfTestService perfTestService,
+	                                         final SampleStreamService sampleStreamService,
 	                                         ScheduledTaskService scheduledTaskService) {
 		this.scheduledTaskService = scheduledTaskService;
 		// Make it separate asyc call to remove the delay on the sampling.
-		this.runnable = () -> perfTestService.saveStatistics(singleConsole, perfTestId);
+		this.runnable = () -> {
+			perfTestService.saveStatistics(singleConsole, perfTestId);
+			sampleStreamService.publish(perfTestId, singleConsole.getStatisticsData(),
+				perfTestService.getAgentStatusMap(singleConsole));
+		};
 	}
 
 	@Override
@@ -28,6 +28,7 @@ import org.ngrinder.script.model.FileEntry;
 import org.ngrinder.script.model.FileType;
 import org.ngrinder.script.repository.FileEntryRepository;
 import org.ngrinder.script.repository.GitHubFileEntryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Component;
 import org.tmatesoft.svn.core.wc.SVNRevision;
@@ -35,6 +36,8 @@ import org.tmatesoft.svn.core.wc.SVNRevision;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
@@ -63,6 +66,9 @@ public class GroovyMavenProjectScriptHandler extends GroovyScriptHandler impleme
 	private static final String GROOVY = "src/main/groovy/";
 	private static final String LIB = "lib/";
 
+	@Autowired
+	private MavenDependencyCache mavenDependencyCache;
+
 	@Override
 	public boolean canHandle(FileEntry fileEntry) {
 		String path = fileEntry.getPath();
@@ -173,6 +179,18 @@ public class GroovyMavenProjectScriptHandler extends GroovyScriptHandler impleme
 	protected void prepareDistMore(Long testId, User user, FileEntry script, File distDir,
 	                               PropertiesWrapper properties, ProcessingResultPrintStream processingResult) {
 		String pomPathInSVN = PathUtils.join(getBasePath(script), "pom.xml");
+		File libDir = new File(distDir, "lib");
+		String cacheKey = mavenDependencyCache.getKey(new File(distDir, "pom.xml"));
+		if (cacheKey != null && mavenDependencyCache.restore(cacheKey, libDir)) {
+			processingResult.printf("\nDependencies in %s was restored from the cache.\n", pomPathInSVN);
+			LOGGER.info("Dependencies in {} is restored into {}/lib folder from the cache", pomPathInSVN,
+					distDir.getAbsolutePath());
+			FileUtils.deleteQuietly(new File(distDir, "pom.xml"));
+			processingResult.setSuccess(true);
+			return;
+		}
+		String[] privateLibs = libDir.list();
+
 		MavenCli cli = new MavenCli();
 		processingResult.println("\nCopy dependencies by running 'mvn dependency:copy-dependencies"
 				+ " -DoutputDirectory=./lib -DexcludeScope=provided'");
@@ -189,6 +207,10 @@ public class GroovyMavenProjectScriptHandler extends GroovyScriptHandler impleme
 		if (success) {
 			processingResult.printf("\nDependencies in %s was copied.\n", pomPathInSVN);
 			LOGGER.info("Dependencies in {} is copied into {}/lib folder", pomPathInSVN, distDir.getAbsolutePath());
+			if (cacheKey != null) {
+				mavenDependencyCache.store(cacheKey, libDir, privateLibs == null ? Collections.<String>emptyList()
+						: Arrays.asList(privateLibs));
+			}
 		} else {
 			processingResult.printf("\nDependencies copy in %s is failed.\n", pomPathInSVN);
 			LOGGER.info("Dependencies copy in {} is failed.", pomPathInSVN);
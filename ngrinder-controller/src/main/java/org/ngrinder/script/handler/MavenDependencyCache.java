@@ -0,0 +1,195 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.script.handler;
+
+import org.apache.commons.io.FileUtils;
+import org.ngrinder.infra.config.Config;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static org.apache.commons.codec.digest.DigestUtils.sha256Hex;
+import static org.ngrinder.common.constant.ControllerConstants.PROP_CONTROLLER_MAVEN_DEPENDENCY_CACHE_SIZE;
+
+/**
+ * Cache of the dependencies copied by maven for groovy maven projects.
+ * <p/>
+ * The dependencies are kept per hash of pom.xml and are copied into the distribution directory
+ * when the same pom.xml is distributed again. They are copied rather than linked because the
+ * distribution directory is writable by the validated script, and the cached files are made
+ * read only. The cache is bounded by
+ * <code>controller.maven_dependency_cache_size</code> in MB and the least recently used entries
+ * are evicted first.
+ *
+ * @since 3.5.3
+ */
+@Component
+public class MavenDependencyCache {
+	private static final Logger LOGGER = LoggerFactory.getLogger(MavenDependencyCache.class);
+	private static final String TEMP_PREFIX = ".";
+	/**
+	 * Versions which may be resolved to the different artifacts with the same pom.xml.
+	 */
+	private static final String[] VOLATILE_VERSIONS = {"-SNAPSHOT", "<version>LATEST", "<version>RELEASE",
+			"<version>[", "<version>("};
+
+	private final File directory;
+	private final long maxSize;
+
+	@Autowired
+	public MavenDependencyCache(Config config) {
+		this(config.getHome().getMavenDependencyCacheDirectory(),
+				config.getControllerProperties().getPropertyLong(PROP_CONTROLLER_MAVEN_DEPENDENCY_CACHE_SIZE) * 1024 * 1024);
+	}
+
+	MavenDependencyCache(File directory, long maxSize) {
+		this.directory = directory;
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Get the cache key of the given pom.xml.
+	 *
+	 * @param pom pom.xml
+	 * @return cache key. null if the cache is disabled or the dependencies of the pom.xml may
+	 * change without changing the pom.xml itself.
+	 */
+	public String getKey(File pom) {
+		if (maxSize <= 0 || !pom.exists()) {
+			return null;
+		}
+		try {
+			String content = FileUtils.readFileToString(pom, UTF_8);
+			for (String each : VOLATILE_VERSIONS) {
+				if (content.contains(each)) {
+					return null;
+				}
+			}
+			return sha256Hex(content);
+		} catch (IOException e) {
+			LOGGER.warn("Failed to read {} : {}", pom, e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Copy the cached dependencies into the given lib directory.
+	 *
+	 * @param key    cache key
+	 * @param libDir lib directory of the distribution
+	 * @return true if the dependencies were cached
+	 */
+	public synchronized boolean restore(String key, File libDir) {
+		File cached = new File(directory, key);
+		File[] files = cached.listFiles();
+		if (files == null) {
+			return false;
+		}
+		try {
+			FileUtils.forceMkdir(libDir);
+			for (File each : files) {
+				File target = new File(libDir, each.getName());
+				// Private libraries in the project win like copy-dependencies does not overwrite them.
+				if (!target.exists()) {
+					FileUtils.copyFile(each, target);
+					//noinspection ResultOfMethodCallIgnored
+					target.setWritable(true);
+				}
+			}
+		} catch (IOException e) {
+			LOGGER.warn("Failed to restore the cached dependencies {} : {}", key, e.getMessage());
+			return false;
+		}
+		// Touch to be evicted later.
+		//noinspection ResultOfMethodCallIgnored
+		cached.setLastModified(System.currentTimeMillis());
+		return true;
+	}
+
+	/**
+	 * Keep the dependencies copied by maven.
+	 *
+	 * @param key          cache key
+	 * @param libDir       lib directory of the distribution
+	 * @param privateFiles names of the files which were in the lib directory before maven ran
+	 */
+	public synchronized void store(String key, File libDir, Collection<String> privateFiles) {
+		File cached = new File(directory, key);
+		File[] files = libDir.listFiles();
+		if (cached.exists() || files == null) {
+			return;
+		}
+		File temp = new File(directory, TEMP_PREFIX + key);
+		try {
+			delete(temp);
+			FileUtils.forceMkdir(temp);
+			for (File each : files) {
+				if (each.isFile() && !privateFiles.contains(each.getName())) {
+					File target = new File(temp, each.getName());
+					FileUtils.copyFile(each, target);
+					//noinspection ResultOfMethodCallIgnored
+					target.setReadOnly();
+				}
+			}
+			Files.move(temp.toPath(), cached.toPath(), ATOMIC_MOVE);
+		} catch (IOException e) {
+			LOGGER.warn("Failed to cache the dependencies {} : {}", key, e.getMessage());
+			delete(temp);
+			return;
+		}
+		evict();
+	}
+
+	private void evict() {
+		File[] entries = directory.listFiles(file -> file.isDirectory() && !file.getName().startsWith(TEMP_PREFIX));
+		if (entries == null) {
+			return;
+		}
+		long size = 0;
+		for (File each : entries) {
+			size += FileUtils.sizeOfDirectory(each);
+		}
+		Arrays.sort(entries, Comparator.comparingLong(File::lastModified));
+		for (File each : entries) {
+			if (size <= maxSize) {
+				break;
+			}
+			size -= FileUtils.sizeOfDirectory(each);
+			delete(each);
+			LOGGER.info("Cached dependencies {} are evicted.", each.getName());
+		}
+	}
+
+	private void delete(File entry) {
+		// Read only files can't be deleted on Windows.
+		File[] files = entry.listFiles();
+		if (files != null) {
+			for (File each : files) {
+				//noinspection ResultOfMethodCallIgnored
+				each.setWritable(true);
+			}
+		}
+		FileUtils.deleteQuietly(entry);
+	}
+}
@@ -270,7 +270,7 @@ public class PerfTestControllerTest extends AbstractPerfTestTransactionalTest {
 		PerfTest test = createPerfTest(testName, Status.FINISHED, new Date());
 		controller.getReport(test.getId());
 
-		perfTestApiController.getPerfGraph(test.getId(), "TPS,mean_time(ms)", true, 0);
+		perfTestApiController.getPerfGraph(test.getId(), "TPS,mean_time(ms)", true, 0, "sample");
 
 		perfTestApiController.getReportSection(getTestUser(), test.getId(), 700);
 	}
@@ -279,10 +279,10 @@ public class PerfTestControllerTest extends AbstractPerfTestTransactionalTest {
 	public void testGetMonitorData() {
 		String testName = "test1";
 		PerfTest test = createPerfTest(testName, Status.FINISHED, new Date());
-		perfTestApiController.getMonitorGraph(test.getId(), "127.0.0.1", 0);
+		perfTestApiController.getMonitorGraph(test.getId(), "127.0.0.1", 0, "sample");
 
 		long testId = 123456L;
-		perfTestApiController.getMonitorGraph(testId, "127.0.0.1", 700);
+		perfTestApiController.getMonitorGraph(testId, "127.0.0.1", 700, "sample");
 	}
 
 	@Test
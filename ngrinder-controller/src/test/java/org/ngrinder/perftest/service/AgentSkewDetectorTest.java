@@ -0,0 +1,45 @@
+package org.ngrinder.perftest.service;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class AgentSkewDetectorTest {
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testDetect() {
+		List<Map<String, Object>> agentStatistics = new ArrayList<>();
+		agentStatistics.add(agent("agent1", 100, 10));
+		agentStatistics.add(agent("agent2", 105, 11));
+		agentStatistics.add(agent("agent3", 50, 10));
+
+		Map<String, Object> result = AgentSkewDetector.detect(agentStatistics, 0.2);
+
+		Map<String, Object> medians = (Map<String, Object>) result.get("medians");
+		assertThat(medians.get(AgentSkewDetector.KEY_TPS)).isEqualTo(100D);
+		assertThat(medians.get(AgentSkewDetector.KEY_MEAN_TEST_TIME)).isEqualTo(10D);
+		List<Map<String, Object>> agents = (List<Map<String, Object>>) result.get("agents");
+		assertThat(agents.get(0).get("skewed")).isEqualTo(false);
+		assertThat(agents.get(1).get("skewed")).isEqualTo(false);
+		assertThat(agents.get(2).get("skewed")).isEqualTo(true);
+		assertThat(agents.get(2).get("TPS_Deviation")).isEqualTo(-0.5D);
+	}
+
+	@Test
+	public void testDeviationFromZeroMedian() {
+		assertThat(AgentSkewDetector.deviation(0, 0)).isEqualTo(0D);
+		assertThat(AgentSkewDetector.deviation(3, 0)).isEqualTo(1D);
+		assertThat(AgentSkewDetector.median(Collections.<Map<String, Object>>emptyList(), "TPS")).isEqualTo(0D);
+	}
+
+	private Map<String, Object> agent(String name, double tps, double meanTestTime) {
+		Map<String, Object> agent = new HashMap<>();
+		agent.put("agent", name);
+		agent.put(AgentSkewDetector.KEY_TPS, tps);
+		agent.put(AgentSkewDetector.KEY_MEAN_TEST_TIME, meanTestTime);
+		return agent;
+	}
+}
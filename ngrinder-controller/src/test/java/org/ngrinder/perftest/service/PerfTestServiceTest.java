@@ -16,6 +16,7 @@ package org.ngrinder.perftest.service;
 import net.grinder.StopReason;
 import net.grinder.common.GrinderProperties;
 import net.grinder.console.model.ConsoleProperties;
+import org.apache.commons.io.FileUtils;
 import org.junit.Before;
 import org.junit.Test;
 import org.ngrinder.common.model.Home;
@@ -27,6 +28,7 @@ import org.ngrinder.monitor.controller.model.SystemDataModel;
 import org.ngrinder.monitor.share.domain.SystemInfo;
 import org.ngrinder.perftest.repository.PerfTestRepository;
 import org.ngrinder.perftest.service.monitor.MonitorClientService;
+import org.ngrinder.report.Downsampling;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.data.domain.Page;
@@ -35,6 +37,7 @@ import org.springframework.data.domain.Pageable;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.*;
 import java.util.function.Predicate;
 
@@ -170,6 +173,12 @@ public class PerfTestServiceTest extends AbstractPerfTestTransactionalTest {
 		// Then
 		assertFalse(spiedService.getSingleReportData(testId, "TPS", interval).isEmpty());
 		assertFalse(spiedService.getSingleReportData(testId, "Mean_Test_Time_(ms)", interval).isEmpty());
+
+		Map<String, Object> graphData = new HashMap<>();
+		assertThat(spiedService.getReportGraphData(testId, new String[]{"TPS", "Mean_Test_Time_(ms)"}, true, 700,
+			Downsampling.SAMPLE, graphData), is(interval));
+		assertFalse(((Map) graphData.get("TPS")).isEmpty());
+		assertFalse(((Map) graphData.get("Mean_Test_Time_(ms)")).isEmpty());
 	}
 
 	@Test
@@ -197,6 +206,43 @@ public class PerfTestServiceTest extends AbstractPerfTestTransactionalTest {
 		assertTrue(listNotEmpty.test(reportDataMap.get("sent")));
 	}
 
+	@Test
+	public void testConvertMonitorData() throws IOException {
+		// Given
+		long testId = 123456L;
+		File testHomeDir = Files.createTempDirectory("convert_monitor_data").toFile();
+		try {
+			Home mockHome = new Home(testHomeDir);
+			File reportDir = mockHome.getPerfTestReportDirectory(String.valueOf(testId));
+			FileUtils.copyDirectory(new ClassPathResource("perftest/123000_123999/123456/report").getFile(), reportDir);
+			FileUtils.writeStringToFile(new File(reportDir, "jvm/heap.data"), "used, max\n1,10\n2,null\n",
+				"UTF-8");
+			Config spiedConfig = spy(config);
+			when(spiedConfig.getHome()).thenReturn(mockHome);
+			PerfTestService spiedService = spy(testService);
+			setField(spiedService, "config", spiedConfig);
+			Map<String, Object> monitorGraph = spiedService.getMonitorGraph(testId, "127.0.0.1", 1);
+
+			// When
+			spiedService.convertMonitorData(testId);
+
+			// Then
+			assertTrue(new File(reportDir, "monitor_system_127.0.0.1.bin").exists());
+			Map<String, Object> convertedMonitorGraph = spiedService.getMonitorGraph(testId, "127.0.0.1", 1);
+			assertThat(((List) convertedMonitorGraph.get("cpu")).size(), is(((List) monitorGraph.get("cpu")).size()));
+			assertThat(((List) convertedMonitorGraph.get("memory")).size(),
+				is(((List) monitorGraph.get("memory")).size()));
+
+			assertTrue(new File(reportDir, "jvm/heap.bin").exists());
+			Map<String, Object> pluginGraph = spiedService.getReportPluginGraph(testId, "jvm", "heap", 1);
+			assertThat(pluginGraph.get("header"), is((Object) "['used','max']"));
+			assertThat(pluginGraph.get("used"), is((Object) "[1.0,2.0]"));
+			assertThat(pluginGraph.get("max"), is((Object) "[10.0,null]"));
+		} finally {
+			FileUtils.deleteQuietly(testHomeDir);
+		}
+	}
+
 	@Test
 	public void testGetProperSizedStatusString() {
 		File tempRepo = new File(System.getProperty("java.io.tmpdir"), "test-repo");
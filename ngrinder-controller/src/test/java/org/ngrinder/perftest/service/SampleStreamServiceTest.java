@@ -0,0 +1,96 @@
+package org.ngrinder.perftest.service;
+
+import org.junit.Test;
+import org.ngrinder.infra.hazelcast.HazelcastService;
+import org.ngrinder.infra.hazelcast.topic.message.TopicEvent;
+import org.ngrinder.infra.hazelcast.topic.subscriber.TopicSubscriber;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.ngrinder.common.constant.CacheConstants.SAMPLE_TOPIC_LISTENER_NAME;
+
+public class SampleStreamServiceTest {
+
+	@Test
+	public void testDiff() {
+		Map<String, Object> previous = new HashMap<>();
+		previous.put("perf", sample(10D, 2, "test/1"));
+		previous.put("agent", Collections.singletonMap("agent1", 1));
+		Map<String, Object> current = new HashMap<>();
+		current.put("perf", sample(12D, 2, "test/1"));
+		current.put("monitor", "up");
+
+		Map<String, Object> changed = new LinkedHashMap<>();
+		List<String> removed = new ArrayList<>();
+		SampleStreamService.diff("", previous, current, changed, removed);
+
+		assertThat(changed).hasSize(3);
+		assertThat(changed.get("/perf/totalStatistics/TPS")).isEqualTo(12D);
+		assertThat(changed.get("/perf/cumulativeStatistics/1/TPS")).isEqualTo(12D);
+		assertThat(changed.get("/monitor")).isEqualTo("up");
+		assertThat(removed).containsOnly("/agent");
+	}
+
+	@Test
+	public void testDiffOfResizedList() {
+		Map<String, Object> changed = new LinkedHashMap<>();
+		List<String> removed = new ArrayList<>();
+		SampleStreamService.diff("", sample(10D, 1, "a/b~c"), sample(10D, 2, "a/b~c"), changed, removed);
+
+		assertThat(changed.keySet()).containsOnly("/cumulativeStatistics");
+		assertThat(removed).isEmpty();
+
+		changed.clear();
+		Map<String, Object> renamed = sample(10D, 1, "a/b~c");
+		renamed.put("a/b~c", 1);
+		SampleStreamService.diff("", sample(10D, 1, "a/b~c"), renamed, changed, removed);
+		assertThat(changed.keySet()).containsOnly("/a~1b~0c");
+	}
+
+	@Test
+	public void testStreamIsKeptOnlyWhileViewed() {
+		SampleStreamService service = new SampleStreamService(mock(HazelcastService.class), mock(TopicSubscriber.class));
+		service.execute(new TopicEvent<>(SAMPLE_TOPIC_LISTENER_NAME, "1", "{}"));
+		assertThat(service.getStreamCount()).isEqualTo(0);
+
+		service.subscribe(1, () -> true);
+		service.execute(new TopicEvent<>(SAMPLE_TOPIC_LISTENER_NAME, "1", "{}"));
+		assertThat(service.getStreamCount()).isEqualTo(1);
+
+		service.execute(new TopicEvent<String>(SAMPLE_TOPIC_LISTENER_NAME, "1", null));
+		assertThat(service.getStreamCount()).isEqualTo(0);
+		// A sample published late doesn't create the stream again.
+		service.execute(new TopicEvent<>(SAMPLE_TOPIC_LISTENER_NAME, "1", "{}"));
+		assertThat(service.getStreamCount()).isEqualTo(0);
+	}
+
+	@Test
+	public void testSubscribeWhileFinishing() {
+		SampleStreamService service = new SampleStreamService(mock(HazelcastService.class), mock(TopicSubscriber.class));
+		// The test is finished right after it's found to be running.
+		AtomicInteger checks = new AtomicInteger();
+		service.subscribe(1, () -> checks.getAndIncrement() == 0);
+		assertThat(checks.get()).isEqualTo(2);
+		assertThat(service.getStreamCount()).isEqualTo(0);
+
+		service.subscribe(2, () -> false);
+		assertThat(service.getStreamCount()).isEqualTo(0);
+	}
+
+	private Map<String, Object> sample(double tps, int testCount, String description) {
+		Map<String, Object> sample = new HashMap<>();
+		sample.put("totalStatistics", Collections.singletonMap("TPS", tps));
+		List<Map<String, Object>> tests = new ArrayList<>();
+		for (int i = 0; i < testCount; i++) {
+			Map<String, Object> test = new HashMap<>();
+			test.put("testDescription", description);
+			test.put("TPS", i == 0 ? 1D : tps);
+			tests.add(test);
+		}
+		sample.put("cumulativeStatistics", tests);
+		return sample;
+	}
+}
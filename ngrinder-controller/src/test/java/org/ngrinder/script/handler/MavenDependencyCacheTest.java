@@ -0,0 +1,72 @@
+package org.ngrinder.script.handler;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.fest.assertions.Assertions.assertThat;
+
+public class MavenDependencyCacheTest {
+	private File base;
+
+	@Before
+	public void before() throws IOException {
+		base = Files.createTempDirectory("maven_dependency_cache").toFile();
+	}
+
+	@After
+	public void after() {
+		FileUtils.deleteQuietly(base);
+	}
+
+	@Test
+	public void testStoreAndRestore() throws IOException {
+		MavenDependencyCache cache = new MavenDependencyCache(new File(base, "cache"), 1024 * 1024);
+		File pom = new File(base, "pom.xml");
+		FileUtils.writeStringToFile(pom, "<version>1.0</version>", UTF_8);
+		String key = cache.getKey(pom);
+		assertThat(key).isNotNull();
+		FileUtils.writeStringToFile(pom, "<version>1.0-SNAPSHOT</version>", UTF_8);
+		assertThat(cache.getKey(pom)).isNull();
+
+		File libDir = new File(base, "dist1/lib");
+		assertThat(cache.restore(key, libDir)).isFalse();
+		FileUtils.writeStringToFile(new File(libDir, "private.jar"), "private", UTF_8);
+		FileUtils.writeStringToFile(new File(libDir, "dependency.jar"), "dependency", UTF_8);
+		cache.store(key, libDir, Collections.singletonList("private.jar"));
+
+		File otherLibDir = new File(base, "dist2/lib");
+		assertThat(cache.restore(key, otherLibDir)).isTrue();
+		assertThat(otherLibDir.list()).containsOnly("dependency.jar");
+		assertThat(FileUtils.readFileToString(new File(otherLibDir, "dependency.jar"), UTF_8)).isEqualTo("dependency");
+
+		// A script writing into its distribution doesn't change the cache.
+		FileUtils.writeStringToFile(new File(otherLibDir, "dependency.jar"), "injected", UTF_8);
+		File thirdLibDir = new File(base, "dist3/lib");
+		assertThat(cache.restore(key, thirdLibDir)).isTrue();
+		assertThat(FileUtils.readFileToString(new File(thirdLibDir, "dependency.jar"), UTF_8)).isEqualTo("dependency");
+	}
+
+	@Test
+	public void testEvictLeastRecentlyUsed() throws IOException {
+		MavenDependencyCache cache = new MavenDependencyCache(new File(base, "cache"), 25);
+		for (String each : new String[]{"first", "second", "third"}) {
+			File libDir = new File(base, each);
+			FileUtils.writeStringToFile(new File(libDir, each + ".jar"), "0123456789", UTF_8);
+			cache.store(each, libDir, Collections.<String>emptyList());
+			new File(base, "cache/" + each).setLastModified(System.currentTimeMillis() - 10000);
+			if (each.equals("second")) {
+				assertThat(cache.restore("first", new File(base, "restored"))).isTrue();
+			}
+		}
+
+		assertThat(new File(base, "cache").list()).containsOnly("first", "third");
+	}
+}
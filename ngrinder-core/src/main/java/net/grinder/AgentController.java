@@ -42,8 +42,9 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.net.ServerSocket;
-import java.nio.charset.Charset;
 import java.util.Arrays;
 import java.util.Timer;
 import java.util.TimerTask;
@@ -61,6 +62,7 @@ import static org.ngrinder.common.util.Preconditions.checkNotNull;
 public class AgentController implements Agent, AgentConstants {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger("agent controller");
+	private static final int LOG_CHUNK_SIZE = 256 * 1024;
 
 	private final AgentConfig agentConfig;
 
@@ -290,6 +292,7 @@ public class AgentController implements Agent, AgentConstants {
 			m_connectionPort = 0;
 			// Abnormal state.
 			agentDaemon.shutdown();
+			agentDaemon.shutdownWorkerProcessPool();
 			m_state = AgentControllerState.FINISHED;
 			shutdownConsoleCommunication(consoleCommunication);
 			m_timer.cancel();
@@ -317,10 +320,14 @@ public class AgentController implements Agent, AgentConstants {
 		if (!agentConfig.getAgentProperties().getPropertyBoolean(PROP_AGENT_ALL_LOGS)) {
 			logFiles = new File[]{logFiles[0]};
 		}
-		final byte[] compressedLog = LogCompressUtils.compress(logFiles,
-				Charset.defaultCharset(), Charset.forName("UTF-8")
-		);
-		consoleCommunication.sendMessage(new LogReportGrinderMessage(testId, compressedLog, new AgentAddress(m_agentIdentity)));
+		// Stream the compressed logs in chunks not to hold the whole logs in memory.
+		final long limit = agentConfig.getAgentProperties().getPropertyLong(PROP_AGENT_MAX_LOG_SIZE) * 1024 * 1024;
+		try (LogChunkOutputStream out = new LogChunkOutputStream(consoleCommunication, testId)) {
+			LogCompressUtils.compress(logFiles, out, limit);
+		} catch (IOException e) {
+			LOGGER.error("Error occurs while sending logs of {} : {}", testId, e.getMessage());
+			LOGGER.debug("Details : ", e);
+		}
 		// Delete logs to clean up
 		if (!agentConfig.getAgentProperties().getPropertyBoolean(PROP_AGENT_KEEP_LOGS)) {
 			LOGGER.info("Clean up the perftest logs");
@@ -401,6 +408,58 @@ public class AgentController implements Agent, AgentConstants {
 		return agentConfig;
 	}
 
+	/**
+	 * Output stream which sends the written bytes to the console in fixed size chunks.
+	 */
+	private final class LogChunkOutputStream extends OutputStream {
+		private final ConsoleCommunication m_consoleCommunication;
+		private final String m_testId;
+		private final byte[] m_buffer = new byte[LOG_CHUNK_SIZE];
+		private int m_count;
+		private boolean m_sent;
+
+		LogChunkOutputStream(ConsoleCommunication consoleCommunication, String testId) {
+			m_consoleCommunication = consoleCommunication;
+			m_testId = testId;
+		}
+
+		@Override
+		public void write(int b) {
+			if (m_count == m_buffer.length) {
+				sendChunk();
+			}
+			m_buffer[m_count++] = (byte) b;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			while (len > 0) {
+				if (m_count == m_buffer.length) {
+					sendChunk();
+				}
+				int count = Math.min(len, m_buffer.length - m_count);
+				System.arraycopy(b, off, m_buffer, m_count, count);
+				m_count += count;
+				off += count;
+				len -= count;
+			}
+		}
+
+		@Override
+		public void close() {
+			if (m_count > 0 || !m_sent) {
+				sendChunk();
+			}
+		}
+
+		private void sendChunk() {
+			m_consoleCommunication.sendMessage(new LogReportGrinderMessage(m_testId, Arrays.copyOf(m_buffer, m_count),
+					m_sent, new AgentAddress(m_agentIdentity)));
+			m_sent = true;
+			m_count = 0;
+		}
+	}
+
 
 	public final class ConsoleCommunication {
 		private final ClientSender m_sender;
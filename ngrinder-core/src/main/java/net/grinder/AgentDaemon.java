@@ -18,6 +18,7 @@ import net.grinder.common.GrinderProperties;
 import net.grinder.communication.CommunicationDefaults;
 import net.grinder.engine.agent.Agent;
 import net.grinder.engine.agent.AgentImplementationEx;
+import net.grinder.engine.agent.WorkerProcessPool;
 import net.grinder.util.ListenerSupport;
 import net.grinder.util.ListenerSupport.Informer;
 import org.apache.commons.lang.StringUtils;
@@ -26,6 +27,7 @@ import org.ngrinder.infra.AgentConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import static org.ngrinder.common.constants.AgentConstants.PROP_AGENT_WORKER_POOL_SIZE;
 import static org.ngrinder.common.util.ExceptionUtils.processException;
 
 /**
@@ -42,6 +44,7 @@ public class AgentDaemon implements Agent {
 	private boolean forceShutdown = false;
 	public static final Logger LOGGER = LoggerFactory.getLogger("agent daemon");
 	private final AgentConfig m_agentConfig;
+	private WorkerProcessPool workerProcessPool;
 
 	/**
 	 * Constructor.
@@ -126,10 +129,30 @@ public class AgentDaemon implements Agent {
 		return this.properties;
 	}
 
+	private synchronized WorkerProcessPool getWorkerProcessPool() {
+		if (workerProcessPool == null) {
+			workerProcessPool = new WorkerProcessPool(
+				m_agentConfig.getAgentProperties().getPropertyInt(PROP_AGENT_WORKER_POOL_SIZE), LOGGER);
+		}
+		return workerProcessPool;
+	}
+
+	/**
+	 * Destroy the idle worker processes kept for the next tests.
+	 *
+	 * @since 3.5.3
+	 */
+	public synchronized void shutdownWorkerProcessPool() {
+		if (workerProcessPool != null) {
+			workerProcessPool.shutdown();
+		}
+	}
+
 	class AgentThreadRunnable implements Runnable {
 		public void run() {
 			try {
-				setAgent(new AgentImplementationEx(LOGGER, m_agentConfig)).run(getGrinderProperties());
+				setAgent(new AgentImplementationEx(LOGGER, m_agentConfig, false, getWorkerProcessPool()))
+					.run(getGrinderProperties());
 			} catch (Exception e) {
 				LOGGER.error("While running an agent thread, an error occurred", e);
 			}
@@ -29,6 +29,7 @@ import net.grinder.console.ConsoleFoundationEx;
 import net.grinder.console.common.Resources;
 import net.grinder.console.common.ResourcesImplementation;
 import net.grinder.console.communication.AcceptDistFilesDigestListener;
+import net.grinder.console.communication.AgentClockSynchronizer;
 import net.grinder.console.communication.ConsoleCommunicationImplementationEx;
 import net.grinder.console.communication.ProcessControl;
 import net.grinder.console.communication.ProcessControl.Listener;
@@ -48,20 +49,21 @@ import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.mutable.MutableBoolean;
+import org.ngrinder.clock.ClockOffsetEstimator;
 import org.ngrinder.common.exception.NGrinderRuntimeException;
 import org.ngrinder.common.util.DateUtils;
 import org.ngrinder.common.util.ReflectionUtils;
 import org.ngrinder.common.util.ThreadUtils;
+import org.ngrinder.report.AsyncReportWriter;
 import org.ngrinder.service.AbstractSingleConsole;
+import org.ngrinder.statistics.LatencyHistogram;
 import org.python.google.common.collect.Sets;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.text.DecimalFormat;
 import java.util.*;
 import java.util.Map.Entry;
@@ -69,10 +71,12 @@ import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ForkJoinPool;
 
 
+import static java.util.Arrays.asList;
 import static java.util.Arrays.stream;
 import static org.ngrinder.common.util.CollectionUtils.*;
 import static org.ngrinder.common.util.ExceptionUtils.processException;
 import static org.ngrinder.common.util.Preconditions.checkNotNull;
+import static org.ngrinder.report.ReportDataFormat.REPORT_DATA_FILE;
 
 /**
  * Single console for multiple test. This is the customized version of
@@ -91,6 +95,7 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 	public static final Logger LOGGER = LoggerFactory.getLogger("console");
 	public static final String REPORT_DATA = ".data";
 	private static final String REPORT_CSV = "output.csv";
+	public static final String REPORT_ERROR_CATEGORIES_CSV = ErrorCategoryAccumulator.REPORT_CSV;
 	private static final int NUM_OF_SEND_FILE_DIGEST_THREAD = 3;
 
 	private final Condition eventSyncCondition = new Condition();
@@ -116,12 +121,19 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 	private boolean capture = false;
 	private File reportPath;
 
-	private Map<String, Object> statisticData;
+	private StatisticsExpressions statisticsExpressions;
+	// Two snapshots are written in turn and the one written last is published.
+	private StatisticsSnapshot[] statisticsSnapshots;
+	private volatile StatisticsSnapshot statisticsSnapshot;
 
 	private boolean headerAdded = false;
 	private GrinderProperties properties;
 
-	private Map<String, BufferedWriter> fileWriterMap = newHashMap();
+	private AsyncReportWriter reportWriter;
+	/**
+	 * Names of the CSV files whose headers are written.
+	 */
+	private final Set<String> csvFiles = new HashSet<String>();
 	/**
 	 * the count of current sampling.
 	 */
@@ -152,6 +164,10 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
      * cvs file Separator value.
      */
 	private String cvsSeparator = ",";
+	/**
+	 * Format of the values in the csv file. It's used only in the sampling thread.
+	 */
+	private final DecimalFormat csvValueFormat = new DecimalFormat("###.###");
 	/**
 	 * Constructor to bind all ip and the given port.
 	 * <p/>
@@ -239,10 +255,11 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 			throw processException("Exception occurred while shutting down console", e);
 		} finally {
 			// close all report file
-			for (BufferedWriter bw : fileWriterMap.values()) {
-				IOUtils.closeQuietly(bw);
+			synchronized (this) {
+				IOUtils.closeQuietly(reportWriter);
+				reportWriter = null;
+				csvFiles.clear();
 			}
-			fileWriterMap.clear();
 		}
 	}
 
@@ -642,6 +659,7 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 			updateStatistics(intervalStatistics, cumulativeStatistics);
 
 			writeIntervalCsvData(intervalStatistics);
+			getSampleModel().writeReports(reportOutput, false);
 			int interval = getSampleModel().getSampleInterval();
 			long gap = 1;
 			if (samplingCount == 1) {
@@ -694,22 +712,24 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 			for (Entry<String, StatisticExpression> each : getExpressionEntrySet()) {
 				if (isPerfTestInterestingStatistics(each.getKey())) {
 					for (Entry<Test, StatisticsSet> entry : intervalStatisticMapPerTest.entrySet()) {
-						if (lastCall) {
-							StatisticsSet value = entry.getValue();
-							writeReportData(each.getKey() + "-" + entry.getKey().getNumber() + "_"
-									+ entry.getKey().getDescription().replaceAll("\\s+", "_") + REPORT_DATA,
-									formatValue(getRealDoubleValue(each.getValue().getDoubleValue(value))));
-						} else {
-							writeReportData(each.getKey() + "-" + entry.getKey().getNumber() + "_"
-									+ entry.getKey().getDescription().replaceAll("\\s+", "_") + REPORT_DATA, "null");
-						}
-
+						writeReportData(getPerTestReportKey(each.getKey(), entry.getKey()),
+								lastCall ? each.getValue().getDoubleValue(entry.getValue()) : null);
 					}
 				}
 			}
+			for (Entry<String, Double> each : LATENCY_PERCENTILES.entrySet()) {
+				for (Test test : intervalStatisticMapPerTest.keySet()) {
+					writeReportData(getPerTestReportKey(each.getKey(), test),
+							lastCall ? (double) getLatencyHistogram(test, false).getValueAtPercentile(each.getValue()) : null);
+				}
+			}
 		}
 	}
 
+	private static String getPerTestReportKey(String key, Test test) {
+		return key + "-" + test.getNumber() + "_" + test.getDescription().replaceAll("\\s+", "_");
+	}
+
 	/**
 	 * Write the total test interval statistic data into file.
 	 *
@@ -719,14 +739,31 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 	 */
 	public void writeIntervalSummaryData(StatisticsSet intervalStatistics, boolean firstCall) {
 		for (Entry<String, StatisticExpression> each : getExpressionEntrySet()) {
-			if (firstCall) {
-				double doubleValue = each.getValue().getDoubleValue(intervalStatistics);
-				writeReportData(each.getKey() + REPORT_DATA, formatValue(getRealDoubleValue(doubleValue)));
-			} else {
-				writeReportData(each.getKey() + REPORT_DATA, "null");
+			writeReportData(each.getKey(), firstCall ? each.getValue().getDoubleValue(intervalStatistics) : null);
+		}
+		LatencyHistogram intervalHistogram = getTotalLatencyHistogram(false);
+		for (Entry<String, Double> each : LATENCY_PERCENTILES.entrySet()) {
+			writeReportData(each.getKey(),
+					firstCall ? (double) intervalHistogram.getValueAtPercentile(each.getValue()) : null);
+		}
+		long[] lastSample = getIterationSchedule(false);
+		if (lastSample != null) {
+			writeReportData(LATE_ITERATIONS, firstCall ? (double) lastSample[0] : null);
+			writeReportData(DROPPED_ITERATIONS, firstCall ? (double) lastSample[1] : null);
+		}
+		long[] lastDnsCache = getDnsCache(false);
+		if (lastDnsCache != null) {
+			writeReportData(DNS_CACHE_HITS, firstCall ? (double) lastDnsCache[0] : null);
+			writeReportData(DNS_CACHE_MISSES, firstCall ? (double) lastDnsCache[1] : null);
+		}
+		if (isLatencyCorrected()) {
+			LatencyHistogram correctedHistogram = getSampleModel().getCorrectedLatencyAccumulator().getLastSampleHistogram();
+			for (Entry<String, Double> each : LATENCY_PERCENTILES.entrySet()) {
+				writeReportData(CORRECTED_PREFIX + each.getKey(),
+						firstCall ? (double) correctedHistogram.getValueAtPercentile(each.getValue()) : null);
 			}
 		}
-		writeReportData("Vuser" + REPORT_DATA, formatValue(runningThread));
+		writeReportData("Vuser", (double) runningThread);
 	}
 
 	/**
@@ -747,6 +784,9 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 					csvHeader.append(cvsSeparator).append(each.getKey());
 				}
 			}
+			for (String each : LATENCY_PERCENTILES.keySet()) {
+				csvHeader.append(cvsSeparator).append(each);
+			}
 			if (intervalStatisticMapPerTest.size() != 1) {
 				for (int i = 1; i <= intervalStatisticMapPerTest.size(); i++) {
 					csvHeader.append(cvsSeparator).append("Description");
@@ -769,9 +809,14 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 		for (Entry<String, StatisticExpression> each : getExpressionEntrySet()) {
 			if (!each.getKey().equals("Peak_TPS")) {
 				double doubleValue = each.getValue().getDoubleValue(intervalStatistics);
-				csvLine.append(cvsSeparator).append(formatValue(getRealDoubleValue(doubleValue)));
+				csvLine.append(cvsSeparator).append(formatValue(csvValueFormat, getRealDoubleValue(doubleValue)));
 			}
 		}
+		LatencyHistogram intervalHistogram = getTotalLatencyHistogram(false);
+		for (Double each : LATENCY_PERCENTILES.values()) {
+			double percentile = intervalHistogram.getValueAtPercentile(each);
+			csvLine.append(cvsSeparator).append(formatValue(csvValueFormat, getRealDoubleValue(percentile)));
+		}
 
 		if (intervalStatisticMapPerTest.size() != 1) {
 			for (Entry<Test, StatisticsSet> eachPair : intervalStatisticMapPerTest.entrySet()) {
@@ -779,8 +824,8 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 				csvLine.append(cvsSeparator).append(description);
 				for (Entry<String, StatisticExpression> each : getExpressionEntrySet()) {
 					if (!each.getKey().equals("Peak_TPS")) {
-						csvLine.append(cvsSeparator).append(
-								formatValue(getRealDoubleValue(each.getValue().getDoubleValue(eachPair.getValue()))));
+						double doubleValue = each.getValue().getDoubleValue(eachPair.getValue());
+						csvLine.append(cvsSeparator).append(formatValue(csvValueFormat, getRealDoubleValue(doubleValue)));
 					}
 				}
 			}
@@ -816,12 +861,57 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 		}
 	}
 
+	/**
+	 * Phases of the HTTP requests. The time to establish the connection includes the time to
+	 * resolve the host, and the time to the first byte includes the connection and the TLS handshake.
+	 */
+	private static final String[] HTTP_PHASE_STATISTICS = {"Mean_time_to_resolve_host",
+			"Mean_time_to_establish_connection", "Mean_TLS_handshake_time", "Mean_download_time"};
+
 	private static final Set<String> INTERESTING_PER_TEST_STATISTICS = Sets.newHashSet("Errors", "TPS",
 			"Mean_time_to_first_byte", "Mean_Test_Time_(ms)");
 
 	private static final Set<String> INTERESTING_STATISTICS = Sets.newHashSet("Tests", "Errors", "TPS",
 			"Response_bytes_per_second", "Mean_time_to_first_byte", "Peak_TPS", "Mean_Test_Time_(ms)");
 
+	static {
+		INTERESTING_PER_TEST_STATISTICS.addAll(asList(HTTP_PHASE_STATISTICS));
+		INTERESTING_STATISTICS.addAll(asList(HTTP_PHASE_STATISTICS));
+	}
+
+	/**
+	 * Test time percentiles which are calculated from the latency histograms reported by workers.
+	 */
+	private static final Map<String, Double> LATENCY_PERCENTILES = new LinkedHashMap<String, Double>();
+
+	static {
+		LATENCY_PERCENTILES.put("Test_Time_P50_(ms)", 50D);
+		LATENCY_PERCENTILES.put("Test_Time_P90_(ms)", 90D);
+		LATENCY_PERCENTILES.put("Test_Time_P95_(ms)", 95D);
+		LATENCY_PERCENTILES.put("Test_Time_P99_(ms)", 99D);
+		LATENCY_PERCENTILES.put("Test_Time_P999_(ms)", 99.9D);
+	}
+
+	/**
+	 * Counts of the iterations which started late or were dropped when scripts schedule the
+	 * iterations by the arrival rate.
+	 */
+	private static final String LATE_ITERATIONS = "Late_Iterations";
+	private static final String DROPPED_ITERATIONS = "Dropped_Iterations";
+
+	/**
+	 * Counts of the host name lookups served from or missed by the DNS cache of workers.
+	 */
+	private static final String DNS_CACHE_HITS = "DNS_Cache_Hits";
+	private static final String DNS_CACHE_MISSES = "DNS_Cache_Misses";
+
+	/**
+	 * Prefix of the latency percentiles corrected for the coordinated omission, which are reported
+	 * beside the raw ones when scripts pace their runs with the latency correction.
+	 */
+	private static final String CORRECTED_PREFIX = "Corrected_";
+	private static final int CORRECTED_COUNTER_OFFSET = 4;
+
 	public static boolean isPerfTestInterestingStatistics(String key) {
 		return INTERESTING_PER_TEST_STATISTICS.contains(key) || key.startsWith("User_defined");
 	}
@@ -837,55 +927,204 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 	 * @param intervalStatistics    accumulatedStatistics
 	 */
 	protected void updateStatistics(StatisticsSet intervalStatistics, StatisticsSet accumulatedStatistics) {
-		Map<String, Object> result = newHashMap();
-		result.put("testTime", getCurrentRunningTime() / 1000);
-		List<Map<String, Object>> cumulativeStatistics = new ArrayList<Map<String, Object>>();
-		List<Map<String, Object>> lastSampleStatistics = new ArrayList<Map<String, Object>>();
-		for (Test test : accumulatedStatisticMapPerTest.keySet()) {
-			Map<String, Object> accumulatedStatisticMap = newHashMap();
-			Map<String, Object> intervalStatisticsMap = newHashMap();
-			StatisticsSet accumulatedSet = this.accumulatedStatisticMapPerTest.get(test);
-			StatisticsSet intervalSet = this.intervalStatisticMapPerTest.get(test);
-
-			accumulatedStatisticMap.put("testNumber", test.getNumber());
-			accumulatedStatisticMap.put("testDescription", test.getDescription());
-			intervalStatisticsMap.put("testNumber", test.getNumber());
-			intervalStatisticsMap.put("testDescription", test.getDescription());
-			// When only 1 test is running, it's better to use the parametrized
-			// snapshot.
+		StatisticsExpressions expressions = getStatisticsExpressions();
+		// Write into the snapshot which is not published so that the published one is not blocked.
+		StatisticsSnapshot snapshot = statisticsSnapshots[statisticsSnapshot == statisticsSnapshots[0] ? 1 : 0];
+		synchronized (snapshot) {
+			snapshot.begin(getCurrentRunningTime() / 1000);
+			for (Test test : accumulatedStatisticMapPerTest.keySet()) {
+				StatisticsSet accumulatedSet = this.accumulatedStatisticMapPerTest.get(test);
+				StatisticsSet intervalSet = this.intervalStatisticMapPerTest.get(test);
+				int row = snapshot.addTest(test.getNumber(), test.getDescription());
+				for (int i = 0; i < expressions.expressions.length; i++) {
+					snapshot.setCumulative(row, i, getRealDouble(expressions.expressions[i].getDoubleValue(accumulatedSet)));
+					snapshot.setInterval(row, i, getRealDouble(expressions.expressions[i].getDoubleValue(intervalSet)));
+				}
+				LatencyHistogram accumulatedHistogram = getLatencyHistogram(test, true);
+				LatencyHistogram intervalHistogram = getLatencyHistogram(test, false);
+				for (int i = 0; i < expressions.percentiles.length; i++) {
+					int metric = expressions.expressions.length + i;
+					snapshot.setCumulative(row, metric,
+							getRealDouble(accumulatedHistogram.getValueAtPercentile(expressions.percentiles[i])));
+					snapshot.setInterval(row, metric,
+							getRealDouble(intervalHistogram.getValueAtPercentile(expressions.percentiles[i])));
+				}
+			}
+
+			for (int i = 0; i < expressions.expressions.length; i++) {
+				snapshot.setTotal(i, getRealDouble(expressions.expressions[i].getDoubleValue(accumulatedStatistics)));
+			}
+			LatencyHistogram totalHistogram = getTotalLatencyHistogram(true);
+			for (int i = 0; i < expressions.percentiles.length; i++) {
+				snapshot.setTotal(expressions.expressions.length + i,
+						getRealDouble(totalHistogram.getValueAtPercentile(expressions.percentiles[i])));
+			}
+			long[] cumulativeIterations = getIterationSchedule(true);
+			if (cumulativeIterations != null) {
+				snapshot.setCounter(0, cumulativeIterations[0]);
+				snapshot.setCounter(1, cumulativeIterations[1]);
+			}
+			long[] cumulativeDnsCache = getDnsCache(true);
+			if (cumulativeDnsCache != null) {
+				snapshot.setCounter(2, cumulativeDnsCache[0]);
+				snapshot.setCounter(3, cumulativeDnsCache[1]);
+			}
+			if (isLatencyCorrected()) {
+				LatencyHistogram correctedHistogram = getSampleModel().getCorrectedLatencyAccumulator().getCumulativeHistogram();
+				for (int i = 0; i < expressions.percentiles.length; i++) {
+					snapshot.setCounter(CORRECTED_COUNTER_OFFSET + i,
+							correctedHistogram.getValueAtPercentile(expressions.percentiles[i]));
+				}
+			}
+			snapshot.setErrorCategories(getErrorCategories());
+			snapshot.setGeneratorSaturation(getGeneratorSaturation());
+
+			snapshot.setTps(getTpsValues(), this.peakTpsForGraph);
+			synchronized (this) {
+				snapshot.setRunningState(this.runningProcess, this.runningThread, !isAllTestFinished());
+			}
+		}
+		// Finally overwrite.. current one.
+		this.statisticsSnapshot = snapshot;
+	}
+
+	/**
+	 * Get the expressions of the statistics shown in the running page.
+	 */
+	private StatisticsExpressions getStatisticsExpressions() {
+		if (this.statisticsExpressions == null) {
+			List<String> names = new ArrayList<String>();
+			List<StatisticExpression> interestingExpressions = new ArrayList<StatisticExpression>();
 			for (Entry<String, StatisticExpression> each : getExpressionEntrySet()) {
 				if (isInterestingStatistics(each.getKey())) {
-					accumulatedStatisticMap.put(each.getKey(),
-							getRealDoubleValue(each.getValue().getDoubleValue(accumulatedSet)));
-					intervalStatisticsMap.put(each.getKey(),
-							getRealDoubleValue(each.getValue().getDoubleValue(intervalSet)));
+					names.add(each.getKey());
+					interestingExpressions.add(each.getValue());
 				}
 			}
-			cumulativeStatistics.add(accumulatedStatisticMap);
-			lastSampleStatistics.add(intervalStatisticsMap);
+			double[] percentiles = new double[LATENCY_PERCENTILES.size()];
+			int index = 0;
+			for (Entry<String, Double> each : LATENCY_PERCENTILES.entrySet()) {
+				names.add(each.getKey());
+				percentiles[index++] = each.getValue();
+			}
+			String[] metricNames = names.toArray(new String[0]);
+			List<String> counterNames = new ArrayList<String>(asList(LATE_ITERATIONS, DROPPED_ITERATIONS,
+					DNS_CACHE_HITS, DNS_CACHE_MISSES));
+			for (String each : LATENCY_PERCENTILES.keySet()) {
+				counterNames.add(CORRECTED_PREFIX + each);
+			}
+			String[] counters = counterNames.toArray(new String[0]);
+			this.statisticsSnapshots = new StatisticsSnapshot[]{new StatisticsSnapshot(metricNames, counters),
+					new StatisticsSnapshot(metricNames, counters)};
+			this.statisticsExpressions = new StatisticsExpressions(
+					interestingExpressions.toArray(new StatisticExpression[0]), percentiles);
 		}
+		return this.statisticsExpressions;
+	}
 
-		Map<String, Object> totalStatistics = newHashMap();
+	/**
+	 * Expressions of the statistics shown in the running page. Their values are stored in
+	 * {@link StatisticsSnapshot} in this order followed by the latency percentiles.
+	 */
+	private static class StatisticsExpressions {
+		private final StatisticExpression[] expressions;
+		private final double[] percentiles;
 
-		for (Entry<String, StatisticExpression> each : getExpressionEntrySet()) {
-			if (isInterestingStatistics(each.getKey())) {
-				totalStatistics.put(each.getKey(),
-						getRealDoubleValue(each.getValue().getDoubleValue(accumulatedStatistics)));
-			}
+		StatisticsExpressions(StatisticExpression[] expressions, double[] percentiles) {
+			this.expressions = expressions;
+			this.percentiles = percentiles;
 		}
+	}
 
-		result.put("totalStatistics", totalStatistics);
-		result.put("cumulativeStatistics", cumulativeStatistics);
-		result.put("lastSampleStatistics", lastSampleStatistics);
-		result.put("tpsChartData", getTpsValues());
-		result.put("peakTpsForGraph", this.peakTpsForGraph);
-		synchronized (this) {
-			result.put(GrinderConstants.P_PROCESS, this.runningProcess);
-			result.put(GrinderConstants.P_THREAD, this.runningThread);
-			result.put("success", !isAllTestFinished());
+	private LatencyHistogram getLatencyHistogram(Test test, boolean cumulative) {
+		return getLatencyHistogram(getSampleModel().getLatencyAccumulator(test), cumulative);
+	}
+
+	private LatencyHistogram getTotalLatencyHistogram(boolean cumulative) {
+		return getLatencyHistogram(getSampleModel().getTotalLatencyAccumulator(), cumulative);
+	}
+
+	/*
+	 * Get the late and dropped iteration counts. null if no worker schedules the iterations by the arrival rate.
+	 */
+	private long[] getIterationSchedule(boolean cumulative) {
+		IterationScheduleAccumulator accumulator = getSampleModel().getIterationScheduleAccumulator();
+		if (accumulator == null || !accumulator.isReported()) {
+			return null;
 		}
-		// Finally overwrite.. current one.
-		this.statisticData = result;
+		return cumulative ? accumulator.getCumulative() : accumulator.getLastSample();
+	}
+
+	/*
+	 * Get the failure counts by their categories of the last sample and in total, and of each test in total.
+	 * null if no failure is counted.
+	 */
+	private Map<String, Object> getErrorCategories() {
+		ErrorCategoryAccumulator accumulator = getSampleModel().getErrorCategoryAccumulator();
+		if (accumulator == null || !accumulator.isReported()) {
+			return null;
+		}
+		Map<Integer, Map<String, Long>> cumulative = accumulator.getCumulative();
+		Map<String, Object> result = new HashMap<String, Object>();
+		result.put("lastSample", ErrorCategoryAccumulator.sum(accumulator.getLastSample()));
+		result.put("total", ErrorCategoryAccumulator.sum(cumulative));
+		result.put("tests", cumulative);
+		return result;
+	}
+
+	/*
+	 * Get the saturations of the load generators found so far and whether any agent is still saturated.
+	 * null if no worker reports its load.
+	 */
+	private Map<String, Object> getGeneratorSaturation() {
+		GeneratorSaturationDetector detector = getSampleModel().getGeneratorSaturationDetector();
+		if (detector == null || !detector.isReported()) {
+			return null;
+		}
+		boolean saturated = false;
+		List<Map<String, Object>> saturations = new ArrayList<Map<String, Object>>();
+		for (GeneratorSaturationDetector.Saturation each : detector.getSaturations()) {
+			saturated |= each.isOngoing();
+			Map<String, Object> saturation = new LinkedHashMap<String, Object>();
+			saturation.put("agent", each.getAgent());
+			saturation.put("startTime", each.getStartTime());
+			saturation.put("endTime", each.isOngoing() ? null : each.getEndTime());
+			saturation.put("reasons", each.getReasons());
+			saturation.put("Peak_CPU", each.getPeakCpu());
+			saturation.put("Peak_GC_Ratio", each.getPeakGcRatio());
+			saturation.put("Peak_Scheduling_Lag_(ms)", each.getPeakSchedulingLag());
+			saturations.add(saturation);
+		}
+		Map<String, Object> result = new HashMap<String, Object>();
+		result.put("saturated", saturated);
+		result.put("saturations", saturations);
+		return result;
+	}
+
+	/*
+	 * Check if any worker reported the test times corrected for the coordinated omission.
+	 */
+	private boolean isLatencyCorrected() {
+		LatencyAccumulator accumulator = getSampleModel().getCorrectedLatencyAccumulator();
+		return accumulator != null && !accumulator.getCumulativeHistogram().isEmpty();
+	}
+
+	/*
+	 * Get the DNS cache hit and miss counts. null if no worker uses the local DNS.
+	 */
+	private long[] getDnsCache(boolean cumulative) {
+		DnsCacheAccumulator accumulator = getSampleModel().getDnsCacheAccumulator();
+		if (accumulator == null || !accumulator.isReported()) {
+			return null;
+		}
+		return cumulative ? accumulator.getCumulative() : accumulator.getLastSample();
+	}
+
+	private static LatencyHistogram getLatencyHistogram(LatencyAccumulator accumulator, boolean cumulative) {
+		if (accumulator == null) {
+			return new LatencyHistogram();
+		}
+		return cumulative ? accumulator.getCumulativeHistogram() : accumulator.getLastSampleHistogram();
 	}
 
 	/*
@@ -901,6 +1140,10 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 		return testCount.longValue() + errorCount.longValue();
 	}
 
+	private static double getRealDouble(double value) {
+		return (Double.isInfinite(value) || Double.isNaN(value)) ? 0 : value;
+	}
+
 	private static Object getRealDoubleValue(Double doubleValue) {
 		if (doubleValue == null) {
 			return (double) 0;
@@ -1072,31 +1315,153 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 		}
 	}
 
-	private void writeReportData(String name, String value) {
-		try {
-			BufferedWriter bw = fileWriterMap.get(name);
-			if (bw == null) {
-				bw = new BufferedWriter(new FileWriter(new File(this.reportPath, name), true));
-				fileWriterMap.put(name, bw);
+	/**
+	 * Append the value of the given report key into the report data file.
+	 *
+	 * @param key   report key
+	 * @param value value. null if the value is not sampled at this moment.
+	 */
+	private void writeReportData(String key, Double value) {
+		getReportWriter().appendReportData(key, value == null ? null : (Double) getRealDoubleValue(value));
+	}
+
+	private void writeCSVDataLine(String line) {
+		getReportWriter().appendCsvLine(line);
+	}
+
+	/**
+	 * Get the writer of the report files. All files are written by its own thread so that a slow
+	 * disk doesn't delay the sampling.
+	 *
+	 * @return report writer
+	 */
+	private synchronized AsyncReportWriter getReportWriter() {
+		if (reportWriter == null) {
+			reportWriter = new AsyncReportWriter(new File(this.reportPath, REPORT_DATA_FILE),
+					new File(this.reportPath, REPORT_CSV));
+		}
+		return reportWriter;
+	}
+
+	/**
+	 * Wait until all report data sampled so far are written into the report files.
+	 */
+	private synchronized void drainReportWriter() {
+		if (reportWriter != null) {
+			reportWriter.drain();
+			LOGGER.info("Report data is drained. {}", reportWriter.getStatistics());
+		}
+	}
+
+	/**
+	 * Get the CSV file in the report directory. The header is written when the file is used first.
+	 *
+	 * @param fileName name of the CSV file
+	 * @param header   header line of the CSV file
+	 * @return CSV file
+	 */
+	private synchronized File getCsvFile(String fileName, String header) {
+		File file = new File(this.reportPath, fileName);
+		if (csvFiles.add(fileName)) {
+			getReportWriter().appendCsvLine(file, header);
+		}
+		return file;
+	}
+
+	/**
+	 * Output into which the report sinks of the sample model write. The CSV lines are written by
+	 * the report writer along with the other report data.
+	 */
+	private final ReportOutput reportOutput = new ReportOutput() {
+		@Override
+		public void appendCsvLine(String fileName, String[] header, Object... values) {
+			File file = getCsvFile(fileName, StringUtils.join(header, cvsSeparator));
+			DecimalFormat format = new DecimalFormat("###.###");
+			StringBuilder line = new StringBuilder();
+			for (int i = 0; i < values.length; i++) {
+				if (i != 0) {
+					line.append(cvsSeparator);
+				}
+				line.append(formatValue(format, values[i]));
 			}
-			bw.write(value);
-			bw.newLine();
-			bw.flush();
-		} catch (Exception e) {
-			LOGGER.error(e.getMessage(), e);
-			throw processException(e);
+			getReportWriter().appendCsvLine(file, line.toString());
+		}
+
+		@Override
+		public Logger getLogger() {
+			return LOGGER;
+		}
+	};
+
+	/**
+	 * Get the statistics of each agent. The recent statistics are added up over the last
+	 * samples, and the cumulative ones are over the whole test.
+	 *
+	 * @return statistics of the agents in the order of the agent name. empty if the workers don't
+	 * report their summaries.
+	 * @since 3.5.3
+	 */
+	public List<Map<String, Object>> getAgentStatisticsData() {
+		List<Map<String, Object>> result = new ArrayList<Map<String, Object>>();
+		if (this.sampleModel == null) {
+			return result;
+		}
+		Map<String, ClockOffsetEstimator.Estimate> clockOffsets = getAgentClockOffsets();
+		for (AgentStatisticsAccumulator.Summary each : getSampleModel().getAgentSummaries()) {
+			Map<String, Object> agent = new LinkedHashMap<String, Object>();
+			agent.put("agent", each.getAgent());
+			agent.put("TPS", each.getRecentTps());
+			agent.put("Mean_Test_Time_(ms)", each.getRecentMeanTestTime());
+			agent.put("Errors", each.getRecentErrors());
+			ClockOffsetEstimator.Estimate clockOffset = clockOffsets.get(each.getAgent());
+			if (clockOffset != null) {
+				agent.put("Clock_Offset_(ms)", clockOffset.getOffset());
+				agent.put("Clock_Offset_Error_(ms)", clockOffset.getError());
+			}
+
+			Map<String, Object> cumulative = new LinkedHashMap<String, Object>();
+			cumulative.put("Tests", each.getTests());
+			cumulative.put("Errors", each.getErrors());
+			cumulative.put("Mean_Test_Time_(ms)", each.getMeanTestTime());
+			for (Map.Entry<String, Double> percentile : LATENCY_PERCENTILES.entrySet()) {
+				cumulative.put(percentile.getKey(), each.getHistogram().getValueAtPercentile(percentile.getValue()));
+			}
+			agent.put("cumulative", cumulative);
+
+			Map<String, Object> processes = new LinkedHashMap<String, Object>();
+			for (Map.Entry<String, long[]> process : each.getProcesses().entrySet()) {
+				Map<String, Object> counts = new LinkedHashMap<String, Object>();
+				counts.put("Tests", process.getValue()[0]);
+				counts.put("Errors", process.getValue()[1]);
+				processes.put(process.getKey(), counts);
+			}
+			agent.put("processes", processes);
+			result.add(agent);
 		}
+		return result;
 	}
 
-	private void writeCSVDataLine(String line) {
-		writeReportData(REPORT_CSV, line);
+	/**
+	 * Get the clock offsets of the connected agents from the console clock. The worker processes
+	 * record their timestamps corrected by them.
+	 *
+	 * @return offsets by the agent name. empty if no agent answered yet.
+	 * @since 3.5.3
+	 */
+	public Map<String, ClockOffsetEstimator.Estimate> getAgentClockOffsets() {
+		if (consoleFoundation == null) {
+			return Collections.emptyMap();
+		}
+		return getConsoleComponent(AgentClockSynchronizer.class).getEstimates();
 	}
 
-	private String formatValue(Object val) {
+	/**
+	 * Format the value in the CSV file. DecimalFormat is not thread safe, so the format should be
+	 * used only in the calling thread.
+	 */
+	private static String formatValue(DecimalFormat format, Object val) {
 		if (val instanceof Double) {
-			DecimalFormat formatter = new DecimalFormat("###.###");
-			formatter.setGroupingUsed(false);
-			return formatter.format(val);
+			return format.format(val);
 		} else if (String.valueOf(val).equals("null")) {
 			// if target server is too slow, there is no response in this
 			// second, then the
@@ -1116,7 +1481,13 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 	 * @return map which contains the statistics data
 	 */
 	public Map<String, Object> getStatisticsData() {
-		return this.statisticData != null ? this.statisticData : getNullStatisticsData();
+		StatisticsSnapshot snapshot = this.statisticsSnapshot;
+		if (snapshot == null) {
+			return getNullStatisticsData();
+		}
+		synchronized (snapshot) {
+			return snapshot.toMap();
+		}
 	}
 
 	protected Map<String, Object> getNullStatisticsData() {
@@ -1179,7 +1550,8 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 					SingleConsole.this.sampleModel.addSampleListener(each, new SampleListener() {
 						@Override
 						public void update(StatisticsSet intervalStatistics, StatisticsSet cumulativeStatistics) {
-							intervalStatisticMapPerTest.put(each, intervalStatistics.snapshot());
+							// The interval statistics is not changed after the sample is fired.
+							intervalStatisticMapPerTest.put(each, intervalStatistics);
 							accumulatedStatisticMapPerTest.put(each, cumulativeStatistics.snapshot());
 						}
 					});
@@ -1201,9 +1573,15 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 	public void unregisterSampling() {
 		this.currentNotFinishedProcessCount = 0;
 		if (sampleModel != null) {
+			getSampleModel().writeReports(reportOutput, true);
+			Map<String, ClockOffsetEstimator.Estimate> clockOffsets = getAgentClockOffsets();
+			if (!clockOffsets.isEmpty()) {
+				LOGGER.info("Clock offsets of the agents : {}", clockOffsets);
+			}
 			this.sampleModel.reset();
 			this.sampleModel.stop();
 		}
+		drainReportWriter();
 		LOGGER.info("Sampling is stopped");
 		informTestSamplingEnd();
 	}
@@ -21,6 +21,8 @@
 package net.grinder.console;
 
 import net.grinder.common.GrinderException;
+import net.grinder.communication.Address;
+import net.grinder.communication.Message;
 import net.grinder.communication.MessageDispatchRegistry;
 import net.grinder.communication.MessageDispatchRegistry.AbstractHandler;
 import net.grinder.console.common.ErrorQueue;
@@ -33,9 +35,11 @@ import net.grinder.console.model.*;
 import net.grinder.console.synchronisation.WireDistributedBarriers;
 import net.grinder.engine.communication.DistFilesDigestMessage;
 import net.grinder.engine.console.ErrorHandlerImplementation;
+import net.grinder.messages.console.AbstractReportMessage;
 import net.grinder.messages.console.RegisterExpressionViewMessage;
 import net.grinder.messages.console.RegisterTestsMessage;
 import net.grinder.messages.console.ReportStatisticsMessage;
+import net.grinder.messages.console.ReportTestStatisticsMessage;
 import net.grinder.statistics.StatisticsServicesImplementation;
 import net.grinder.util.ListenerSupport;
 import net.grinder.util.StandardTimeAuthority;
@@ -49,6 +53,12 @@ import org.picocontainer.parameters.ConstantParameter;
 import org.slf4j.Logger;
 
 import java.util.Timer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.ngrinder.common.util.ExceptionUtils.processException;
 import static org.ngrinder.common.util.NoOp.noOp;
@@ -112,6 +122,7 @@ public class ConsoleFoundationEx {
 			new ComponentParameter(DispatchClientCommands.class),
 			new ConstantParameter(m_distFilesDigestAcceptListener));
 		m_container.addComponent(WireDistributedBarriers.class);
+		m_container.addComponent(AgentClockSynchronizer.class);
 		m_container.addComponent(ErrorQueue.class);
 
 		ErrorQueue errorQueue = m_container.getComponent(ErrorQueue.class);
@@ -136,6 +147,7 @@ public class ConsoleFoundationEx {
 	public void shutdown() {
 		m_shutdown = true;
 		m_container.getComponent(ConsoleCommunication.class).shutdown();
+		m_container.getComponent(WireMessageDispatch.class).shutdown();
 		try {
 			m_timer.cancel();
 		} catch (Exception e) {
@@ -171,6 +183,7 @@ public class ConsoleFoundationEx {
 		m_container.getComponent(WireMessageDispatch.class);
 		m_container.getComponent(WireFileDistribution.class);
 		m_container.getComponent(WireDistributedBarriers.class);
+		m_container.getComponent(AgentClockSynchronizer.class);
 		m_container.getComponent(Logger.class).info("console {} has been started", getConsoleInfo());
 		synchronized (m_eventSyncCondition) {
 			m_eventSyncCondition.notifyAll();
@@ -199,6 +212,12 @@ public class ConsoleFoundationEx {
 	 * @see WireFileDistribution
 	 */
 	public static class WireMessageDispatch {
+		private static final int REPORT_QUEUE_SIZE = 1024;
+		private static final long SHUTDOWN_WAIT = 5000;
+
+		// The reports of a sender are applied by one lane in the order of arrival. The lanes apply
+		// the reports of different senders in parallel. Others are handled by the message thread.
+		private final ThreadPoolExecutor[] reportLanes;
 
 		/**
 		 * Constructor.
@@ -213,6 +232,7 @@ public class ConsoleFoundationEx {
 								   ListenerSupport<AcceptDistFilesDigestListener> distFilesDigestAcceptListener) {
 
 			final MessageDispatchRegistry messageDispatchRegistry = communication.getMessageDispatchRegistry();
+			reportLanes = createReportLanes();
 
 			messageDispatchRegistry.set(RegisterTestsMessage.class, new AbstractHandler<RegisterTestsMessage>() {
 				public void handle(RegisterTestsMessage message) {
@@ -221,11 +241,49 @@ public class ConsoleFoundationEx {
 			});
 
 			messageDispatchRegistry.set(ReportStatisticsMessage.class, new AbstractHandler<ReportStatisticsMessage>() {
-				public void handle(ReportStatisticsMessage message) {
-					model.addTestReport(message.getStatisticsDelta());
+				public void handle(final ReportStatisticsMessage message) {
+					// The tests of the report are already registered because the registration
+					// is handled in the order of arrival before this. The report doesn't tell its
+					// sender, so it's applied by the first lane.
+					reportLanes[0].execute(new Runnable() {
+						public void run() {
+							model.addTestReport(message.getStatisticsDelta());
+						}
+					});
 				}
 			});
 
+			messageDispatchRegistry.set(ReportTestStatisticsMessage.class, new AbstractHandler<ReportTestStatisticsMessage>() {
+				public void handle(final ReportTestStatisticsMessage message) {
+					getReportLane(message).execute(new Runnable() {
+						public void run() {
+							if (model instanceof SampleModelImplementationEx) {
+								((SampleModelImplementationEx) model).addTestReport(message.getStatisticsDelta(),
+										message.getHistograms());
+							} else {
+								model.addTestReport(message.getStatisticsDelta());
+							}
+						}
+					});
+				}
+			});
+
+			if (model instanceof SampleModelImplementationEx) {
+				final SampleModelImplementationEx modelEx = (SampleModelImplementationEx) model;
+				final AbstractHandler<Message> reportHandler = new AbstractHandler<Message>() {
+					public void handle(final Message message) {
+						getReportLane(message).execute(new Runnable() {
+							public void run() {
+								modelEx.addReport(message);
+							}
+						});
+					}
+				};
+				for (Class<? extends Message> each : modelEx.getReportTypes()) {
+					messageDispatchRegistry.set(each, reportHandler);
+				}
+			}
+
 			messageDispatchRegistry.set(RegisterExpressionViewMessage.class, new AbstractHandler<RegisterExpressionViewMessage>() {
 				public void handle(RegisterExpressionViewMessage message) {
 					sampleModelViews.registerStatisticExpression(message.getExpressionView());
@@ -245,5 +303,72 @@ public class ConsoleFoundationEx {
 
 			dispatchClientCommands.registerMessageHandlers(messageDispatchRegistry);
 		}
+
+		private ThreadPoolExecutor getReportLane(Message message) {
+			final Address address = message instanceof AbstractReportMessage ?
+				((AbstractReportMessage) message).getSourceAddress() : null;
+			final int hash = address == null ? 0 : address.hashCode();
+			return reportLanes[(hash & Integer.MAX_VALUE) % reportLanes.length];
+		}
+
+		/**
+		 * Create the lanes which apply the reports. When the queue of a lane is full, the message
+		 * thread waits for it instead of applying the report by itself, which would overtake the
+		 * reports queued before. So it doesn't receive more messages than it can apply.
+		 *
+		 * @return single threaded executors
+		 */
+		private static ThreadPoolExecutor[] createReportLanes() {
+			final ThreadPoolExecutor[] lanes = new ThreadPoolExecutor[Math.max(2, Math.min(4,
+				Runtime.getRuntime().availableProcessors()))];
+			final ThreadFactory threadFactory = new ThreadFactory() {
+				private final AtomicInteger count = new AtomicInteger();
+
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "console report dispatcher " + count.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			};
+			final RejectedExecutionHandler waitForQueue = new RejectedExecutionHandler() {
+				public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+					if (executor.isShutdown()) {
+						return;
+					}
+					try {
+						executor.getQueue().put(runnable);
+						executor.prestartCoreThread();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+			};
+			for (int i = 0; i < lanes.length; i++) {
+				lanes[i] = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS,
+					new ArrayBlockingQueue<Runnable>(REPORT_QUEUE_SIZE), threadFactory, waitForQueue);
+				lanes[i].allowCoreThreadTimeOut(true);
+			}
+			return lanes;
+		}
+
+		/**
+		 * Stop accepting the reports, and wait a while until the queued ones are applied.
+		 */
+		public void shutdown() {
+			for (ThreadPoolExecutor each : reportLanes) {
+				each.shutdown();
+			}
+			final long until = System.currentTimeMillis() + SHUTDOWN_WAIT;
+			try {
+				for (ThreadPoolExecutor each : reportLanes) {
+					if (!each.awaitTermination(Math.max(0, until - System.currentTimeMillis()),
+						TimeUnit.MILLISECONDS)) {
+						each.shutdownNow();
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
 	}
 }
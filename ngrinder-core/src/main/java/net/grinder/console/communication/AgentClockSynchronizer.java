@@ -0,0 +1,122 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.grinder.console.communication;
+
+import net.grinder.common.processidentity.AgentIdentity;
+import net.grinder.communication.MessageDispatchRegistry.AbstractHandler;
+import net.grinder.messages.agent.ClockOffsetMessage;
+import net.grinder.messages.agent.ClockPingMessage;
+import net.grinder.messages.console.AgentAddress;
+import net.grinder.messages.console.ClockPongMessage;
+import org.ngrinder.clock.ClockOffsetEstimator;
+import org.ngrinder.clock.ClockOffsetEstimator.Estimate;
+import org.slf4j.Logger;
+
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Estimates the clock offset of each connected agent by pinging it periodically, and sends the
+ * estimate back to the agent so that its worker processes record timestamps in the console time.
+ * <p/>
+ * Must be public for PicoContainer.
+ *
+ * @author nGrinder Developers
+ * @since 3.5.3
+ */
+public class AgentClockSynchronizer {
+	static final long PING_INTERVAL = 2000;
+	/**
+	 * Offsets larger than this are worth a warning because they move the samples of the agent into
+	 * other time buckets.
+	 */
+	static final long LARGE_OFFSET = 1000;
+
+	private final ConsoleCommunication communication;
+	private final Logger logger;
+	private final ConcurrentMap<AgentIdentity, Agent> agents = new ConcurrentHashMap<AgentIdentity, Agent>();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param communication console communication
+	 * @param timer         timer to ping the agents
+	 * @param logger        logger
+	 */
+	public AgentClockSynchronizer(final ConsoleCommunication communication, Timer timer, Logger logger) {
+		this.communication = communication;
+		this.logger = logger;
+		communication.getMessageDispatchRegistry().set(ClockPongMessage.class, new AbstractHandler<ClockPongMessage>() {
+			public void handle(ClockPongMessage message) {
+				received(message, System.currentTimeMillis());
+			}
+		});
+		timer.schedule(new TimerTask() {
+			@Override
+			public void run() {
+				communication.sendToAgents(new ClockPingMessage(System.currentTimeMillis()));
+			}
+		}, 0, PING_INTERVAL);
+	}
+
+	private void received(ClockPongMessage message, long receiveTime) {
+		AgentIdentity identity = message.getAgentIdentity();
+		if (identity == null) {
+			return;
+		}
+		Agent agent = agents.get(identity);
+		if (agent == null) {
+			agents.putIfAbsent(identity, new Agent());
+			agent = agents.get(identity);
+		}
+		Estimate estimate = agent.estimator.add(message.getConsoleSendTime(), message.getAgentReceiveTime(),
+			message.getAgentSendTime(), receiveTime);
+		Estimate sent = agent.sent;
+		if (sent != null && sent.getOffset() == estimate.getOffset() && sent.getDrift() == estimate.getDrift()) {
+			return;
+		}
+		if (sent == null || (Math.abs(estimate.getOffset()) >= LARGE_OFFSET
+			&& Math.abs(estimate.getOffset() - sent.getOffset()) >= LARGE_OFFSET)) {
+			logger.info("Clock offset of the agent {} is {}", identity.getName(), estimate);
+		}
+		agent.sent = estimate;
+		communication.sendToAddressedAgents(new AgentAddress(identity), new ClockOffsetMessage(estimate));
+	}
+
+	/**
+	 * Get the current clock offsets of the agents which answered.
+	 *
+	 * @return estimates by the agent name
+	 */
+	public Map<String, Estimate> getEstimates() {
+		Map<String, Estimate> estimates = new TreeMap<String, Estimate>();
+		for (Map.Entry<AgentIdentity, Agent> each : agents.entrySet()) {
+			Estimate estimate = each.getValue().estimator.getEstimate();
+			if (estimate != null) {
+				estimates.put(each.getKey().getName(), estimate);
+			}
+		}
+		return estimates;
+	}
+
+	private static final class Agent {
+		private final ClockOffsetEstimator estimator = new ClockOffsetEstimator();
+		// Estimate which was sent to the agent last. Only the message thread touches it.
+		private Estimate sent;
+	}
+}
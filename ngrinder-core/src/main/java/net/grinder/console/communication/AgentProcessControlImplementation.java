@@ -116,7 +116,8 @@ public class AgentProcessControlImplementation implements AgentProcessControl {
 				m_logListeners.apply(new Informer<LogArrivedListener>() {
 					@Override
 					public void inform(LogArrivedListener listener) {
-						listener.logArrived(message.getTestId(), message.getAddress(), message.getLogs());
+						listener.logArrived(message.getTestId(), message.getAddress(), message.getLogs(),
+								message.isAppend());
 					}
 				});
 			}
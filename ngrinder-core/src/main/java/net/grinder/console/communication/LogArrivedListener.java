@@ -28,7 +28,8 @@ public interface LogArrivedListener extends EventListener {
 	 * callback method which will be called when log is arrived from a agent.
 	 * @param testId test id
 	 * @param agentAddress agent address
-	 * @param logs compressed log byte array
+	 * @param logs chunk of the compressed log
+	 * @param append true if the chunk should be appended to the previous one
 	 */
-	public void logArrived(String testId, AgentAddress agentAddress, byte[] logs);
+	public void logArrived(String testId, AgentAddress agentAddress, byte[] logs, boolean append);
 }
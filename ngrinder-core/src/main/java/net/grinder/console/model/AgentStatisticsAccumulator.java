@@ -0,0 +1,343 @@
+package net.grinder.console.model;
+
+import net.grinder.common.processidentity.WorkerIdentity;
+import net.grinder.messages.console.ReportProcessSummaryMessage;
+import org.ngrinder.statistics.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Accumulates the summaries reported from worker processes by their agents, so that a load
+ * generator which tests less or slower than the others can be found.
+ * <p/>
+ * The samples of each agent are taken by {@link #fireSample(long, long)} along with the total samples,
+ * and the samples of the last {@link #RECENT_SAMPLES} intervals are added up as the recent
+ * statistics which are less noisy than a single sample.
+ * <p/>
+ * Guarded by the accumulator map of {@link SampleModelImplementationEx}.
+ *
+ * @since 3.5.3
+ */
+public class AgentStatisticsAccumulator implements ReportSink<ReportProcessSummaryMessage> {
+	static final int RECENT_SAMPLES = 10;
+	public static final String REPORT_CSV = "agent_statistics.csv";
+	private static final String[] REPORT_CSV_HEADER = {"Time(ms)", "Agent", "TPS", "Errors", "Mean_Test_Time_(ms)",
+		"Test_Time_P50_(ms)", "Test_Time_P90_(ms)", "Test_Time_P99_(ms)"};
+
+	private final Map<String, Agent> agents = new TreeMap<String, Agent>();
+
+	private volatile List<Sample> lastSample = Collections.emptyList();
+
+	@Override
+	public Class<ReportProcessSummaryMessage> getReportType() {
+		return ReportProcessSummaryMessage.class;
+	}
+
+	@Override
+	public void add(ReportProcessSummaryMessage report, boolean cumulative) {
+		WorkerIdentity workerIdentity = report.getWorkerIdentity();
+		add(workerIdentity.getAgentIdentity().getName(), workerIdentity.getName(), report.getTests(),
+			report.getErrors(), report.getTestTime(), report.getHistogram(), cumulative);
+	}
+
+	/**
+	 * Add the summary reported from a worker process.
+	 *
+	 * @param agent      agent name
+	 * @param process    worker process name
+	 * @param tests      count of the successful tests
+	 * @param errors     count of the failed tests
+	 * @param testTime   sum of the test times of the successful tests
+	 * @param histogram  test time histogram of the successful tests. null if there is none.
+	 * @param cumulative true if it's counted in the cumulative statistics as well
+	 */
+	public void add(String agent, String process, long tests, long errors, long testTime,
+					LatencyHistogram histogram, boolean cumulative) {
+		Agent each = agents.get(agent);
+		if (each == null) {
+			each = new Agent(agent);
+			agents.put(agent, each);
+		}
+		each.intervalTests += tests;
+		each.intervalErrors += errors;
+		each.intervalTestTime += testTime;
+		if (histogram != null) {
+			each.intervalHistogram.add(histogram);
+		}
+		if (cumulative) {
+			each.tests += tests;
+			each.errors += errors;
+			each.testTime += testTime;
+			if (histogram != null) {
+				each.histogram.add(histogram);
+			}
+			long[] processCounts = each.processes.get(process);
+			if (processCounts == null) {
+				processCounts = new long[2];
+				each.processes.put(process, processCounts);
+			}
+			processCounts[0] += tests;
+			processCounts[1] += errors;
+		}
+	}
+
+	/**
+	 * Fix the current interval of each agent as its last sample and start the new interval.
+	 */
+	@Override
+	public void fireSample(long time, long sampleInterval) {
+		if (agents.isEmpty()) {
+			return;
+		}
+		List<Sample> samples = new ArrayList<Sample>(agents.size());
+		for (Agent each : agents.values()) {
+			samples.add(each.fireSample(sampleInterval));
+		}
+		lastSample = Collections.unmodifiableList(samples);
+	}
+
+	/**
+	 * Reset all agents.
+	 */
+	@Override
+	public void zero() {
+		agents.clear();
+		lastSample = Collections.emptyList();
+	}
+
+	/**
+	 * Write the last samples of the agents into the agent statistics CSV file. Nothing is written
+	 * unless the workers report their summaries.
+	 */
+	@Override
+	public void write(ReportOutput output, boolean finished) {
+		if (finished) {
+			return;
+		}
+		long now = System.currentTimeMillis();
+		for (Sample each : lastSample) {
+			output.appendCsvLine(REPORT_CSV, REPORT_CSV_HEADER, now, each.getAgent(), each.getTps(), each.getErrors(),
+				each.getMeanTestTime(), each.getP50(), each.getP90(), each.getP99());
+		}
+	}
+
+	/**
+	 * Get the last samples of the agents in the order of the agent name.
+	 *
+	 * @return samples. empty if no agent reported.
+	 */
+	public List<Sample> getLastSample() {
+		return lastSample;
+	}
+
+	/**
+	 * Take the summaries of the agents in the order of the agent name.
+	 *
+	 * @param sampleInterval sample interval in milliseconds
+	 * @return summaries which are not changed by the following reports
+	 */
+	public List<Summary> getSummaries(long sampleInterval) {
+		List<Summary> summaries = new ArrayList<Summary>(agents.size());
+		for (Agent each : agents.values()) {
+			summaries.add(each.summarize(sampleInterval));
+		}
+		return summaries;
+	}
+
+	private static double mean(long testTime, long tests) {
+		return tests == 0 ? 0 : (double) testTime / tests;
+	}
+
+	private static final class Agent {
+		private final String name;
+		private long intervalTests;
+		private long intervalErrors;
+		private long intervalTestTime;
+		private final LatencyHistogram intervalHistogram = new LatencyHistogram();
+		private long tests;
+		private long errors;
+		private long testTime;
+		private final LatencyHistogram histogram = new LatencyHistogram();
+		private final Map<String, long[]> processes = new TreeMap<String, long[]>();
+
+		// The last samples in a ring.
+		private final long[] recentTests = new long[RECENT_SAMPLES];
+		private final long[] recentErrors = new long[RECENT_SAMPLES];
+		private final long[] recentTestTime = new long[RECENT_SAMPLES];
+		private int recentCount = 0;
+		private int next = 0;
+
+		private Agent(String name) {
+			this.name = name;
+		}
+
+		private Sample fireSample(long sampleInterval) {
+			Sample sample = new Sample(name, intervalTests * 1000d / sampleInterval, intervalErrors,
+				mean(intervalTestTime, intervalTests), intervalHistogram.getValueAtPercentile(50),
+				intervalHistogram.getValueAtPercentile(90), intervalHistogram.getValueAtPercentile(99));
+			recentTests[next] = intervalTests;
+			recentErrors[next] = intervalErrors;
+			recentTestTime[next] = intervalTestTime;
+			next = (next + 1) % RECENT_SAMPLES;
+			recentCount = Math.min(recentCount + 1, RECENT_SAMPLES);
+			intervalTests = 0;
+			intervalErrors = 0;
+			intervalTestTime = 0;
+			intervalHistogram.reset();
+			return sample;
+		}
+
+		private Summary summarize(long sampleInterval) {
+			long tests = 0;
+			long errors = 0;
+			long testTime = 0;
+			for (int i = 0; i < recentCount; i++) {
+				tests += recentTests[i];
+				errors += recentErrors[i];
+				testTime += recentTestTime[i];
+			}
+			double recentTps = recentCount == 0 ? 0 : tests * 1000d / (recentCount * sampleInterval);
+			Map<String, long[]> processCounts = new LinkedHashMap<String, long[]>();
+			for (Map.Entry<String, long[]> each : processes.entrySet()) {
+				processCounts.put(each.getKey(), each.getValue().clone());
+			}
+			return new Summary(name, recentTps, mean(testTime, tests), errors, this.tests, this.errors,
+				mean(this.testTime, this.tests), histogram.copy(), processCounts);
+		}
+	}
+
+	/**
+	 * Statistics of an agent during a sample interval.
+	 */
+	public static final class Sample {
+		private final String agent;
+		private final double tps;
+		private final long errors;
+		private final double meanTestTime;
+		private final long p50;
+		private final long p90;
+		private final long p99;
+
+		Sample(String agent, double tps, long errors, double meanTestTime, long p50, long p90, long p99) {
+			this.agent = agent;
+			this.tps = tps;
+			this.errors = errors;
+			this.meanTestTime = meanTestTime;
+			this.p50 = p50;
+			this.p90 = p90;
+			this.p99 = p99;
+		}
+
+		public String getAgent() {
+			return agent;
+		}
+
+		public double getTps() {
+			return tps;
+		}
+
+		public long getErrors() {
+			return errors;
+		}
+
+		public double getMeanTestTime() {
+			return meanTestTime;
+		}
+
+		public long getP50() {
+			return p50;
+		}
+
+		public long getP90() {
+			return p90;
+		}
+
+		public long getP99() {
+			return p99;
+		}
+	}
+
+	/**
+	 * Recent and cumulative statistics of an agent.
+	 */
+	public static final class Summary {
+		private final String agent;
+		private final double recentTps;
+		private final double recentMeanTestTime;
+		private final long recentErrors;
+		private final long tests;
+		private final long errors;
+		private final double meanTestTime;
+		private final LatencyHistogram histogram;
+		private final Map<String, long[]> processes;
+
+		Summary(String agent, double recentTps, double recentMeanTestTime, long recentErrors, long tests,
+				long errors, double meanTestTime, LatencyHistogram histogram, Map<String, long[]> processes) {
+			this.agent = agent;
+			this.recentTps = recentTps;
+			this.recentMeanTestTime = recentMeanTestTime;
+			this.recentErrors = recentErrors;
+			this.tests = tests;
+			this.errors = errors;
+			this.meanTestTime = meanTestTime;
+			this.histogram = histogram;
+			this.processes = processes;
+		}
+
+		public String getAgent() {
+			return agent;
+		}
+
+		/**
+		 * Get the TPS of the recent samples.
+		 *
+		 * @return TPS
+		 */
+		public double getRecentTps() {
+			return recentTps;
+		}
+
+		public double getRecentMeanTestTime() {
+			return recentMeanTestTime;
+		}
+
+		public long getRecentErrors() {
+			return recentErrors;
+		}
+
+		public long getTests() {
+			return tests;
+		}
+
+		public long getErrors() {
+			return errors;
+		}
+
+		public double getMeanTestTime() {
+			return meanTestTime;
+		}
+
+		/**
+		 * Get the cumulative test time histogram.
+		 *
+		 * @return histogram
+		 */
+		public LatencyHistogram getHistogram() {
+			return histogram;
+		}
+
+		/**
+		 * Get the cumulative test and error counts of each worker process of the agent.
+		 *
+		 * @return test and error counts by the process name
+		 */
+		public Map<String, long[]> getProcesses() {
+			return processes;
+		}
+	}
+}
@@ -0,0 +1,99 @@
+package net.grinder.console.model;
+
+import net.grinder.messages.console.ReportDnsCacheMessage;
+
+/**
+ * Accumulates the DNS cache hit and miss counts reported from workers which use the local DNS.
+ * <p/>
+ * Guarded by the accumulator map of {@link SampleModelImplementationEx}.
+ *
+ * @since 3.5.3
+ */
+public class DnsCacheAccumulator implements ReportSink<ReportDnsCacheMessage> {
+	private boolean reported;
+	private long intervalHits;
+	private long intervalMisses;
+	private long cumulativeHits;
+	private long cumulativeMisses;
+
+	private volatile long[] lastSample = new long[2];
+	private volatile long[] cumulativeSnapshot = new long[2];
+
+	@Override
+	public Class<ReportDnsCacheMessage> getReportType() {
+		return ReportDnsCacheMessage.class;
+	}
+
+	@Override
+	public void add(ReportDnsCacheMessage report, boolean cumulative) {
+		addInterval(report.getHits(), report.getMisses());
+		if (cumulative) {
+			addCumulative(report.getHits(), report.getMisses());
+		}
+	}
+
+	public void addInterval(long hits, long misses) {
+		reported = true;
+		intervalHits += hits;
+		intervalMisses += misses;
+	}
+
+	public void addCumulative(long hits, long misses) {
+		cumulativeHits += hits;
+		cumulativeMisses += misses;
+	}
+
+	@Override
+	public void fireSample(long time, long sampleInterval) {
+		if (!reported) {
+			return;
+		}
+		lastSample = new long[]{intervalHits, intervalMisses};
+		cumulativeSnapshot = new long[]{cumulativeHits, cumulativeMisses};
+		intervalHits = 0;
+		intervalMisses = 0;
+	}
+
+	@Override
+	public void zero() {
+		reported = false;
+		intervalHits = 0;
+		intervalMisses = 0;
+		cumulativeHits = 0;
+		cumulativeMisses = 0;
+		lastSample = new long[2];
+		cumulativeSnapshot = new long[2];
+	}
+
+	@Override
+	public void write(ReportOutput output, boolean finished) {
+		// The counts are shown only in the statistics of the test.
+	}
+
+	/**
+	 * Check if any worker uses the DNS cache.
+	 *
+	 * @return true if counts were reported since the last reset
+	 */
+	public boolean isReported() {
+		return reported;
+	}
+
+	/**
+	 * Get the DNS cache hit and miss counts of the last sample interval.
+	 *
+	 * @return hit and miss counts
+	 */
+	public long[] getLastSample() {
+		return lastSample;
+	}
+
+	/**
+	 * Get the DNS cache hit and miss counts accumulated until the last sample.
+	 *
+	 * @return hit and miss counts
+	 */
+	public long[] getCumulative() {
+		return cumulativeSnapshot;
+	}
+}
@@ -0,0 +1,153 @@
+package net.grinder.console.model;
+
+import net.grinder.messages.console.ReportErrorsMessage;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Accumulates the failure counts of each test by their categories reported from workers.
+ * <p/>
+ * Guarded by the accumulator map of {@link SampleModelImplementationEx}.
+ *
+ * @since 3.5.3
+ */
+public class ErrorCategoryAccumulator implements ReportSink<ReportErrorsMessage> {
+	public static final String REPORT_CSV = "error_categories.csv";
+	private static final String[] REPORT_CSV_HEADER = {"Time(ms)", "Test", "Category", "Errors"};
+
+	private boolean reported;
+	private final Map<Integer, Map<String, Long>> interval = new TreeMap<Integer, Map<String, Long>>();
+	private final Map<Integer, Map<String, Long>> cumulative = new TreeMap<Integer, Map<String, Long>>();
+
+	private volatile Map<Integer, Map<String, Long>> lastSample = Collections.emptyMap();
+	private volatile Map<Integer, Map<String, Long>> cumulativeSnapshot = Collections.emptyMap();
+
+	@Override
+	public Class<ReportErrorsMessage> getReportType() {
+		return ReportErrorsMessage.class;
+	}
+
+	@Override
+	public void add(ReportErrorsMessage report, boolean cumulative) {
+		addInterval(report.getErrors());
+		if (cumulative) {
+			addCumulative(report.getErrors());
+		}
+	}
+
+	public void addInterval(Map<Integer, Map<String, Long>> errors) {
+		reported = true;
+		add(interval, errors);
+	}
+
+	public void addCumulative(Map<Integer, Map<String, Long>> errors) {
+		add(cumulative, errors);
+	}
+
+	private static void add(Map<Integer, Map<String, Long>> target, Map<Integer, Map<String, Long>> errors) {
+		for (Map.Entry<Integer, Map<String, Long>> test : errors.entrySet()) {
+			Map<String, Long> counts = target.get(test.getKey());
+			if (counts == null) {
+				counts = new TreeMap<String, Long>();
+				target.put(test.getKey(), counts);
+			}
+			for (Map.Entry<String, Long> each : test.getValue().entrySet()) {
+				Long count = counts.get(each.getKey());
+				counts.put(each.getKey(), count == null ? each.getValue() : count + each.getValue());
+			}
+		}
+	}
+
+	@Override
+	public void fireSample(long time, long sampleInterval) {
+		if (!reported) {
+			return;
+		}
+		lastSample = copy(interval);
+		cumulativeSnapshot = copy(cumulative);
+		interval.clear();
+	}
+
+	private static Map<Integer, Map<String, Long>> copy(Map<Integer, Map<String, Long>> errors) {
+		Map<Integer, Map<String, Long>> copied = new TreeMap<Integer, Map<String, Long>>();
+		for (Map.Entry<Integer, Map<String, Long>> each : errors.entrySet()) {
+			copied.put(each.getKey(), Collections.unmodifiableMap(new TreeMap<String, Long>(each.getValue())));
+		}
+		return Collections.unmodifiableMap(copied);
+	}
+
+	@Override
+	public void zero() {
+		reported = false;
+		interval.clear();
+		cumulative.clear();
+		lastSample = Collections.emptyMap();
+		cumulativeSnapshot = Collections.emptyMap();
+	}
+
+	/**
+	 * Write the failure counts of the last sample into the error categories CSV file, and log
+	 * them in total when the test is finished. Nothing is written while no test fails.
+	 */
+	@Override
+	public void write(ReportOutput output, boolean finished) {
+		if (finished) {
+			if (!cumulativeSnapshot.isEmpty()) {
+				output.getLogger().info("Errors by category : {}", sum(cumulativeSnapshot));
+			}
+			return;
+		}
+		long now = System.currentTimeMillis();
+		for (Map.Entry<Integer, Map<String, Long>> test : lastSample.entrySet()) {
+			for (Map.Entry<String, Long> each : test.getValue().entrySet()) {
+				output.appendCsvLine(REPORT_CSV, REPORT_CSV_HEADER, now, test.getKey(), each.getKey(), each.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Check if any worker counted failures.
+	 *
+	 * @return true if counts were reported since the last reset
+	 */
+	public boolean isReported() {
+		return reported;
+	}
+
+	/**
+	 * Get the failure counts of the last sample interval.
+	 *
+	 * @return failure counts by the category by the test number. 0 is for the failures out of tests.
+	 */
+	public Map<Integer, Map<String, Long>> getLastSample() {
+		return lastSample;
+	}
+
+	/**
+	 * Get the failure counts accumulated until the last sample.
+	 *
+	 * @return failure counts by the category by the test number. 0 is for the failures out of tests.
+	 */
+	public Map<Integer, Map<String, Long>> getCumulative() {
+		return cumulativeSnapshot;
+	}
+
+	/**
+	 * Sum up the failure counts of all tests by their categories.
+	 *
+	 * @param errors failure counts by the category by the test number
+	 * @return failure counts by the category
+	 */
+	public static Map<String, Long> sum(Map<Integer, Map<String, Long>> errors) {
+		Map<String, Long> total = new TreeMap<String, Long>();
+		for (Map<String, Long> test : errors.values()) {
+			for (Map.Entry<String, Long> each : test.entrySet()) {
+				Long count = total.get(each.getKey());
+				total.put(each.getKey(), count == null ? each.getValue() : count + each.getValue());
+			}
+		}
+		return total;
+	}
+}
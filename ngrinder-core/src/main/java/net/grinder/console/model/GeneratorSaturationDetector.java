@@ -0,0 +1,343 @@
+package net.grinder.console.model;
+
+import net.grinder.common.processidentity.WorkerIdentity;
+import net.grinder.messages.console.ReportGeneratorLoadMessage;
+import org.apache.commons.lang.StringUtils;
+import org.ngrinder.common.util.DateUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Finds the agents whose load generator is saturated by the load reported from their worker
+ * processes. The test times measured on a saturated generator include the time the generator
+ * was busy with itself, so they don't tell the capacity of the target.
+ * <p/>
+ * An agent is saturated in a sample when
+ * <ul>
+ * <li>{@link Reason#CPU} : the CPU load of the machine, or the CPU used by all its worker
+ * processes, is {@link #CPU_THRESHOLD} or more</li>
+ * <li>{@link Reason#GC} : a worker process spent {@link #GC_THRESHOLD} or more of the time in
+ * GC</li>
+ * <li>{@link Reason#SCHEDULING_LAG} : a worker thread woke up {@link #SCHEDULING_LAG_THRESHOLD}
+ * milliseconds or more later than scheduled</li>
+ * </ul>
+ * A saturation is raised after {@link #CONSECUTIVE_SAMPLES} saturated samples in a row, so that a
+ * single GC or a short burst doesn't raise it, and it lasts until a sample of the agent is fine.
+ * <p/>
+ * Guarded by the accumulator map of {@link SampleModelImplementationEx}.
+ *
+ * @since 3.5.3
+ */
+public class GeneratorSaturationDetector implements ReportSink<ReportGeneratorLoadMessage> {
+	public static final String REPORT_CSV = "generator_saturation.csv";
+	private static final String[] REPORT_CSV_HEADER = {"Start_Time(ms)", "End_Time(ms)", "Agent", "Reasons",
+		"Peak_CPU", "Peak_GC_Ratio", "Peak_Scheduling_Lag_(ms)"};
+	public static final double CPU_THRESHOLD = 0.9;
+	public static final double GC_THRESHOLD = 0.1;
+	public static final long SCHEDULING_LAG_THRESHOLD = 100;
+	static final int CONSECUTIVE_SAMPLES = 2;
+
+	/**
+	 * Reasons of the saturation.
+	 */
+	public enum Reason {
+		CPU, GC, SCHEDULING_LAG
+	}
+
+	private boolean reported;
+	private final Map<String, Agent> agents = new TreeMap<String, Agent>();
+	private final List<Saturation> saturations = new ArrayList<Saturation>();
+
+	private volatile List<Saturation> saturationSnapshot = Collections.emptyList();
+	private volatile List<Saturation> lastRaised = Collections.emptyList();
+
+	@Override
+	public Class<ReportGeneratorLoadMessage> getReportType() {
+		return ReportGeneratorLoadMessage.class;
+	}
+
+	@Override
+	public void add(ReportGeneratorLoadMessage report, boolean cumulative) {
+		// Saturation during the ignored samples is found as well, since it affects the following ones.
+		WorkerIdentity workerIdentity = report.getWorkerIdentity();
+		add(workerIdentity.getAgentIdentity().getName(), workerIdentity.getName(), report.getProcessCpu(),
+			report.getSystemCpu(), report.getGcTime(), report.getMaxSchedulingLag(), report.getInterval());
+	}
+
+	/**
+	 * Add the load reported from a worker process.
+	 *
+	 * @param agent            agent name
+	 * @param process          worker process name
+	 * @param processCpu       CPU used by the process over the capacity of the machine. negative if unknown.
+	 * @param systemCpu        CPU load of the machine. negative if unknown.
+	 * @param gcTime           GC time in milliseconds
+	 * @param maxSchedulingLag max scheduling lag in milliseconds
+	 * @param interval         measured interval in milliseconds
+	 */
+	public void add(String agent, String process, double processCpu, double systemCpu, long gcTime,
+					long maxSchedulingLag, long interval) {
+		reported = true;
+		Agent each = agents.get(agent);
+		if (each == null) {
+			each = new Agent(agent);
+			agents.put(agent, each);
+		}
+		each.add(process, processCpu, systemCpu, gcTime, maxSchedulingLag, interval);
+	}
+
+	/**
+	 * Check the agents which reported during the current interval and start the new interval.
+	 */
+	@Override
+	public void fireSample(long time, long sampleInterval) {
+		if (!reported) {
+			return;
+		}
+		List<Saturation> raised = new ArrayList<Saturation>();
+		for (Agent each : agents.values()) {
+			Saturation saturation = each.fireSample(time);
+			if (saturation != null) {
+				saturations.add(saturation);
+				raised.add(saturation.copy());
+			}
+		}
+		List<Saturation> snapshot = new ArrayList<Saturation>(saturations.size());
+		for (Saturation each : saturations) {
+			snapshot.add(each.copy());
+		}
+		saturationSnapshot = Collections.unmodifiableList(snapshot);
+		lastRaised = Collections.unmodifiableList(raised);
+	}
+
+	/**
+	 * Reset all agents and saturations.
+	 */
+	@Override
+	public void zero() {
+		reported = false;
+		agents.clear();
+		saturations.clear();
+		saturationSnapshot = Collections.emptyList();
+		lastRaised = Collections.emptyList();
+	}
+
+	/**
+	 * Warn that the load generators are saturated when raised, since the test times measured while
+	 * they are saturated reflect the generators rather than the target. The saturations are written
+	 * into the generator saturation CSV file when the test is finished.
+	 */
+	@Override
+	public void write(ReportOutput output, boolean finished) {
+		if (!finished) {
+			for (Saturation each : lastRaised) {
+				output.getLogger().warn("The load generator of {} is saturated by {} since {}. The test results may "
+					+ "not reflect the target.", each.getAgent(), each.getReasons(),
+					DateUtils.dateToString(new Date(each.getStartTime())));
+			}
+			return;
+		}
+		if (saturationSnapshot.isEmpty()) {
+			return;
+		}
+		output.getLogger().warn("The load generators were saturated {} times during the test.",
+			saturationSnapshot.size());
+		for (Saturation each : saturationSnapshot) {
+			output.appendCsvLine(REPORT_CSV, REPORT_CSV_HEADER, each.getStartTime(),
+				each.isOngoing() ? "" : each.getEndTime(), each.getAgent(), StringUtils.join(each.getReasons(), " "),
+				each.getPeakCpu(), each.getPeakGcRatio(), each.getPeakSchedulingLag());
+		}
+	}
+
+	/**
+	 * Check if any worker reported its load.
+	 *
+	 * @return true if reported
+	 */
+	public boolean isReported() {
+		return reported;
+	}
+
+	/**
+	 * Get the saturations found until the last sample in the order they were raised.
+	 *
+	 * @return saturations which are not changed by the following samples
+	 */
+	public List<Saturation> getSaturations() {
+		return saturationSnapshot;
+	}
+
+	/**
+	 * Get the saturations raised in the last sample.
+	 *
+	 * @return saturations which are not changed by the following samples
+	 */
+	public List<Saturation> getLastRaised() {
+		return lastRaised;
+	}
+
+	private static final class Agent {
+		private final String name;
+		private final Map<String, ProcessLoad> processes = new HashMap<String, ProcessLoad>();
+		private double systemCpu = -1;
+		private long maxSchedulingLag;
+
+		private int saturatedSamples;
+		// Saturation which is not raised yet or is not finished.
+		private Saturation current;
+
+		private Agent(String name) {
+			this.name = name;
+		}
+
+		private void add(String process, double processCpu, double systemCpu, long gcTime, long maxSchedulingLag,
+						 long interval) {
+			ProcessLoad load = processes.get(process);
+			if (load == null) {
+				load = new ProcessLoad();
+				processes.put(process, load);
+			}
+			load.cpu = Math.max(load.cpu, processCpu);
+			load.gcTime += gcTime;
+			load.time += interval;
+			this.systemCpu = Math.max(this.systemCpu, systemCpu);
+			this.maxSchedulingLag = Math.max(this.maxSchedulingLag, maxSchedulingLag);
+		}
+
+		/*
+		 * Returns the saturation which is raised by this sample. null if none is.
+		 */
+		private Saturation fireSample(long time) {
+			if (processes.isEmpty()) {
+				// Nothing is reported during this interval.
+				return null;
+			}
+			double processCpu = 0;
+			double gcRatio = 0;
+			for (ProcessLoad each : processes.values()) {
+				processCpu += Math.max(each.cpu, 0);
+				if (each.time > 0) {
+					gcRatio = Math.max(gcRatio, (double) each.gcTime / each.time);
+				}
+			}
+			double cpu = Math.max(processCpu, systemCpu);
+			Set<Reason> reasons = EnumSet.noneOf(Reason.class);
+			if (cpu >= CPU_THRESHOLD) {
+				reasons.add(Reason.CPU);
+			}
+			if (gcRatio >= GC_THRESHOLD) {
+				reasons.add(Reason.GC);
+			}
+			if (maxSchedulingLag >= SCHEDULING_LAG_THRESHOLD) {
+				reasons.add(Reason.SCHEDULING_LAG);
+			}
+			processes.clear();
+			systemCpu = -1;
+			long lag = maxSchedulingLag;
+			maxSchedulingLag = 0;
+
+			if (reasons.isEmpty()) {
+				saturatedSamples = 0;
+				if (current != null) {
+					current.endTime = time;
+					current = null;
+				}
+				return null;
+			}
+			if (saturatedSamples == 0) {
+				current = new Saturation(name, time);
+			}
+			saturatedSamples++;
+			current.update(reasons, cpu, gcRatio, lag);
+			return saturatedSamples == CONSECUTIVE_SAMPLES ? current : null;
+		}
+	}
+
+	private static final class ProcessLoad {
+		private double cpu = -1;
+		private long gcTime;
+		private long time;
+	}
+
+	/**
+	 * Period while an agent was saturated.
+	 */
+	public static final class Saturation {
+		private final String agent;
+		private final long startTime;
+		private long endTime = -1;
+		private final Set<Reason> reasons = EnumSet.noneOf(Reason.class);
+		private double peakCpu;
+		private double peakGcRatio;
+		private long peakSchedulingLag;
+
+		Saturation(String agent, long startTime) {
+			this.agent = agent;
+			this.startTime = startTime;
+		}
+
+		private void update(Set<Reason> reasons, double cpu, double gcRatio, long schedulingLag) {
+			this.reasons.addAll(reasons);
+			peakCpu = Math.max(peakCpu, cpu);
+			peakGcRatio = Math.max(peakGcRatio, gcRatio);
+			peakSchedulingLag = Math.max(peakSchedulingLag, schedulingLag);
+		}
+
+		private Saturation copy() {
+			Saturation copied = new Saturation(agent, startTime);
+			copied.endTime = endTime;
+			copied.update(reasons, peakCpu, peakGcRatio, peakSchedulingLag);
+			return copied;
+		}
+
+		public String getAgent() {
+			return agent;
+		}
+
+		/**
+		 * Get the time of the first saturated sample.
+		 *
+		 * @return milliseconds since Epoch
+		 */
+		public long getStartTime() {
+			return startTime;
+		}
+
+		/**
+		 * Get the time of the first sample which was fine after the saturation.
+		 *
+		 * @return milliseconds since Epoch. -1 if the agent is still saturated.
+		 */
+		public long getEndTime() {
+			return endTime;
+		}
+
+		public boolean isOngoing() {
+			return endTime < 0;
+		}
+
+		public Set<Reason> getReasons() {
+			return Collections.unmodifiableSet(reasons);
+		}
+
+		public double getPeakCpu() {
+			return peakCpu;
+		}
+
+		public double getPeakGcRatio() {
+			return peakGcRatio;
+		}
+
+		public long getPeakSchedulingLag() {
+			return peakSchedulingLag;
+		}
+	}
+}
@@ -0,0 +1,100 @@
+package net.grinder.console.model;
+
+import net.grinder.messages.console.ReportIterationScheduleMessage;
+
+/**
+ * Accumulates the late and dropped iteration counts reported from workers which schedule the
+ * iterations by the arrival rate.
+ * <p/>
+ * Guarded by the accumulator map of {@link SampleModelImplementationEx}.
+ *
+ * @since 3.5.3
+ */
+public class IterationScheduleAccumulator implements ReportSink<ReportIterationScheduleMessage> {
+	private boolean reported;
+	private long intervalLate;
+	private long intervalDropped;
+	private long cumulativeLate;
+	private long cumulativeDropped;
+
+	private volatile long[] lastSample = new long[2];
+	private volatile long[] cumulativeSnapshot = new long[2];
+
+	@Override
+	public Class<ReportIterationScheduleMessage> getReportType() {
+		return ReportIterationScheduleMessage.class;
+	}
+
+	@Override
+	public void add(ReportIterationScheduleMessage report, boolean cumulative) {
+		addInterval(report.getLateIterations(), report.getDroppedIterations());
+		if (cumulative) {
+			addCumulative(report.getLateIterations(), report.getDroppedIterations());
+		}
+	}
+
+	public void addInterval(long late, long dropped) {
+		reported = true;
+		intervalLate += late;
+		intervalDropped += dropped;
+	}
+
+	public void addCumulative(long late, long dropped) {
+		cumulativeLate += late;
+		cumulativeDropped += dropped;
+	}
+
+	@Override
+	public void fireSample(long time, long sampleInterval) {
+		if (!reported) {
+			return;
+		}
+		lastSample = new long[]{intervalLate, intervalDropped};
+		cumulativeSnapshot = new long[]{cumulativeLate, cumulativeDropped};
+		intervalLate = 0;
+		intervalDropped = 0;
+	}
+
+	@Override
+	public void zero() {
+		reported = false;
+		intervalLate = 0;
+		intervalDropped = 0;
+		cumulativeLate = 0;
+		cumulativeDropped = 0;
+		lastSample = new long[2];
+		cumulativeSnapshot = new long[2];
+	}
+
+	@Override
+	public void write(ReportOutput output, boolean finished) {
+		// The counts are shown only in the statistics of the test.
+	}
+
+	/**
+	 * Check if any worker schedules the iterations by the arrival rate.
+	 *
+	 * @return true if counts were reported since the last reset
+	 */
+	public boolean isReported() {
+		return reported;
+	}
+
+	/**
+	 * Get the late and dropped iteration counts of the last sample interval.
+	 *
+	 * @return late and dropped iteration counts
+	 */
+	public long[] getLastSample() {
+		return lastSample;
+	}
+
+	/**
+	 * Get the late and dropped iteration counts accumulated until the last sample.
+	 *
+	 * @return late and dropped iteration counts
+	 */
+	public long[] getCumulative() {
+		return cumulativeSnapshot;
+	}
+}
@@ -0,0 +1,76 @@
+package net.grinder.console.model;
+
+import org.ngrinder.statistics.LatencyHistogram;
+
+/**
+ * Accumulates test time histograms reported from workers for a test or for the total.
+ * <p/>
+ * Guarded by the accumulator map of {@link SampleModelImplementationEx}.
+ *
+ * @since 3.5.3
+ */
+public class LatencyAccumulator {
+	private LatencyHistogram interval = new LatencyHistogram();
+	private final LatencyHistogram cumulative = new LatencyHistogram();
+
+	private volatile LatencyHistogram lastSample = new LatencyHistogram();
+	private volatile LatencyHistogram cumulativeSnapshot = new LatencyHistogram();
+	// Histograms of the previous sample which are reused for the next one.
+	private LatencyHistogram spareCumulativeSnapshot = new LatencyHistogram();
+
+	public void addIntervalHistogram(LatencyHistogram histogram) {
+		interval.add(histogram);
+	}
+
+	public void addCumulativeHistogram(LatencyHistogram histogram) {
+		cumulative.add(histogram);
+	}
+
+	/**
+	 * Fix the current interval as the last sample and start the new interval.
+	 * <p/>
+	 * The histograms of the previous sample are reset and reused so that nothing is allocated in
+	 * each sample.
+	 */
+	public void fireSample() {
+		LatencyHistogram previousSample = lastSample;
+		lastSample = interval;
+		previousSample.reset();
+		interval = previousSample;
+
+		LatencyHistogram snapshot = spareCumulativeSnapshot;
+		snapshot.reset();
+		snapshot.add(cumulative);
+		spareCumulativeSnapshot = cumulativeSnapshot;
+		cumulativeSnapshot = snapshot;
+	}
+
+	/**
+	 * Reset all histograms.
+	 */
+	public void zero() {
+		interval = new LatencyHistogram();
+		cumulative.reset();
+		lastSample = new LatencyHistogram();
+		cumulativeSnapshot = new LatencyHistogram();
+	}
+
+	/**
+	 * Get the histogram of the last sample interval. It's not changed until the next sample is
+	 * fired.
+	 *
+	 * @return histogram
+	 */
+	public LatencyHistogram getLastSampleHistogram() {
+		return lastSample;
+	}
+
+	/**
+	 * Get the snapshot of the cumulative histogram taken at the last sample.
+	 *
+	 * @return histogram
+	 */
+	public LatencyHistogram getCumulativeHistogram() {
+		return cumulativeSnapshot;
+	}
+}
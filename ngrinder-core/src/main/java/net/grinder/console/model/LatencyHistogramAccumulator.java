@@ -0,0 +1,120 @@
+package net.grinder.console.model;
+
+import org.ngrinder.statistics.LatencyHistogram;
+import org.ngrinder.statistics.LatencyHistograms;
+
+import java.text.DecimalFormat;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Accumulates the test time histograms reported from workers for each test, for the total and
+ * for the total corrected for the coordinated omission.
+ * <p/>
+ * The histograms are reported along with the statistics, so they are added from the
+ * {@link StripedReportAccumulator} when the statistics are drained into their accumulators.
+ * Guarded by the accumulator map of {@link SampleModelImplementationEx}.
+ *
+ * @since 3.5.3
+ */
+public class LatencyHistogramAccumulator {
+	private final Map<Integer, LatencyAccumulator> tests = new HashMap<Integer, LatencyAccumulator>();
+	private final LatencyAccumulator total = new LatencyAccumulator();
+	private final LatencyAccumulator correctedTotal = new LatencyAccumulator();
+
+	/**
+	 * Add the histograms of the current interval.
+	 *
+	 * @param histograms histograms
+	 */
+	public void addInterval(LatencyHistograms histograms) {
+		for (Map.Entry<Integer, LatencyHistogram> each : histograms.getHistograms().entrySet()) {
+			get(each.getKey(), true).addIntervalHistogram(each.getValue());
+		}
+		total.addIntervalHistogram(histograms.getTotal());
+		if (histograms.getCorrectedTotal() != null) {
+			correctedTotal.addIntervalHistogram(histograms.getCorrectedTotal());
+		}
+	}
+
+	/**
+	 * Add the histograms which are counted in the cumulative statistics.
+	 *
+	 * @param histograms histograms
+	 */
+	public void addCumulative(LatencyHistograms histograms) {
+		for (Map.Entry<Integer, LatencyHistogram> each : histograms.getHistograms().entrySet()) {
+			get(each.getKey(), true).addCumulativeHistogram(each.getValue());
+		}
+		total.addCumulativeHistogram(histograms.getTotal());
+		if (histograms.getCorrectedTotal() != null) {
+			correctedTotal.addCumulativeHistogram(histograms.getCorrectedTotal());
+		}
+	}
+
+	private LatencyAccumulator get(int testNumber, boolean create) {
+		LatencyAccumulator test = tests.get(testNumber);
+		if (test == null && create) {
+			test = new LatencyAccumulator();
+			tests.put(testNumber, test);
+		}
+		return test;
+	}
+
+	/**
+	 * Fix the current interval as the last sample and start the new interval.
+	 */
+	public void fireSample() {
+		for (LatencyAccumulator each : tests.values()) {
+			each.fireSample();
+		}
+		total.fireSample();
+		correctedTotal.fireSample();
+	}
+
+	/**
+	 * Reset all histograms.
+	 */
+	public void zero() {
+		tests.clear();
+		total.zero();
+		correctedTotal.zero();
+	}
+
+	/**
+	 * Log the corrected test times along with the raw ones when the test is finished, if any
+	 * worker corrects them.
+	 *
+	 * @param output   report output
+	 * @param finished true if the test is finished
+	 */
+	public void write(ReportOutput output, boolean finished) {
+		LatencyHistogram corrected = correctedTotal.getCumulativeHistogram();
+		if (!finished || corrected.isEmpty()) {
+			return;
+		}
+		LatencyHistogram raw = total.getCumulativeHistogram();
+		DecimalFormat format = new DecimalFormat("###.###");
+		output.getLogger().info("Test time P99 corrected for the coordinated omission : {} ms (raw {} ms), "
+				+ "mean : {} ms (raw {} ms)", corrected.getValueAtPercentile(99), raw.getValueAtPercentile(99),
+			format.format(corrected.getMean()), format.format(raw.getMean()));
+	}
+
+	/**
+	 * Get the latency accumulator of the given test.
+	 *
+	 * @param testNumber test number
+	 * @return latency accumulator. null if no histogram of the test is reported.
+	 */
+	public LatencyAccumulator get(int testNumber) {
+		return get(testNumber, false);
+	}
+
+	public LatencyAccumulator getTotal() {
+		return total;
+	}
+
+	public LatencyAccumulator getCorrectedTotal() {
+		return correctedTotal;
+	}
+}
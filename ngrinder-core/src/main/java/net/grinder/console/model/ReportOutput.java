@@ -0,0 +1,28 @@
+package net.grinder.console.model;
+
+import org.slf4j.Logger;
+
+/**
+ * Report of a test into which the {@link ReportSink}s write.
+ *
+ * @since 3.5.3
+ */
+public interface ReportOutput {
+
+	/**
+	 * Append a line into the CSV file in the report directory. The header is written before the
+	 * first line of the file.
+	 *
+	 * @param fileName CSV file name
+	 * @param header   column names
+	 * @param values   column values. Doubles are rounded and nulls are written as 0.
+	 */
+	void appendCsvLine(String fileName, String[] header, Object... values);
+
+	/**
+	 * Get the logger of the test.
+	 *
+	 * @return logger
+	 */
+	Logger getLogger();
+}
@@ -0,0 +1,55 @@
+package net.grinder.console.model;
+
+import net.grinder.communication.Message;
+
+/**
+ * Consumes a kind of the reports which workers send along with their statistics, such as the
+ * failure counts or the load of the generator.
+ * <p/>
+ * Sinks are registered to {@link SampleModelImplementationEx}. The model hands them the reports
+ * only while it samples, fires their samples along with the statistics samples, and lets them
+ * write into the report when each sample is taken and when the test is finished. All methods are
+ * called while holding the accumulator map lock of the model.
+ *
+ * @param <T> report message type
+ * @since 3.5.3
+ */
+public interface ReportSink<T extends Message> {
+
+	/**
+	 * Get the type of the report messages this consumes. A type is consumed by only one sink.
+	 *
+	 * @return report message type
+	 */
+	Class<T> getReportType();
+
+	/**
+	 * Add a report from a worker.
+	 *
+	 * @param report     report
+	 * @param cumulative true if it's counted in the cumulative statistics as well. false while the
+	 *                   first samples are ignored.
+	 */
+	void add(T report, boolean cumulative);
+
+	/**
+	 * Fix the current interval as the last sample and start the new interval.
+	 *
+	 * @param time           sample time in milliseconds since Epoch
+	 * @param sampleInterval sample interval in milliseconds
+	 */
+	void fireSample(long time, long sampleInterval);
+
+	/**
+	 * Reset everything reported so far.
+	 */
+	void zero();
+
+	/**
+	 * Write the last sample into the report, or what is left when the test is finished.
+	 *
+	 * @param output   report output
+	 * @param finished true if the test is finished and nothing is reported any more
+	 */
+	void write(ReportOutput output, boolean finished);
+}
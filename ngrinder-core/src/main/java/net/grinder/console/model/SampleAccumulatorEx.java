@@ -45,6 +45,8 @@ public class SampleAccumulatorEx implements Cloneable {
 	private final StatisticsSet m_cumulativeStatistics;
 	private StatisticsSet m_intervalStatistics;
 	private StatisticsSet m_lastSampleStatistics;
+	// The interval statistics of the previous sample which is reused for the next interval.
+	private StatisticsSet m_spareStatistics;
 
 	/**
 	 * Constructor.
@@ -63,10 +65,15 @@ public class SampleAccumulatorEx implements Cloneable {
 		m_cumulativeStatistics = m_statisticsSetFactory.create();
 		m_intervalStatistics = m_statisticsSetFactory.create();
 		m_lastSampleStatistics = m_statisticsSetFactory.create();
+		m_spareStatistics = m_statisticsSetFactory.create();
 	}
 
 	/**
 	 * Constructor which copies the given {@link SampleAccumulatorEx} object.
+	 * <p/>
+	 * Only the cumulative statistics is copied. The interval statistics is shared because the
+	 * original one starts the new interval by {@link #refreshIntervalStatistics(long, long)} right
+	 * after being copied and doesn't reuse it until the next interval is refreshed.
 	 * 
 	 * @param original	{@link SampleAccumulatorEx} original object.
 	 */
@@ -76,8 +83,9 @@ public class SampleAccumulatorEx implements Cloneable {
 		m_statisticsSetFactory = original.m_statisticsSetFactory;
 
 		m_cumulativeStatistics = original.m_cumulativeStatistics.snapshot();
-		m_intervalStatistics = original.m_intervalStatistics.snapshot();
-		m_lastSampleStatistics = original.m_lastSampleStatistics.snapshot();
+		m_intervalStatistics = original.m_intervalStatistics;
+		m_lastSampleStatistics = original.m_lastSampleStatistics;
+		m_spareStatistics = original.m_spareStatistics;
 		m_listeners = original.m_listeners;
 	}
 
@@ -138,7 +146,10 @@ public class SampleAccumulatorEx implements Cloneable {
 		m_intervalStatistics.setValue(m_periodIndex, sampleInterval);
 		m_cumulativeStatistics.setValue(m_periodIndex, period);
 		m_peakTPSExpression.update(m_intervalStatistics, m_cumulativeStatistics);
-		m_intervalStatistics = m_statisticsSetFactory.create();
+		StatisticsSet next = m_spareStatistics;
+		next.reset();
+		m_spareStatistics = m_intervalStatistics;
+		m_intervalStatistics = next;
 	}
 
 	/**
@@ -22,12 +22,15 @@ package net.grinder.console.model;
 
 import net.grinder.common.GrinderException;
 import net.grinder.common.Test;
+import net.grinder.communication.Message;
 import net.grinder.console.common.ErrorHandler;
 import net.grinder.console.common.Resources;
 import net.grinder.statistics.*;
 import net.grinder.util.ListenerSupport;
+import org.ngrinder.statistics.LatencyHistograms;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Collate test reports into samples and distribute to listeners.
@@ -72,10 +75,30 @@ public class SampleModelImplementationEx implements SampleModel {
 	private ModelTestIndex modelTestIndex;
 
 	/**
-	 * A {@link SampleAccumulator} for each test. Guarded by itself.
+	 * A {@link SampleAccumulator} for each test. Read without locking. Modified and sampled while
+	 * holding the lock of itself.
 	 */
-	private final Map<Test, SampleAccumulator> m_accumulators = Collections
-					.synchronizedMap(new HashMap<Test, SampleAccumulator>());
+	private final Map<Test, SampleAccumulator> m_accumulators = new ConcurrentHashMap<Test, SampleAccumulator>();
+
+	/**
+	 * Reports which arrived since the last sample. They are moved into the accumulators when sampled.
+	 */
+	private final StripedReportAccumulator m_reportAccumulator;
+
+	/**
+	 * Sinks of the reports other than the statistics by their report types. Guarded by
+	 * {@link #m_accumulators}.
+	 */
+	private final Map<Class<? extends Message>, ReportSink<?>> m_reportSinks =
+		new LinkedHashMap<Class<? extends Message>, ReportSink<?>>();
+
+	private final LatencyHistogramAccumulator m_latencyAccumulator = new LatencyHistogramAccumulator();
+	private final IterationScheduleAccumulator m_iterationScheduleAccumulator = new IterationScheduleAccumulator();
+	private final DnsCacheAccumulator m_dnsCacheAccumulator = new DnsCacheAccumulator();
+	private final ErrorCategoryAccumulator m_errorCategoryAccumulator = new ErrorCategoryAccumulator();
+	private final TimeBucketAccumulator m_timeBucketAccumulator = new TimeBucketAccumulator();
+	private final AgentStatisticsAccumulator m_agentStatisticsAccumulator = new AgentStatisticsAccumulator();
+	private final GeneratorSaturationDetector m_generatorSaturationDetector = new GeneratorSaturationDetector();
 
 	// Guarded by this.
 	private InternalState m_state;
@@ -118,6 +141,14 @@ public class SampleModelImplementationEx implements SampleModel {
 
 		m_totalSampleAccumulator = new SampleAccumulatorEx(m_peakTPSExpression, m_periodIndex,
 						m_statisticsServices.getStatisticsSetFactory());
+		m_reportAccumulator = new StripedReportAccumulator(m_statisticsServices.getStatisticsSetFactory());
+
+		addReportSink(m_iterationScheduleAccumulator);
+		addReportSink(m_dnsCacheAccumulator);
+		addReportSink(m_errorCategoryAccumulator);
+		addReportSink(m_timeBucketAccumulator);
+		addReportSink(m_agentStatisticsAccumulator);
+		addReportSink(m_generatorSaturationDetector);
 
 		setInternalState(new WaitingForTriggerState());
 	}
@@ -243,7 +274,14 @@ public class SampleModelImplementationEx implements SampleModel {
 			m_tests.clear();
 		}
 
-		m_accumulators.clear();
+		synchronized (m_accumulators) {
+			m_reportAccumulator.clear();
+			m_accumulators.clear();
+			m_latencyAccumulator.zero();
+			for (ReportSink<?> each : m_reportSinks.values()) {
+				each.zero();
+			}
+		}
 		m_totalSampleAccumulator.zero();
 
 		m_listeners.apply(new ListenerSupport.Informer<Listener>() {
@@ -268,13 +306,185 @@ public class SampleModelImplementationEx implements SampleModel {
 	}
 
 	/**
-	 * Add a new test report.
+	 * Add a new test report. It can be called by multiple threads concurrently.
+	 * <p/>
+	 * Reports are not reflected in the accumulators until the next sample.
 	 * 
 	 * @param testStatisticsMap
 	 *            The new test statistics.
 	 */
 	public void addTestReport(TestStatisticsMap testStatisticsMap) {
-		getInternalState().newTestReport(testStatisticsMap);
+		addTestReport(testStatisticsMap, null);
+	}
+
+	/**
+	 * Add a new test report along with the test time histograms of the same interval. It can be
+	 * called by multiple threads concurrently.
+	 *
+	 * @param testStatisticsMap The new test statistics.
+	 * @param histograms        test time histograms. null if the worker doesn't report them.
+	 * @since 3.5.3
+	 */
+	public void addTestReport(TestStatisticsMap testStatisticsMap, LatencyHistograms histograms) {
+		getInternalState().newTestReport(testStatisticsMap, histograms);
+	}
+
+	/**
+	 * Add a sink of the reports other than the statistics. The reports of its type are handed to it
+	 * once sampling starts.
+	 *
+	 * @param sink report sink
+	 * @since 3.5.3
+	 */
+	public void addReportSink(ReportSink<?> sink) {
+		synchronized (m_accumulators) {
+			m_reportSinks.put(sink.getReportType(), sink);
+		}
+	}
+
+	/**
+	 * Get the report types which the sinks consume.
+	 *
+	 * @return report types
+	 * @since 3.5.3
+	 */
+	public Set<Class<? extends Message>> getReportTypes() {
+		synchronized (m_accumulators) {
+			return new LinkedHashSet<Class<? extends Message>>(m_reportSinks.keySet());
+		}
+	}
+
+	/**
+	 * Add a report other than the statistics reported from a worker. It's ignored unless a sink
+	 * consumes its type.
+	 *
+	 * @param report report message
+	 * @since 3.5.3
+	 */
+	public void addReport(Message report) {
+		getInternalState().newReport(report);
+	}
+
+	/**
+	 * Let the sinks write their last samples into the report. It's called once after each sample.
+	 *
+	 * @param output   report output
+	 * @param finished true if the test is finished. The sinks write what is left in the last call.
+	 * @since 3.5.3
+	 */
+	public void writeReports(ReportOutput output, boolean finished) {
+		synchronized (m_accumulators) {
+			m_latencyAccumulator.write(output, finished);
+			for (ReportSink<?> each : m_reportSinks.values()) {
+				each.write(output, finished);
+			}
+		}
+	}
+
+	/**
+	 * Get the late and dropped iteration counts of all workers.
+	 *
+	 * @return iteration schedule accumulator
+	 * @since 3.5.3
+	 */
+	public IterationScheduleAccumulator getIterationScheduleAccumulator() {
+		return m_iterationScheduleAccumulator;
+	}
+
+	/**
+	 * Get the DNS cache hit and miss counts of all workers.
+	 *
+	 * @return DNS cache accumulator
+	 * @since 3.5.3
+	 */
+	public DnsCacheAccumulator getDnsCacheAccumulator() {
+		return m_dnsCacheAccumulator;
+	}
+
+	/**
+	 * Get the failure counts of all workers by their categories.
+	 *
+	 * @return error category accumulator
+	 * @since 3.5.3
+	 */
+	public ErrorCategoryAccumulator getErrorCategoryAccumulator() {
+		return m_errorCategoryAccumulator;
+	}
+
+	/**
+	 * Get the time buckets of all workers.
+	 *
+	 * @return time bucket accumulator
+	 * @since 3.5.3
+	 */
+	public TimeBucketAccumulator getTimeBucketAccumulator() {
+		return m_timeBucketAccumulator;
+	}
+
+	/**
+	 * Get the statistics of each agent.
+	 *
+	 * @return agent statistics accumulator
+	 * @since 3.5.3
+	 */
+	public AgentStatisticsAccumulator getAgentStatisticsAccumulator() {
+		return m_agentStatisticsAccumulator;
+	}
+
+	/**
+	 * Take the summaries of the agents reported so far.
+	 *
+	 * @return summaries in the order of the agent name
+	 * @since 3.5.3
+	 */
+	public List<AgentStatisticsAccumulator.Summary> getAgentSummaries() {
+		synchronized (m_accumulators) {
+			return m_agentStatisticsAccumulator.getSummaries(m_properties.getSampleInterval());
+		}
+	}
+
+	/**
+	 * Get the detector of the saturated load generators.
+	 *
+	 * @return generator saturation detector
+	 * @since 3.5.3
+	 */
+	public GeneratorSaturationDetector getGeneratorSaturationDetector() {
+		return m_generatorSaturationDetector;
+	}
+
+	/**
+	 * Get the latency accumulator of the given test.
+	 *
+	 * @param test test
+	 * @return latency accumulator. null if no histogram of the test is reported.
+	 * @since 3.5.3
+	 */
+	public LatencyAccumulator getLatencyAccumulator(Test test) {
+		synchronized (m_accumulators) {
+			return m_latencyAccumulator.get(test.getNumber());
+		}
+	}
+
+	/**
+	 * Get the latency accumulator of all non composite tests.
+	 *
+	 * @return latency accumulator
+	 * @since 3.5.3
+	 */
+	public LatencyAccumulator getTotalLatencyAccumulator() {
+		return m_latencyAccumulator.getTotal();
+	}
+
+	/**
+	 * Get the latency accumulator of all non composite tests whose test times are corrected for
+	 * the coordinated omission.
+	 *
+	 * @return latency accumulator. its histograms are empty if no worker corrects the test times.
+	 * @since 3.5.3
+	 */
+	public LatencyAccumulator getCorrectedLatencyAccumulator() {
+		return m_latencyAccumulator.getCorrectedTotal();
 	}
 
 	/**
@@ -291,9 +501,14 @@ public class SampleModelImplementationEx implements SampleModel {
 	 */
 	public void zero() {
 		synchronized (m_accumulators) {
+			m_reportAccumulator.clear();
 			for (SampleAccumulator sampleAccumulator : m_accumulators.values()) {
 				sampleAccumulator.zero();
 			}
+			m_latencyAccumulator.zero();
+			for (ReportSink<?> each : m_reportSinks.values()) {
+				each.zero();
+			}
 		}
 		m_totalSampleAccumulator.zero();
 	}
@@ -309,6 +524,10 @@ public class SampleModelImplementationEx implements SampleModel {
 			m_state = newState;
 		}
 
+		fireStateChanged();
+	}
+
+	private void fireStateChanged() {
 		m_listeners.apply(new ListenerSupport.Informer<Listener>() {
 			public void inform(Listener l) {
 				l.stateChanged();
@@ -323,7 +542,9 @@ public class SampleModelImplementationEx implements SampleModel {
 
 		void stop();
 
-		void newTestReport(TestStatisticsMap testStatisticsMap);
+		void newTestReport(TestStatisticsMap testStatisticsMap, LatencyHistograms histograms);
+
+		void newReport(Message report);
 	}
 
 	private abstract class AbstractInternalState implements InternalState, State {
@@ -346,6 +567,10 @@ public class SampleModelImplementationEx implements SampleModel {
 			// Valid transition for all states.
 			setInternalState(new StoppedState());
 		}
+
+		public void newReport(Message report) {
+			// Reports other than the statistics follow the statistics. Ignore them until sampling starts.
+		}
 	}
 
 	private final class WaitingForTriggerState extends AbstractInternalState {
@@ -353,15 +578,22 @@ public class SampleModelImplementationEx implements SampleModel {
 			zero();
 		}
 
-		public void newTestReport(TestStatisticsMap testStatisticsMap) {
-			if (m_properties.getIgnoreSampleCount() == 0) {
-				setInternalState(new CapturingState());
-			} else {
-				setInternalState(new TriggeredState());
+		public void newTestReport(TestStatisticsMap testStatisticsMap, LatencyHistograms histograms) {
+			// The first reports are added by several threads at once. Only the first one leaves this
+			// state, because the new state zeros the reports added so far.
+			final boolean changed;
+			synchronized (SampleModelImplementationEx.this) {
+				changed = isActiveState();
+				if (changed) {
+					m_state = m_properties.getIgnoreSampleCount() == 0 ? new CapturingState() : new TriggeredState();
+				}
+			}
+			if (changed) {
+				fireStateChanged();
 			}
 
 			// Ensure the the first sample is recorded.
-			getInternalState().newTestReport(testStatisticsMap);
+			getInternalState().newTestReport(testStatisticsMap, histograms);
 		}
 
 		public String getDescription() {
@@ -378,7 +610,7 @@ public class SampleModelImplementationEx implements SampleModel {
 	}
 
 	private final class StoppedState extends AbstractInternalState {
-		public void newTestReport(TestStatisticsMap testStatisticsMap) {
+		public void newTestReport(TestStatisticsMap testStatisticsMap, LatencyHistograms histograms) {
 			// nothing to do
 		}
 
@@ -401,32 +633,28 @@ public class SampleModelImplementationEx implements SampleModel {
 
 		private volatile long msampleCount = 1;
 
-		public void newTestReport(TestStatisticsMap testStatisticsMap) {
-			(testStatisticsMap.new ForEach() {
-				public void next(Test test, StatisticsSet statistics) {
-					final SampleAccumulator sampleAccumulator = m_accumulators.get(test);
-					synchronized (m_accumulators) {
-						if (sampleAccumulator == null) {
-							m_errorHandler.handleInformationMessage(m_unknownTestString + " " + test);
-						} else {
-							sampleAccumulator.addIntervalStatistics(statistics);
-
-							if (shouldAccumulateSamples()) {
-								sampleAccumulator.addCumulativeStaticstics(statistics);
-							}
-
-							if (!statistics.isComposite()) {
-								m_totalSampleAccumulator.addIntervalStatistics(statistics);
-
-								if (shouldAccumulateSamples()) {
-									m_totalSampleAccumulator.addCumulativeStatistics(statistics);
-								}
-							}
-						}
-					}
+		public void newTestReport(TestStatisticsMap testStatisticsMap, LatencyHistograms histograms) {
+			final List<Test> unknownTests = m_reportAccumulator.add(testStatisticsMap, histograms,
+					m_accumulators, shouldAccumulateSamples());
+			if (unknownTests != null) {
+				for (Test test : unknownTests) {
+					m_errorHandler.handleInformationMessage(m_unknownTestString + " " + test);
+				}
+			}
+		}
+
+		@Override
+		public void newReport(Message report) {
+			synchronized (m_accumulators) {
+				final ReportSink<?> sink = m_reportSinks.get(report.getClass());
+				if (sink != null) {
+					addReport(sink, report, shouldAccumulateSamples());
 				}
-				// CHECKSTYLE:OFF
-			}).iterate();
+			}
+		}
+
+		private <T extends Message> void addReport(ReportSink<T> sink, Message report, boolean cumulative) {
+			sink.add(sink.getReportType().cast(report), cumulative);
 		}
 
 		protected void schedule() {
@@ -458,6 +686,14 @@ public class SampleModelImplementationEx implements SampleModel {
 				final long sampleInterval = m_properties.getSampleInterval();
 				SampleAccumulatorEx totalSampleAccumulatorSnapshot;
 				synchronized (m_accumulators) {
+					// The reports drained now are the last ones of this interval.
+					m_reportAccumulator.drainTo(m_accumulators, m_totalSampleAccumulator, m_latencyAccumulator);
+					// Samples of the sinks should be ready before sample listeners are informed.
+					m_latencyAccumulator.fireSample();
+					final long now = System.currentTimeMillis();
+					for (ReportSink<?> each : m_reportSinks.values()) {
+						each.fireSample(now, sampleInterval);
+					}
 					for (SampleAccumulator sampleAccumulator : m_accumulators.values()) {
 						sampleAccumulator.fireSample(sampleInterval, period);
 					}
@@ -0,0 +1,209 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.grinder.console.model;
+
+import net.grinder.GrinderConstants;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Statistics of a sample which are shown in the running page.
+ * <p/>
+ * Values are stored in arrays indexed by the test and the metric, and the arrays are reused
+ * across samples. They are converted into maps only by {@link #toMap()} and the converted map is
+ * kept until the next sample is written.
+ * <p/>
+ * Writing and reading should be done while holding the lock of this object.
+ *
+ * @since 3.5.3
+ */
+public class StatisticsSnapshot {
+	private final String[] metricNames;
+	private final String[] counterNames;
+
+	private long testTime;
+	private int testCount;
+	private int[] testNumbers = new int[0];
+	private String[] testDescriptions = new String[0];
+	private double[] cumulative = new double[0];
+	private double[] interval = new double[0];
+	private final double[] total;
+	private final long[] counters;
+	private final boolean[] reportedCounters;
+	private double tps;
+	private double peakTpsForGraph;
+	private int process;
+	private int thread;
+	private boolean success;
+	private Map<String, Object> errorCategories;
+	private Map<String, Object> generatorSaturation;
+
+	private Map<String, Object> map;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param metricNames  names of the metrics of each test and the total
+	 * @param counterNames names of the counters which are only in the total
+	 */
+	public StatisticsSnapshot(String[] metricNames, String[] counterNames) {
+		this.metricNames = metricNames;
+		this.counterNames = counterNames;
+		this.total = new double[metricNames.length];
+		this.counters = new long[counterNames.length];
+		this.reportedCounters = new boolean[counterNames.length];
+	}
+
+	/**
+	 * Start writing a new sample. All tests and counters of the previous sample are cleared.
+	 *
+	 * @param testTime running time in seconds
+	 */
+	public void begin(long testTime) {
+		this.testTime = testTime;
+		this.testCount = 0;
+		Arrays.fill(reportedCounters, false);
+		this.errorCategories = null;
+		this.generatorSaturation = null;
+		this.map = null;
+	}
+
+	/**
+	 * Add a test.
+	 *
+	 * @param testNumber      test number
+	 * @param testDescription test description
+	 * @return row of the test
+	 */
+	public int addTest(int testNumber, String testDescription) {
+		if (testCount == testNumbers.length) {
+			int capacity = Math.max(16, testCount * 2);
+			testNumbers = Arrays.copyOf(testNumbers, capacity);
+			testDescriptions = Arrays.copyOf(testDescriptions, capacity);
+			cumulative = Arrays.copyOf(cumulative, capacity * metricNames.length);
+			interval = Arrays.copyOf(interval, capacity * metricNames.length);
+		}
+		testNumbers[testCount] = testNumber;
+		testDescriptions[testCount] = testDescription;
+		return testCount++;
+	}
+
+	public void setCumulative(int row, int metric, double value) {
+		cumulative[row * metricNames.length + metric] = value;
+	}
+
+	public void setInterval(int row, int metric, double value) {
+		interval[row * metricNames.length + metric] = value;
+	}
+
+	public void setTotal(int metric, double value) {
+		total[metric] = value;
+	}
+
+	public void setCounter(int counter, long value) {
+		counters[counter] = value;
+		reportedCounters[counter] = true;
+	}
+
+	public void setTps(double tps, double peakTpsForGraph) {
+		this.tps = tps;
+		this.peakTpsForGraph = peakTpsForGraph;
+	}
+
+	public void setRunningState(int process, int thread, boolean success) {
+		this.process = process;
+		this.thread = thread;
+		this.success = success;
+	}
+
+	/**
+	 * Set the failure counts by their categories.
+	 *
+	 * @param errorCategories failure counts. It should not be modified after it's set.
+	 */
+	public void setErrorCategories(Map<String, Object> errorCategories) {
+		this.errorCategories = errorCategories;
+	}
+
+	/**
+	 * Set the saturation of the load generators.
+	 *
+	 * @param generatorSaturation saturated agents. It should not be modified after it's set.
+	 */
+	public void setGeneratorSaturation(Map<String, Object> generatorSaturation) {
+		this.generatorSaturation = generatorSaturation;
+	}
+
+	public int getTestCount() {
+		return testCount;
+	}
+
+	/**
+	 * Convert into the map which is served to the running page.
+	 *
+	 * @return map which is shared until the next sample. It should not be modified.
+	 */
+	public Map<String, Object> toMap() {
+		if (map == null) {
+			Map<String, Object> result = new HashMap<String, Object>();
+			result.put("testTime", testTime);
+			List<Map<String, Object>> cumulativeStatistics = new ArrayList<Map<String, Object>>(testCount);
+			List<Map<String, Object>> lastSampleStatistics = new ArrayList<Map<String, Object>>(testCount);
+			for (int row = 0; row < testCount; row++) {
+				cumulativeStatistics.add(toTestMap(row, cumulative));
+				lastSampleStatistics.add(toTestMap(row, interval));
+			}
+			Map<String, Object> totalStatistics = new HashMap<String, Object>();
+			for (int metric = 0; metric < metricNames.length; metric++) {
+				totalStatistics.put(metricNames[metric], total[metric]);
+			}
+			for (int counter = 0; counter < counterNames.length; counter++) {
+				if (reportedCounters[counter]) {
+					totalStatistics.put(counterNames[counter], counters[counter]);
+				}
+			}
+			result.put("totalStatistics", totalStatistics);
+			result.put("cumulativeStatistics", cumulativeStatistics);
+			result.put("lastSampleStatistics", lastSampleStatistics);
+			result.put("tpsChartData", tps);
+			result.put("peakTpsForGraph", peakTpsForGraph);
+			result.put(GrinderConstants.P_PROCESS, process);
+			result.put(GrinderConstants.P_THREAD, thread);
+			result.put("success", success);
+			if (errorCategories != null) {
+				result.put("errorCategories", errorCategories);
+			}
+			if (generatorSaturation != null) {
+				result.put("generatorSaturation", generatorSaturation);
+			}
+			map = result;
+		}
+		return map;
+	}
+
+	private Map<String, Object> toTestMap(int row, double[] values) {
+		Map<String, Object> test = new HashMap<String, Object>();
+		test.put("testNumber", testNumbers[row]);
+		test.put("testDescription", testDescriptions[row]);
+		int offset = row * metricNames.length;
+		for (int metric = 0; metric < metricNames.length; metric++) {
+			test.put(metricNames[metric], values[offset + metric]);
+		}
+		return test;
+	}
+}
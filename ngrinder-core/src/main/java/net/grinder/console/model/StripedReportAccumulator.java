@@ -0,0 +1,263 @@
+package net.grinder.console.model;
+
+import net.grinder.common.Test;
+import net.grinder.statistics.StatisticsSet;
+import net.grinder.statistics.StatisticsSetFactory;
+import net.grinder.statistics.TestStatisticsMap;
+import org.ngrinder.statistics.LatencyHistograms;
+import org.ngrinder.statistics.WriterReaderPhaser;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Holds the statistics reports and their test time histograms which arrived since the last sample
+ * until they are drained into the sample accumulators.
+ * <p/>
+ * The statistics of each test are added into the stripe chosen by the test number, and each
+ * stripe is guarded by its own lock. So the reports which are applied by different threads
+ * contend only on the same tests. The histograms span the tests, so they are added into the
+ * stripe chosen by the reporting thread.
+ * <p/>
+ * The stripes are kept in two epochs. Reports are added into the active one, and a drain swaps
+ * the epochs and waits by a {@link WriterReaderPhaser} until the reports being added into the
+ * swapped one are done. So every report is counted in exactly one interval, with its per test
+ * and total statistics and its histograms in the same one, and the drain doesn't hold any
+ * stripe lock against the reports of the next interval.
+ *
+ * @since 3.5.3
+ */
+public class StripedReportAccumulator {
+	private static final int MAX_STRIPES = 32;
+
+	private final StatisticsSetFactory statisticsSetFactory;
+	private final WriterReaderPhaser phaser = new WriterReaderPhaser();
+	private volatile Stripe[] active;
+	private Stripe[] inactive;
+	private final int mask;
+
+	/**
+	 * Constructor. The number of stripes is decided by the number of processors.
+	 *
+	 * @param statisticsSetFactory statistics set factory
+	 */
+	public StripedReportAccumulator(StatisticsSetFactory statisticsSetFactory) {
+		this(statisticsSetFactory, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param statisticsSetFactory statistics set factory
+	 * @param concurrency          expected number of the threads which add the reports
+	 */
+	public StripedReportAccumulator(StatisticsSetFactory statisticsSetFactory, int concurrency) {
+		this.statisticsSetFactory = statisticsSetFactory;
+		int count = Math.min(MAX_STRIPES, Integer.highestOneBit(Math.max(1, concurrency - 1)) << 1);
+		this.active = createStripes(count);
+		this.inactive = createStripes(count);
+		this.mask = count - 1;
+	}
+
+	private Stripe[] createStripes(int count) {
+		final Stripe[] stripes = new Stripe[count];
+		for (int i = 0; i < count; i++) {
+			stripes[i] = new Stripe();
+		}
+		return stripes;
+	}
+
+	/**
+	 * Add a report.
+	 *
+	 * @param report     statistics per test reported from a worker
+	 * @param histograms test time histograms reported along with the statistics. null if there is none.
+	 * @param registered registered tests. The statistics of the other tests are not added.
+	 * @param cumulative true if the report is counted in the cumulative statistics as well
+	 * @return tests which are not registered. null if there is none.
+	 */
+	public List<Test> add(TestStatisticsMap report, LatencyHistograms histograms, final Map<Test, ?> registered,
+						  final boolean cumulative) {
+		final List<Test> unknownTests = new ArrayList<Test>(0);
+		final long criticalValue = phaser.writerCriticalSectionEnter();
+		try {
+			final Stripe[] stripes = active;
+			(report.new ForEach() {
+				public void next(Test test, StatisticsSet statistics) {
+					if (!registered.containsKey(test)) {
+						unknownTests.add(test);
+						return;
+					}
+					final Stripe stripe = stripes[test.getNumber() & mask];
+					synchronized (stripe) {
+						stripe.add(test, statistics, cumulative);
+					}
+				}
+			}).iterate();
+			if (histograms != null) {
+				final Stripe stripe = stripes[(int) Thread.currentThread().getId() & mask];
+				synchronized (stripe) {
+					stripe.add(histograms, cumulative);
+				}
+			}
+		} finally {
+			phaser.writerCriticalSectionExit(criticalValue);
+		}
+		return unknownTests.isEmpty() ? null : unknownTests;
+	}
+
+	/**
+	 * Move all reports added so far into the given accumulators.
+	 *
+	 * @param accumulators        accumulators per test
+	 * @param totalAccumulator    accumulator of the non composite tests
+	 * @param latencyAccumulator  accumulator of the test time histograms
+	 */
+	public void drainTo(Map<Test, SampleAccumulator> accumulators, SampleAccumulatorEx totalAccumulator,
+						LatencyHistogramAccumulator latencyAccumulator) {
+		phaser.readerLock();
+		try {
+			for (Stripe stripe : swap()) {
+				stripe.drainTo(accumulators, totalAccumulator, latencyAccumulator);
+			}
+		} finally {
+			phaser.readerUnlock();
+		}
+	}
+
+	/**
+	 * Discard all reports added so far.
+	 */
+	public void clear() {
+		phaser.readerLock();
+		try {
+			// Both epochs are swapped out once, so the reports being added into either are done.
+			for (int i = 0; i < 2; i++) {
+				for (Stripe stripe : swap()) {
+					stripe.clear();
+				}
+			}
+		} finally {
+			phaser.readerUnlock();
+		}
+	}
+
+	/**
+	 * Swap the epochs and wait until no report is being added into the swapped out one. It must
+	 * be called while holding the reader lock.
+	 *
+	 * @return stripes of the swapped out epoch
+	 */
+	private Stripe[] swap() {
+		final Stripe[] swapped = active;
+		active = inactive;
+		inactive = swapped;
+		phaser.flipPhase();
+		return swapped;
+	}
+
+	int getStripeCount() {
+		return mask + 1;
+	}
+
+	/**
+	 * Reports of the tests mapped to the same stripe in an epoch. Guarded by itself while it's
+	 * active, and by the reader lock of the phaser once it's swapped out.
+	 */
+	private class Stripe {
+		private final Map<Test, StatisticsSet[]> tests = new HashMap<Test, StatisticsSet[]>();
+		private StatisticsSet totalInterval;
+		private StatisticsSet totalCumulative;
+		private LatencyHistograms intervalHistograms;
+		private LatencyHistograms cumulativeHistograms;
+		private boolean added = false;
+
+		void add(Test test, StatisticsSet statistics, boolean cumulative) {
+			StatisticsSet[] sets = tests.get(test);
+			if (sets == null) {
+				sets = new StatisticsSet[]{statisticsSetFactory.create(), statisticsSetFactory.create()};
+				tests.put(test, sets);
+			}
+			sets[0].add(statistics);
+			if (cumulative) {
+				sets[1].add(statistics);
+			}
+			if (!statistics.isComposite()) {
+				if (totalInterval == null) {
+					totalInterval = statisticsSetFactory.create();
+					totalCumulative = statisticsSetFactory.create();
+				}
+				totalInterval.add(statistics);
+				if (cumulative) {
+					totalCumulative.add(statistics);
+				}
+			}
+			added = true;
+		}
+
+		void add(LatencyHistograms histograms, boolean cumulative) {
+			if (intervalHistograms == null) {
+				intervalHistograms = new LatencyHistograms();
+				cumulativeHistograms = new LatencyHistograms();
+			}
+			intervalHistograms.add(histograms);
+			if (cumulative) {
+				cumulativeHistograms.add(histograms);
+			}
+			added = true;
+		}
+
+		void drainTo(Map<Test, SampleAccumulator> accumulators, SampleAccumulatorEx totalAccumulator,
+					 LatencyHistogramAccumulator latencyAccumulator) {
+			if (!added) {
+				return;
+			}
+			for (Map.Entry<Test, StatisticsSet[]> each : tests.entrySet()) {
+				StatisticsSet[] sets = each.getValue();
+				SampleAccumulator accumulator = accumulators.get(each.getKey());
+				if (accumulator != null) {
+					if (!sets[0].isZero()) {
+						accumulator.addIntervalStatistics(sets[0]);
+					}
+					if (!sets[1].isZero()) {
+						accumulator.addCumulativeStaticstics(sets[1]);
+					}
+				}
+				sets[0].reset();
+				sets[1].reset();
+			}
+			if (totalInterval != null) {
+				if (!totalInterval.isZero()) {
+					totalAccumulator.addIntervalStatistics(totalInterval);
+				}
+				if (!totalCumulative.isZero()) {
+					totalAccumulator.addCumulativeStatistics(totalCumulative);
+				}
+				totalInterval.reset();
+				totalCumulative.reset();
+			}
+			if (intervalHistograms != null) {
+				if (!intervalHistograms.isEmpty()) {
+					latencyAccumulator.addInterval(intervalHistograms);
+				}
+				if (!cumulativeHistograms.isEmpty()) {
+					latencyAccumulator.addCumulative(cumulativeHistograms);
+				}
+				intervalHistograms.reset();
+				cumulativeHistograms.reset();
+			}
+			added = false;
+		}
+
+		void clear() {
+			tests.clear();
+			totalInterval = null;
+			totalCumulative = null;
+			intervalHistograms = null;
+			cumulativeHistograms = null;
+			added = false;
+		}
+	}
+}
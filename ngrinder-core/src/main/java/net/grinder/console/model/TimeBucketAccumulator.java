@@ -0,0 +1,216 @@
+package net.grinder.console.model;
+
+import net.grinder.messages.console.ReportTimeBucketMessage;
+import org.ngrinder.statistics.TimeBuckets;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Adds up the time buckets reported from workers by their start times.
+ * <p/>
+ * Workers report a bucket in pieces while it's open, so a bucket is closed only when a bucket
+ * starting {@link #CLOSE_DELAY} milliseconds later has been reported. The closed buckets are
+ * taken in the order of time by {@link #fireSample(long, long)}, and the buckets in which no test finished
+ * are filled with empty ones. Pieces reported after their bucket was
+ * closed are not counted but the tests in them are counted as late. At most
+ * {@link #MAX_OPEN_BUCKETS} buckets are kept open, so the memory is bounded even though a worker
+ * clock is far ahead of the others.
+ * <p/>
+ * Guarded by the accumulator map of {@link SampleModelImplementationEx}.
+ *
+ * @since 3.5.3
+ */
+public class TimeBucketAccumulator implements ReportSink<ReportTimeBucketMessage> {
+	public static final String REPORT_CSV = "time_bucket.csv";
+	private static final String[] REPORT_CSV_HEADER = {"Time(ms)", "TPS", "Errors", "Mean_Test_Time_(ms)",
+		"Max_Test_Time_(ms)"};
+	static final long CLOSE_DELAY = 2000;
+	static final int MAX_OPEN_BUCKETS = 1000;
+
+	private int bucketSize = 0;
+	private final TreeMap<Long, Bucket> openBuckets = new TreeMap<Long, Bucket>();
+	private long closedUntil = Long.MIN_VALUE;
+	private long lateTests = 0;
+
+	private volatile List<Bucket> lastSample = Collections.emptyList();
+
+	@Override
+	public Class<ReportTimeBucketMessage> getReportType() {
+		return ReportTimeBucketMessage.class;
+	}
+
+	@Override
+	public void add(ReportTimeBucketMessage report, boolean cumulative) {
+		// Buckets are only for the report. They are not counted while the samples are ignored.
+		if (cumulative) {
+			add(report.getTimeBuckets());
+		}
+	}
+
+	/**
+	 * Add the buckets reported from a worker.
+	 *
+	 * @param timeBuckets buckets
+	 */
+	public void add(TimeBuckets timeBuckets) {
+		if (bucketSize == 0) {
+			bucketSize = timeBuckets.getBucketSize();
+		} else if (bucketSize != timeBuckets.getBucketSize()) {
+			// All workers share the same properties. Ignore the differently sized ones if any.
+			return;
+		}
+		for (int i = 0; i < timeBuckets.size(); i++) {
+			long startTime = timeBuckets.getStartTime(i);
+			if (startTime < closedUntil) {
+				lateTests += timeBuckets.getTests(i) + timeBuckets.getErrors(i);
+				continue;
+			}
+			Bucket bucket = openBuckets.get(startTime);
+			if (bucket == null) {
+				bucket = new Bucket(startTime);
+				openBuckets.put(startTime, bucket);
+			}
+			bucket.tests += timeBuckets.getTests(i);
+			bucket.errors += timeBuckets.getErrors(i);
+			bucket.testTime += timeBuckets.getTestTime(i);
+			bucket.maxTestTime = Math.max(bucket.maxTestTime, timeBuckets.getMaxTestTime(i));
+		}
+	}
+
+	/**
+	 * Close the buckets which won't be reported any more and keep them as the last sample.
+	 */
+	@Override
+	public void fireSample(long time, long sampleInterval) {
+		if (openBuckets.isEmpty()) {
+			lastSample = Collections.emptyList();
+		} else {
+			lastSample = close(openBuckets.lastKey() - CLOSE_DELAY);
+		}
+	}
+
+	/**
+	 * Close all buckets. It's called when the test is finished.
+	 *
+	 * @return the buckets closed now in the order of time. They are not kept as the last sample.
+	 */
+	public List<Bucket> closeAll() {
+		lastSample = Collections.emptyList();
+		return close(Long.MAX_VALUE);
+	}
+
+	private List<Bucket> close(long until) {
+		List<Bucket> closed = new ArrayList<Bucket>();
+		Iterator<Map.Entry<Long, Bucket>> iterator = openBuckets.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Map.Entry<Long, Bucket> each = iterator.next();
+			if (each.getKey() >= until && openBuckets.size() <= MAX_OPEN_BUCKETS) {
+				break;
+			}
+			if (closedUntil != Long.MIN_VALUE) {
+				// No test finished in between. They are the stalls which this is for.
+				for (long startTime = closedUntil; startTime < each.getKey()
+					&& closed.size() < MAX_OPEN_BUCKETS; startTime += bucketSize) {
+					closed.add(new Bucket(startTime));
+				}
+			}
+			closed.add(each.getValue());
+			closedUntil = each.getKey() + bucketSize;
+			iterator.remove();
+		}
+		return closed;
+	}
+
+	/**
+	 * Reset all buckets.
+	 */
+	@Override
+	public void zero() {
+		bucketSize = 0;
+		openBuckets.clear();
+		closedUntil = Long.MIN_VALUE;
+		lateTests = 0;
+		lastSample = Collections.emptyList();
+	}
+
+	/**
+	 * Write the buckets closed at the last sample, or all buckets when the test is finished, into
+	 * the time bucket CSV file. Nothing is written unless the workers count the tests in the time
+	 * buckets.
+	 */
+	@Override
+	public void write(ReportOutput output, boolean finished) {
+		List<Bucket> buckets = finished ? closeAll() : lastSample;
+		for (Bucket each : buckets) {
+			double meanTestTime = each.getTests() == 0 ? 0 : (double) each.getTestTime() / each.getTests();
+			output.appendCsvLine(REPORT_CSV, REPORT_CSV_HEADER, each.getStartTime(),
+				each.getTests() * 1000d / bucketSize, each.getErrors(), meanTestTime, each.getMaxTestTime());
+		}
+		if (finished && lateTests > 0) {
+			output.getLogger().warn("{} tests are not counted in the time buckets because they were reported late.",
+				lateTests);
+		}
+	}
+
+	public int getBucketSize() {
+		return bucketSize;
+	}
+
+	/**
+	 * Get the buckets closed at the last sample in the order of time.
+	 *
+	 * @return closed buckets
+	 */
+	public List<Bucket> getLastSample() {
+		return lastSample;
+	}
+
+	/**
+	 * Get the count of the tests which were reported after their buckets were closed.
+	 *
+	 * @return late test count
+	 */
+	public long getLateTests() {
+		return lateTests;
+	}
+
+	/**
+	 * Tests finished in a bucket of all workers.
+	 */
+	public static class Bucket {
+		private final long startTime;
+		private long tests;
+		private long errors;
+		private long testTime;
+		private long maxTestTime;
+
+		Bucket(long startTime) {
+			this.startTime = startTime;
+		}
+
+		public long getStartTime() {
+			return startTime;
+		}
+
+		public long getTests() {
+			return tests;
+		}
+
+		public long getErrors() {
+			return errors;
+		}
+
+		public long getTestTime() {
+			return testTime;
+		}
+
+		public long getMaxTestTime() {
+			return maxTestTime;
+		}
+	}
+}
@@ -34,9 +34,12 @@ import net.grinder.engine.communication.ConsoleListener;
 import net.grinder.engine.communication.DistFilesDigestMessage;
 import net.grinder.lang.AbstractLanguageHandler;
 import net.grinder.lang.Lang;
+import net.grinder.messages.agent.ClockOffsetMessage;
+import net.grinder.messages.agent.ClockPingMessage;
 import net.grinder.messages.agent.StartGrinderMessage;
 import net.grinder.messages.console.AgentAddress;
 import net.grinder.messages.console.AgentProcessReportMessage;
+import net.grinder.messages.console.ClockPongMessage;
 import net.grinder.util.AbstractGrinderClassPathProcessor;
 import net.grinder.util.Directory;
 import net.grinder.util.NetworkUtils;
@@ -44,6 +47,8 @@ import net.grinder.util.thread.Condition;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang.StringUtils;
+import org.ngrinder.clock.ClockCorrection;
+import org.ngrinder.clock.ClockOffsetEstimator;
 import org.ngrinder.common.constants.AgentConstants;
 import org.ngrinder.common.util.NoOp;
 import org.ngrinder.infra.AgentConfig;
@@ -54,7 +59,6 @@ import java.io.IOException;
 import java.util.*;
 
 import static org.apache.commons.lang.StringUtils.isNotBlank;
-import static net.grinder.util.FileUtils.*;
 import static org.ngrinder.common.constants.GrinderConstants.*;
 
 /**
@@ -84,6 +88,13 @@ public class AgentImplementationEx implements Agent, AgentConstants {
 
 	private final AgentConfig m_agentConfig;
 
+	/**
+	 * Offset of this agent's clock from the console clock, which is passed to the worker processes.
+	 */
+	private volatile ClockOffsetEstimator.Estimate m_clockOffset;
+
+	private final WorkerProcessPool m_workerProcessPool;
+
 	/**
 	 * Constructor.
 	 *
@@ -92,10 +103,25 @@ public class AgentImplementationEx implements Agent, AgentConstants {
 	 * @param proceedWithoutConsole <code>true</code> => proceed if a console connection could not be made.
 	 */
 	public AgentImplementationEx(Logger logger, AgentConfig agentConfig, boolean proceedWithoutConsole) {
+		this(logger, agentConfig, proceedWithoutConsole, new WorkerProcessPool(0, logger));
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param logger                Logger.
+	 * @param agentConfig           which contains basic agent configuration
+	 * @param proceedWithoutConsole <code>true</code> => proceed if a console connection could not be made.
+	 * @param workerProcessPool     pool of the idle worker processes which outlives this agent
+	 * @since 3.5.3
+	 */
+	public AgentImplementationEx(Logger logger, AgentConfig agentConfig, boolean proceedWithoutConsole,
+								 WorkerProcessPool workerProcessPool) {
 
 		m_logger = logger;
 		m_agentConfig = agentConfig;
 		m_proceedWithoutConsole = proceedWithoutConsole;
+		m_workerProcessPool = workerProcessPool;
 
 		m_consoleListener = new ConsoleListener(m_eventSynchronisation, m_logger);
 		m_agentIdentity = new AgentIdentityImplementation(NetworkUtils.getLocalHostName());
@@ -129,6 +155,7 @@ public class AgentImplementationEx implements Agent, AgentConstants {
 	public void run(GrinderProperties grinderProperties) throws GrinderException {
 		StartGrinderMessage startMessage = null;
 		ConsoleCommunication consoleCommunication = null;
+		StatisticsAggregator statisticsAggregator = null;
 		m_fanOutStreamSender = new FanOutStreamSender(GrinderConstants.AGENT_FANOUT_STREAM_THREAD_COUNT);
 		m_timer = new Timer(false);
 		final int connectionPort = grinderProperties.getInt(GrinderProperties.CONSOLE_PORT, 0);
@@ -233,20 +260,41 @@ public class AgentImplementationEx implements Agent, AgentConstants {
 					m_logger.info("log file : {}", logFile);
 					AbstractLanguageHandler handler = Lang.getByFileName(script.getFile()).getHandler();
 					final WorkerFactory workerFactory;
+					WorkerProcessCommandLine workerCommandLine = null;
 					Properties rebasedSystemProperty = rebaseSystemClassPath(System.getProperties(), m_agentConfig.getCurrentDirectory());
+					statisticsAggregator = startStatisticsAggregator(consoleCommunication, properties);
+					ClockCorrection.writeTo(properties, m_clockOffset);
 
 					String jvmArguments = buildTestRunProperties(script, handler, rebasedSystemProperty, properties);
 
 					if (!properties.getBoolean("grinder.debug.singleprocess", false)) {
 						// Fix to provide empty system classpath to speed up
-						final WorkerProcessCommandLine workerCommandLine = new WorkerProcessCommandLine(properties,
+						workerCommandLine = new WorkerProcessCommandLine(properties,
 								filterSystemClassPath(rebasedSystemProperty, handler, m_logger), jvmArguments,
 								script.getDirectory());
+						if (m_agentConfig.getAgentProperties().getPropertyBoolean(PROP_AGENT_CLASS_DATA_SHARING)) {
+							File archive = new ClassDataSharingArchive(new File(m_agentConfig.getHome().getDirectory(),
+									"cds"), m_logger).getArchive(workerCommandLine.getCommandList(),
+									script.getDirectory().getFile());
+							if (archive != null) {
+								jvmArguments += PropertyBuilder.buildClassDataSharingArgument(archive);
+								workerCommandLine = new WorkerProcessCommandLine(properties,
+										filterSystemClassPath(rebasedSystemProperty, handler, m_logger), jvmArguments,
+										script.getDirectory());
+							}
+						}
 
 						m_logger.info("Worker process command line: {}", workerCommandLine);
 						FileUtils.writeStringToFile(logFile, workerCommandLine.toString() + "\n\n");
-						workerFactory = new ProcessWorkerFactory(workerCommandLine, m_agentIdentity,
-								m_fanOutStreamSender, consoleCommunication != null, script, properties);
+						if (m_workerProcessPool.isEnabled()) {
+							m_workerProcessPool.fill(workerCommandLine, properties.getInt("grinder.processes", 1));
+							workerFactory = new PooledProcessWorkerFactory(workerCommandLine, m_workerProcessPool,
+									m_agentIdentity, m_fanOutStreamSender, consoleCommunication != null, script,
+									properties);
+						} else {
+							workerFactory = new ProcessWorkerFactory(workerCommandLine, m_agentIdentity,
+									m_fanOutStreamSender, consoleCommunication != null, script, properties);
+						}
 					} else {
 						m_logger.info("DEBUG MODE. Spawning threads rather than processes");
 						m_logger.warn("grinder.jvm.arguments ({}) ignored in single process mode", jvmArguments);
@@ -305,8 +353,16 @@ public class AgentImplementationEx implements Agent, AgentConstants {
 						}
 						m_logger.info("All workers are finished");
 					}
+					if (statisticsAggregator != null) {
+						statisticsAggregator.shutdown();
+						statisticsAggregator = null;
+					}
 					m_logger.debug("Normal shutdown");
 					workerLauncher.shutdown();
+					if (workerCommandLine != null && m_workerProcessPool.isEnabled()) {
+						// Get ready for the next test, which is likely to run with the same settings.
+						m_workerProcessPool.fill(workerCommandLine, properties.getInt("grinder.processes", 1));
+					}
 					break;
 				}
 
@@ -339,6 +395,9 @@ public class AgentImplementationEx implements Agent, AgentConstants {
 		} catch (Exception e) {
 			m_logger.error("Exception occurred in the agent message loop", e);
 		} finally {
+			if (statisticsAggregator != null) {
+				statisticsAggregator.shutdown();
+			}
 			if (m_timer != null) {
 				m_timer.cancel();
 				m_timer = null;
@@ -373,6 +432,40 @@ public class AgentImplementationEx implements Agent, AgentConstants {
 		return newProperties;
 	}
 
+	private StatisticsAggregator startStatisticsAggregator(ConsoleCommunication consoleCommunication,
+														   GrinderProperties properties) {
+		properties.remove(GRINDER_PROP_AGGREGATOR_PORT);
+		if (consoleCommunication == null
+				|| !m_agentConfig.getAgentProperties().getPropertyBoolean(PROP_AGENT_AGGREGATE_STATISTICS)
+				|| properties.getBoolean("grinder.debug.singleprocess", false)) {
+			return null;
+		}
+		try {
+			StatisticsAggregator statisticsAggregator = new StatisticsAggregator(consoleCommunication.getSender(),
+					m_logger);
+			statisticsAggregator.start(m_timer, properties.getInt(GRINDER_PROP_REPORT_TO_CONSOLE, 500));
+			properties.setInt(GRINDER_PROP_AGGREGATOR_PORT, statisticsAggregator.getPort());
+			m_logger.info("Worker statistics are aggregated at port {}", statisticsAggregator.getPort());
+			return statisticsAggregator;
+		} catch (CommunicationException e) {
+			m_logger.warn("Failed to start the statistics aggregator. Workers report to the console directly : {}",
+					e.getMessage());
+			return null;
+		}
+	}
+
+	/*
+	 * Each user has its own cache of the compiled groovy scripts, so that a script can't replace the classes which
+	 * the scripts of the other users load. null if the user can't be a directory name.
+	 */
+	private File getGroovyCacheDirectory(GrinderProperties properties) {
+		String user = properties.getProperty(GRINDER_PROP_USER, "_default");
+		if (!user.matches("[\\w.-]+") || user.startsWith(".")) {
+			return null;
+		}
+		return new File(new File(m_agentConfig.getHome().getDirectory(), "groovy_cache"), user);
+	}
+
 	private boolean isSecurityEnabled(GrinderProperties properties) {
 		return m_agentConfig.isSecurityEnabled() && properties.getBoolean(GRINDER_PROP_SECURITY, false);
 	}
@@ -384,6 +477,7 @@ public class AgentImplementationEx implements Agent, AgentConstants {
 				m_agentConfig.getAgentProperties().getPropertyBoolean(PROP_AGENT_LIMIT_XMX),
 				m_agentConfig.getAgentProperties().getPropertyBoolean(PROP_AGENT_ENABLE_LOCAL_DNS),
 				m_agentConfig.getAgentProperties().getProperty(PROP_AGENT_JAVA_OPT));
+		builder.setGroovyCacheDirectory(getGroovyCacheDirectory(properties));
 
 		String jvmArguments = builder.buildJVMArgument();
 		properties.setProperty(GRINDER_PROP_JVM_CLASSPATH, buildClassPath(systemProperty, properties, handler, builder));
@@ -533,22 +627,41 @@ public class AgentImplementationEx implements Agent, AgentConstants {
 				// Only create the file store if we connected.
 				File base = m_agentConfig.getHome().getDirectory();
 				File directory = new File(new File(base, "file-store"), user);
-				m_fileStore = new FileStore(directory, m_logger);
+				long maxBlobStoreSize = m_agentConfig.getAgentProperties().getPropertyLong(PROP_AGENT_FILE_STORE_SIZE)
+					* 1024 * 1024;
+				m_fileStore = new FileStore(directory, maxBlobStoreSize, m_logger);
 			}
 
 			m_sender.send(new AgentProcessReportMessage(ProcessReport.STATE_STARTED, m_fileStore
 					.getCacheHighWaterMark()));
 
-			File cacheDir = m_fileStore.getIncomingDirectory().getFile();
-
-			m_sender.send(new DistFilesDigestMessage(getFilesDigest(cacheDir, getAllFilesInDirectory(cacheDir))));
+			m_sender.send(new DistFilesDigestMessage(m_fileStore.getCachedFilesDigest()));
 			m_logger.info("Send digest of cached files to controller.");
 
 			final MessageDispatchSender fileStoreMessageDispatcher = new MessageDispatchSender();
 			m_fileStore.registerMessageHandlers(fileStoreMessageDispatcher);
+			// Clock pings are answered here so that they don't wait behind the other messages and
+			// are not passed to the worker processes.
+			fileStoreMessageDispatcher.set(ClockPingMessage.class,
+				new MessageDispatchRegistry.AbstractHandler<ClockPingMessage>() {
+					public void handle(ClockPingMessage message) throws CommunicationException {
+						long receiveTime = System.currentTimeMillis();
+						m_sender.send(new ClockPongMessage(message.getConsoleSendTime(), receiveTime,
+							System.currentTimeMillis()));
+					}
+				});
 
 			final MessageDispatchSender messageDispatcher = new MessageDispatchSender();
 			m_consoleListener.registerMessageHandlers(messageDispatcher);
+			messageDispatcher.set(ClockOffsetMessage.class,
+				new MessageDispatchRegistry.AbstractHandler<ClockOffsetMessage>() {
+					public void handle(ClockOffsetMessage message) {
+						if (m_clockOffset == null) {
+							m_logger.info("Clock offset from the console : {}", message.getEstimate());
+						}
+						m_clockOffset = message.getEstimate();
+					}
+				});
 
 			// Everything that the file store doesn't handle is tee'd to the
 			// worker processes and our message handlers.
@@ -582,6 +695,10 @@ public class AgentImplementationEx implements Agent, AgentConstants {
 			return m_connector;
 		}
 
+		public Sender getSender() {
+			return m_sender;
+		}
+
 		public void shutdown() {
 			m_reportRunningTask.cancel();
 
@@ -0,0 +1,243 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.grinder.engine.agent;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static net.grinder.util.FileUtils.getMd5;
+
+/**
+ * Content addressed store of the distributed files in an agent.
+ * <p/>
+ * Each distributed file is kept once per md5 checksum and the files in the file store are hard
+ * links to them. So the same content is neither copied for each test nor sent again when it's
+ * moved to the other path. Blobs which are not linked from anywhere are evicted in the least
+ * recently used order when the store exceeds the max size.
+ *
+ * @since 3.5.3
+ */
+final class BlobStore {
+	private final File m_directory;
+
+	private final long m_maxSize;
+
+	private final Logger m_logger;
+
+	// Guarded by this.
+	private boolean m_linkUnsupported;
+
+	// Modified times of the blobs when they were verified last. Guarded by this.
+	private final Map<String, FileTime> m_verifiedTimes = new HashMap<>();
+
+	BlobStore(File directory, long maxSize, Logger logger) {
+		m_directory = directory;
+		m_maxSize = maxSize;
+		m_logger = logger;
+	}
+
+	/**
+	 * Keep the content of the given file and make the file share it.
+	 *
+	 * @param file file to be kept
+	 */
+	public synchronized void add(File file) {
+		if (m_linkUnsupported || m_maxSize <= 0) {
+			return;
+		}
+		final String md5;
+		try {
+			md5 = getMd5(file);
+		} catch (IOException e) {
+			m_logger.warn("Failed to read {} : {}", file, e.getMessage());
+			return;
+		}
+		final File blob = getBlob(md5);
+		try {
+			if (blob.exists() && verify(blob, md5)) {
+				// Share the blob and drop the received copy.
+				final File temp = new File(file.getPath() + ".blob");
+				Files.createLink(temp.toPath(), blob.toPath());
+				Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			} else {
+				FileUtils.forceMkdir(blob.getParentFile());
+				Files.createLink(blob.toPath(), file.toPath());
+			}
+			touch(md5, blob);
+		} catch (UnsupportedOperationException | IOException e) {
+			m_linkUnsupported = true;
+			m_logger.warn("Distributed files are copied for each test. Hard links are not available in {} : {}",
+				m_directory, e.getMessage());
+		}
+	}
+
+	/**
+	 * Place the content of the given md5 checksum at the given file.
+	 *
+	 * @param md5    md5 checksum
+	 * @param target file to be created
+	 * @return true if the content is kept in this store
+	 */
+	public synchronized boolean link(String md5, File target) {
+		final File blob = getBlob(md5);
+		if (!blob.exists() || !verify(blob, md5)) {
+			return false;
+		}
+		try {
+			FileUtils.forceMkdir(target.getParentFile());
+			link(blob, target);
+			touch(md5, blob);
+			return true;
+		} catch (IOException e) {
+			m_logger.warn("Failed to link {} : {}", target, e.getMessage());
+			return false;
+		}
+	}
+
+	/**
+	 * Get md5 checksums of all contents in this store. The blobs modified since they were verified
+	 * last are verified again, so that the broken ones are not reported as kept.
+	 *
+	 * @return md5 checksums
+	 */
+	public synchronized Set<String> getMd5s() {
+		final Set<String> md5s = new HashSet<>();
+		for (File each : listBlobs()) {
+			final String md5 = each.getName();
+			final FileTime modified = getModifiedTime(each);
+			if (modified != null && modified.equals(m_verifiedTimes.get(md5))) {
+				md5s.add(md5);
+			} else if (verify(each, md5)) {
+				m_verifiedTimes.put(md5, modified);
+				md5s.add(md5);
+			}
+		}
+		return md5s;
+	}
+
+	/**
+	 * Evict the blobs not linked from anywhere until the store fits in the max size.
+	 */
+	public synchronized void collectGarbage() {
+		final File[] blobs = listBlobs();
+		long size = 0;
+		for (File each : blobs) {
+			size += each.length();
+		}
+		Arrays.sort(blobs, Comparator.comparingLong(File::lastModified));
+		for (File each : blobs) {
+			if (size <= m_maxSize) {
+				break;
+			}
+			if (getLinkCount(each) > 1) {
+				continue;
+			}
+			size -= each.length();
+			m_verifiedTimes.remove(each.getName());
+			FileUtils.deleteQuietly(each);
+		}
+	}
+
+	/**
+	 * Make the target have the same content as the source. The source is copied if it can't be
+	 * linked.
+	 *
+	 * @param source source file
+	 * @param target target file which doesn't exist
+	 * @throws IOException occurs when the target can't be created
+	 */
+	static void link(File source, File target) throws IOException {
+		try {
+			Files.createLink(target.toPath(), source.toPath());
+		} catch (UnsupportedOperationException | IOException e) {
+			FileUtils.copyFile(source, target);
+		}
+	}
+
+	private File getBlob(String md5) {
+		return new File(new File(m_directory, md5.substring(0, 2)), md5);
+	}
+
+	private File[] listBlobs() {
+		final File[] groups = m_directory.listFiles(File::isDirectory);
+		if (groups == null) {
+			return new File[0];
+		}
+		return Arrays.stream(groups)
+			.map(group -> group.listFiles(File::isFile))
+			.filter(files -> files != null)
+			.flatMap(Arrays::stream)
+			.toArray(File[]::new);
+	}
+
+	/*
+	 * Blobs are shared with the files used by workers. Check that they were not modified in place.
+	 */
+	private boolean verify(File blob, String md5) {
+		try {
+			if (md5.equals(getMd5(blob))) {
+				return true;
+			}
+		} catch (IOException e) {
+			m_logger.warn("Failed to read {} : {}", blob, e.getMessage());
+		}
+		m_logger.warn("{} is broken. It's discarded.", blob);
+		m_verifiedTimes.remove(md5);
+		FileUtils.deleteQuietly(blob);
+		return false;
+	}
+
+	/*
+	 * Called right after the blob is verified, so the new modified time is remembered as verified.
+	 */
+	private void touch(String md5, File blob) {
+		//noinspection ResultOfMethodCallIgnored
+		blob.setLastModified(System.currentTimeMillis());
+		final FileTime modified = getModifiedTime(blob);
+		if (modified != null) {
+			m_verifiedTimes.put(md5, modified);
+		}
+	}
+
+	private FileTime getModifiedTime(File blob) {
+		try {
+			return Files.getLastModifiedTime(blob.toPath());
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	private int getLinkCount(File blob) {
+		final Path path = blob.toPath();
+		try {
+			return (Integer) Files.getAttribute(path, "unix:nlink");
+		} catch (UnsupportedOperationException | IllegalArgumentException | IOException e) {
+			// Link counts are not available. Regard it as not linked.
+			return 1;
+		}
+	}
+}
@@ -0,0 +1,221 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.grinder.engine.agent;
+
+import org.slf4j.Logger;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.apache.commons.codec.digest.DigestUtils.md5Hex;
+
+/**
+ * Class data sharing archives of the worker processes, which let the workers map the classes of
+ * the framework from an archive instead of loading them from the jars one by one.
+ * <p/>
+ * An archive is dumped by the java command of the workers with their class path, and it's used
+ * only by the workers having the same java command and the same class path files. When the agent
+ * package or the libraries change, the archive is not found by the new ones and a new one is
+ * dumped in the background while the test runs without it. The dump needs a JVM supporting the
+ * dynamic archive (JDK 13 or later). If the JVM doesn't, it's remembered and the workers run as
+ * before. A dump failed for the other reasons is tried again after {@link #RETRY_INTERVAL}.
+ * <p/>
+ * Only the last {@link #MAX_ARCHIVES} archives used are kept.
+ *
+ * @since 3.5.3
+ */
+public class ClassDataSharingArchive {
+	static final String DUMP_CLASS = "net.grinder.engine.process.WorkerClassDump";
+	static final int MAX_ARCHIVES = 5;
+	// A dump which takes longer than this is considered dead.
+	static final long MAX_DUMP_TIME = 10 * 60 * 1000;
+	static final long RETRY_INTERVAL = 60 * 60 * 1000;
+
+	private static final String ARCHIVE_EXTENSION = ".jsa";
+	private static final String DUMPING_EXTENSION = ".dumping";
+	private static final String UNSUPPORTED_EXTENSION = ".unsupported";
+	private static final String FAILED_EXTENSION = ".failed";
+	private static final String LOG_EXTENSION = ".log";
+	// Printed by the JVMs which don't know the option.
+	private static final String UNRECOGNIZED_OPTION = "Unrecognized VM option 'ArchiveClassesAtExit";
+
+	private final File directory;
+	private final Logger logger;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param directory directory where the archives are kept
+	 * @param logger    logger
+	 */
+	public ClassDataSharingArchive(File directory, Logger logger) {
+		this.directory = directory;
+		this.logger = logger;
+	}
+
+	/**
+	 * Get the archive for the given worker command, or start to dump it if there is none.
+	 *
+	 * @param command          worker command
+	 * @param workingDirectory working directory of the workers
+	 * @return archive. null if it's not ready or not supported.
+	 */
+	public File getArchive(List<String> command, File workingDirectory) {
+		String classPath = WorkerProcessPool.getClassPath(command);
+		if (classPath == null || command.isEmpty()) {
+			return null;
+		}
+		String java = command.get(0);
+		File archive = getArchiveFile(java, classPath);
+		if (archive.isFile()) {
+			// Kept as the recently used one.
+			//noinspection ResultOfMethodCallIgnored
+			archive.setLastModified(System.currentTimeMillis());
+			return archive;
+		}
+		File failed = new File(directory, archive.getName() + FAILED_EXTENSION);
+		if (!new File(directory, archive.getName() + UNSUPPORTED_EXTENSION).exists()
+			&& (!failed.exists() || System.currentTimeMillis() - failed.lastModified() >= RETRY_INTERVAL)) {
+			dump(java, classPath, archive, workingDirectory);
+		}
+		return null;
+	}
+
+	File getArchiveFile(String java, String classPath) {
+		String key = md5Hex(java + "\n" + new File(java).lastModified() + "\n" + classPath + "\n"
+			+ WorkerProcessPool.fingerprint(classPath));
+		return new File(directory, "worker-" + key + ARCHIVE_EXTENSION);
+	}
+
+	private void dump(String java, String classPath, final File archive, File workingDirectory) {
+		final File dumping = new File(directory, archive.getName() + DUMPING_EXTENSION);
+		try {
+			if (dumping.exists() && System.currentTimeMillis() - dumping.lastModified() < MAX_DUMP_TIME) {
+				return;
+			}
+			//noinspection ResultOfMethodCallIgnored
+			directory.mkdirs();
+			//noinspection ResultOfMethodCallIgnored
+			dumping.delete();
+			if (!dumping.createNewFile()) {
+				// Another agent in the same home is dumping it.
+				return;
+			}
+			final File output = new File(directory, archive.getName() + ".tmp");
+			final File log = new File(directory, archive.getName() + LOG_EXTENSION);
+			final Process process = new ProcessBuilder(Arrays.asList(java,
+				"-XX:ArchiveClassesAtExit=" + output.getAbsolutePath(), "-classpath", classPath, DUMP_CLASS))
+				.directory(workingDirectory)
+				.redirectErrorStream(true)
+				.redirectOutput(log)
+				.start();
+			logger.info("Class data sharing archive of the workers is being dumped to {}", archive);
+			Thread waiter = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						finishDump(process.waitFor(), output, archive, log);
+					} catch (InterruptedException e) {
+						process.destroy();
+					} finally {
+						//noinspection ResultOfMethodCallIgnored
+						dumping.delete();
+					}
+				}
+			}, "class data sharing dump");
+			waiter.setDaemon(true);
+			waiter.start();
+		} catch (IOException e) {
+			logger.warn("Failed to dump the class data sharing archive of the workers : {}", e.getMessage());
+			//noinspection ResultOfMethodCallIgnored
+			dumping.delete();
+		}
+	}
+
+	void finishDump(int exitValue, File output, File archive, File log) {
+		if (exitValue != 0 || !output.isFile() || !output.renameTo(archive)) {
+			//noinspection ResultOfMethodCallIgnored
+			output.delete();
+			if (isUnsupported(log)) {
+				mark(archive, UNSUPPORTED_EXTENSION);
+				logger.info("The worker JVM doesn't support the dynamic class data sharing archive. "
+					+ "Workers run without it.");
+			} else {
+				// It may succeed next time, for example when the disk is full now.
+				mark(archive, FAILED_EXTENSION);
+				logger.warn("Failed to dump the class data sharing archive of the workers with the exit value {}. "
+					+ "See {}", exitValue, log);
+			}
+			return;
+		}
+		//noinspection ResultOfMethodCallIgnored
+		log.delete();
+		//noinspection ResultOfMethodCallIgnored
+		new File(directory, archive.getName() + FAILED_EXTENSION).delete();
+		logger.info("Class data sharing archive of the workers is ready : {}", archive);
+		removeOldArchives();
+	}
+
+	private boolean isUnsupported(File log) {
+		try {
+			return new String(Files.readAllBytes(log.toPath()), StandardCharsets.UTF_8).contains(UNRECOGNIZED_OPTION);
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	private void mark(File archive, String extension) {
+		File marker = new File(directory, archive.getName() + extension);
+		try {
+			//noinspection ResultOfMethodCallIgnored
+			marker.createNewFile();
+			//noinspection ResultOfMethodCallIgnored
+			marker.setLastModified(System.currentTimeMillis());
+		} catch (IOException e) {
+			logger.debug("Failed to create {}", marker, e);
+		}
+	}
+
+	private void removeOldArchives() {
+		File[] archives = directory.listFiles(new FileFilter() {
+			@Override
+			public boolean accept(File file) {
+				return file.getName().endsWith(ARCHIVE_EXTENSION);
+			}
+		});
+		if (archives == null || archives.length <= MAX_ARCHIVES) {
+			return;
+		}
+		Arrays.sort(archives, new Comparator<File>() {
+			@Override
+			public int compare(File o1, File o2) {
+				return Long.compare(o2.lastModified(), o1.lastModified());
+			}
+		});
+		for (int i = MAX_ARCHIVES; i < archives.length; i++) {
+			//noinspection ResultOfMethodCallIgnored
+			archives[i].delete();
+			//noinspection ResultOfMethodCallIgnored
+			new File(directory, archives[i].getName() + UNSUPPORTED_EXTENSION).delete();
+			//noinspection ResultOfMethodCallIgnored
+			new File(directory, archives[i].getName() + FAILED_EXTENSION).delete();
+		}
+	}
+}
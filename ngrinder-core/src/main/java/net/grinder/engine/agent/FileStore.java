@@ -46,6 +46,8 @@ import static net.grinder.util.FileUtils.*;
 /**
  * FileStore for cache control in nGrinder.
  * This is the customized version of {@link FileStore} which grinder has.
+ * The received files are kept in {@link BlobStore} and the directory for each test is built from
+ * hard links to them instead of copying them, unless the blob store is disabled by its size 0.
  *
  * @since 3.5.0
  */
@@ -59,13 +61,14 @@ final class FileStore {
 
 	private final Directory m_currentDirectory;
 
-	// Guarded by m_incomingDirectory
-	private boolean m_incremental;
+	private final BlobStore m_blobStore;
+
+	private final boolean m_linkFiles;
 
 	private volatile CacheHighWaterMark m_cacheHighWaterMark =
 		new OutOfDateCacheHighWaterMark();
 
-	public FileStore(File directory, Logger logger) throws FileStoreException {
+	public FileStore(File directory, long maxBlobStoreSize, Logger logger) throws FileStoreException {
 
 		final File rootDirectory = directory.getAbsoluteFile();
 		m_logger = logger;
@@ -84,6 +87,8 @@ final class FileStore {
 		}
 
 		m_readmeFile = new File(rootDirectory, "README.txt");
+		m_blobStore = new BlobStore(new File(rootDirectory, "blobs"), maxBlobStoreSize, logger);
+		m_linkFiles = maxBlobStoreSize > 0;
 
 		try {
 			m_incomingDirectory = new Directory(new File(rootDirectory, "incoming"));
@@ -96,18 +101,14 @@ final class FileStore {
 		catch (Directory.DirectoryException e) {
 			throw new FileStoreException(e.getMessage(), e);
 		}
-
-		m_incremental = false;
 	}
 
 	public Directory getDirectory() throws FileStoreException {
 		try {
 			synchronized (m_incomingDirectory) {
 				if (m_incomingDirectory.getFile().exists()) {
-					m_incomingDirectory.copyTo(m_currentDirectory, m_incremental);
+					linkTo(m_currentDirectory);
 				}
-
-				m_incremental = true;
 			}
 
 			return m_currentDirectory;
@@ -118,6 +119,44 @@ final class FileStore {
 		}
 	}
 
+	/*
+	 * Build the directory from hard links to the incoming files. The files are copied when the
+	 * blob store is disabled or when they can't be linked. A linked file modified by a test changes
+	 * the incoming file and the blob as well, which is found when their digests are taken next.
+	 */
+	private void linkTo(Directory target) throws IOException {
+		target.create();
+		target.deleteContents();
+		final File incoming = m_incomingDirectory.getFile();
+		for (File each : getAllFilesInDirectory(incoming)) {
+			final File targetFile = target.getFile(m_incomingDirectory.rebaseFile(each));
+			FileUtils.forceMkdir(targetFile.getParentFile());
+			if (m_linkFiles) {
+				BlobStore.link(each, targetFile);
+			} else {
+				FileUtils.copyFile(each, targetFile);
+			}
+		}
+	}
+
+	/**
+	 * Get the digests of the cached files. The contents kept in the blob store are included as
+	 * the digests which can be placed in any path. Both are taken from the current contents, so
+	 * the files modified by the previous test are sent again.
+	 *
+	 * @return digests of the cached files
+	 * @throws IOException occurs when the cached files can't be read
+	 * @since 3.5.3
+	 */
+	public Set<String> getCachedFilesDigest() throws IOException {
+		final File cacheDir = m_incomingDirectory.getFile();
+		final Set<String> digests = getFilesDigest(cacheDir, getAllFilesInDirectory(cacheDir));
+		for (String each : m_blobStore.getMd5s()) {
+			digests.add(getBlobDigest(each));
+		}
+		return digests;
+	}
+
 	public CacheHighWaterMark getCacheHighWaterMark() {
 		return m_cacheHighWaterMark;
 	}
@@ -141,14 +180,25 @@ final class FileStore {
 					File cacheDir = m_incomingDirectory.getFile();
 
 					try {
-						List<File> cachedFiles = getAllFilesInDirectory(cacheDir);
-						cachedFiles
-							.stream()
-							.filter(file ->  !requiredFilesDigest.contains(getFileDigest(cacheDir, file)))
-							.forEach(FileUtils::deleteQuietly);
+						synchronized (m_incomingDirectory) {
+							List<File> cachedFiles = getAllFilesInDirectory(cacheDir);
+							cachedFiles
+								.stream()
+								.filter(file ->  !requiredFilesDigest.contains(getFileDigest(cacheDir, file)))
+								.forEach(FileUtils::deleteQuietly);
+
+							// The contents moved to the other path are not sent again. Link them from the blob store.
+							for (String each : requiredFilesDigest) {
+								File file = new File(cacheDir, getDigestPath(each));
+								if (!file.exists() && m_blobStore.link(getDigestMd5(each), file)) {
+									m_logger.info("{} is linked from the blob store", file);
+								}
+							}
+						}
 					} catch (IOException e) {
 						m_logger.info("Failed refresh cached file store", e);
 					}
+					m_blobStore.collectGarbage();
 				}
 			});
 
@@ -163,7 +213,6 @@ final class FileStore {
 					try {
 						synchronized (m_incomingDirectory) {
 							m_incomingDirectory.deleteContents();
-							m_incremental = false;
 						}
 					}
 					catch (Directory.DirectoryException e) {
@@ -187,7 +236,11 @@ final class FileStore {
 							final FileContents fileContents = message.getFileContents();
 
 							m_logger.info("Updating file store: {}", fileContents);
+							// The existing file may share the content with the blob store. Unlink it not to overwrite the blob.
+							final File file = m_incomingDirectory.getFile(getFilename(fileContents));
+							FileUtils.deleteQuietly(file);
 							fileContents.create(m_incomingDirectory);
+							m_blobStore.add(file);
 						}
 					}
 					catch (FileContents.FileContentsException | Directory.DirectoryException e) {
@@ -0,0 +1,50 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.grinder.engine.agent;
+
+import net.grinder.common.GrinderProperties;
+import net.grinder.communication.FanOutStreamSender;
+import net.grinder.engine.common.EngineException;
+import net.grinder.engine.common.ScriptLocation;
+
+import java.io.OutputStream;
+
+/**
+ * Worker factory which takes the idle processes of {@link WorkerProcessPool} first, and starts
+ * new processes like {@link ProcessWorkerFactory} when none of them matches.
+ *
+ * @since 3.5.3
+ */
+final class PooledProcessWorkerFactory extends AbstractWorkerFactory {
+	private final WorkerProcessCommandLine commandLine;
+	private final WorkerProcessPool pool;
+
+	PooledProcessWorkerFactory(WorkerProcessCommandLine commandLine, WorkerProcessPool pool,
+							   AgentIdentityImplementation agentIdentity, FanOutStreamSender fanOutStreamSender,
+							   boolean reportToConsole, ScriptLocation script, GrinderProperties properties) {
+		super(agentIdentity, fanOutStreamSender, reportToConsole, script, properties);
+		this.commandLine = commandLine;
+		this.pool = pool;
+	}
+
+	@Override
+	protected Worker createWorker(AgentIdentityImplementation.WorkerIdentityImplementation workerIdentity,
+								  OutputStream outputStream, OutputStream errorStream) throws EngineException {
+		Worker worker = pool.take(workerIdentity, commandLine, outputStream, errorStream);
+		if (worker != null) {
+			return worker;
+		}
+		return new ProcessWorker(workerIdentity, commandLine, outputStream, errorStream);
+	}
+}
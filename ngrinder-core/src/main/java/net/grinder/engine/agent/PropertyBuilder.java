@@ -14,6 +14,7 @@
 package net.grinder.engine.agent;
 
 import net.grinder.common.GrinderProperties;
+import net.grinder.scriptengine.groovy.GroovyScriptCache;
 import net.grinder.util.Directory;
 import net.grinder.util.NetworkUtils;
 import org.apache.commons.io.FileUtils;
@@ -35,6 +36,7 @@ import java.util.Set;
 
 import static java.util.Collections.singletonList;
 import static javax.net.ssl.SSLSocketFactory.getDefault;
+import static org.ngrinder.common.constants.GrinderConstants.GRINDER_PROP_AGGREGATOR_PORT;
 import static org.ngrinder.common.constants.GrinderConstants.GRINDER_SECURITY_LEVEL_LIGHT;
 import static org.ngrinder.common.util.NoOp.noOp;
 import static org.ngrinder.common.util.Preconditions.checkNotEmpty;
@@ -65,6 +67,7 @@ public class PropertyBuilder {
 	private final boolean useXmxLimit;
 	private final String additionalJavaOpt;
 	private boolean enableLocalDNS;
+	private File groovyCacheDirectory;
 
 
 	/**
@@ -158,6 +161,16 @@ public class PropertyBuilder {
 		this(properties, baseDirectory, securityEnabled, securityLevel, hostString, hostName, false);
 	}
 
+	/**
+	 * Set the directory which keeps the compiled groovy scripts of the user running the test. It
+	 * should not be shared with the other users. The cache is disabled if it's not set.
+	 *
+	 * @param groovyCacheDirectory cache directory of the user
+	 */
+	public void setGroovyCacheDirectory(File groovyCacheDirectory) {
+		this.groovyCacheDirectory = groovyCacheDirectory;
+	}
+
 	/**
 	 * Build JVM Arguments.
 	 *
@@ -186,6 +199,7 @@ public class PropertyBuilder {
 
 		addParam(jvmArguments, properties.getProperty("grinder.param", ""));
 		addPythonPathJvmArgument(jvmArguments);
+		addGroovyCacheDirJvmArgument(jvmArguments);
 		addCustomDns(jvmArguments);
 		addUserDir(jvmArguments);
 		addContext(jvmArguments);
@@ -208,6 +222,20 @@ public class PropertyBuilder {
 		return jvmArguments.toString();
 	}
 
+	/**
+	 * Build the JVM argument which maps the classes from the given class data sharing archive.
+	 * The JVM ignores the archive and loads the classes as usual if it can't map it.
+	 *
+	 * @param archive archive. null if there is none.
+	 * @return jvm argument. empty if there is no archive.
+	 */
+	public static String buildClassDataSharingArgument(File archive) {
+		if (archive == null) {
+			return "";
+		}
+		return " -XX:SharedArchiveFile=" + archive.getAbsolutePath() + " ";
+	}
+
 	protected StringBuilder disableSNIExtension(StringBuilder jvmArguments) {
 		return jvmArguments.append(" -Djsse.enableSNIExtension=false ");
 	}
@@ -377,13 +405,28 @@ public class PropertyBuilder {
 		return jvmArguments;
 	}
 
+	private StringBuilder addGroovyCacheDirJvmArgument(StringBuilder jvmArguments) {
+		if (groovyCacheDirectory == null) {
+			return jvmArguments;
+		}
+		GroovyScriptCache.removeExpired(groovyCacheDirectory);
+		return jvmArguments.append(" -D").append(GroovyScriptCache.PROP_GROOVY_CACHE_DIRECTORY).append("=")
+				.append(groovyCacheDirectory.getAbsolutePath()).append(" ");
+	}
+
 	private StringBuilder addCurrentAgentPath(StringBuilder jvmArguments) {
 		return jvmArguments.append(" -Dngrinder.exec.path=").append(baseDirectory.getFile()).append(" ");
 	}
 
 	private StringBuilder addConsoleIP(StringBuilder jvmArguments) {
-		return jvmArguments.append(" -Dngrinder.console.ip=")
+		jvmArguments.append(" -Dngrinder.console.ip=")
 				.append(properties.getProperty(GrinderProperties.CONSOLE_HOST, "127.0.0.1")).append(" ");
+		if (properties.containsKey(GRINDER_PROP_AGGREGATOR_PORT)) {
+			// Workers report the statistics to the aggregator of this agent.
+			jvmArguments.append(" -Dngrinder.aggregator.port=")
+					.append(properties.getInt(GRINDER_PROP_AGGREGATOR_PORT, 0)).append(" ");
+		}
+		return jvmArguments;
 	}
 
 	StringBuilder addDnsIP(StringBuilder jvmArguments) {
@@ -0,0 +1,329 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.grinder.engine.agent;
+
+import net.grinder.common.Test;
+import net.grinder.common.processidentity.WorkerIdentity;
+import net.grinder.communication.*;
+import net.grinder.communication.MessageDispatchRegistry.AbstractBlockingHandler;
+import net.grinder.communication.MessageDispatchRegistry.AbstractHandler;
+import net.grinder.messages.agent.ReportsForwardedMessage;
+import net.grinder.messages.console.*;
+import net.grinder.statistics.StatisticsServices;
+import net.grinder.statistics.StatisticsServicesImplementation;
+import net.grinder.statistics.StatisticsSet;
+import net.grinder.statistics.TestStatisticsMap;
+import net.grinder.util.StandardTimeAuthority;
+import org.ngrinder.statistics.LatencyHistograms;
+import org.slf4j.Logger;
+
+import java.util.*;
+
+/**
+ * Aggregates the statistics which the worker processes of an agent report, and reports them to
+ * the console at once.
+ * <p/>
+ * Workers connect to it on the loopback interface and send {@link ReportProcessStatisticsMessage}s
+ * instead of the test registrations and the reports they would send to the console. The new tests
+ * are forwarded as they arrive so that a test is registered before its statistics reach the console.
+ * The statistics, the test time histograms, the failures, the iteration schedule and the DNS cache
+ * reports of all processes are merged, and forwarded together with the other reports of the
+ * processes once per interval, on the connection of the agent. So the console gets all reports of
+ * an interval at once and in order.
+ * <p/>
+ * A process sends its final report as a request, and it's answered right after the final forward.
+ * The process reports that it's finished only after that, so its last interval is not lost.
+ * <p/>
+ * The cumulative statistics of each process are kept in the agent and are available by
+ * {@link #getProcessStatistics()}.
+ *
+ * @since 3.5.3
+ */
+public class StatisticsAggregator {
+	private static final String LOOPBACK = "127.0.0.1";
+	private static final long IDLE_POLL_DELAY = 50;
+	private static final long INACTIVE_CLIENT_TIME_OUT = 30000;
+	private static final long MAX_SHUTDOWN_WAIT = 2000;
+
+	private final Sender consoleSender;
+	private final Logger logger;
+	private final StatisticsServices statisticsServices = StatisticsServicesImplementation.getInstance();
+	private final Acceptor acceptor;
+	private final ServerReceiver receiver;
+	private final MessageDispatchSender dispatcher = new MessageDispatchSender();
+	private final Thread receiverThread;
+	private final TimerTask flushTask;
+
+	// Guarded by this.
+	private final Set<Test> registeredTests = new HashSet<Test>();
+	private final Map<WorkerIdentity, TestStatisticsMap> processStatistics =
+		new LinkedHashMap<WorkerIdentity, TestStatisticsMap>();
+	private final Set<WorkerIdentity> finishedProcesses = new HashSet<WorkerIdentity>();
+	private TestStatisticsMap pending;
+	private LatencyHistograms pendingHistograms;
+	private final Map<Integer, Map<String, Long>> pendingErrors = new HashMap<Integer, Map<String, Long>>();
+	private ReportIterationScheduleMessage pendingIterations;
+	private ReportDnsCacheMessage pendingDnsCache;
+	private final List<AbstractReportMessage> pendingReports = new ArrayList<AbstractReportMessage>();
+	private long receivedReports = 0;
+	private long forwardedReports = 0;
+
+	/**
+	 * Constructor. It starts to accept the workers on a free local port.
+	 *
+	 * @param consoleSender sender to the console
+	 * @param logger        logger
+	 * @throws CommunicationException if the local port can't be opened
+	 */
+	public StatisticsAggregator(Sender consoleSender, Logger logger) throws CommunicationException {
+		this.consoleSender = consoleSender;
+		this.logger = logger;
+		this.pending = new TestStatisticsMap(statisticsServices.getStatisticsSetFactory());
+		this.acceptor = new Acceptor(LOOPBACK, 0, 1, new StandardTimeAuthority());
+		this.receiver = new ServerReceiver();
+		this.receiver.receiveFrom(acceptor, new ConnectionType[]{ConnectionType.WORKER}, 2, IDLE_POLL_DELAY,
+			INACTIVE_CLIENT_TIME_OUT);
+		this.dispatcher.set(ReportProcessStatisticsMessage.class, new AbstractHandler<ReportProcessStatisticsMessage>() {
+			@Override
+			public void handle(ReportProcessStatisticsMessage message) {
+				add(message);
+			}
+		});
+		this.dispatcher.set(ReportProcessStatisticsMessage.class,
+			new AbstractBlockingHandler<ReportProcessStatisticsMessage>() {
+				@Override
+				public Message blockingSend(ReportProcessStatisticsMessage message) {
+					add(message);
+					return new ReportsForwardedMessage();
+				}
+			});
+		this.receiverThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				receive();
+			}
+		}, "statistics aggregator");
+		this.receiverThread.setDaemon(true);
+		this.flushTask = new TimerTask() {
+			@Override
+			public void run() {
+				flush();
+			}
+		};
+	}
+
+	/**
+	 * Start to forward the statistics.
+	 *
+	 * @param timer    timer which forwards the statistics periodically
+	 * @param interval interval of the forwards in milliseconds
+	 */
+	public void start(Timer timer, int interval) {
+		receiverThread.start();
+		timer.schedule(flushTask, interval, interval);
+	}
+
+	public int getPort() {
+		return acceptor.getPort();
+	}
+
+	private void receive() {
+		try {
+			while (true) {
+				final Message message = receiver.waitForMessage();
+				if (message == null) {
+					break;
+				}
+				dispatcher.send(message);
+			}
+		} catch (CommunicationException e) {
+			logger.error("Error while receiving the worker statistics : {}", e.getMessage());
+			logger.debug("The error detail is ", e);
+		}
+	}
+
+	synchronized void add(ReportProcessStatisticsMessage message) {
+		receivedReports++;
+		final Collection<Test> newTests = message.getNewTests();
+		if (newTests != null) {
+			final List<Test> unregistered = new ArrayList<Test>();
+			for (Test each : newTests) {
+				if (registeredTests.add(each)) {
+					unregistered.add(each);
+				}
+			}
+			if (!unregistered.isEmpty()) {
+				send(new RegisterTestsMessage(unregistered));
+			}
+		}
+		final WorkerIdentity workerIdentity = message.getWorkerIdentity();
+		final TestStatisticsMap cumulative = workerIdentity == null ? null : getCumulativeStatistics(workerIdentity);
+		final TestStatisticsMap statistics = message.getStatistics();
+		if (statistics != null) {
+			pending.add(statistics);
+			if (cumulative != null) {
+				cumulative.add(statistics);
+			}
+		}
+		final LatencyHistograms histograms = message.getHistograms();
+		if (histograms != null) {
+			if (pendingHistograms == null) {
+				pendingHistograms = new LatencyHistograms();
+			}
+			pendingHistograms.add(histograms);
+		}
+		final List<AbstractReportMessage> reports = message.getReports();
+		if (reports != null) {
+			for (AbstractReportMessage each : reports) {
+				addReport(each, workerIdentity);
+			}
+		}
+		if (message.isFinalReport()) {
+			if (workerIdentity != null) {
+				finishedProcesses.add(workerIdentity);
+			}
+			flush();
+			notifyAll();
+		}
+	}
+
+	private void addReport(AbstractReportMessage report, WorkerIdentity workerIdentity) {
+		if (report instanceof ReportErrorsMessage) {
+			for (Map.Entry<Integer, Map<String, Long>> test : ((ReportErrorsMessage) report).getErrors().entrySet()) {
+				Map<String, Long> categories = pendingErrors.get(test.getKey());
+				if (categories == null) {
+					categories = new HashMap<String, Long>();
+					pendingErrors.put(test.getKey(), categories);
+				}
+				for (Map.Entry<String, Long> each : test.getValue().entrySet()) {
+					final Long count = categories.get(each.getKey());
+					categories.put(each.getKey(), count == null ? each.getValue() : count + each.getValue());
+				}
+			}
+		} else if (report instanceof ReportIterationScheduleMessage) {
+			final ReportIterationScheduleMessage iterations = (ReportIterationScheduleMessage) report;
+			pendingIterations = pendingIterations == null ? iterations : new ReportIterationScheduleMessage(
+				pendingIterations.getLateIterations() + iterations.getLateIterations(),
+				pendingIterations.getDroppedIterations() + iterations.getDroppedIterations());
+		} else if (report instanceof ReportDnsCacheMessage) {
+			final ReportDnsCacheMessage dnsCache = (ReportDnsCacheMessage) report;
+			pendingDnsCache = pendingDnsCache == null ? dnsCache : new ReportDnsCacheMessage(
+				pendingDnsCache.getHits() + dnsCache.getHits(), pendingDnsCache.getMisses() + dnsCache.getMisses());
+		} else {
+			// The reports of each process, such as the summary and the load, are relayed as they are.
+			// The console gets them on the connection of the agent, so they carry the process.
+			report.setWorkerIdentity(workerIdentity);
+			pendingReports.add(report);
+		}
+	}
+
+	private TestStatisticsMap getCumulativeStatistics(WorkerIdentity workerIdentity) {
+		TestStatisticsMap cumulative = processStatistics.get(workerIdentity);
+		if (cumulative == null) {
+			cumulative = new TestStatisticsMap(statisticsServices.getStatisticsSetFactory());
+			processStatistics.put(workerIdentity, cumulative);
+		}
+		return cumulative;
+	}
+
+	/**
+	 * Forward the statistics and the other reports merged since the last forward.
+	 */
+	synchronized void flush() {
+		if (pending.size() > 0) {
+			final TestStatisticsMap merged = pending;
+			pending = new TestStatisticsMap(statisticsServices.getStatisticsSetFactory());
+			send(new ReportTestStatisticsMessage(merged, pendingHistograms));
+			forwardedReports++;
+		}
+		pendingHistograms = null;
+		if (!pendingErrors.isEmpty()) {
+			send(new ReportErrorsMessage(new HashMap<Integer, Map<String, Long>>(pendingErrors)));
+			pendingErrors.clear();
+		}
+		if (pendingIterations != null) {
+			send(pendingIterations);
+			pendingIterations = null;
+		}
+		if (pendingDnsCache != null) {
+			send(pendingDnsCache);
+			pendingDnsCache = null;
+		}
+		for (AbstractReportMessage each : pendingReports) {
+			send(each);
+		}
+		pendingReports.clear();
+	}
+
+	private void send(Message message) {
+		try {
+			consoleSender.send(message);
+		} catch (CommunicationException e) {
+			logger.error("Error while forwarding the worker statistics : {}", e.getMessage());
+			logger.debug("The error detail is ", e);
+		}
+	}
+
+	/**
+	 * Get the statistics totals of each worker process reported so far.
+	 *
+	 * @return statistics totals of the non composite tests by the worker process name
+	 */
+	public synchronized Map<String, StatisticsSet> getProcessStatistics() {
+		final Map<String, StatisticsSet> result = new LinkedHashMap<String, StatisticsSet>();
+		for (Map.Entry<WorkerIdentity, TestStatisticsMap> each : processStatistics.entrySet()) {
+			result.put(each.getKey().getName(), each.getValue().nonCompositeStatisticsTotals());
+		}
+		return result;
+	}
+
+	/**
+	 * Forward the remaining statistics and stop. It waits a while for the final reports of the
+	 * processes which are not received yet.
+	 */
+	public void shutdown() {
+		flushTask.cancel();
+		synchronized (this) {
+			final long until = System.currentTimeMillis() + MAX_SHUTDOWN_WAIT;
+			long remaining;
+			while (finishedProcesses.size() < processStatistics.size()
+				&& (remaining = until - System.currentTimeMillis()) > 0) {
+				try {
+					wait(remaining);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					break;
+				}
+			}
+			flush();
+		}
+		receiver.shutdown();
+		try {
+			acceptor.shutdown();
+		} catch (CommunicationException e) {
+			logger.debug("Error while closing the statistics aggregator", e);
+		}
+		logProcessStatistics();
+	}
+
+	private synchronized void logProcessStatistics() {
+		logger.info("{} statistics reports of {} processes were forwarded as {} reports.", receivedReports,
+			processStatistics.size(), forwardedReports);
+		for (Map.Entry<String, StatisticsSet> each : getProcessStatistics().entrySet()) {
+			logger.info("{} : {} tests, {} errors", each.getKey(),
+				statisticsServices.getTestStatisticsQueries().getNumberOfTests(each.getValue()),
+				statisticsServices.getTestStatisticsQueries().getNumberOfErrors(each.getValue()));
+		}
+	}
+}
@@ -0,0 +1,254 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.grinder.engine.agent;
+
+import net.grinder.common.UncheckedInterruptedException;
+import net.grinder.common.processidentity.WorkerIdentity;
+import net.grinder.util.StreamCopier;
+import org.slf4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Pool of idle worker processes which are started ahead of the test.
+ * <p/>
+ * A worker process blocks until the agent sends the initialisation message, so a process started
+ * with the command line of a test can take any worker of that test. The idle processes have
+ * already paid the JVM start-up and the class loading of the worker, and the worker takes it over
+ * in a moment when the test starts or ramps up.
+ * <p/>
+ * An idle process is taken only by a worker whose command line, working directory and class path
+ * files are the same as the ones it was started with. Others are destroyed when a test with other
+ * settings is prepared. A process which ran a test exits with it, so it's never put back.
+ *
+ * @since 3.5.3
+ */
+public class WorkerProcessPool {
+	private final int size;
+	private final Logger logger;
+
+	// Guarded by this.
+	private final List<IdleProcess> idleProcesses = new ArrayList<IdleProcess>();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param size   max number of the idle processes. 0 to disable the pool.
+	 * @param logger logger
+	 */
+	public WorkerProcessPool(int size, Logger logger) {
+		this.size = Math.max(size, 0);
+		this.logger = logger;
+	}
+
+	public boolean isEnabled() {
+		return size > 0;
+	}
+
+	/**
+	 * Destroy the idle processes which don't match the given command line, and start new ones
+	 * until there are as many idle processes as the given number of workers or the pool size.
+	 *
+	 * @param commandLine command line of the workers to come
+	 * @param workers     number of the workers to come
+	 */
+	synchronized void fill(CommandLine commandLine, int workers) {
+		if (!isEnabled()) {
+			return;
+		}
+		String fingerprint = fingerprint(commandLine);
+		int destroyed = 0;
+		for (Iterator<IdleProcess> iterator = idleProcesses.iterator(); iterator.hasNext(); ) {
+			IdleProcess each = iterator.next();
+			if (!each.isAlive() || !each.matches(commandLine, fingerprint)) {
+				each.process.destroy();
+				iterator.remove();
+				destroyed++;
+			}
+		}
+		if (destroyed > 0) {
+			logger.info("{} idle worker processes are destroyed because they don't match the test", destroyed);
+		}
+		int started = 0;
+		while (idleProcesses.size() < Math.min(size, workers)) {
+			try {
+				idleProcesses.add(new IdleProcess(commandLine, fingerprint));
+				started++;
+			} catch (IOException e) {
+				logger.warn("Failed to start an idle worker process : {}", e.getMessage());
+				break;
+			}
+		}
+		if (started > 0) {
+			logger.info("{} idle worker processes are started", started);
+		}
+	}
+
+	/**
+	 * Take an idle process which matches the given command line.
+	 *
+	 * @param identity    identity of the worker
+	 * @param commandLine command line of the worker
+	 * @param outputStream stream to which the standard output of the process is redirected
+	 * @param errorStream  stream to which the standard error of the process is redirected
+	 * @return worker. null if no idle process matches.
+	 */
+	synchronized Worker take(WorkerIdentity identity, CommandLine commandLine, OutputStream outputStream,
+							 OutputStream errorStream) {
+		if (idleProcesses.isEmpty()) {
+			return null;
+		}
+		String fingerprint = fingerprint(commandLine);
+		for (Iterator<IdleProcess> iterator = idleProcesses.iterator(); iterator.hasNext(); ) {
+			IdleProcess each = iterator.next();
+			if (each.isAlive() && each.matches(commandLine, fingerprint)) {
+				iterator.remove();
+				return new PooledWorker(identity, each.process, outputStream, errorStream);
+			}
+		}
+		return null;
+	}
+
+	public synchronized int getIdleCount() {
+		return idleProcesses.size();
+	}
+
+	/**
+	 * Destroy all idle processes.
+	 */
+	public synchronized void shutdown() {
+		for (IdleProcess each : idleProcesses) {
+			each.process.destroy();
+		}
+		idleProcesses.clear();
+	}
+
+	/*
+	 * The idle processes may have opened the class path already, so the files should be the same.
+	 */
+	private static String fingerprint(CommandLine commandLine) {
+		return fingerprint(getClassPath(commandLine.getCommandList()));
+	}
+
+	/**
+	 * Get the class path of a worker command.
+	 *
+	 * @param command worker command
+	 * @return class path. null if it's not given.
+	 */
+	static String getClassPath(List<String> command) {
+		int index = command.indexOf("-classpath");
+		return index >= 0 && index + 1 < command.size() ? command.get(index + 1) : null;
+	}
+
+	/**
+	 * Get the fingerprint of the files on the class path, which changes when any of them changes.
+	 *
+	 * @param classPath class path
+	 * @return sizes and modified times of the files
+	 */
+	static String fingerprint(String classPath) {
+		StringBuilder fingerprint = new StringBuilder();
+		if (classPath != null) {
+			for (String each : classPath.split(File.pathSeparator)) {
+				File file = new File(each);
+				fingerprint.append(file.length()).append(':').append(file.lastModified()).append(';');
+			}
+		}
+		return fingerprint.toString();
+	}
+
+	private static final class IdleProcess {
+		private final List<String> command;
+		private final File directory;
+		private final String fingerprint;
+		private final Process process;
+
+		private IdleProcess(CommandLine commandLine, String fingerprint) throws IOException {
+			this.command = new ArrayList<String>(commandLine.getCommandList());
+			this.directory = commandLine.getWorkingDirectory().getFile();
+			this.fingerprint = fingerprint;
+			this.process = new ProcessBuilder(command).directory(directory).start();
+		}
+
+		private boolean isAlive() {
+			return process.isAlive();
+		}
+
+		private boolean matches(CommandLine commandLine, String fingerprint) {
+			return command.equals(commandLine.getCommandList())
+				&& directory.equals(commandLine.getWorkingDirectory().getFile())
+				&& this.fingerprint.equals(fingerprint);
+		}
+	}
+
+	/**
+	 * Worker on an idle process. It's the same as {@link ProcessWorker} once it's taken.
+	 */
+	private static final class PooledWorker implements Worker {
+		private final WorkerIdentity identity;
+		private final Process process;
+		private final Thread stdoutRedirector;
+		private final Thread stderrRedirector;
+
+		private PooledWorker(WorkerIdentity identity, Process process, OutputStream outputStream,
+							 OutputStream errorStream) {
+			this.identity = identity;
+			this.process = process;
+			this.stdoutRedirector = redirect(process.getInputStream(), outputStream);
+			this.stderrRedirector = redirect(process.getErrorStream(), errorStream);
+		}
+
+		private Thread redirect(InputStream inputStream, OutputStream outputStream) {
+			Thread thread = new Thread(new StreamCopier(4096, false).getRunnable(inputStream, outputStream),
+				"Stream redirector for process " + identity);
+			thread.setDaemon(true);
+			thread.start();
+			return thread;
+		}
+
+		@Override
+		public WorkerIdentity getIdentity() {
+			return identity;
+		}
+
+		@Override
+		public OutputStream getCommunicationStream() {
+			return process.getOutputStream();
+		}
+
+		@Override
+		public int waitFor() {
+			try {
+				process.waitFor();
+				stdoutRedirector.join();
+				stderrRedirector.join();
+			} catch (InterruptedException e) {
+				throw new UncheckedInterruptedException(e);
+			}
+			return process.exitValue();
+		}
+
+		@Override
+		public void destroy() {
+			process.destroy();
+		}
+	}
+}
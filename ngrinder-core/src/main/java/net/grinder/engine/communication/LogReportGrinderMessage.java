@@ -19,6 +19,9 @@ import net.grinder.messages.console.AgentAddress;
 
 /**
  * NGrinder message to send a log to console.
+ * <p/>
+ * The compressed log is sent in the multiple chunks. The following chunks are appended to the
+ * first one.
  * 
  * @author JunHo Yoon
  * @since 3.0
@@ -28,6 +31,7 @@ public class LogReportGrinderMessage implements AddressAwareMessage {
 	private AgentAddress m_processAddress;
 	private final byte[] logs;
 	private final String testId;
+	private final boolean append;
 
 	/**
 	 * Constructor.
@@ -37,8 +41,22 @@ public class LogReportGrinderMessage implements AddressAwareMessage {
 	 * @param agentAddress	agent address
 	 */
 	public LogReportGrinderMessage(String testId, byte[] logs, AgentAddress agentAddress) {
+		this(testId, logs, false, agentAddress);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param testId		corresponding test id
+	 * @param logs			chunk of the compressed log
+	 * @param append		true if the chunk follows the previous one
+	 * @param agentAddress	agent address
+	 * @since 3.5.3
+	 */
+	public LogReportGrinderMessage(String testId, byte[] logs, boolean append, AgentAddress agentAddress) {
 		this.testId = testId;
 		this.logs = logs;
+		this.append = append;
 		setAddress(agentAddress);
 	}
 
@@ -59,4 +77,8 @@ public class LogReportGrinderMessage implements AddressAwareMessage {
 		return testId;
 	}
 
+	public boolean isAppend() {
+		return append;
+	}
+
 }
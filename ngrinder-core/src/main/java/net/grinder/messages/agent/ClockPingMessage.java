@@ -0,0 +1,28 @@
+package net.grinder.messages.agent;
+
+import net.grinder.communication.Message;
+
+/**
+ * Message that asks an agent for its clock, which the agent answers with
+ * {@link net.grinder.messages.console.ClockPongMessage} right away.
+ *
+ * @since 3.5.3
+ */
+public final class ClockPingMessage implements Message {
+	private static final long serialVersionUID = -1541329702457158935L;
+
+	private final long consoleSendTime;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param consoleSendTime console time when the message is sent
+	 */
+	public ClockPingMessage(long consoleSendTime) {
+		this.consoleSendTime = consoleSendTime;
+	}
+
+	public long getConsoleSendTime() {
+		return consoleSendTime;
+	}
+}
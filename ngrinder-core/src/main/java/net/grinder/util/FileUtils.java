@@ -25,6 +25,11 @@ import static org.ngrinder.common.util.StreamUtils.exceptionWrapper;
  * @since 3.5.0
  */
 public class FileUtils {
+	/**
+	 * The path of the digests which tell the content is kept by the agent regardless of the path.
+	 */
+	public static final String BLOB_DIGEST_PATH = "*";
+
 	/**
 	 * @param directoryPath Directory path for searching files.
 	 * */
@@ -75,4 +80,44 @@ public class FileUtils {
 			.map(file -> getFileDigest(baseDir, file))
 			.collect(toSet());
 	}
+
+	/**
+	 * Make the digest of the content which can be placed in any path.
+	 *
+	 * @param md5 md5 checksum of the content
+	 * @since 3.5.3
+	 */
+	public static String getBlobDigest(String md5) {
+		return BLOB_DIGEST_PATH + ":" + md5;
+	}
+
+	/**
+	 * Get the relative path part of the file digest.
+	 *
+	 * @param digest file digest made by {@link #getFileDigest(File, File)}
+	 * @since 3.5.3
+	 */
+	public static String getDigestPath(String digest) {
+		return digest.substring(0, digest.lastIndexOf(':'));
+	}
+
+	/**
+	 * Get the md5 checksum part of the file digest.
+	 *
+	 * @param digest file digest made by {@link #getFileDigest(File, File)}
+	 * @since 3.5.3
+	 */
+	public static String getDigestMd5(String digest) {
+		return digest.substring(digest.lastIndexOf(':') + 1);
+	}
+
+	/**
+	 * Get the relative file name of the distributed file contents.
+	 *
+	 * @param fileContents distributed file contents
+	 * @since 3.5.3
+	 */
+	public static File getFilename(FileContents fileContents) {
+		return fileContents.getFilename();
+	}
 }
@@ -24,6 +24,7 @@ import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 
+import static org.ngrinder.common.util.Preconditions.checkArgument;
 import static org.ngrinder.common.util.Preconditions.checkNotNull;
 
 /**
@@ -36,6 +37,14 @@ public abstract class LogCompressUtils {
 	private static final int COMPRESS_BUFFER_SIZE = 8096;
 	public static final Logger LOGGER = LoggerFactory.getLogger(LogCompressUtils.class);
 
+	/**
+	 * The max size of the output of {@link #decompressTail(InputStream, OutputStream, int)}, which
+	 * is kept in memory.
+	 *
+	 * @since 3.5.3
+	 */
+	public static final int MAX_TAIL_SIZE = 10 * 1024 * 1024;
+
 	/**
 	 * Compress multiple Files with the given encoding.
 	 *
@@ -117,6 +126,47 @@ public abstract class LogCompressUtils {
 		return compress(new File[]{logFile}, Charset.defaultCharset(), Charset.defaultCharset());
 	}
 
+	/**
+	 * Compress the given files into the given {@link OutputStream} as they are. Unlike
+	 * {@link #compress(File[], Charset, Charset)}, the log bytes are not re-encoded and nothing
+	 * is kept in memory except the copy buffer.
+	 *
+	 * @param logFiles files to be compressed
+	 * @param out      output stream to which the compressed files are written
+	 * @param limit    the max size of each file. If a file is bigger than it, only the last part
+	 *                 of the file is compressed. 0 or less means no limit.
+	 * @throws IOException occurs when the output stream is not writable
+	 */
+	public static void compress(File[] logFiles, OutputStream out, long limit) throws IOException {
+		ZipOutputStream zos = new ZipOutputStream(out);
+		byte[] buffer = new byte[COMPRESS_BUFFER_SIZE];
+		for (File each : logFiles) {
+			InputStream fis = null;
+			try {
+				fis = new FileInputStream(each);
+				ZipEntry zipEntry = new ZipEntry(each.getName());
+				zipEntry.setTime(each.lastModified());
+				zos.putNextEntry(zipEntry);
+				long skipped = limit > 0 ? Math.max(each.length() - limit, 0) : 0;
+				if (skipped > 0) {
+					IOUtils.skipFully(fis, skipped);
+					zos.write(String.format("... %d bytes are truncated ...%n", skipped).getBytes());
+				}
+				int count;
+				while ((count = fis.read(buffer)) != -1) {
+					zos.write(buffer, 0, count);
+				}
+				zos.closeEntry();
+			} catch (FileNotFoundException e) {
+				LOGGER.error("Error occurs while compressing {} : {}", each.getAbsolutePath(), e.getMessage());
+			} finally {
+				IOUtils.closeQuietly(fis);
+			}
+		}
+		zos.finish();
+		zos.flush();
+	}
+
 	/**
 	 * Extracting the given byte array  into the given file.
 	 *
@@ -171,4 +221,46 @@ public abstract class LogCompressUtils {
 		}
 	}
 
+	/**
+	 * Decompress the last part of the given {@link InputStream} into the given {@link OutputStream}.
+	 * The entries are read one by one and only the last <code>limit</code> bytes are kept. So the
+	 * archive is never extracted as a whole. The archive truncated by the controller is read up
+	 * to the truncated point.
+	 *
+	 * @param inputStream  input stream of the compressed file
+	 * @param outputStream file to be written
+	 * @param limit        the max size of the output. it's reduced to {@link #MAX_TAIL_SIZE}.
+	 */
+	public static void decompressTail(InputStream inputStream, OutputStream outputStream, int limit) {
+		checkArgument(limit > 0, "limit should be positive");
+		limit = Math.min(limit, MAX_TAIL_SIZE);
+		ZipInputStream zipInputStream = null;
+		byte[] tail = new byte[limit];
+		long total = 0;
+		try {
+			zipInputStream = new ZipInputStream(inputStream);
+			while (zipInputStream.getNextEntry() != null) {
+				int count;
+				while ((count = zipInputStream.read(tail, (int) (total % limit),
+						(int) Math.min(limit - total % limit, COMPRESS_BUFFER_SIZE))) != -1) {
+					total += count;
+				}
+			}
+		} catch (IOException e) {
+			LOGGER.debug("The compressed log is read up to {} : {}", total, e.getMessage());
+		} finally {
+			IOUtils.closeQuietly(zipInputStream);
+		}
+		try {
+			int start = (int) (total % limit);
+			if (total > limit) {
+				outputStream.write(tail, start, limit - start);
+			}
+			outputStream.write(tail, 0, total > limit ? start : (int) total);
+			outputStream.flush();
+		} catch (IOException e) {
+			LOGGER.error("Error occurs while decompressing {}", e.getMessage());
+			LOGGER.debug("Details : ", e);
+		}
+	}
 }
@@ -21,6 +21,7 @@ package org.ngrinder.common.constants;
 public interface AgentConstants {
 	public static final String PROP_AGENT_ALL_LOGS = "agent.all_logs";
 	public static final String PROP_AGENT_KEEP_LOGS = "agent.keep_logs";
+	public static final String PROP_AGENT_MAX_LOG_SIZE = "agent.max_log_size";
 	public static final String PROP_AGENT_UPDATE_ALWAYS = "agent.update_always";
 	public static final String PROP_AGENT_CONTROLLER_HOST = "agent.controller_host";
 	public static final String PROP_AGENT_CONTROLLER_PORT = "agent.controller_port";
@@ -35,6 +36,10 @@ public interface AgentConstants {
 	public static final String PROP_AGENT_BROADCAST_IP = "agent.broadcast_ip";
 	public static final String PROP_AGENT_ENABLE_LOCAL_DNS = "agent.enable_local_dns";
 	public static final String PROP_AGENT_ENABLE_SECURITY = "agent.enable_security";
+	public static final String PROP_AGENT_FILE_STORE_SIZE = "agent.file_store_size";
+	public static final String PROP_AGENT_AGGREGATE_STATISTICS = "agent.aggregate_statistics";
+	public static final String PROP_AGENT_WORKER_POOL_SIZE = "agent.worker_pool_size";
+	public static final String PROP_AGENT_CLASS_DATA_SHARING = "agent.class_data_sharing";
 
 	public static final String VALUE_AGENT_TO_CONTROLLER = "agent_to_controller";
 	public static final String VALUE_CONTROLLER_TO_AGENT = "controller_to_agent";
@@ -36,11 +36,15 @@ public interface GrinderConstants {
 	public static final String GRINDER_PROP_JVM_ARGUMENTS = "grinder.jvm.arguments";
 	public static final String GRINDER_PROP_USE_CONSOLE = "grinder.useConsole";
 	public static final String GRINDER_PROP_REPORT_TO_CONSOLE = "grinder.reportToConsole.interval";
+	public static final String GRINDER_PROP_AGGREGATOR_PORT = "grinder.aggregatorPort";
+	public static final String GRINDER_PROP_AGENT_STATISTICS = "grinder.agentStatistics";
+	public static final String GRINDER_PROP_LOG_ALL_ERRORS = "grinder.logAllErrors";
 	public static final String GRINDER_PROP_INITIAL_SLEEP_TIME = "grinder.initialSleepTime";
 	public static final String GRINDER_PROP_INITIAL_THREAD_SLEEP_TIME = "grinder.initialThreadSleepTime";
 	public static final String GRINDER_PROP_THREAD_RAMPUP ="grinder.threadRampUp";
 	public static final String GRINDER_PROP_TEST_ID = "grinder.test.id";
 	public static final String GRINDER_PROP_IGNORE_SAMPLE_COUNT = "grinder.ignoreSampleCount";
+	public static final String GRINDER_PROP_TIME_BUCKET_SIZE = "grinder.timeBucketSize";
 	public static final String GRINDER_PROP_SECURITY = "grinder.security";
 	public static final String GRINDER_PROP_SECURITY_LEVEL = "grinder.security.level";
 	public static final String GRINDER_PROP_USER = "grinder.user";
@@ -210,6 +210,28 @@ public class PerfTest extends BaseModel<PerfTest> {
 	@Column(name = "peak_tps")
 	private Double peakTps;
 
+	@Column(name = "test_time_p50")
+	private Double testTimeP50;
+
+	@Column(name = "test_time_p90")
+	private Double testTimeP90;
+
+	@Column(name = "test_time_p95")
+	private Double testTimeP95;
+
+	@Column(name = "test_time_p99")
+	private Double testTimeP99;
+
+	@Column(name = "test_time_p999")
+	private Double testTimeP999;
+
+	/**
+	 * The agents whose load generator was saturated during the test, with when and why. Empty if
+	 * none was.
+	 */
+	@Column(name = "generator_saturation", length = MAX_STRING_SIZE)
+	private String generatorSaturation;
+
 	/**
 	 * Console port for this test. This is the identifier for console
 	 */
@@ -273,6 +295,11 @@ public class PerfTest extends BaseModel<PerfTest> {
 	@Column(name = "sampling_interval")
 	private Integer samplingInterval;
 
+	/** the size of the time buckets in milliseconds, 0 if the tests are not counted in the time buckets. */
+	@Cloneable
+	@Column(name = "time_bucket_size")
+	private Integer timeBucketSize;
+
 	@Cloneable
 	@Column(name = "param")
 	private String param;
@@ -300,6 +327,7 @@ public class PerfTest extends BaseModel<PerfTest> {
 		this.stopRequest = getSafe(this.stopRequest, false);
 		this.duration = getSafe(this.duration, 60000L);
 		this.samplingInterval = getSafe(this.samplingInterval, 2);
+		this.timeBucketSize = getSafe(this.timeBucketSize);
 		this.scriptRevision = getSafe(this.scriptRevision, "-1");
 		this.param = getSafe(this.param, "");
 		this.scm = getSafe(this.scm, DEFAULT_SCM);
@@ -423,6 +451,11 @@ public class PerfTest extends BaseModel<PerfTest> {
 		this.lastProgressMessage = lastProgressMessage;
 	}
 
+	public void setGeneratorSaturation(String generatorSaturation) {
+		this.generatorSaturation = StringUtils.abbreviate(StringUtils.trimToEmpty(generatorSaturation),
+				MAX_STRING_SIZE - MARGIN_FOR_ABBREVIATION);
+	}
+
 	public void setTestComment(String testComment) {
 		this.testComment = StringUtils.trimToEmpty(StringUtils.right(testComment, MAX_STRING_SIZE));
 	}
@@ -0,0 +1,374 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.report;
+
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind writer of the report files which the console writes for every sample.
+ * <p/>
+ * The sampling thread only puts the records into a bounded queue and a dedicated thread writes
+ * them into the report data file and the CSV files in batches. One writer serves all report
+ * files of a console. The CSV files are flushed every {@link #FLUSH_INTERVAL} milliseconds or
+ * whenever their {@link #CSV_BUFFER_SIZE} bytes buffers are filled, and the report data file is
+ * flushed by its own chunk size. All of them are flushed by {@link #drain()}.
+ * <p/>
+ * No record is dropped. When the queue is full, the sampling thread waits for the writer and
+ * the waits are counted as the backpressure. If the writer doesn't take a record within
+ * {@link #PUT_TIMEOUT} milliseconds or it is already stopped, the append fails with an
+ * {@link IllegalStateException} rather than blocking the sampling forever.
+ *
+ * @since 3.5.3
+ */
+public class AsyncReportWriter implements Closeable {
+	private static final Logger LOGGER = LoggerFactory.getLogger(AsyncReportWriter.class);
+
+	static final int DEFAULT_CAPACITY = 64 * 1024;
+	static final long FLUSH_INTERVAL = 1000;
+	static final int CSV_BUFFER_SIZE = 64 * 1024;
+	static final long PUT_TIMEOUT = 10000;
+	private static final int BATCH_SIZE = 1024;
+
+	private final File reportDataFile;
+	private final File csvFile;
+	private final File reportDirectory;
+	private final BlockingQueue<Record> queue;
+	private final Thread writerThread;
+
+	private ReportDataWriter reportDataWriter;
+	private final Map<File, BufferedWriter> csvWriters = new LinkedHashMap<>();
+	private volatile boolean closed = false;
+	private int unflushedCsvLines = 0;
+	private long lastFlushTime = System.currentTimeMillis();
+
+	private final AtomicLong writtenRecords = new AtomicLong();
+	private final AtomicLong blockedCount = new AtomicLong();
+	private final AtomicLong blockedNanos = new AtomicLong();
+	private final AtomicLong failedRecords = new AtomicLong();
+	private volatile int maxQueueSize = 0;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param reportDataFile report data file. null if only the CSV file is written.
+	 * @param csvFile        CSV file
+	 */
+	public AsyncReportWriter(File reportDataFile, File csvFile) {
+		this(reportDataFile, csvFile, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param reportDataFile report data file. null if only the CSV file is written.
+	 * @param csvFile        CSV file
+	 * @param capacity       max count of the records waiting to be written
+	 */
+	public AsyncReportWriter(File reportDataFile, File csvFile, int capacity) {
+		this.reportDataFile = reportDataFile;
+		this.csvFile = csvFile;
+		this.reportDirectory = csvFile.getParentFile();
+		this.queue = new ArrayBlockingQueue<>(capacity);
+		this.writerThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				writeRecords();
+			}
+		}, "report writer of " + reportDirectory.getName());
+		this.writerThread.setDaemon(true);
+		this.writerThread.start();
+	}
+
+	/**
+	 * Append the value of the given report key into the report data file.
+	 *
+	 * @param key   report key
+	 * @param value value. null if the value is not sampled at this moment.
+	 */
+	public void appendReportData(String key, Double value) {
+		put(new Record(key, value, null, null, null));
+	}
+
+	/**
+	 * Append the line into the CSV file.
+	 *
+	 * @param line line without the line separator
+	 */
+	public void appendCsvLine(String line) {
+		appendCsvLine(csvFile, line);
+	}
+
+	/**
+	 * Append the line into the given CSV file.
+	 *
+	 * @param file CSV file in the report directory
+	 * @param line line without the line separator
+	 */
+	public void appendCsvLine(File file, String line) {
+		put(new Record(null, null, file, line, null));
+	}
+
+	/**
+	 * Wait until all records appended so far are written and flushed.
+	 */
+	public void drain() {
+		CountDownLatch drained = new CountDownLatch(1);
+		put(new Record(null, null, null, null, drained));
+		try {
+			while (!drained.await(1, TimeUnit.SECONDS)) {
+				if (!writerThread.isAlive()) {
+					LOGGER.error("Report writer of {} is stopped before draining.", reportDirectory);
+					return;
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Drain the records and close the report files. If the writer thread doesn't stop in time,
+	 * the files are left to it and the remaining records are not written.
+	 */
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		drain();
+		closed = true;
+		writerThread.interrupt();
+		try {
+			writerThread.join(TimeUnit.SECONDS.toMillis(10));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (writerThread.isAlive()) {
+			// The writers are not thread safe. Don't touch them while the thread may still use them.
+			LOGGER.warn("Report writer of {} is not stopped in time. {} records are not written.", reportDirectory,
+				queue.size());
+			return;
+		}
+		// Records which were appended while closing.
+		for (Record each = queue.poll(); each != null; each = queue.poll()) {
+			write(each);
+		}
+		IOUtils.closeQuietly(reportDataWriter);
+		for (BufferedWriter each : csvWriters.values()) {
+			IOUtils.closeQuietly(each);
+		}
+		LOGGER.info("Report writer of {} is closed. {}", reportDirectory, getStatistics());
+	}
+
+	private void put(Record record) {
+		if (closed) {
+			throw new IllegalStateException("Report writer of " + reportDirectory + " is already closed");
+		}
+		if (!queue.offer(record)) {
+			if (!writerThread.isAlive()) {
+				throw new IllegalStateException("Report writer of " + reportDirectory + " is stopped");
+			}
+			long start = System.nanoTime();
+			try {
+				if (!queue.offer(record, PUT_TIMEOUT, TimeUnit.MILLISECONDS)) {
+					LOGGER.error("Report writer of {} doesn't take the records in {}ms. {}", reportDirectory,
+						PUT_TIMEOUT, getStatistics());
+					throw new IllegalStateException("Report writer of " + reportDirectory + " is stuck");
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while waiting for the report writer", e);
+			} finally {
+				blockedCount.incrementAndGet();
+				blockedNanos.addAndGet(System.nanoTime() - start);
+			}
+		}
+		int size = queue.size();
+		if (size > maxQueueSize) {
+			maxQueueSize = size;
+		}
+	}
+
+	private void writeRecords() {
+		List<Record> batch = new ArrayList<>(BATCH_SIZE);
+		while (!closed) {
+			try {
+				Record first = queue.poll(FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+				if (first != null) {
+					batch.add(first);
+					queue.drainTo(batch, BATCH_SIZE - 1);
+					for (Record each : batch) {
+						write(each);
+					}
+					batch.clear();
+				}
+				if (unflushedCsvLines > 0 && System.currentTimeMillis() - lastFlushTime >= FLUSH_INTERVAL) {
+					flushCsv();
+				}
+			} catch (InterruptedException e) {
+				return;
+			} catch (IOException e) {
+				LOGGER.error("Error while flushing the report into {} : {}", reportDirectory, e.getMessage());
+				LOGGER.debug("Details : ", e);
+			}
+		}
+	}
+
+	private void write(Record record) {
+		try {
+			if (record.drained != null) {
+				flushCsv();
+				if (reportDataWriter != null) {
+					reportDataWriter.flush();
+				}
+				record.drained.countDown();
+			} else if (record.csvLine != null) {
+				BufferedWriter csvWriter = csvWriters.get(record.csvFile);
+				if (csvWriter == null) {
+					csvWriter = new BufferedWriter(new FileWriter(record.csvFile, true), CSV_BUFFER_SIZE);
+					csvWriters.put(record.csvFile, csvWriter);
+				}
+				csvWriter.write(record.csvLine);
+				csvWriter.newLine();
+				unflushedCsvLines++;
+				writtenRecords.incrementAndGet();
+			} else {
+				if (reportDataWriter == null) {
+					reportDataWriter = new ReportDataWriter(reportDataFile);
+				}
+				reportDataWriter.append(record.key, record.value);
+				writtenRecords.incrementAndGet();
+			}
+		} catch (Exception e) {
+			if (failedRecords.getAndIncrement() == 0) {
+				LOGGER.error("Error while writing the report into {} : {}", reportDirectory, e.getMessage());
+				LOGGER.debug("Details : ", e);
+			}
+			if (record.drained != null) {
+				record.drained.countDown();
+			}
+		}
+	}
+
+	private void flushCsv() throws IOException {
+		lastFlushTime = System.currentTimeMillis();
+		if (unflushedCsvLines > 0) {
+			unflushedCsvLines = 0;
+			for (BufferedWriter each : csvWriters.values()) {
+				each.flush();
+			}
+		}
+	}
+
+	/**
+	 * Get the statistics of this writer.
+	 *
+	 * @return statistics
+	 */
+	public Statistics getStatistics() {
+		return new Statistics(writtenRecords.get(), failedRecords.get(), queue.size(), maxQueueSize,
+			blockedCount.get(), TimeUnit.NANOSECONDS.toMillis(blockedNanos.get()));
+	}
+
+	/**
+	 * Statistics of the write-behind queue.
+	 */
+	public static class Statistics {
+		private final long writtenRecords;
+		private final long failedRecords;
+		private final int queueSize;
+		private final int maxQueueSize;
+		private final long blockedCount;
+		private final long blockedTime;
+
+		Statistics(long writtenRecords, long failedRecords, int queueSize, int maxQueueSize, long blockedCount,
+				   long blockedTime) {
+			this.writtenRecords = writtenRecords;
+			this.failedRecords = failedRecords;
+			this.queueSize = queueSize;
+			this.maxQueueSize = maxQueueSize;
+			this.blockedCount = blockedCount;
+			this.blockedTime = blockedTime;
+		}
+
+		public long getWrittenRecords() {
+			return writtenRecords;
+		}
+
+		public long getFailedRecords() {
+			return failedRecords;
+		}
+
+		public int getQueueSize() {
+			return queueSize;
+		}
+
+		public int getMaxQueueSize() {
+			return maxQueueSize;
+		}
+
+		/**
+		 * Get the count of the appends which waited for the writer because the queue was full.
+		 */
+		public long getBlockedCount() {
+			return blockedCount;
+		}
+
+		/**
+		 * Get the total time in milliseconds which the appends waited for the writer.
+		 */
+		public long getBlockedTime() {
+			return blockedTime;
+		}
+
+		@Override
+		public String toString() {
+			return "written : " + writtenRecords + ", failed : " + failedRecords + ", queue : " + queueSize
+				+ ", max queue : " + maxQueueSize + ", blocked : " + blockedCount + " times for " + blockedTime + "ms";
+		}
+	}
+
+	private static class Record {
+		private final String key;
+		private final Double value;
+		private final File csvFile;
+		private final String csvLine;
+		private final CountDownLatch drained;
+
+		Record(String key, Double value, File csvFile, String csvLine, CountDownLatch drained) {
+			this.key = key;
+			this.value = value;
+			this.csvFile = csvFile;
+			this.csvLine = csvLine;
+			this.drained = drained;
+		}
+	}
+}
@@ -0,0 +1,59 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.report;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * The way to reduce the report rows into the graph points.
+ *
+ * @since 3.5.3
+ */
+public enum Downsampling {
+	/**
+	 * Pick the first row of every interval.
+	 */
+	SAMPLE,
+	/**
+	 * Average of the rows in every interval.
+	 */
+	AVERAGE,
+	/**
+	 * Minimum of the rows in every interval.
+	 */
+	MIN,
+	/**
+	 * Maximum of the rows in every interval.
+	 */
+	MAX,
+	/**
+	 * Largest-Triangle-Three-Buckets selection which keeps the visual shape of the series.
+	 */
+	LTTB;
+
+	/**
+	 * Get the {@link Downsampling} having the given name ignoring case.
+	 *
+	 * @param name name
+	 * @return {@link #SAMPLE} if the name is empty or unknown
+	 */
+	public static Downsampling of(String name) {
+		for (Downsampling each : values()) {
+			if (each.name().equalsIgnoreCase(StringUtils.trimToEmpty(name))) {
+				return each;
+			}
+		}
+		return SAMPLE;
+	}
+}
@@ -0,0 +1,64 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.report;
+
+/**
+ * Layout of the binary report data file.
+ * <p/>
+ * The file starts with {@link #MAGIC} and {@link #VERSION}, which is followed by the append-only
+ * sequence of blocks.
+ * <ul>
+ * <li>column block : {@link #COLUMN_BLOCK}, column id (int), column name (UTF)</li>
+ * <li>chunk block : {@link #CHUNK_BLOCK}, column id (int), start row (int), row count (int),
+ * row count * value (float)</li>
+ * </ul>
+ * Each column keeps the values of a metric of a test such as <code>TPS-1_Test1</code>. Null values
+ * are stored as NaN.
+ * <p/>
+ * For each column, min, max and average rollup columns are kept for every {@link #ROLLUP_FACTORS}
+ * rows, so that a long series can be downsampled without reading all rows. Rollup columns are
+ * hidden from the column list.
+ *
+ * @since 3.5.3
+ */
+public abstract class ReportDataFormat {
+	/**
+	 * Report data file name in the report directory.
+	 */
+	public static final String REPORT_DATA_FILE = "report_data.bin";
+
+	static final int MAGIC = 0x4E475244;
+	static final short VERSION = 1;
+	static final byte COLUMN_BLOCK = 'C';
+	static final byte CHUNK_BLOCK = 'D';
+	static final int VALUE_SIZE = 4;
+	static final int HEADER_SIZE = 6;
+
+	/**
+	 * Row counts which each rollup level aggregates, in the ascending order.
+	 */
+	static final int[] ROLLUP_FACTORS = {10, 100, 1000};
+	static final String ROLLUP_MIN = "min";
+	static final String ROLLUP_MAX = "max";
+	static final String ROLLUP_AVG = "avg";
+	private static final char ROLLUP_MARK = '\u0000';
+
+	static String getRollupColumnName(String name, int factor, String kind) {
+		return name + ROLLUP_MARK + factor + ROLLUP_MARK + kind;
+	}
+
+	static boolean isRollupColumn(String name) {
+		return name.indexOf(ROLLUP_MARK) >= 0;
+	}
+}
@@ -0,0 +1,560 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.report;
+
+import org.apache.commons.io.input.CountingInputStream;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+
+import static org.ngrinder.common.util.NoOp.noOp;
+import static org.ngrinder.report.ReportDataFormat.*;
+
+/**
+ * Random access reader of the binary report data file.
+ * <p/>
+ * Only the block headers are scanned when the reader is opened. Values are read on demand from
+ * the chunks which contain the requested rows. A partially written block at the end of the file
+ * is ignored.
+ *
+ * @since 3.5.3
+ */
+public class ReportDataReader implements Closeable {
+	private static final int DIRECT_READ_INTERVAL = 16;
+	private static final int MAX_CACHED_INDEXES = 16;
+	private static final int TAIL_SIZE = 16;
+
+	// Indexes of the recently opened files by the path. Guarded by itself.
+	private static final Map<String, Index> INDEXES = new LinkedHashMap<String, Index>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Index> eldest) {
+			return size() > MAX_CACHED_INDEXES;
+		}
+	};
+
+	private final RandomAccessFile file;
+	private final Index index;
+
+	/**
+	 * Open the given report data file and build the index of columns.
+	 * <p/>
+	 * The index is cached by the file. The file is only appended, so a cached index is extended
+	 * by the blocks written after it instead of scanning the whole file again.
+	 *
+	 * @param reportDataFile report data file
+	 * @throws IOException if the file is not a valid report data file
+	 */
+	public ReportDataReader(File reportDataFile) throws IOException {
+		file = new RandomAccessFile(reportDataFile, "r");
+		try {
+			index = getIndex(reportDataFile);
+		} catch (IOException e) {
+			file.close();
+			throw e;
+		}
+	}
+
+	private Index getIndex(File reportDataFile) throws IOException {
+		String path = reportDataFile.getAbsolutePath();
+		Object fileKey = Files.readAttributes(reportDataFile.toPath(), BasicFileAttributes.class).fileKey();
+		long length = file.length();
+		Index cached;
+		synchronized (INDEXES) {
+			cached = INDEXES.get(path);
+		}
+		boolean valid = cached != null && cached.validLength <= length && Objects.equals(cached.fileKey, fileKey)
+				&& Arrays.equals(cached.tail, readTail(cached.validLength));
+		if (valid && cached.validLength == length) {
+			return cached;
+		}
+		Index index = new Index(fileKey);
+		if (valid) {
+			index.extend(cached);
+		}
+		buildIndex(index, length);
+		index.tail = readTail(index.validLength);
+		synchronized (INDEXES) {
+			INDEXES.put(path, index);
+		}
+		return index;
+	}
+
+	/*
+	 * The last bytes of the indexed part tell whether the file is the one indexed before.
+	 */
+	private byte[] readTail(long validLength) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(validLength, TAIL_SIZE));
+		readFully(buffer, validLength - buffer.capacity());
+		return buffer.array();
+	}
+
+	private void buildIndex(Index index, long length) throws IOException {
+		long start = index.validLength;
+		file.seek(start);
+		CountingInputStream counter = new CountingInputStream(new BufferedInputStream(
+				new FileInputStream(file.getFD())));
+		DataInputStream in = new DataInputStream(counter);
+		if (start == 0) {
+			if (length < HEADER_SIZE || in.readInt() != MAGIC || in.readShort() != VERSION) {
+				throw new IOException("Not a valid report data file");
+			}
+			index.validLength = HEADER_SIZE;
+		}
+		try {
+			while (index.validLength < length) {
+				byte type = in.readByte();
+				int columnId = in.readInt();
+				if (type == COLUMN_BLOCK) {
+					String name = in.readUTF();
+					index.columnIds.put(name, columnId);
+					index.maxColumnId = Math.max(index.maxColumnId, columnId);
+				} else if (type == CHUNK_BLOCK) {
+					int startRow = in.readInt();
+					int count = in.readInt();
+					long valuePosition = start + counter.getByteCount();
+					if (valuePosition + (long) count * VALUE_SIZE > length) {
+						break;
+					}
+					skipFully(in, (long) count * VALUE_SIZE);
+					List<Chunk> columnChunks = index.chunks.get(columnId);
+					if (columnChunks == null) {
+						columnChunks = new ArrayList<>();
+						index.chunks.put(columnId, columnChunks);
+					}
+					columnChunks.add(new Chunk(startRow, count, valuePosition));
+				} else {
+					throw new IOException("Unknown block type " + type + " at " + index.validLength);
+				}
+				index.validLength = start + counter.getByteCount();
+			}
+		} catch (EOFException e) {
+			// Partially written block. Ignore it.
+			noOp();
+		}
+	}
+
+	private static void skipFully(DataInputStream in, long count) throws IOException {
+		while (count > 0) {
+			long skipped = in.skip(count);
+			if (skipped <= 0) {
+				throw new EOFException();
+			}
+			count -= skipped;
+		}
+	}
+
+	/**
+	 * Get all column names in the name order.
+	 *
+	 * @return column names
+	 */
+	public List<String> getColumnNames() {
+		return getColumnNames("");
+	}
+
+	/**
+	 * Get the column names which start with the given prefix in the name order.
+	 *
+	 * @param prefix prefix of column name
+	 * @return column names
+	 */
+	public List<String> getColumnNames(String prefix) {
+		List<String> result = new ArrayList<>();
+		for (String each : index.columnIds.keySet()) {
+			if (each.startsWith(prefix) && !isRollupColumn(each)) {
+				result.add(each);
+			}
+		}
+		return result;
+	}
+
+	Set<String> getAllColumnNames() {
+		return Collections.unmodifiableSet(index.columnIds.keySet());
+	}
+
+	public boolean hasColumn(String name) {
+		return index.columnIds.containsKey(name);
+	}
+
+	/**
+	 * Get the number of rows of the given column.
+	 *
+	 * @param name column name
+	 * @return row count. 0 if the column doesn't exist.
+	 */
+	public int getRowCount(String name) {
+		List<Chunk> columnChunks = getChunks(name);
+		if (columnChunks.isEmpty()) {
+			return 0;
+		}
+		Chunk last = columnChunks.get(columnChunks.size() - 1);
+		return last.startRow + last.count;
+	}
+
+	/**
+	 * Read the values of the given column, picking one row for every interval rows.
+	 *
+	 * @param name     column name
+	 * @param interval row interval. 1 to read all rows.
+	 * @return values. NaN values are returned as null.
+	 * @throws IOException if reading fails
+	 */
+	public List<Float> read(String name, int interval) throws IOException {
+		return read(name, interval, Downsampling.SAMPLE);
+	}
+
+	/**
+	 * Read the values of the given column, reducing every interval rows into a point.
+	 * <p/>
+	 * Except {@link Downsampling#SAMPLE}, the rollup level which fits the interval is used so that
+	 * the number of values read is proportional to the number of points rather than rows. The
+	 * interval should be aligned by {@link #alignInterval(int)} to use the rollup levels fully.
+	 *
+	 * @param name         column name
+	 * @param interval     row interval. 1 to read all rows.
+	 * @param downsampling the way to reduce rows
+	 * @return values. NaN values are returned as null.
+	 * @throws IOException if reading fails
+	 */
+	public List<Float> read(String name, int interval, Downsampling downsampling) throws IOException {
+		interval = Math.max(interval, 1);
+		int rowCount = getRowCount(name);
+		if (rowCount == 0) {
+			return new ArrayList<>();
+		}
+		float[] points;
+		if (interval == 1) {
+			points = readRows(name, 0, rowCount);
+		} else if (downsampling == Downsampling.SAMPLE) {
+			points = sample(name, rowCount, interval);
+		} else if (downsampling == Downsampling.LTTB) {
+			points = selectLargestTriangles(name, rowCount, interval);
+		} else {
+			points = aggregate(name, rowCount, interval, downsampling);
+		}
+		List<Float> result = new ArrayList<>(points.length);
+		for (float each : points) {
+			result.add(Float.isNaN(each) ? null : each);
+		}
+		return result;
+	}
+
+	/**
+	 * Align the given interval to the rollup level which is less than or equal to the interval.
+	 *
+	 * @param interval row interval
+	 * @return aligned interval
+	 */
+	public static int alignInterval(int interval) {
+		int factor = 1;
+		for (int each : ROLLUP_FACTORS) {
+			if (each <= interval) {
+				factor = each;
+			}
+		}
+		return Math.max(interval - interval % factor, 1);
+	}
+
+	private float[] sample(String name, int rowCount, int interval) throws IOException {
+		float[] points = new float[(rowCount + interval - 1) / interval];
+		if (interval < DIRECT_READ_INTERVAL) {
+			float[] rows = readRows(name, 0, rowCount);
+			for (int i = 0; i < points.length; i++) {
+				points[i] = rows[i * interval];
+			}
+		} else {
+			for (int i = 0; i < points.length; i++) {
+				points[i] = readRows(name, i * interval, i * interval + 1)[0];
+			}
+		}
+		return points;
+	}
+
+	private float[] aggregate(String name, int rowCount, int interval, Downsampling downsampling) throws IOException {
+		int factor = getRollupFactor(interval);
+		String kind = downsampling == Downsampling.MIN ? ROLLUP_MIN
+				: (downsampling == Downsampling.MAX ? ROLLUP_MAX : ROLLUP_AVG);
+		float[] entries = readLevel(name, rowCount, factor, kind);
+		int entriesPerPoint = interval / factor;
+		float[] points = new float[(entries.length + entriesPerPoint - 1) / entriesPerPoint];
+		for (int i = 0; i < points.length; i++) {
+			int from = i * entriesPerPoint;
+			points[i] = reduce(entries, from, Math.min(from + entriesPerPoint, entries.length), downsampling);
+		}
+		return points;
+	}
+
+	/**
+	 * Select a row for every interval rows which forms the largest triangle with the previously
+	 * selected row and the average of the next interval. For large intervals, the min and max of
+	 * the rollup level are used as candidates instead of all rows.
+	 */
+	private float[] selectLargestTriangles(String name, int rowCount, int interval) throws IOException {
+		int factor = getRollupFactor(interval);
+		float[] candidateValues;
+		double[] candidateRows;
+		if (factor == 1) {
+			candidateValues = readRows(name, 0, rowCount);
+			candidateRows = new double[candidateValues.length];
+			for (int i = 0; i < candidateRows.length; i++) {
+				candidateRows[i] = i;
+			}
+		} else {
+			float[] minEntries = readLevel(name, rowCount, factor, ROLLUP_MIN);
+			float[] maxEntries = readLevel(name, rowCount, factor, ROLLUP_MAX);
+			candidateValues = new float[minEntries.length * 2];
+			candidateRows = new double[minEntries.length * 2];
+			for (int i = 0; i < minEntries.length; i++) {
+				candidateValues[i * 2] = minEntries[i];
+				candidateValues[i * 2 + 1] = maxEntries[i];
+				candidateRows[i * 2] = i * factor;
+				candidateRows[i * 2 + 1] = i * factor + factor / 2.0;
+			}
+		}
+		int candidatesPerPoint = factor == 1 ? interval : (interval / factor) * 2;
+		float[] points = new float[(candidateValues.length + candidatesPerPoint - 1) / candidatesPerPoint];
+		double selectedRow = Double.NaN;
+		float selectedValue = Float.NaN;
+		for (int i = 0; i < points.length; i++) {
+			int from = i * candidatesPerPoint;
+			int to = Math.min(from + candidatesPerPoint, candidateValues.length);
+			int nextTo = Math.min(to + candidatesPerPoint, candidateValues.length);
+			double nextRow = average(candidateRows, candidateValues, to, nextTo, true);
+			double nextValue = average(candidateRows, candidateValues, to, nextTo, false);
+			int selected = -1;
+			double largestArea = -1;
+			for (int j = from; j < to; j++) {
+				if (Float.isNaN(candidateValues[j])) {
+					continue;
+				}
+				double area = Double.isNaN(selectedRow) || Double.isNaN(nextRow) ? 0
+						: Math.abs((selectedRow - nextRow) * (candidateValues[j] - selectedValue)
+						- (selectedRow - candidateRows[j]) * (nextValue - selectedValue));
+				if (area > largestArea) {
+					largestArea = area;
+					selected = j;
+				}
+			}
+			if (selected < 0) {
+				points[i] = Float.NaN;
+			} else {
+				points[i] = candidateValues[selected];
+				selectedRow = candidateRows[selected];
+				selectedValue = candidateValues[selected];
+			}
+		}
+		return points;
+	}
+
+	private static double average(double[] rows, float[] values, int from, int to, boolean row) {
+		double sum = 0;
+		int count = 0;
+		for (int i = from; i < to; i++) {
+			if (!Float.isNaN(values[i])) {
+				sum += row ? rows[i] : values[i];
+				count++;
+			}
+		}
+		return count == 0 ? Double.NaN : sum / count;
+	}
+
+	private static int getRollupFactor(int interval) {
+		int factor = 1;
+		for (int each : ROLLUP_FACTORS) {
+			if (each <= interval && interval % each == 0) {
+				factor = each;
+			}
+		}
+		return factor;
+	}
+
+	/**
+	 * Read the given rollup level. The rows which are not rolled up yet are reduced into the last
+	 * entry.
+	 */
+	private float[] readLevel(String name, int rowCount, int factor, String kind) throws IOException {
+		if (factor == 1) {
+			return readRows(name, 0, rowCount);
+		}
+		String rollupColumn = getRollupColumnName(name, factor, kind);
+		int rolledUpCount = Math.min(getRowCount(rollupColumn), rowCount / factor);
+		int tailRows = rowCount - rolledUpCount * factor;
+		float[] entries = Arrays.copyOf(readRows(rollupColumn, 0, rolledUpCount),
+				rolledUpCount + (tailRows > 0 ? 1 : 0));
+		if (tailRows > 0) {
+			float[] tail = readRows(name, rolledUpCount * factor, rowCount);
+			Downsampling downsampling = ROLLUP_MIN.equals(kind) ? Downsampling.MIN
+					: (ROLLUP_MAX.equals(kind) ? Downsampling.MAX : Downsampling.AVERAGE);
+			entries[rolledUpCount] = reduce(tail, 0, tail.length, downsampling);
+		}
+		return entries;
+	}
+
+	private static float reduce(float[] values, int from, int to, Downsampling downsampling) {
+		float result = Float.NaN;
+		double sum = 0;
+		int count = 0;
+		for (int i = from; i < to; i++) {
+			float value = values[i];
+			if (Float.isNaN(value)) {
+				continue;
+			}
+			count++;
+			sum += value;
+			if (Float.isNaN(result)) {
+				result = value;
+			} else if (downsampling == Downsampling.MIN) {
+				result = Math.min(result, value);
+			} else if (downsampling == Downsampling.MAX) {
+				result = Math.max(result, value);
+			}
+		}
+		if (downsampling == Downsampling.AVERAGE && count > 0) {
+			return (float) (sum / count);
+		}
+		return result;
+	}
+
+	/**
+	 * Read the rows in the given range of the given column.
+	 *
+	 * @param name    column name
+	 * @param fromRow first row (inclusive)
+	 * @param toRow   last row (exclusive)
+	 * @return values. rows which don't exist are returned as NaN.
+	 * @throws IOException if reading fails
+	 */
+	float[] readRows(String name, int fromRow, int toRow) throws IOException {
+		float[] result = new float[Math.max(toRow - fromRow, 0)];
+		Arrays.fill(result, Float.NaN);
+		List<Chunk> columnChunks = getChunks(name);
+		for (int i = findChunk(columnChunks, fromRow); i < columnChunks.size(); i++) {
+			Chunk each = columnChunks.get(i);
+			if (each.startRow >= toRow) {
+				break;
+			}
+			int first = Math.max(fromRow, each.startRow);
+			int last = Math.min(toRow, each.startRow + each.count);
+			if (first >= last) {
+				continue;
+			}
+			ByteBuffer buffer = ByteBuffer.allocate((last - first) * VALUE_SIZE);
+			readFully(buffer, each.valuePosition + (long) (first - each.startRow) * VALUE_SIZE);
+			buffer.flip();
+			for (int row = first; row < last; row++) {
+				result[row - fromRow] = buffer.getFloat();
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Find the index of the first chunk which may contain the given row.
+	 */
+	private static int findChunk(List<Chunk> columnChunks, int row) {
+		int low = 0;
+		int high = columnChunks.size() - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			Chunk chunk = columnChunks.get(middle);
+			if (chunk.startRow + chunk.count <= row) {
+				low = middle + 1;
+			} else {
+				high = middle - 1;
+			}
+		}
+		return low;
+	}
+
+	private void readFully(ByteBuffer buffer, long position) throws IOException {
+		FileChannel channel = file.getChannel();
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new EOFException();
+			}
+		}
+	}
+
+	/**
+	 * Get the length of the file except the partially written block at the end.
+	 *
+	 * @return valid length
+	 */
+	long getValidLength() {
+		return index.validLength;
+	}
+
+	int getColumnId(String name) {
+		return index.columnIds.get(name);
+	}
+
+	int getMaxColumnId() {
+		return index.maxColumnId;
+	}
+
+	private List<Chunk> getChunks(String name) {
+		Integer columnId = index.columnIds.get(name);
+		List<Chunk> columnChunks = columnId == null ? null : index.chunks.get(columnId);
+		return columnChunks == null ? Collections.<Chunk>emptyList() : columnChunks;
+	}
+
+	@Override
+	public void close() throws IOException {
+		file.close();
+	}
+
+	/**
+	 * Columns and chunks of a file. It's not modified once it's cached.
+	 */
+	private static class Index {
+		private final Object fileKey;
+		private final Map<String, Integer> columnIds = new TreeMap<>();
+		private final Map<Integer, List<Chunk>> chunks = new HashMap<>();
+		private int maxColumnId = -1;
+		private long validLength;
+		private byte[] tail;
+
+		Index(Object fileKey) {
+			this.fileKey = fileKey;
+		}
+
+		/*
+		 * Copy the given index to add the blocks written after it.
+		 */
+		void extend(Index index) {
+			columnIds.putAll(index.columnIds);
+			for (Map.Entry<Integer, List<Chunk>> each : index.chunks.entrySet()) {
+				chunks.put(each.getKey(), new ArrayList<>(each.getValue()));
+			}
+			maxColumnId = index.maxColumnId;
+			validLength = index.validLength;
+		}
+	}
+
+	private static class Chunk {
+		private final int startRow;
+		private final int count;
+		private final long valuePosition;
+
+		Chunk(int startRow, int count, long valuePosition) {
+			this.startRow = startRow;
+			this.count = count;
+			this.valuePosition = valuePosition;
+		}
+	}
+}
@@ -0,0 +1,242 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.report;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.ngrinder.report.ReportDataFormat.*;
+
+/**
+ * Append-only writer of the binary report data file.
+ * <p/>
+ * Values are buffered per column and written as a chunk when {@link #FLUSH_ROW_COUNT} values are
+ * pending in a column or when {@link #flush()} is called. Rollup columns are appended whenever
+ * the rows of a rollup level are filled up.
+ *
+ * @since 3.5.3
+ */
+public class ReportDataWriter implements Closeable, Flushable {
+	static final int FLUSH_ROW_COUNT = 60;
+
+	private final Map<String, Column> columns = new LinkedHashMap<>();
+	private final DataOutputStream out;
+	private int nextColumnId;
+
+	/**
+	 * Open the writer. If the file already exists, values are appended to the existing columns.
+	 *
+	 * @param file report data file
+	 * @throws IOException if the file can't be opened
+	 */
+	public ReportDataWriter(File file) throws IOException {
+		boolean exists = file.exists() && file.length() >= HEADER_SIZE;
+		long validLength = 0;
+		if (exists) {
+			try (ReportDataReader reader = new ReportDataReader(file)) {
+				for (String each : reader.getAllColumnNames()) {
+					columns.put(each, new Column(reader.getColumnId(each), reader.getRowCount(each), true));
+				}
+				for (Map.Entry<String, Column> each : columns.entrySet()) {
+					if (!isRollupColumn(each.getKey())) {
+						restoreRollups(reader, each.getKey(), each.getValue());
+					}
+				}
+				nextColumnId = reader.getMaxColumnId() + 1;
+				validLength = reader.getValidLength();
+			}
+			if (validLength < file.length()) {
+				// Drop the block which was partially written before.
+				try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+					randomAccessFile.setLength(validLength);
+				}
+			}
+		}
+		out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, exists)));
+		if (!exists) {
+			out.writeInt(MAGIC);
+			out.writeShort(VERSION);
+		}
+	}
+
+	/**
+	 * Append the value to the given column. The column is created if it doesn't exist.
+	 *
+	 * @param name  column name
+	 * @param value value. null is stored as NaN.
+	 * @throws IOException if writing fails
+	 */
+	public synchronized void append(String name, Number value) throws IOException {
+		Column column = getColumn(name);
+		float floatValue = value == null ? Float.NaN : value.floatValue();
+		appendValue(name, column, floatValue);
+		if (column.rollups == null) {
+			column.rollups = createRollups();
+		}
+		for (Rollup each : column.rollups) {
+			if (each.add(floatValue)) {
+				appendValue(getRollupColumnName(name, each.factor, ROLLUP_MIN), getColumn(getRollupColumnName(name,
+						each.factor, ROLLUP_MIN)), each.min);
+				appendValue(getRollupColumnName(name, each.factor, ROLLUP_MAX), getColumn(getRollupColumnName(name,
+						each.factor, ROLLUP_MAX)), each.max);
+				appendValue(getRollupColumnName(name, each.factor, ROLLUP_AVG), getColumn(getRollupColumnName(name,
+						each.factor, ROLLUP_AVG)), each.getAverage());
+				each.reset();
+			}
+		}
+	}
+
+	private Column getColumn(String name) {
+		Column column = columns.get(name);
+		if (column == null) {
+			column = new Column(nextColumnId++, 0, false);
+			columns.put(name, column);
+		}
+		return column;
+	}
+
+	private void appendValue(String name, Column column, float value) throws IOException {
+		column.add(value);
+		if (column.pending == FLUSH_ROW_COUNT) {
+			writeColumn(name, column);
+			out.flush();
+		}
+	}
+
+	private static Rollup[] createRollups() {
+		Rollup[] rollups = new Rollup[ROLLUP_FACTORS.length];
+		for (int i = 0; i < ROLLUP_FACTORS.length; i++) {
+			rollups[i] = new Rollup(ROLLUP_FACTORS[i]);
+		}
+		return rollups;
+	}
+
+	/**
+	 * Refill the rows of the rollups which were not completed when the file was closed.
+	 */
+	private static void restoreRollups(ReportDataReader reader, String name, Column column) throws IOException {
+		column.rollups = createRollups();
+		int rowCount = reader.getRowCount(name);
+		for (Rollup each : column.rollups) {
+			float[] rows = reader.readRows(name, rowCount - rowCount % each.factor, rowCount);
+			for (float row : rows) {
+				each.add(row);
+			}
+		}
+	}
+
+	@Override
+	public synchronized void flush() throws IOException {
+		for (Map.Entry<String, Column> each : columns.entrySet()) {
+			writeColumn(each.getKey(), each.getValue());
+		}
+		out.flush();
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		try {
+			flush();
+		} finally {
+			out.close();
+		}
+	}
+
+	private void writeColumn(String name, Column column) throws IOException {
+		if (!column.defined) {
+			out.writeByte(COLUMN_BLOCK);
+			out.writeInt(column.id);
+			out.writeUTF(name);
+			column.defined = true;
+		}
+		if (column.pending == 0) {
+			return;
+		}
+		out.writeByte(CHUNK_BLOCK);
+		out.writeInt(column.id);
+		out.writeInt(column.written);
+		out.writeInt(column.pending);
+		for (int i = 0; i < column.pending; i++) {
+			out.writeFloat(column.values[i]);
+		}
+		column.written += column.pending;
+		column.pending = 0;
+	}
+
+	private static class Rollup {
+		private final int factor;
+		private int rows;
+		private int validRows;
+		private double sum;
+		private float min;
+		private float max;
+
+		Rollup(int factor) {
+			this.factor = factor;
+			reset();
+		}
+
+		/**
+		 * Add the value.
+		 *
+		 * @return true if the rows of this rollup are filled up
+		 */
+		boolean add(float value) {
+			rows++;
+			if (!Float.isNaN(value)) {
+				validRows++;
+				sum += value;
+				min = Float.isNaN(min) ? value : Math.min(min, value);
+				max = Float.isNaN(max) ? value : Math.max(max, value);
+			}
+			return rows == factor;
+		}
+
+		float getAverage() {
+			return validRows == 0 ? Float.NaN : (float) (sum / validRows);
+		}
+
+		void reset() {
+			rows = 0;
+			validRows = 0;
+			sum = 0;
+			min = Float.NaN;
+			max = Float.NaN;
+		}
+	}
+
+	private static class Column {
+		private final int id;
+		private Rollup[] rollups;
+		private int written;
+		private boolean defined;
+		private float[] values = new float[FLUSH_ROW_COUNT];
+		private int pending;
+
+		Column(int id, int written, boolean defined) {
+			this.id = id;
+			this.written = written;
+			this.defined = defined;
+		}
+
+		void add(float value) {
+			if (pending == values.length) {
+				values = Arrays.copyOf(values, values.length * 2);
+			}
+			values[pending++] = value;
+		}
+	}
+}
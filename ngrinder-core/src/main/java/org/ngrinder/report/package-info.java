@@ -0,0 +1,4 @@
+/**
+ * ngrinder report data store package.
+ */
+package org.ngrinder.report;
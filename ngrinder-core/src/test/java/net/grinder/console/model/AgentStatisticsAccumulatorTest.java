@@ -0,0 +1,55 @@
+package net.grinder.console.model;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class AgentStatisticsAccumulatorTest {
+
+	@Test
+	public void testAccumulate() {
+		AgentStatisticsAccumulator accumulator = new AgentStatisticsAccumulator();
+		accumulator.add("agent2", "agent2-0", 10, 0, 100, null, true);
+		accumulator.add("agent1", "agent1-0", 20, 1, 100, null, true);
+		accumulator.add("agent1", "agent1-1", 20, 1, 300, null, true);
+		accumulator.fireSample(0, 1000);
+
+		List<AgentStatisticsAccumulator.Sample> sample = accumulator.getLastSample();
+		assertThat(sample).hasSize(2);
+		assertThat(sample.get(0).getAgent()).isEqualTo("agent1");
+		assertThat(sample.get(0).getTps()).isEqualTo(40D);
+		assertThat(sample.get(0).getErrors()).isEqualTo(2);
+		assertThat(sample.get(0).getMeanTestTime()).isEqualTo(10D);
+
+		// Not counted in the cumulative statistics.
+		accumulator.add("agent1", "agent1-0", 40, 0, 0, null, false);
+		accumulator.fireSample(0, 1000);
+
+		List<AgentStatisticsAccumulator.Summary> summaries = accumulator.getSummaries(1000);
+		AgentStatisticsAccumulator.Summary agent1 = summaries.get(0);
+		assertThat(agent1.getRecentTps()).isEqualTo(40D);
+		assertThat(agent1.getTests()).isEqualTo(40);
+		assertThat(agent1.getProcesses()).hasSize(2);
+		assertThat(agent1.getProcesses().get("agent1-1")).isEqualTo(new long[]{20, 1});
+		assertThat(summaries.get(1).getRecentTps()).isEqualTo(5D);
+
+		accumulator.zero();
+		assertThat(accumulator.getLastSample()).isEmpty();
+		assertThat(accumulator.getSummaries(1000)).isEmpty();
+	}
+
+	@Test
+	public void testRecentSamples() {
+		AgentStatisticsAccumulator accumulator = new AgentStatisticsAccumulator();
+		accumulator.add("agent1", "agent1-0", 1000, 0, 0, null, true);
+		accumulator.fireSample(0, 1000);
+		for (int i = 0; i < AgentStatisticsAccumulator.RECENT_SAMPLES; i++) {
+			accumulator.add("agent1", "agent1-0", 10, 0, 0, null, true);
+			accumulator.fireSample(0, 1000);
+		}
+		// The first sample is out of the recent samples.
+		assertThat(accumulator.getSummaries(1000).get(0).getRecentTps()).isEqualTo(10D);
+	}
+}
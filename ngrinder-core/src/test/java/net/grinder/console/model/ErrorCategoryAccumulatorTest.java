@@ -0,0 +1,51 @@
+package net.grinder.console.model;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ErrorCategoryAccumulatorTest {
+
+	@Test
+	public void testAccumulate() {
+		ErrorCategoryAccumulator accumulator = new ErrorCategoryAccumulator();
+		accumulator.fireSample(0, 1000);
+		assertThat(accumulator.isReported()).isFalse();
+
+		Map<Integer, Map<String, Long>> errors = errors(1, "HTTP_5xx", 3);
+		accumulator.addInterval(errors);
+		accumulator.addCumulative(errors);
+		errors = errors(2, "HTTP_5xx", 2);
+		errors.put(1, new HashMap<String, Long>());
+		errors.get(1).put("Read_Timeout", 1L);
+		accumulator.addInterval(errors);
+		accumulator.addCumulative(errors);
+		accumulator.fireSample(0, 1000);
+
+		assertThat(accumulator.getLastSample().get(1).get("HTTP_5xx")).isEqualTo(3);
+		assertThat(accumulator.getLastSample().get(1).get("Read_Timeout")).isEqualTo(1);
+		Map<String, Long> total = ErrorCategoryAccumulator.sum(accumulator.getCumulative());
+		assertThat(total.get("HTTP_5xx")).isEqualTo(5);
+		assertThat(total.get("Read_Timeout")).isEqualTo(1);
+
+		// Ignored samples are not counted in the cumulative counts.
+		accumulator.addInterval(errors(1, "Assertion", 1));
+		accumulator.fireSample(0, 1000);
+		assertThat(accumulator.getLastSample()).hasSize(1);
+		assertThat(accumulator.getCumulative().get(1).containsKey("Assertion")).isFalse();
+
+		accumulator.zero();
+		assertThat(accumulator.isReported()).isFalse();
+		assertThat(accumulator.getCumulative()).isEmpty();
+	}
+
+	private Map<Integer, Map<String, Long>> errors(int testNumber, String category, long count) {
+		Map<Integer, Map<String, Long>> errors = new HashMap<Integer, Map<String, Long>>();
+		errors.put(testNumber, new HashMap<String, Long>());
+		errors.get(testNumber).put(category, count);
+		return errors;
+	}
+}
@@ -0,0 +1,60 @@
+package net.grinder.console.model;
+
+import net.grinder.console.model.GeneratorSaturationDetector.Reason;
+import net.grinder.console.model.GeneratorSaturationDetector.Saturation;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class GeneratorSaturationDetectorTest {
+
+	@Test
+	public void testSaturation() {
+		GeneratorSaturationDetector detector = new GeneratorSaturationDetector();
+		detector.fireSample(1000, 1000);
+		assertThat(detector.isReported()).isFalse();
+
+		// The CPU used by the processes of an agent is added up.
+		detector.add("agent1", "agent1-0", 0.5, 0.6, 0, 0, 500);
+		detector.add("agent1", "agent1-1", 0.45, 0.6, 0, 0, 500);
+		detector.add("agent2", "agent2-0", 0.1, 0.1, 0, 0, 500);
+		detector.fireSample(1000, 1000);
+		assertThat(detector.isReported()).isTrue();
+		// A single saturated sample doesn't raise it.
+		assertThat(detector.getSaturations()).isEmpty();
+
+		detector.add("agent1", "agent1-0", 0.1, 0.2, 120, 0, 500);
+		detector.add("agent1", "agent1-0", 0.1, 0.2, 0, 150, 500);
+		detector.add("agent2", "agent2-0", 0.1, 0.1, 20, 50, 1000);
+		detector.fireSample(2000, 1000);
+		List<Saturation> raised = detector.getLastRaised();
+		assertThat(raised).hasSize(1);
+		Saturation saturation = raised.get(0);
+		assertThat(saturation.getAgent()).isEqualTo("agent1");
+		assertThat(saturation.getStartTime()).isEqualTo(1000);
+		assertThat(saturation.isOngoing()).isTrue();
+		assertThat(saturation.getReasons()).containsOnly(Reason.CPU, Reason.GC, Reason.SCHEDULING_LAG);
+		assertThat(saturation.getPeakCpu()).isEqualTo(0.95);
+		assertThat(saturation.getPeakGcRatio()).isEqualTo(0.12);
+		assertThat(saturation.getPeakSchedulingLag()).isEqualTo(150);
+
+		// The agent which didn't report keeps its state.
+		detector.add("agent2", "agent2-0", 0.1, 0.1, 0, 0, 1000);
+		detector.fireSample(3000, 1000);
+		assertThat(detector.getLastRaised()).isEmpty();
+		assertThat(detector.getSaturations().get(0).isOngoing()).isTrue();
+
+		detector.add("agent1", "agent1-0", 0.1, 0.1, 0, 0, 1000);
+		detector.fireSample(4000, 1000);
+		assertThat(detector.getSaturations()).hasSize(1);
+		assertThat(detector.getSaturations().get(0).getEndTime()).isEqualTo(4000);
+		// Snapshots are not changed.
+		assertThat(saturation.isOngoing()).isTrue();
+
+		detector.zero();
+		assertThat(detector.isReported()).isFalse();
+		assertThat(detector.getSaturations()).isEmpty();
+	}
+}
@@ -0,0 +1,166 @@
+package net.grinder.console.model;
+
+import net.grinder.SingleConsole;
+import net.grinder.common.AbstractTestSemantics;
+import net.grinder.common.Test;
+import net.grinder.console.common.ErrorHandler;
+import net.grinder.messages.console.ReportDnsCacheMessage;
+import net.grinder.messages.console.ReportErrorsMessage;
+import net.grinder.statistics.StatisticsIndexMap;
+import net.grinder.statistics.StatisticsServices;
+import net.grinder.statistics.StatisticsServicesImplementation;
+import net.grinder.statistics.StatisticsSet;
+import net.grinder.statistics.TestStatisticsMap;
+import net.grinder.util.ConsolePropertiesFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class SampleModelImplementationExTest {
+	private static final int THREADS = 4;
+	private static final int ROUNDS = 200;
+
+	private final StatisticsServices statisticsServices = StatisticsServicesImplementation.getInstance();
+	private final Test test = new SimpleTest(1);
+
+	@org.junit.Test
+	public void testConcurrentFirstReports() throws Exception {
+		ConsoleProperties properties = ConsolePropertiesFactory.createEmptyConsoleProperties();
+		properties.setIgnoreSampleCount(0);
+		properties.setCollectSampleCount(0);
+		CapturingTimer timer = new CapturingTimer();
+		final SampleModelImplementationEx model = new SampleModelImplementationEx(properties, statisticsServices,
+			timer, SingleConsole.RESOURCE, mock(ErrorHandler.class));
+		model.registerTests(Collections.singleton(test));
+		StatisticsIndexMap.LongIndex errorsIndex = statisticsServices.getStatisticsIndexMap().getLongIndex("errors");
+		final TestStatisticsMap report = createReport(errorsIndex);
+		final AtomicInteger stateChanges = new AtomicInteger();
+		model.addModelListener(new SampleModel.AbstractListener() {
+			@Override
+			public void stateChanged() {
+				stateChanges.incrementAndGet();
+			}
+		});
+
+		for (int round = 0; round < ROUNDS; round++) {
+			model.start();
+			stateChanges.set(0);
+			// The first reports of a test arrive at the report threads at once.
+			final CyclicBarrier barrier = new CyclicBarrier(THREADS);
+			List<Thread> threads = new ArrayList<Thread>();
+			for (int i = 0; i < THREADS; i++) {
+				threads.add(new Thread(new Runnable() {
+					public void run() {
+						try {
+							barrier.await();
+						} catch (Exception e) {
+							throw new IllegalStateException(e);
+						}
+						model.addTestReport(report);
+					}
+				}));
+			}
+			for (Thread each : threads) {
+				each.start();
+			}
+			for (Thread each : threads) {
+				each.join();
+			}
+			// Only one of them starts capturing. Another one would zero the reports added so far.
+			assertThat(stateChanges.get()).isEqualTo(1);
+			timer.runAll();
+			assertThat(model.getState().isCapturing()).isTrue();
+			assertThat(model.getTotalCumulativeStatistics().getValue(errorsIndex)).isEqualTo(THREADS);
+		}
+		timer.cancel();
+	}
+
+	@org.junit.Test
+	public void testReportSinks() throws Exception {
+		ConsoleProperties properties = ConsolePropertiesFactory.createEmptyConsoleProperties();
+		properties.setIgnoreSampleCount(0);
+		properties.setCollectSampleCount(0);
+		CapturingTimer timer = new CapturingTimer();
+		SampleModelImplementationEx model = new SampleModelImplementationEx(properties, statisticsServices,
+			timer, SingleConsole.RESOURCE, mock(ErrorHandler.class));
+		model.registerTests(Collections.singleton(test));
+		model.start();
+
+		// Reports before the first statistics are ignored.
+		model.addReport(new ReportDnsCacheMessage(10, 10));
+		model.addTestReport(createReport(statisticsServices.getStatisticsIndexMap().getLongIndex("errors")));
+		model.addReport(new ReportDnsCacheMessage(2, 3));
+		Map<String, Long> categories = Collections.singletonMap("Assertion", 1L);
+		model.addReport(new ReportErrorsMessage(Collections.singletonMap(1, categories)));
+		timer.runAll();
+		assertThat(model.getDnsCacheAccumulator().getCumulative()).isEqualTo(new long[]{2, 3});
+
+		final List<String> lines = new ArrayList<String>();
+		model.writeReports(new ReportOutput() {
+			public void appendCsvLine(String fileName, String[] header, Object... values) {
+				lines.add(fileName + ":" + values[1] + ":" + values[2] + ":" + values[3]);
+			}
+
+			public Logger getLogger() {
+				return LoggerFactory.getLogger(SampleModelImplementationExTest.class);
+			}
+		}, false);
+		assertThat(lines).containsOnly(ErrorCategoryAccumulator.REPORT_CSV + ":1:Assertion:1");
+		timer.cancel();
+	}
+
+	private TestStatisticsMap createReport(StatisticsIndexMap.LongIndex errorsIndex) {
+		TestStatisticsMap report = new TestStatisticsMap(statisticsServices.getStatisticsSetFactory());
+		StatisticsSet statistics = statisticsServices.getStatisticsSetFactory().create();
+		statistics.addValue(errorsIndex, 1);
+		report.put(test, statistics);
+		return report;
+	}
+
+	/*
+	 * Timer which runs the sampling tasks only when it's asked to.
+	 */
+	private static class CapturingTimer extends Timer {
+		private final List<TimerTask> tasks = new ArrayList<TimerTask>();
+
+		@Override
+		public synchronized void schedule(TimerTask task, long delay) {
+			tasks.add(task);
+		}
+
+		synchronized void runAll() {
+			List<TimerTask> scheduled = new ArrayList<TimerTask>(tasks);
+			tasks.clear();
+			for (TimerTask each : scheduled) {
+				each.run();
+			}
+		}
+	}
+
+	private static class SimpleTest extends AbstractTestSemantics {
+		private final int number;
+
+		SimpleTest(int number) {
+			this.number = number;
+		}
+
+		public int getNumber() {
+			return number;
+		}
+
+		public String getDescription() {
+			return "test " + number;
+		}
+	}
+}
@@ -0,0 +1,48 @@
+package net.grinder.console.model;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class StatisticsSnapshotTest {
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testToMap() {
+		StatisticsSnapshot snapshot = new StatisticsSnapshot(new String[]{"TPS", "Errors"},
+			new String[]{"Late_Iterations"});
+		snapshot.begin(10);
+		for (int i = 0; i < 20; i++) {
+			int row = snapshot.addTest(i + 1, "test" + i);
+			snapshot.setCumulative(row, 0, i);
+			snapshot.setInterval(row, 1, i * 2);
+		}
+		snapshot.setTotal(0, 100);
+		snapshot.setCounter(0, 3);
+		snapshot.setRunningState(2, 20, true);
+
+		Map<String, Object> map = snapshot.toMap();
+		assertThat(snapshot.toMap()).isSameAs(map);
+		assertThat(map.get("testTime")).isEqualTo(10L);
+		assertThat(map.get("thread")).isEqualTo(20);
+		Map<String, Object> total = (Map<String, Object>) map.get("totalStatistics");
+		assertThat(total.get("TPS")).isEqualTo(100D);
+		assertThat(total.get("Late_Iterations")).isEqualTo(3L);
+		List<Map<String, Object>> cumulative = (List<Map<String, Object>>) map.get("cumulativeStatistics");
+		assertThat(cumulative).hasSize(20);
+		assertThat(cumulative.get(19).get("testNumber")).isEqualTo(20);
+		assertThat(cumulative.get(19).get("TPS")).isEqualTo(19D);
+		List<Map<String, Object>> interval = (List<Map<String, Object>>) map.get("lastSampleStatistics");
+		assertThat(interval.get(19).get("Errors")).isEqualTo(38D);
+
+		// The next sample clears the tests and the counters.
+		snapshot.begin(11);
+		snapshot.addTest(1, "test0");
+		map = snapshot.toMap();
+		assertThat((List<?>) map.get("cumulativeStatistics")).hasSize(1);
+		assertThat(((Map<String, Object>) map.get("totalStatistics")).containsKey("Late_Iterations")).isFalse();
+	}
+}
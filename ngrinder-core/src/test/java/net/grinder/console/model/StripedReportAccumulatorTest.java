@@ -0,0 +1,107 @@
+package net.grinder.console.model;
+
+import net.grinder.common.AbstractTestSemantics;
+import net.grinder.common.Test;
+import net.grinder.statistics.*;
+import org.junit.Before;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class StripedReportAccumulatorTest {
+	private static final int THREADS = 4;
+	private static final int REPORTS = 5000;
+
+	private final StatisticsServices statisticsServices = StatisticsServicesImplementation.getInstance();
+	private StatisticsIndexMap.LongIndex errorsIndex;
+	private SampleAccumulator testAccumulator;
+	private SampleAccumulatorEx totalAccumulator;
+	private final Test test = new SimpleTest(1);
+
+	@Before
+	public void before() {
+		StatisticsIndexMap indexMap = statisticsServices.getStatisticsIndexMap();
+		errorsIndex = indexMap.getLongIndex("errors");
+		PeakStatisticExpression peak = statisticsServices.getStatisticExpressionFactory()
+			.createPeak(indexMap.getDoubleIndex("peakTPS"), statisticsServices.getTPSExpression());
+		StatisticsIndexMap.LongIndex periodIndex = indexMap.getLongIndex("period");
+		testAccumulator = new SampleAccumulator(peak, periodIndex, statisticsServices.getStatisticsSetFactory());
+		totalAccumulator = new SampleAccumulatorEx(peak, periodIndex, statisticsServices.getStatisticsSetFactory());
+	}
+
+	@org.junit.Test
+	public void testNoReportIsLostWhileDraining() throws InterruptedException {
+		final StripedReportAccumulator accumulator = new StripedReportAccumulator(
+			statisticsServices.getStatisticsSetFactory(), THREADS);
+		final Map<Test, SampleAccumulator> accumulators = Collections.singletonMap(test, testAccumulator);
+		final TestStatisticsMap report = createReport(test);
+		final CountDownLatch finished = new CountDownLatch(THREADS);
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int i = 0; i < THREADS; i++) {
+			threads.add(new Thread(new Runnable() {
+				public void run() {
+					for (int j = 0; j < REPORTS; j++) {
+						accumulator.add(report, null, accumulators, true);
+					}
+					finished.countDown();
+				}
+			}));
+		}
+		for (Thread each : threads) {
+			each.start();
+		}
+		// Drain concurrently like the sampling does.
+		while (finished.getCount() > 0) {
+			accumulator.drainTo(accumulators, totalAccumulator, new LatencyHistogramAccumulator());
+		}
+		accumulator.drainTo(accumulators, totalAccumulator, new LatencyHistogramAccumulator());
+
+		assertThat(testAccumulator.getCumulativeStatistics().getValue(errorsIndex)).isEqualTo(THREADS * REPORTS);
+		assertThat(totalAccumulator.getCumulativeStatistics().getValue(errorsIndex)).isEqualTo(THREADS * REPORTS);
+	}
+
+	@org.junit.Test
+	public void testUnknownTestAndClear() {
+		StripedReportAccumulator accumulator = new StripedReportAccumulator(
+			statisticsServices.getStatisticsSetFactory(), 1);
+		Map<Test, SampleAccumulator> accumulators = Collections.singletonMap(test, testAccumulator);
+		Test unknown = new SimpleTest(2);
+
+		assertThat(accumulator.add(createReport(unknown), null, accumulators, true)).containsOnly(unknown);
+		assertThat(accumulator.add(createReport(test), null, accumulators, false)).isNull();
+		accumulator.clear();
+		accumulator.add(createReport(test), null, accumulators, true);
+		accumulator.drainTo(accumulators, totalAccumulator, new LatencyHistogramAccumulator());
+		assertThat(testAccumulator.getCumulativeStatistics().getValue(errorsIndex)).isEqualTo(1);
+	}
+
+	private TestStatisticsMap createReport(Test test) {
+		TestStatisticsMap report = new TestStatisticsMap(statisticsServices.getStatisticsSetFactory());
+		StatisticsSet statistics = statisticsServices.getStatisticsSetFactory().create();
+		statistics.addValue(errorsIndex, 1);
+		report.put(test, statistics);
+		return report;
+	}
+
+	private static class SimpleTest extends AbstractTestSemantics {
+		private final int number;
+
+		SimpleTest(int number) {
+			this.number = number;
+		}
+
+		public int getNumber() {
+			return number;
+		}
+
+		public String getDescription() {
+			return "test" + number;
+		}
+	}
+}
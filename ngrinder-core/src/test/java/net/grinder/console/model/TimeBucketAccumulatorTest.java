@@ -0,0 +1,51 @@
+package net.grinder.console.model;
+
+import org.junit.Test;
+import org.ngrinder.statistics.TimeBuckets;
+
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class TimeBucketAccumulatorTest {
+
+	@Test
+	public void testCloseBuckets() {
+		TimeBucketAccumulator accumulator = new TimeBucketAccumulator();
+		accumulator.add(buckets(0, 300));
+		accumulator.add(buckets(0, 2_300));
+		accumulator.add(buckets(300));
+
+		accumulator.fireSample(0, 1000);
+		List<TimeBucketAccumulator.Bucket> closed = accumulator.getLastSample();
+		// Buckets before 2,300 - CLOSE_DELAY are closed.
+		assertThat(closed).hasSize(1);
+		assertThat(closed.get(0).getStartTime()).isEqualTo(0);
+		assertThat(closed.get(0).getTests()).isEqualTo(2);
+		assertThat(closed.get(0).getTestTime()).isEqualTo(20);
+
+		// The bucket at 0 is already closed.
+		accumulator.add(buckets(0));
+		assertThat(accumulator.getLateTests()).isEqualTo(1);
+
+		// The empty buckets in between are filled.
+		closed = accumulator.closeAll();
+		assertThat(closed).hasSize(23);
+		assertThat(closed.get(0).getStartTime()).isEqualTo(100);
+		assertThat(closed.get(0).getTests()).isEqualTo(0);
+		assertThat(closed.get(2).getStartTime()).isEqualTo(300);
+		assertThat(closed.get(2).getTests()).isEqualTo(2);
+		assertThat(closed.get(22).getStartTime()).isEqualTo(2_300);
+		assertThat(accumulator.getLastSample()).isEmpty();
+	}
+
+	private TimeBuckets buckets(long... startTimes) {
+		long[] ones = new long[startTimes.length];
+		long[] tens = new long[startTimes.length];
+		for (int i = 0; i < startTimes.length; i++) {
+			ones[i] = 1;
+			tens[i] = 10;
+		}
+		return new TimeBuckets(100, startTimes, ones, new long[startTimes.length], tens, tens);
+	}
+}
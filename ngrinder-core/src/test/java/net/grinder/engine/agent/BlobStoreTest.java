@@ -0,0 +1,77 @@
+package net.grinder.engine.agent;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static net.grinder.util.FileUtils.getMd5;
+import static org.fest.assertions.Assertions.assertThat;
+
+public class BlobStoreTest {
+	private File base;
+	private BlobStore blobStore;
+
+	@Before
+	public void before() throws IOException {
+		base = Files.createTempDirectory("blob_store").toFile();
+		blobStore = new BlobStore(new File(base, "blobs"), 10, LoggerFactory.getLogger(BlobStoreTest.class));
+	}
+
+	@After
+	public void after() {
+		FileUtils.deleteQuietly(base);
+	}
+
+	@Test
+	public void testAddAndLink() throws IOException {
+		File file = new File(base, "incoming/lib/a.jar");
+		FileUtils.writeStringToFile(file, "hello", UTF_8.name());
+		String md5 = getMd5(file);
+		blobStore.add(file);
+		assertThat(blobStore.getMd5s()).containsOnly(md5);
+
+		File moved = new File(base, "incoming/lib/b.jar");
+		assertThat(blobStore.link(md5, moved)).isTrue();
+		assertThat(FileUtils.readFileToString(moved, UTF_8.name())).isEqualTo("hello");
+		assertThat(blobStore.link("00000000000000000000000000000000", new File(base, "none"))).isFalse();
+
+		// The blob modified in place is discarded.
+		FileUtils.writeStringToFile(file, "world", UTF_8.name());
+		assertThat(blobStore.link(md5, new File(base, "incoming/lib/c.jar"))).isFalse();
+		assertThat(blobStore.getMd5s()).isEmpty();
+	}
+
+	@Test
+	public void testModifiedBlobIsNotReported() throws IOException {
+		File file = new File(base, "incoming/a.txt");
+		FileUtils.writeStringToFile(file, "hello", UTF_8.name());
+		blobStore.add(file);
+		assertThat(blobStore.getMd5s()).containsOnly(getMd5(file));
+
+		// A test wrote into the file linked from the blob.
+		FileUtils.writeStringToFile(file, "world", UTF_8.name());
+		assertThat(file.setLastModified(file.lastModified() + 1000)).isTrue();
+		assertThat(blobStore.getMd5s()).isEmpty();
+	}
+
+	@Test
+	public void testCollectGarbage() throws IOException {
+		File used = new File(base, "incoming/used.txt");
+		FileUtils.writeStringToFile(used, "0123456789", UTF_8.name());
+		blobStore.add(used);
+		File unused = new File(base, "incoming/unused.txt");
+		FileUtils.writeStringToFile(unused, "9876543210", UTF_8.name());
+		blobStore.add(unused);
+		FileUtils.deleteQuietly(unused);
+
+		blobStore.collectGarbage();
+		assertThat(blobStore.getMd5s()).containsOnly(getMd5(used));
+	}
+}
@@ -0,0 +1,104 @@
+package net.grinder.engine.agent;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ClassDataSharingArchiveTest {
+	private File directory;
+	private ClassDataSharingArchive archive;
+
+	@Before
+	public void before() {
+		directory = new File(FileUtils.getTempDirectory(), "cds-test-" + System.nanoTime());
+		archive = new ClassDataSharingArchive(directory, LoggerFactory.getLogger(ClassDataSharingArchiveTest.class));
+	}
+
+	@After
+	public void after() {
+		FileUtils.deleteQuietly(directory);
+	}
+
+	@Test
+	public void testWithoutClassPath() {
+		assertThat(archive.getArchive(Collections.singletonList("java"), directory)).isNull();
+		assertThat(directory.exists()).isFalse();
+	}
+
+	@Test
+	public void testDumpOnce() throws Exception {
+		List<String> command = getCommand();
+		File working = FileUtils.getTempDirectory();
+		assertThat(archive.getArchive(command, working)).isNull();
+
+		// The archive is dumped in the background, or the JVM is remembered as the unsupported one.
+		waitForDump();
+		File[] archives = listFiles(".jsa");
+		if (archives.length == 0) {
+			assertThat(listFiles(".unsupported")).hasSize(1);
+			assertThat(archive.getArchive(command, working)).isNull();
+			assertThat(listFiles(".dumping")).isEmpty();
+		} else {
+			assertThat(archive.getArchive(command, working)).isEqualTo(archives[0]);
+		}
+	}
+
+	@Test
+	public void testRetryAfterFailure() throws Exception {
+		List<String> command = getCommand();
+		File archiveFile = archive.getArchiveFile(command.get(0), System.getProperty("java.class.path"));
+		File log = new File(directory, "failure.log");
+		FileUtils.writeStringToFile(log, "No space left on device", "UTF-8");
+		archive.finishDump(1, new File(directory, "none.tmp"), archiveFile, log);
+		assertThat(listFiles(".unsupported")).isEmpty();
+		File[] failed = listFiles(".failed");
+		assertThat(failed).hasSize(1);
+
+		// Not dumped again for a while.
+		File working = FileUtils.getTempDirectory();
+		assertThat(archive.getArchive(command, working)).isNull();
+		assertThat(listFiles(".dumping")).isEmpty();
+
+		assertThat(failed[0].setLastModified(System.currentTimeMillis() - ClassDataSharingArchive.RETRY_INTERVAL))
+			.isTrue();
+		assertThat(archive.getArchive(command, working)).isNull();
+		waitForDump();
+		assertThat(listFiles(".jsa").length + listFiles(".unsupported").length).isEqualTo(1);
+	}
+
+	private List<String> getCommand() {
+		return Arrays.asList(new File(System.getProperty("java.home"), "bin/java").getPath(),
+			"-classpath", System.getProperty("java.class.path"), "net.grinder.engine.process.WorkerProcessEntryPoint");
+	}
+
+	private void waitForDump() throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 120000;
+		while (listFiles(".dumping").length > 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(100);
+		}
+		assertThat(listFiles(".dumping")).isEmpty();
+	}
+
+	private File[] listFiles(String extension) {
+		File[] files = directory.listFiles();
+		if (files == null) {
+			return new File[0];
+		}
+		int count = 0;
+		for (File each : files) {
+			if (each.getName().endsWith(extension)) {
+				files[count++] = each;
+			}
+		}
+		return Arrays.copyOf(files, count);
+	}
+}
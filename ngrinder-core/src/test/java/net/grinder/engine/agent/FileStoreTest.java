@@ -0,0 +1,53 @@
+package net.grinder.engine.agent;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static net.grinder.util.FileUtils.getFileDigest;
+import static org.fest.assertions.Assertions.assertThat;
+
+public class FileStoreTest {
+	private File base;
+
+	@Before
+	public void before() throws IOException {
+		base = Files.createTempDirectory("file_store").toFile();
+	}
+
+	@After
+	public void after() {
+		FileUtils.deleteQuietly(base);
+	}
+
+	@Test
+	public void testCopyWithoutBlobStore() throws Exception {
+		FileStore fileStore = new FileStore(base, 0, LoggerFactory.getLogger(FileStoreTest.class));
+		File incoming = new File(fileStore.getIncomingDirectory().getFile(), "lib/a.txt");
+		FileUtils.writeStringToFile(incoming, "hello", UTF_8.name());
+
+		File current = fileStore.getDirectory().getFile(new File("lib/a.txt"));
+		FileUtils.writeStringToFile(current, "world", UTF_8.name());
+		assertThat(FileUtils.readFileToString(incoming, UTF_8.name())).isEqualTo("hello");
+	}
+
+	@Test
+	public void testModifiedFileIsNotReportedAsCached() throws Exception {
+		FileStore fileStore = new FileStore(base, 1024, LoggerFactory.getLogger(FileStoreTest.class));
+		File incoming = new File(fileStore.getIncomingDirectory().getFile(), "a.txt");
+		FileUtils.writeStringToFile(incoming, "hello", UTF_8.name());
+		String digest = getFileDigest(fileStore.getIncomingDirectory().getFile(), incoming);
+		assertThat(fileStore.getCachedFilesDigest()).contains(digest);
+
+		File current = fileStore.getDirectory().getFile(new File("a.txt"));
+		FileUtils.writeStringToFile(current, "world", UTF_8.name());
+		assertThat(fileStore.getCachedFilesDigest()).excludes(digest);
+	}
+}
@@ -0,0 +1,147 @@
+package net.grinder.engine.agent;
+
+import net.grinder.common.AbstractTestSemantics;
+import net.grinder.common.Test;
+import net.grinder.communication.*;
+import net.grinder.common.processidentity.WorkerIdentity;
+import net.grinder.messages.agent.ReportsForwardedMessage;
+import net.grinder.messages.console.*;
+import net.grinder.statistics.StatisticsIndexMap;
+import net.grinder.statistics.StatisticsServices;
+import net.grinder.statistics.StatisticsServicesImplementation;
+import net.grinder.statistics.StatisticsSet;
+import net.grinder.statistics.TestStatisticsMap;
+import org.ngrinder.statistics.LatencyHistograms;
+import org.slf4j.LoggerFactory;
+
+import java.io.Serializable;
+import java.util.*;
+
+import static java.util.Collections.singletonList;
+import static org.fest.assertions.Assertions.assertThat;
+
+public class StatisticsAggregatorTest {
+	private final StatisticsServices statisticsServices = StatisticsServicesImplementation.getInstance();
+	private final StatisticsIndexMap.LongIndex errorsIndex =
+		statisticsServices.getStatisticsIndexMap().getLongIndex("errors");
+	private final List<Message> forwarded = Collections.synchronizedList(new ArrayList<Message>());
+
+	@org.junit.Test
+	public void testAggregate() throws CommunicationException, InterruptedException {
+		StatisticsAggregator aggregator = new StatisticsAggregator(new Sender() {
+			@Override
+			public void send(Message message) {
+				forwarded.add(message);
+			}
+
+			@Override
+			public void shutdown() {
+			}
+		}, LoggerFactory.getLogger(StatisticsAggregatorTest.class));
+		Timer timer = new Timer(true);
+		aggregator.start(timer, 60000);
+
+		AgentIdentityImplementation agentIdentity = new AgentIdentityImplementation("agent");
+		Test test = new SimpleTest(1);
+		List<ClientSender> workers = new ArrayList<ClientSender>();
+		for (int i = 0; i < 2; i++) {
+			WorkerIdentity workerIdentity = agentIdentity.createWorkerIdentity();
+			ClientSender worker = ClientSender.connect(new Connector("127.0.0.1", aggregator.getPort(),
+				ConnectionType.WORKER), new WorkerAddress(workerIdentity));
+			worker.send(new ReportProcessStatisticsMessage(singletonList(test), createReport(test),
+				createHistograms(test), createReports(test), false));
+			ReportProcessStatisticsMessage finalReport = new ReportProcessStatisticsMessage(null, createReport(test),
+				createHistograms(test), createReports(test), true);
+			finalReport.setWorkerIdentity(workerIdentity);
+			// Answered once all reports of the process are forwarded.
+			assertThat(worker.blockingSend(finalReport)).isInstanceOf(ReportsForwardedMessage.class);
+			assertThat(countGeneratorLoads(workerIdentity)).isEqualTo(2);
+			workers.add(worker);
+		}
+		aggregator.shutdown();
+		for (ClientSender worker : workers) {
+			worker.shutdown();
+		}
+		timer.cancel();
+
+		int registrations = 0;
+		long errors = 0;
+		long testTimes = 0;
+		long categorizedErrors = 0;
+		for (Message each : forwarded) {
+			if (each instanceof RegisterTestsMessage) {
+				registrations++;
+			} else if (each instanceof ReportTestStatisticsMessage) {
+				ReportTestStatisticsMessage report = (ReportTestStatisticsMessage) each;
+				errors += report.getStatisticsDelta().nonCompositeStatisticsTotals().getValue(errorsIndex);
+				// The histograms are forwarded with the statistics.
+				testTimes += report.getHistograms().getTotal().getTotalCount();
+			} else if (each instanceof ReportErrorsMessage) {
+				categorizedErrors += ((ReportErrorsMessage) each).getErrors().get(test.getNumber()).get("timeout");
+			}
+		}
+		assertThat(registrations).isEqualTo(1);
+		assertThat(errors).isEqualTo(4);
+		assertThat(testTimes).isEqualTo(4);
+		assertThat(categorizedErrors).isEqualTo(4);
+		// The tests are registered before their statistics are forwarded.
+		assertThat(forwarded.get(0)).isInstanceOf(RegisterTestsMessage.class);
+
+		Map<String, StatisticsSet> processStatistics = aggregator.getProcessStatistics();
+		assertThat(processStatistics).hasSize(2);
+		for (StatisticsSet each : processStatistics.values()) {
+			assertThat(each.getValue(errorsIndex)).isEqualTo(2);
+		}
+	}
+
+	private TestStatisticsMap createReport(Test test) {
+		TestStatisticsMap report = new TestStatisticsMap(statisticsServices.getStatisticsSetFactory());
+		StatisticsSet statistics = statisticsServices.getStatisticsSetFactory().create();
+		statistics.addValue(errorsIndex, 1);
+		report.put(test, statistics);
+		return report;
+	}
+
+	private List<AbstractReportMessage> createReports(Test test) {
+		List<AbstractReportMessage> reports = new ArrayList<AbstractReportMessage>();
+		reports.add(new ReportErrorsMessage(Collections.singletonMap(test.getNumber(),
+			Collections.singletonMap("timeout", 1L))));
+		reports.add(new ReportGeneratorLoadMessage(0.5, 0.5, 0, 0, 1000));
+		return reports;
+	}
+
+	private int countGeneratorLoads(WorkerIdentity workerIdentity) {
+		int count = 0;
+		synchronized (forwarded) {
+			for (Message each : forwarded) {
+				if (each instanceof ReportGeneratorLoadMessage
+					&& workerIdentity.equals(((ReportGeneratorLoadMessage) each).getWorkerIdentity())) {
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	private LatencyHistograms createHistograms(Test test) {
+		LatencyHistograms histograms = new LatencyHistograms();
+		histograms.record(test.getNumber(), 10, false, null);
+		return histograms;
+	}
+
+	private static class SimpleTest extends AbstractTestSemantics implements Serializable {
+		private final int number;
+
+		SimpleTest(int number) {
+			this.number = number;
+		}
+
+		public int getNumber() {
+			return number;
+		}
+
+		public String getDescription() {
+			return "test" + number;
+		}
+	}
+}
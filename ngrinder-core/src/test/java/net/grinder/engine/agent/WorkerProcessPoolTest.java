@@ -0,0 +1,88 @@
+package net.grinder.engine.agent;
+
+import net.grinder.util.Directory;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class WorkerProcessPoolTest {
+
+	@Test
+	public void testTakeMatchingProcess() throws Exception {
+		WorkerProcessPool pool = new WorkerProcessPool(3, LoggerFactory.getLogger(WorkerProcessPoolTest.class));
+		AgentIdentityImplementation agentIdentity = new AgentIdentityImplementation("agent");
+		CommandLine echo = commandLine("first");
+		CommandLine other = commandLine("second");
+		try {
+			pool.fill(echo, 2);
+			assertThat(pool.getIdleCount()).isEqualTo(2);
+			assertThat(pool.take(agentIdentity.createWorkerIdentity(), other, System.out, System.err)).isNull();
+
+			ByteArrayOutputStream output = new ByteArrayOutputStream();
+			Worker worker = pool.take(agentIdentity.createWorkerIdentity(), echo, output, System.err);
+			assertThat(worker).isNotNull();
+			assertThat(pool.getIdleCount()).isEqualTo(1);
+			OutputStream communication = worker.getCommunicationStream();
+			communication.write("hello".getBytes());
+			communication.close();
+			assertThat(worker.waitFor()).isEqualTo(0);
+			assertThat(output.toString()).isEqualTo("first:hello");
+
+			// The processes of the other settings are replaced.
+			pool.fill(other, 10);
+			assertThat(pool.getIdleCount()).isEqualTo(3);
+			assertThat(pool.take(agentIdentity.createWorkerIdentity(), echo, System.out, System.err)).isNull();
+		} finally {
+			pool.shutdown();
+		}
+		assertThat(pool.getIdleCount()).isEqualTo(0);
+	}
+
+	@Test
+	public void testDisabled() throws Exception {
+		WorkerProcessPool pool = new WorkerProcessPool(0, LoggerFactory.getLogger(WorkerProcessPoolTest.class));
+		assertThat(pool.isEnabled()).isFalse();
+		pool.fill(commandLine("first"), 2);
+		assertThat(pool.getIdleCount()).isEqualTo(0);
+	}
+
+	private CommandLine commandLine(String prefix) throws Directory.DirectoryException {
+		final List<String> command = Arrays.asList(
+			new File(System.getProperty("java.home"), "bin/java").getPath(),
+			"-classpath", System.getProperty("java.class.path"), Echo.class.getName(), prefix);
+		final Directory directory = new Directory(new File("."));
+		return new CommandLine() {
+			@Override
+			public List<String> getCommandList() {
+				return command;
+			}
+
+			@Override
+			public Directory getWorkingDirectory() {
+				return directory;
+			}
+		};
+	}
+
+	/**
+	 * Stands for a worker process, which waits for the agent on the standard input.
+	 */
+	public static class Echo {
+		public static void main(String[] args) throws IOException {
+			System.out.print(args[0] + ":");
+			int read;
+			while ((read = System.in.read()) >= 0) {
+				System.out.write(read);
+			}
+			System.out.flush();
+		}
+	}
+}
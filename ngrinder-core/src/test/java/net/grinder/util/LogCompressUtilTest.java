@@ -16,9 +16,12 @@ package net.grinder.util;
 import org.apache.commons.io.FileUtils;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.util.Arrays;
 
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
@@ -38,4 +41,41 @@ public class LogCompressUtilTest {
 		assertThat(unzippedContent, is(FileUtils.readFileToByteArray(file)));
 	}
 
+	@Test
+	public void testCompressStreamAndDecompressTail() throws IOException {
+		File first = File.createTempFile("first", ".log");
+		first.deleteOnExit();
+		FileUtils.writeStringToFile(first, "0123456789", "UTF-8");
+		File second = File.createTempFile("second", ".log");
+		second.deleteOnExit();
+		FileUtils.writeStringToFile(second, "abcdefghij", "UTF-8");
+
+		ByteArrayOutputStream zipped = new ByteArrayOutputStream();
+		LogCompressUtils.compress(new File[]{first, second}, zipped, 4);
+		ByteArrayOutputStream unzipped = new ByteArrayOutputStream();
+		LogCompressUtils.decompress(new ByteArrayInputStream(zipped.toByteArray()), unzipped, Long.MAX_VALUE);
+		String separator = System.getProperty("line.separator");
+		String expected = "... 6 bytes are truncated ..." + separator + "6789"
+				+ "... 6 bytes are truncated ..." + separator + "ghij";
+		assertThat(unzipped.toString("UTF-8"), is(expected));
+
+		// Only the last part is kept even if the archive is truncated.
+		byte[] truncated = Arrays.copyOf(zipped.toByteArray(), zipped.size() - 10);
+		unzipped = new ByteArrayOutputStream();
+		LogCompressUtils.decompressTail(new ByteArrayInputStream(truncated), unzipped, 6);
+		assertThat(unzipped.toString("UTF-8"), is(expected.substring(expected.length() - 6)));
+		unzipped = new ByteArrayOutputStream();
+		LogCompressUtils.decompressTail(new ByteArrayInputStream(zipped.toByteArray()), unzipped, 1000);
+		assertThat(unzipped.toString("UTF-8"), is(expected));
+		// The huge limit is reduced not to allocate it at once.
+		unzipped = new ByteArrayOutputStream();
+		LogCompressUtils.decompressTail(new ByteArrayInputStream(zipped.toByteArray()), unzipped, Integer.MAX_VALUE);
+		assertThat(unzipped.toString("UTF-8"), is(expected));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testDecompressTailWithInvalidLimit() {
+		LogCompressUtils.decompressTail(new ByteArrayInputStream(new byte[0]), new ByteArrayOutputStream(), 0);
+	}
+
 }
@@ -0,0 +1,73 @@
+package org.ngrinder.report;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.ngrinder.report.ReportDataFormat.REPORT_DATA_FILE;
+
+public class AsyncReportWriterTest {
+	private File directory;
+	private File reportDataFile;
+	private File csvFile;
+
+	@Before
+	public void before() throws IOException {
+		directory = Files.createTempDirectory("async_report_writer").toFile();
+		reportDataFile = new File(directory, REPORT_DATA_FILE);
+		csvFile = new File(directory, "output.csv");
+	}
+
+	@After
+	public void after() {
+		FileUtils.deleteQuietly(directory);
+	}
+
+	@Test
+	public void testDrain() throws IOException {
+		AsyncReportWriter writer = new AsyncReportWriter(reportDataFile, csvFile);
+		try {
+			File otherCsvFile = new File(directory, "other.csv");
+			for (int i = 0; i < 100; i++) {
+				writer.appendReportData("TPS", (double) i);
+				writer.appendCsvLine("line" + i);
+			}
+			writer.appendCsvLine(otherCsvFile, "other");
+			writer.drain();
+
+			assertThat(FileUtils.readLines(csvFile, "UTF-8")).hasSize(100);
+			assertThat(FileUtils.readLines(otherCsvFile, "UTF-8")).containsExactly("other");
+			try (ReportDataReader reader = new ReportDataReader(reportDataFile)) {
+				assertThat(reader.getRowCount("TPS")).isEqualTo(100);
+			}
+			assertThat(writer.getStatistics().getWrittenRecords()).isEqualTo(201);
+		} finally {
+			writer.close();
+		}
+	}
+
+	@Test
+	public void testBackpressure() throws IOException {
+		AsyncReportWriter writer = new AsyncReportWriter(reportDataFile, csvFile, 2);
+		for (int i = 0; i < 1000; i++) {
+			writer.appendReportData("TPS", i % 2 == 0 ? null : (double) i);
+		}
+		writer.close();
+
+		AsyncReportWriter.Statistics statistics = writer.getStatistics();
+		assertThat(statistics.getWrittenRecords()).isEqualTo(1000);
+		assertThat(statistics.getMaxQueueSize()).isLessThanOrEqualTo(2);
+		assertThat(statistics.getQueueSize()).isEqualTo(0);
+		try (ReportDataReader reader = new ReportDataReader(reportDataFile)) {
+			assertThat(reader.read("TPS", 1)).hasSize(1000);
+			assertThat(reader.read("TPS", 1).get(999)).isEqualTo(999f);
+		}
+		assertThat(csvFile.exists()).isFalse();
+	}
+}
@@ -0,0 +1,168 @@
+package org.ngrinder.report;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ReportDataStoreTest {
+	private File file;
+
+	@Before
+	public void before() throws IOException {
+		file = File.createTempFile("report_data", ".bin");
+		file.delete();
+	}
+
+	@After
+	public void after() {
+		file.delete();
+	}
+
+	@Test
+	public void testWriteAndRead() throws IOException {
+		try (ReportDataWriter writer = new ReportDataWriter(file)) {
+			for (int i = 0; i < 150; i++) {
+				writer.append("TPS", (double) i);
+				writer.append("TPS-1_Test1", i % 2 == 0 ? null : (double) i);
+			}
+			writer.append("Vuser", 10);
+		}
+
+		try (ReportDataReader reader = new ReportDataReader(file)) {
+			assertThat(reader.getColumnNames()).containsOnly("TPS", "TPS-1_Test1", "Vuser");
+			assertThat(reader.getColumnNames("TPS")).containsExactly("TPS", "TPS-1_Test1");
+			assertThat(reader.getRowCount("TPS")).isEqualTo(150);
+
+			List<Float> all = reader.read("TPS", 1);
+			assertThat(all).hasSize(150);
+			assertThat(all.get(149)).isEqualTo(149f);
+
+			List<Float> sampled = reader.read("TPS", 7);
+			assertThat(sampled).hasSize(22);
+			assertThat(sampled.get(9)).isEqualTo(63f);
+
+			List<Float> perTest = reader.read("TPS-1_Test1", 1);
+			assertThat(perTest.get(0)).isNull();
+			assertThat(perTest.get(1)).isEqualTo(1f);
+			assertThat(reader.read("Errors", 1)).isEmpty();
+		}
+	}
+
+	@Test
+	public void testAppendAfterPartialWrite() throws IOException {
+		try (ReportDataWriter writer = new ReportDataWriter(file)) {
+			writer.append("TPS", 1);
+			writer.append("TPS", 2);
+		}
+		// Simulate the crash in the middle of writing a chunk.
+		try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+			randomAccessFile.seek(randomAccessFile.length());
+			randomAccessFile.writeByte('D');
+			randomAccessFile.writeInt(0);
+		}
+		try (ReportDataWriter writer = new ReportDataWriter(file)) {
+			writer.append("TPS", 3);
+			writer.append("Errors", 0);
+		}
+
+		try (ReportDataReader reader = new ReportDataReader(file)) {
+			assertThat(reader.read("TPS", 1)).containsExactly(1f, 2f, 3f);
+			assertThat(reader.read("Errors", 1)).containsExactly(0f);
+		}
+	}
+
+	@Test
+	public void testDownsamplingWithRollups() throws IOException {
+		try (ReportDataWriter writer = new ReportDataWriter(file)) {
+			for (int i = 0; i < 1050; i++) {
+				writer.append("TPS", i % 100 == 50 ? 1000 : i % 10);
+			}
+		}
+		// Reopen in the middle of the rollup level.
+		try (ReportDataWriter writer = new ReportDataWriter(file)) {
+			for (int i = 1050; i < 2000; i++) {
+				writer.append("TPS", i % 100 == 50 ? 1000 : i % 10);
+			}
+		}
+
+		try (ReportDataReader reader = new ReportDataReader(file)) {
+			assertThat(reader.getColumnNames()).containsOnly("TPS");
+			assertThat(reader.getRowCount("TPS")).isEqualTo(2000);
+			assertThat(ReportDataReader.alignInterval(137)).isEqualTo(100);
+			assertThat(ReportDataReader.alignInterval(7)).isEqualTo(7);
+
+			List<Float> max = reader.read("TPS", 100, Downsampling.MAX);
+			assertThat(max).hasSize(20);
+			for (Float each : max) {
+				assertThat(each).isEqualTo(1000f);
+			}
+			List<Float> min = reader.read("TPS", 200, Downsampling.MIN);
+			assertThat(min).hasSize(10);
+			assertThat(min.get(9)).isEqualTo(0f);
+			List<Float> average = reader.read("TPS", 1000, Downsampling.AVERAGE);
+			assertThat(average).hasSize(2);
+			assertThat(average.get(1)).isEqualTo(14.5f);
+			// The spikes which sampling misses are kept by lttb.
+			assertThat(reader.read("TPS", 100, Downsampling.SAMPLE)).excludes(1000f);
+			assertThat(reader.read("TPS", 100, Downsampling.LTTB)).hasSize(20).contains(1000f);
+		}
+	}
+
+	@Test
+	public void testDownsamplingNotRolledUpRows() throws IOException {
+		try (ReportDataWriter writer = new ReportDataWriter(file)) {
+			for (int i = 0; i < 25; i++) {
+				writer.append("TPS", i);
+			}
+		}
+
+		try (ReportDataReader reader = new ReportDataReader(file)) {
+			assertThat(reader.read("TPS", 10, Downsampling.MAX)).containsExactly(9f, 19f, 24f);
+			assertThat(reader.read("TPS", 10, Downsampling.MIN)).containsExactly(0f, 10f, 20f);
+			assertThat(reader.read("TPS", 20, Downsampling.AVERAGE)).containsExactly(9.5f, 22f);
+		}
+	}
+
+	@Test
+	public void testReadAfterAppendAndReplace() throws IOException {
+		try (ReportDataWriter writer = new ReportDataWriter(file)) {
+			for (int i = 0; i < 150; i++) {
+				writer.append("TPS", i);
+			}
+		}
+		try (ReportDataReader reader = new ReportDataReader(file)) {
+			assertThat(reader.getRowCount("TPS")).isEqualTo(150);
+		}
+		// The cached index is extended by the appended blocks.
+		try (ReportDataWriter writer = new ReportDataWriter(file)) {
+			for (int i = 150; i < 200; i++) {
+				writer.append("TPS", i);
+				writer.append("Errors", 1);
+			}
+		}
+		try (ReportDataReader reader = new ReportDataReader(file)) {
+			assertThat(reader.getRowCount("TPS")).isEqualTo(200);
+			assertThat(reader.read("TPS", 1).get(199)).isEqualTo(199f);
+			assertThat(reader.getRowCount("Errors")).isEqualTo(50);
+		}
+
+		// Another file at the same path is indexed again.
+		file.delete();
+		try (ReportDataWriter writer = new ReportDataWriter(file)) {
+			for (int i = 0; i < 250; i++) {
+				writer.append("Vuser", 10);
+			}
+		}
+		try (ReportDataReader reader = new ReportDataReader(file)) {
+			assertThat(reader.getColumnNames()).containsOnly("Vuser");
+			assertThat(reader.getRowCount("Vuser")).isEqualTo(250);
+		}
+	}
+}
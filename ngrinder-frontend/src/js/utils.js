@@ -19,6 +19,35 @@ class Utils {
         }
         throw new TypeError('Arguments are not string');
     }
+
+    // Set the value at the given JSON pointer. Missing containers on the way are created.
+    setByJsonPointer(target, pointer, value) {
+        const keys = this.parseJsonPointer(pointer);
+        let parent = target;
+        for (let i = 0; i < keys.length - 1; i++) {
+            if (parent[keys[i]] === undefined || parent[keys[i]] === null) {
+                parent[keys[i]] = /^\d+$/.test(keys[i + 1]) ? [] : {};
+            }
+            parent = parent[keys[i]];
+        }
+        parent[keys[keys.length - 1]] = value;
+    }
+
+    removeByJsonPointer(target, pointer) {
+        const keys = this.parseJsonPointer(pointer);
+        let parent = target;
+        for (let i = 0; i < keys.length - 1; i++) {
+            parent = parent[keys[i]];
+            if (parent === undefined || parent === null) {
+                return;
+            }
+        }
+        delete parent[keys[keys.length - 1]];
+    }
+
+    parseJsonPointer(pointer) {
+        return pointer.split('/').slice(1).map(key => key.replace(/~1/g, '/').replace(/~0/g, '~'));
+    }
 }
 
 export default new Utils();
@@ -18,7 +18,11 @@ import static net.grinder.util.NoOp.noOp;
 import net.grinder.engine.process.NullStatement;
 import net.grinder.script.Grinder;
 import net.grinder.scriptengine.groovy.GroovyScriptEngine.GroovyScriptExecutionException;
+import net.grinder.scriptengine.groovy.junit.ArrivalRateScheduler;
+import net.grinder.scriptengine.groovy.junit.ArrivalRateStatement;
 import net.grinder.scriptengine.groovy.junit.GrinderRunner;
+import net.grinder.scriptengine.groovy.junit.Pacer;
+import net.grinder.scriptengine.groovy.junit.PacingStatement;
 
 import org.junit.runner.Description;
 import org.junit.runner.notification.RunNotifier;
@@ -36,6 +40,9 @@ import org.junit.runners.model.Statement;
  * @since 3.2
  */
 public class GrinderContextExecutor extends GrinderRunner {
+	private ArrivalRateScheduler arrivalRateScheduler;
+	private Pacer pacer;
+
 	/**
 	 * Constructor.
 	 *
@@ -140,7 +147,32 @@ public class GrinderContextExecutor extends GrinderRunner {
 	 */
 	@Override
 	protected Statement classBlock(RunNotifier notifier) {
-		return childrenInvoker(notifier);
+		Statement statement = childrenInvoker(notifier);
+		if (arrivalRateScheduler != null) {
+			return new ArrivalRateStatement(statement, arrivalRateScheduler);
+		}
+		return pacer == null ? statement : new PacingStatement(statement, pacer);
+	}
+
+	/**
+	 * Set the scheduler which decides when each run starts.
+	 *
+	 * @param arrivalRateScheduler scheduler shared in the process. null to start the runs one after another.
+	 * @since 3.5.3
+	 */
+	public void setArrivalRateScheduler(ArrivalRateScheduler arrivalRateScheduler) {
+		this.arrivalRateScheduler = arrivalRateScheduler;
+	}
+
+	/**
+	 * Set the pacer which decides when each run of this thread starts. It's ignored if the
+	 * arrival rate scheduler is set.
+	 *
+	 * @param pacer pacer of the thread. null to start the runs one after another.
+	 * @since 3.5.3
+	 */
+	public void setPacer(Pacer pacer) {
+		this.pacer = pacer;
 	}
 
 	protected boolean isRateRunnerEnabled() {
@@ -148,7 +180,7 @@ public class GrinderContextExecutor extends GrinderRunner {
 		return description.testCount() > 1 && !isScriptValidation();
 	}
 
-	private boolean isScriptValidation() {
+	boolean isScriptValidation() {
 		try {
 			return Grinder.grinder.getProperties().getBoolean("grinder.script.validation", false);
 		} catch (Exception e) {
@@ -0,0 +1,286 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.grinder.scriptengine.groovy;
+
+import groovy.lang.GroovyClassLoader;
+import groovy.lang.GroovySystem;
+import org.codehaus.groovy.control.CompilationUnit;
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.control.SourceUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Cache of the compiled groovy scripts shared by the worker processes of an agent.
+ * <p/>
+ * The classes of a script are kept in a directory named by the hash of the script, the groovy
+ * sources beside it and the class path files. The first worker process compiles the script with
+ * the groovy sources it refers to into the directory, while the others wait for it and load the
+ * classes from there. A script which doesn't compile isn't cached, so the error is reported by
+ * {@link GroovyClassLoader#parseClass(File)} as before.
+ * <p/>
+ * The directory is kept per user by the agent and only the cache may write into it. In addition,
+ * the digests of the compiled classes are kept with the key of the script, and an entry whose
+ * classes don't match them is not loaded.
+ *
+ * @since 3.5.3
+ */
+public class GroovyScriptCache {
+	private static final Logger LOGGER = LoggerFactory.getLogger(GroovyScriptCache.class);
+
+	/**
+	 * System property of the cache directory. The cache is disabled if it's not given.
+	 */
+	public static final String PROP_GROOVY_CACHE_DIRECTORY = "ngrinder.groovy.cachedir";
+
+	/**
+	 * Compiled scripts which are not used for this long are removed by the agent.
+	 */
+	public static final long EXPIRATION = 7 * 24 * 60 * 60 * 1000L;
+
+	// Written last, so that only a complete compilation has it.
+	static final String MAIN_CLASS_FILE = "main-class";
+	static final String DIGEST_FILE = "digest";
+
+	private final File directory;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param directory cache directory
+	 */
+	public GroovyScriptCache(File directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * Get the cache in the directory given by {@link #PROP_GROOVY_CACHE_DIRECTORY}.
+	 *
+	 * @return cache. null if the directory is not given.
+	 */
+	public static GroovyScriptCache fromSystemProperty() {
+		String directory = System.getProperty(PROP_GROOVY_CACHE_DIRECTORY);
+		return directory == null || directory.isEmpty() ? null : new GroovyScriptCache(new File(directory));
+	}
+
+	/**
+	 * Load the class of the script, compiling it if it's not in the cache.
+	 *
+	 * @param script        script file
+	 * @param parent        parent class loader of the script
+	 * @param configuration compiler configuration
+	 * @return class of the script. null if it can't be cached.
+	 */
+	public Class<?> load(File script, ClassLoader parent, CompilerConfiguration configuration) {
+		try {
+			String key = getKey(script);
+			File entry = new File(directory, key);
+			File mainClassFile = new File(entry, MAIN_CLASS_FILE);
+			if (!mainClassFile.isFile()) {
+				//noinspection ResultOfMethodCallIgnored
+				directory.mkdirs();
+				try (RandomAccessFile lockFile = new RandomAccessFile(new File(directory, key + ".lock"), "rw");
+					 FileLock ignored = lockFile.getChannel().lock()) {
+					if (!mainClassFile.isFile() && !compile(script, parent, configuration, entry, key)) {
+						return null;
+					}
+				}
+			}
+			if (!verify(entry, key)) {
+				LOGGER.warn("Compiled classes of {} don't match their digests. It's compiled without the cache.", script);
+				return null;
+			}
+			String mainClass = new String(Files.readAllBytes(mainClassFile.toPath()), StandardCharsets.UTF_8).trim();
+			// Kept as the recently used one.
+			//noinspection ResultOfMethodCallIgnored
+			entry.setLastModified(System.currentTimeMillis());
+			GroovyClassLoader loader = new GroovyClassLoader(parent, configuration, true);
+			loader.addClasspath(entry.getAbsolutePath());
+			return loader.loadClass(mainClass);
+		} catch (Exception e) {
+			LOGGER.warn("Failed to load {} from the cache. It's compiled without the cache : {}", script, e.getMessage());
+			LOGGER.debug("Details : ", e);
+			return null;
+		}
+	}
+
+	private boolean compile(File script, ClassLoader parent, CompilerConfiguration configuration, File entry,
+							String key) throws IOException {
+		CompilerConfiguration compilerConfiguration = new CompilerConfiguration(configuration);
+		compilerConfiguration.setTargetDirectory(entry);
+		GroovyClassLoader loader = new GroovyClassLoader(parent, compilerConfiguration, true);
+		// The groovy sources the script refers to are added to the unit when they are resolved.
+		CompilationUnit unit = new CompilationUnit(compilerConfiguration, null, loader);
+		SourceUnit source = unit.addSource(script);
+		try {
+			unit.compile();
+		} catch (Exception e) {
+			// Reported when it's compiled without the cache.
+			LOGGER.debug("Failed to compile {} into the cache : {}", script, e.getMessage());
+			return false;
+		}
+		String mainClass = source.getAST().getClasses().get(0).getName();
+		Files.write(new File(entry, DIGEST_FILE).toPath(), digest(entry, key), StandardCharsets.UTF_8);
+		Files.write(new File(entry, MAIN_CLASS_FILE).toPath(), mainClass.getBytes(StandardCharsets.UTF_8));
+		return true;
+	}
+
+	/*
+	 * The key of the script followed by the digest of every compiled file.
+	 */
+	private List<String> digest(File entry, String key) throws IOException {
+		List<String> result = new ArrayList<String>();
+		result.add(key);
+		List<File> files = listFiles(entry);
+		for (File each : files) {
+			String path = entry.toURI().relativize(each.toURI()).getPath();
+			if (!path.equals(MAIN_CLASS_FILE) && !path.equals(DIGEST_FILE)) {
+				MessageDigest digest = newDigest("SHA-256");
+				digest.update(Files.readAllBytes(each.toPath()));
+				result.add(toHex(digest.digest()) + " " + path);
+			}
+		}
+		return result;
+	}
+
+	boolean verify(File entry, String key) throws IOException {
+		File digestFile = new File(entry, DIGEST_FILE);
+		return digestFile.isFile()
+				&& Files.readAllLines(digestFile.toPath(), StandardCharsets.UTF_8).equals(digest(entry, key));
+	}
+
+	/*
+	 * The compiled classes depend on the script, the groovy sources it may refer to, the libraries
+	 * and the groovy version.
+	 */
+	String getKey(File script) throws IOException {
+		MessageDigest digest = newDigest("SHA-1");
+		update(digest, GroovySystem.getVersion());
+		update(digest, script.getName());
+		digest.update(Files.readAllBytes(script.toPath()));
+		File base = script.getAbsoluteFile().getParentFile();
+		for (File each : listGroovySources(base)) {
+			update(digest, base.toURI().relativize(each.toURI()).getPath());
+			digest.update(Files.readAllBytes(each.toPath()));
+		}
+		String classPath = System.getProperty("java.class.path", "");
+		update(digest, classPath);
+		for (String each : classPath.split(File.pathSeparator)) {
+			File file = new File(each);
+			update(digest, file.length() + ":" + file.lastModified());
+		}
+		return toHex(digest.digest());
+	}
+
+	private static MessageDigest newDigest(String algorithm) throws IOException {
+		try {
+			return MessageDigest.getInstance(algorithm);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException(e);
+		}
+	}
+
+	private static String toHex(byte[] bytes) {
+		StringBuilder hex = new StringBuilder();
+		for (byte each : bytes) {
+			hex.append(String.format("%02x", each));
+		}
+		return hex.toString();
+	}
+
+	private static void update(MessageDigest digest, String value) {
+		digest.update(value.getBytes(StandardCharsets.UTF_8));
+		digest.update((byte) 0);
+	}
+
+	private static List<File> listGroovySources(File directory) {
+		List<File> sources = new ArrayList<File>();
+		File[] files = directory.listFiles(new FileFilter() {
+			@Override
+			public boolean accept(File file) {
+				return file.isDirectory() || file.getName().endsWith(".groovy");
+			}
+		});
+		if (files != null) {
+			for (File each : files) {
+				if (each.isDirectory()) {
+					sources.addAll(listGroovySources(each));
+				} else {
+					sources.add(each);
+				}
+			}
+		}
+		Collections.sort(sources);
+		return sources;
+	}
+
+	private static List<File> listFiles(File directory) {
+		List<File> files = new ArrayList<File>();
+		File[] children = directory.listFiles();
+		if (children != null) {
+			for (File each : children) {
+				if (each.isDirectory()) {
+					files.addAll(listFiles(each));
+				} else {
+					files.add(each);
+				}
+			}
+		}
+		Collections.sort(files);
+		return files;
+	}
+
+	/**
+	 * Remove the compiled scripts which are not used for {@link #EXPIRATION}. The worker processes
+	 * may not delete files, so the agent does it before starting them.
+	 *
+	 * @param directory cache directory
+	 */
+	public static void removeExpired(File directory) {
+		File[] files = directory.listFiles();
+		if (files == null) {
+			return;
+		}
+		long expired = System.currentTimeMillis() - EXPIRATION;
+		for (File each : files) {
+			if (each.lastModified() < expired) {
+				delete(each);
+			}
+		}
+	}
+
+	private static void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File each : children) {
+				delete(each);
+			}
+		}
+		//noinspection ResultOfMethodCallIgnored
+		file.delete();
+	}
+}
@@ -15,6 +15,7 @@ package net.grinder.scriptengine.groovy;
 
 import groovy.lang.GroovyClassLoader;
 import groovy.lang.GroovySystem;
+import net.grinder.common.GrinderProperties;
 import net.grinder.engine.common.EngineException;
 import net.grinder.engine.common.ScriptLocation;
 import net.grinder.script.Grinder;
@@ -23,14 +24,23 @@ import net.grinder.scriptengine.ScriptEngineService;
 import net.grinder.scriptengine.ScriptEngineService.ScriptEngine;
 import net.grinder.scriptengine.ScriptExecutionException;
 import net.grinder.scriptengine.exception.AbstractExceptionProcessor;
+import net.grinder.scriptengine.groovy.junit.ArrivalRateScheduler;
+import net.grinder.scriptengine.groovy.junit.Pacer;
+import net.grinder.scriptengine.groovy.junit.annotation.ArrivalRate;
+import net.grinder.scriptengine.groovy.junit.annotation.Pacing;
 import org.codehaus.groovy.control.CompilerConfiguration;
 import org.junit.runner.notification.Failure;
 import org.junit.runner.notification.RunListener;
 import org.junit.runner.notification.RunNotifier;
 import org.junit.runners.model.InitializationError;
+import org.ngrinder.statistics.ErrorClassifier;
+import org.ngrinder.statistics.ErrorRecorder;
+import org.ngrinder.statistics.IterationScheduleRecorder;
 
+import java.io.File;
 import java.io.IOException;
 
+import static net.grinder.statistics.StatisticsIndexMap.HTTP_PLUGIN_RESPONSE_STATUS_KEY;
 import static net.grinder.util.NoOp.noOp;
 
 /**
@@ -40,10 +50,18 @@ import static net.grinder.util.NoOp.noOp;
  * @author JunHo Yoon (modified by)
  */
 public class GroovyScriptEngine implements ScriptEngine {
+	/**
+	 * Property to log every failure. If false, only the first failure of each category of each
+	 * test is logged and the others are just counted.
+	 */
+	static final String GRINDER_PROP_LOG_ALL_ERRORS = "grinder.logAllErrors";
+
 	private AbstractExceptionProcessor exceptionProcessor = new GroovyExceptionProcessor();
 	// For unit test, make it package protected.
 	Class<?> m_groovyClass;
 	private GrinderContextExecutor m_grinderRunner;
+	private ArrivalRateScheduler m_arrivalRateScheduler;
+	private boolean m_logAllErrors = true;
 
 	/**
 	 * Construct a GroovyScriptEngine that will use the supplied ScriptLocation.
@@ -57,10 +75,11 @@ public class GroovyScriptEngine implements ScriptEngine {
 		final ClassLoader parent = getClass().getClassLoader();
 		CompilerConfiguration configuration = new CompilerConfiguration();
 		configuration.setSourceEncoding("UTF-8");
-		final GroovyClassLoader loader = new GroovyClassLoader(parent, configuration, true);
 		try {
-			m_groovyClass = loader.parseClass(script.getFile());
+			m_groovyClass = parseClass(script.getFile(), parent, configuration);
 			m_grinderRunner = new GrinderContextExecutor(m_groovyClass);
+			m_arrivalRateScheduler = createArrivalRateScheduler();
+			m_logAllErrors = isLogAllErrors();
 			m_grinderRunner.runBeforeProcess();
 			assert m_grinderRunner.testCount() > 0;
 		} catch (IOException io) {
@@ -70,13 +89,57 @@ public class GroovyScriptEngine implements ScriptEngine {
 		}
 	}
 
+	private Class<?> parseClass(File script, ClassLoader parent, CompilerConfiguration configuration)
+			throws IOException {
+		GroovyScriptCache cache = GroovyScriptCache.fromSystemProperty();
+		Class<?> groovyClass = cache == null ? null : cache.load(script, parent, configuration);
+		if (groovyClass != null) {
+			return groovyClass;
+		}
+		return new GroovyClassLoader(parent, configuration, true).parseClass(script);
+	}
+
+	private ArrivalRateScheduler createArrivalRateScheduler() {
+		ArrivalRate arrivalRate = m_groovyClass.getAnnotation(ArrivalRate.class);
+		if (arrivalRate == null || m_grinderRunner.isScriptValidation()) {
+			return null;
+		}
+		// The rate is for the whole test. Each process takes its share.
+		int processCount = 1;
+		GrinderProperties properties = Grinder.grinder == null ? null : Grinder.grinder.getProperties();
+		if (properties != null) {
+			processCount = Math.max(properties.getInt("grinder.agents", 1), 1)
+					* Math.max(properties.getInt("grinder.processes", 1), 1);
+		}
+		return new ArrivalRateScheduler(arrivalRate, 1D / processCount, IterationScheduleRecorder.getInstance());
+	}
+
+	private boolean isLogAllErrors() {
+		// Script validation shows every failure to the user.
+		if (m_grinderRunner.isScriptValidation()) {
+			return true;
+		}
+		GrinderProperties properties = Grinder.grinder == null ? null : Grinder.grinder.getProperties();
+		return properties == null || properties.getBoolean(GRINDER_PROP_LOG_ALL_ERRORS, true);
+	}
+
+	private GrinderContextExecutor createExecutor(GrinderContextExecutor executor) {
+		executor.setArrivalRateScheduler(m_arrivalRateScheduler);
+		Pacing pacing = m_groovyClass.getAnnotation(Pacing.class);
+		if (pacing != null && !m_grinderRunner.isScriptValidation()) {
+			// Each thread has its own pace.
+			executor.setPacer(new Pacer(pacing));
+		}
+		return executor;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
 	public ScriptEngineService.WorkerRunnable createWorkerRunnable() throws EngineException {
 		try {
-			return new GroovyWorkerRunnable(new GrinderContextExecutor(m_groovyClass));
+			return new GroovyWorkerRunnable(createExecutor(new GrinderContextExecutor(m_groovyClass)));
 		} catch (InitializationError e) {
 			throw new EngineException("Exception occurred during initializing runner", exceptionProcessor.sanitize(e));
 		}
@@ -88,7 +151,7 @@ public class GroovyScriptEngine implements ScriptEngine {
 	@Override
 	public ScriptEngineService.WorkerRunnable createWorkerRunnable(Object testRunner) throws EngineException {
 		try {
-			return new GroovyWorkerRunnable(new GrinderContextExecutor(m_groovyClass, testRunner));
+			return new GroovyWorkerRunnable(createExecutor(new GrinderContextExecutor(m_groovyClass, testRunner)));
 		} catch (InitializationError e) {
 			throw new EngineException("Exception occurred during initializing runner", exceptionProcessor.sanitize(e));
 		}
@@ -123,11 +186,18 @@ public class GroovyScriptEngine implements ScriptEngine {
 					if (exceptionProcessor.isGenericShutdown(rootCause)) {
 						return;
 					}
-					Grinder.grinder.getLogger().error(failure.getMessage(),
-							exceptionProcessor.filterException(rootCause));
+					StatisticsForTest forLastTest = null;
+					try {
+						forLastTest = Grinder.grinder.getStatistics().getForLastTest();
+					} catch (Throwable t) {
+						noOp();
+					}
+					if (recordError(failure.getException(), forLastTest) || m_logAllErrors) {
+						Grinder.grinder.getLogger().error(failure.getMessage(),
+								exceptionProcessor.filterException(rootCause));
+					}
 					// In case of exception, set test failed.
 					try {
-						StatisticsForTest forLastTest = Grinder.grinder.getStatistics().getForLastTest();
 						if (forLastTest != null) {
 							forLastTest.setSuccess(false);
 						}
@@ -139,6 +209,23 @@ public class GroovyScriptEngine implements ScriptEngine {
 			this.m_groovyThreadRunner.runBeforeThread();
 		}
 
+		/*
+		 * Count the failure by its category. Returns true if it's the first one of the category of the test.
+		 */
+		private boolean recordError(Throwable throwable, StatisticsForTest forLastTest) {
+			int testNumber = 0;
+			long responseStatus = 0;
+			if (forLastTest != null) {
+				try {
+					testNumber = forLastTest.getTest().getNumber();
+					responseStatus = forLastTest.getLong(HTTP_PLUGIN_RESPONSE_STATUS_KEY);
+				} catch (Throwable t) {
+					noOp();
+				}
+			}
+			return ErrorRecorder.getInstance().record(testNumber, ErrorClassifier.classify(throwable, responseStatus));
+		}
+
 		@Override
 		public void run() throws ScriptExecutionException {
 			try {
@@ -0,0 +1,165 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package net.grinder.scriptengine.groovy.junit;
+
+import net.grinder.scriptengine.groovy.junit.annotation.ArrivalRate;
+import net.grinder.scriptengine.groovy.junit.annotation.Stage;
+import org.ngrinder.statistics.IterationScheduleRecorder;
+
+/**
+ * Schedules the runs of a worker process by {@link ArrivalRate}. It's shared by all threads in the
+ * process.
+ *
+ * The rate of each stage changes linearly, so the number of runs scheduled until a time is the
+ * integral of the rate. The n-th run is scheduled at the time when the integral reaches n.
+ *
+ * @since 3.5.3
+ */
+public class ArrivalRateScheduler {
+	/**
+	 * Runs which start later than this from their scheduled time are counted as late.
+	 */
+	static final long LATE_TOLERANCE = 10;
+
+	private final double initialRate;
+	private final double[] stageStarts;
+	private final double[] stageDurations;
+	private final double[] stageStartRates;
+	private final double[] stageEndRates;
+	private final double[] stageStartCounts;
+	private final long maxDelay;
+	private final boolean correctLatency;
+	private final IterationScheduleRecorder recorder;
+
+	// Guarded by this.
+	private long startTime = -1;
+	private long nextRun = 0;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param arrivalRate arrival rate of the whole test
+	 * @param share       share of this process in the whole test
+	 * @param recorder    recorder of late and dropped runs
+	 */
+	public ArrivalRateScheduler(ArrivalRate arrivalRate, double share, IterationScheduleRecorder recorder) {
+		Stage[] stages = arrivalRate.stages();
+		stageStarts = new double[stages.length];
+		stageDurations = new double[stages.length];
+		stageStartRates = new double[stages.length];
+		stageEndRates = new double[stages.length];
+		stageStartCounts = new double[stages.length + 1];
+		initialRate = Math.max(arrivalRate.value(), 0) * share;
+		double rate = initialRate;
+		double time = 0;
+		for (int i = 0; i < stages.length; i++) {
+			stageStarts[i] = time;
+			stageDurations[i] = Math.max(stages[i].duration(), 0);
+			stageStartRates[i] = rate;
+			stageEndRates[i] = Math.max(stages[i].target(), 0) * share;
+			stageStartCounts[i + 1] = stageStartCounts[i] + (stageStartRates[i] + stageEndRates[i]) / 2
+					* stageDurations[i];
+			time += stageDurations[i];
+			rate = stageEndRates[i];
+		}
+		this.maxDelay = Math.max(arrivalRate.maxDelay(), 0);
+		this.correctLatency = arrivalRate.correctLatency();
+		this.recorder = recorder;
+		recorder.activate();
+	}
+
+	/**
+	 * Take the next run which can start in time. The runs which can't start within the maximum
+	 * delay are dropped.
+	 *
+	 * @param now current time in milliseconds
+	 * @return milliseconds to wait until the scheduled time of the run. 0 or negative if it's
+	 * already late. {@link Long#MAX_VALUE} if no more run is scheduled.
+	 */
+	public synchronized long reserve(long now) {
+		if (startTime < 0) {
+			startTime = now;
+		}
+		double deadline = (now - startTime - maxDelay) / 1000D;
+		long firstRunInTime = deadline <= 0 ? 0 : (long) Math.ceil(getRunCountAt(deadline));
+		if (nextRun < firstRunInTime) {
+			recorder.recordDropped(firstRunInTime - nextRun);
+			nextRun = firstRunInTime;
+		}
+		double scheduledTime = getTimeOfRun(nextRun);
+		if (Double.isInfinite(scheduledTime)) {
+			return Long.MAX_VALUE;
+		}
+		nextRun++;
+		long delay = startTime + Math.round(scheduledTime * 1000) - now;
+		if (delay < -LATE_TOLERANCE) {
+			recorder.recordLate();
+		}
+		return delay;
+	}
+
+	public boolean isCorrectLatency() {
+		return correctLatency;
+	}
+
+	/**
+	 * Get the number of runs scheduled until the given time.
+	 *
+	 * @param time seconds from the start
+	 * @return run count
+	 */
+	double getRunCountAt(double time) {
+		int stage = stageStarts.length;
+		while (stage > 0 && stageStarts[stage - 1] > time) {
+			stage--;
+		}
+		if (stage == 0) {
+			return time * initialRate;
+		}
+		int index = stage - 1;
+		double elapsed = time - stageStarts[index];
+		if (elapsed >= stageDurations[index]) {
+			return stageStartCounts[stage] + (elapsed - stageDurations[index]) * stageEndRates[index];
+		}
+		double acceleration = (stageEndRates[index] - stageStartRates[index]) / stageDurations[index];
+		return stageStartCounts[index] + stageStartRates[index] * elapsed + acceleration * elapsed * elapsed / 2;
+	}
+
+	/**
+	 * Get the scheduled time of the given run.
+	 *
+	 * @param run run number from 0
+	 * @return seconds from the start. infinity if the run is never scheduled.
+	 */
+	double getTimeOfRun(long run) {
+		for (int i = 0; i < stageStarts.length; i++) {
+			if (run < stageStartCounts[i + 1]) {
+				double remaining = run - stageStartCounts[i];
+				double acceleration = (stageEndRates[i] - stageStartRates[i]) / stageDurations[i];
+				if (Math.abs(acceleration) < 1e-9) {
+					return stageStarts[i] + remaining / stageStartRates[i];
+				}
+				double rate = stageStartRates[i];
+				return stageStarts[i] + (Math.sqrt(rate * rate + 2 * acceleration * remaining) - rate) / acceleration;
+			}
+		}
+		int last = stageStarts.length;
+		double rate = last == 0 ? initialRate : stageEndRates[last - 1];
+		if (rate <= 0) {
+			return Double.POSITIVE_INFINITY;
+		}
+		double end = last == 0 ? 0 : stageStarts[last - 1] + stageDurations[last - 1];
+		return end + (run - stageStartCounts[last]) / rate;
+	}
+}
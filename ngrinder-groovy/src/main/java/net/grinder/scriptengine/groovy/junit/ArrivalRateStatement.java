@@ -0,0 +1,58 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package net.grinder.scriptengine.groovy.junit;
+
+import org.junit.runners.model.Statement;
+import org.ngrinder.statistics.GeneratorLoadMonitor;
+import org.ngrinder.statistics.LatencyCorrection;
+
+/**
+ * <code>ArrivalRateStatement</code> is a custom JUnit 4.5+ {@link Statement} which adds support for
+ * {@link net.grinder.scriptengine.groovy.junit.annotation.ArrivalRate} annotation by waiting until
+ * the scheduled time of the run.
+ *
+ * @see ArrivalRateScheduler
+ * @since 3.5.3
+ */
+public class ArrivalRateStatement extends Statement {
+	private final Statement statement;
+	private final ArrivalRateScheduler scheduler;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param statement statement to be scheduled
+	 * @param scheduler scheduler shared in the process
+	 */
+	public ArrivalRateStatement(Statement statement, ArrivalRateScheduler scheduler) {
+		this.statement = statement;
+		this.scheduler = scheduler;
+	}
+
+	@Override
+	public void evaluate() throws Throwable {
+		long now = System.currentTimeMillis();
+		long delay = scheduler.reserve(now);
+		long scheduledTime = delay == Long.MAX_VALUE ? Long.MAX_VALUE : now + delay;
+		long remaining = delay > 0 ? ScheduledSleep.sleepUntil(scheduledTime) : delay;
+		if (delay > 0) {
+			// Only the oversleep is the lag. The runs which are already late are counted by the scheduler.
+			GeneratorLoadMonitor.getInstance().recordSchedulingLag(-remaining);
+		}
+		if (scheduler.isCorrectLatency()) {
+			LatencyCorrection.set(0, -remaining);
+		}
+		statement.evaluate();
+	}
+}
@@ -0,0 +1,64 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package net.grinder.scriptengine.groovy.junit;
+
+import net.grinder.scriptengine.groovy.junit.annotation.Pacing;
+
+/**
+ * Schedules the runs of a thread by {@link Pacing}. Each thread has its own pacer.
+ *
+ * @since 3.5.3
+ */
+public class Pacer {
+	private final long interval;
+	private final boolean correctLatency;
+
+	private long lastStart = -1;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param pacing pacing of the script
+	 */
+	public Pacer(Pacing pacing) {
+		this.interval = Math.max(pacing.value(), 0);
+		this.correctLatency = pacing.correctLatency();
+	}
+
+	/**
+	 * Take the start time of the next run. A run which can't start at its scheduled time starts
+	 * right away and the following runs are scheduled from it.
+	 *
+	 * @param now current time in milliseconds
+	 * @return milliseconds to wait until the scheduled time of the run. 0 or negative if it's
+	 * already late.
+	 */
+	public long reserve(long now) {
+		if (lastStart < 0) {
+			lastStart = now;
+			return 0;
+		}
+		long scheduledTime = lastStart + interval;
+		lastStart = Math.max(scheduledTime, now);
+		return scheduledTime - now;
+	}
+
+	public long getInterval() {
+		return interval;
+	}
+
+	public boolean isCorrectLatency() {
+		return correctLatency;
+	}
+}
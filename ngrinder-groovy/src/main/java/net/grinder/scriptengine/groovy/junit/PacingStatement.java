@@ -0,0 +1,58 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package net.grinder.scriptengine.groovy.junit;
+
+import org.junit.runners.model.Statement;
+import org.ngrinder.statistics.GeneratorLoadMonitor;
+import org.ngrinder.statistics.LatencyCorrection;
+
+/**
+ * <code>PacingStatement</code> is a custom JUnit 4.5+ {@link Statement} which adds support for
+ * {@link net.grinder.scriptengine.groovy.junit.annotation.Pacing} annotation by waiting until
+ * the scheduled time of the run.
+ *
+ * @see Pacer
+ * @since 3.5.3
+ */
+public class PacingStatement extends Statement {
+	private final Statement statement;
+	private final Pacer pacer;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param statement statement to be paced
+	 * @param pacer     pacer of the thread
+	 */
+	public PacingStatement(Statement statement, Pacer pacer) {
+		this.statement = statement;
+		this.pacer = pacer;
+	}
+
+	@Override
+	public void evaluate() throws Throwable {
+		long now = System.currentTimeMillis();
+		long delay = pacer.reserve(now);
+		long scheduledTime = now + delay;
+		long remaining = delay > 0 ? ScheduledSleep.sleepUntil(scheduledTime) : delay;
+		if (delay > 0) {
+			// Woken up later than scheduled. It's the lag of the worker itself, not of the target.
+			GeneratorLoadMonitor.getInstance().recordSchedulingLag(-remaining);
+		}
+		if (pacer.isCorrectLatency()) {
+			LatencyCorrection.set(pacer.getInterval(), 0);
+		}
+		statement.evaluate();
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.grinder.scriptengine.groovy.junit;
+
+import net.grinder.common.GrinderException;
+import net.grinder.common.GrinderProperties;
+import net.grinder.script.Grinder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sleeps until the scheduled time of a run.
+ * <p/>
+ * The grinder sleeper is used to wake up when the test is shut down, but it scales every sleep by
+ * <code>grinder.sleepTimeFactor</code> which is meant for the think times. The scheduled times are
+ * not think times, so the factor is taken back out here.
+ *
+ * @since 3.5.3
+ */
+final class ScheduledSleep {
+	static final String GRINDER_PROP_SLEEP_TIME_FACTOR = "grinder.sleepTimeFactor";
+
+	/**
+	 * Sleep at most this milliseconds at once to check the scheduled time again.
+	 */
+	private static final long MAX_SLEEP = 1000;
+	/**
+	 * Interval to check the shutdown when the grinder sleeper doesn't sleep at all.
+	 */
+	private static final long SHUTDOWN_CHECK_INTERVAL = 100;
+
+	private ScheduledSleep() {
+	}
+
+	/**
+	 * Sleep until the given time.
+	 *
+	 * @param scheduledTime scheduled time in milliseconds since Epoch
+	 * @return milliseconds remaining to the scheduled time. negative if it's woken up late.
+	 * @throws GrinderException if the test is shut down
+	 */
+	static long sleepUntil(long scheduledTime) throws GrinderException {
+		GrinderProperties properties = Grinder.grinder.getProperties();
+		double factor = properties == null ? 1 : properties.getDouble(GRINDER_PROP_SLEEP_TIME_FACTOR, 1);
+		long remaining = scheduledTime - System.currentTimeMillis();
+		while (remaining > 0) {
+			long time = Math.min(remaining, MAX_SLEEP);
+			if (factor > 0) {
+				Grinder.grinder.sleep(toSleeperTime(time, factor), 0);
+			} else {
+				// Think times are disabled, so the sleeper returns at once. It still throws when shut down.
+				Grinder.grinder.sleep(0, 0);
+				LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(Math.min(time, SHUTDOWN_CHECK_INTERVAL)));
+			}
+			remaining = scheduledTime - System.currentTimeMillis();
+		}
+		return remaining;
+	}
+
+	/**
+	 * Get the time to pass to the sleeper so that it sleeps the given time after scaling it by the
+	 * factor. It's rounded up not to wake up early.
+	 */
+	static long toSleeperTime(long time, double factor) {
+		return (long) Math.ceil(time / factor);
+	}
+}
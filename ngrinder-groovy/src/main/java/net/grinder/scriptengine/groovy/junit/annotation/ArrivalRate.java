@@ -0,0 +1,85 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package net.grinder.scriptengine.groovy.junit.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * In nGrinder test, this annotation makes the runs started at the given arrival rate instead of
+ * starting the next run as soon as the previous run ends.
+ *
+ * The rate is the number of runs per second of the whole test. It's divided by the number of
+ * agents and processes. Each run is started by one of the threads which is not busy, so the
+ * threads act as the pool of the virtual users. When all threads are busy, runs start late. The
+ * runs which can't start within {@link #maxDelay()} are dropped. Late and dropped runs are reported
+ * as Late_Iterations and Dropped_Iterations statistics.
+ *
+ * <pre>
+ * // Starts 100 runs per second for the first minute, then ramps up to 300 runs per second
+ * // for the next 2 minutes and keeps it.
+ * &#064;ArrivalRate(value = 100D, stages = [&#064;Stage(duration = 60, target = 100D),
+ *                                      &#064;Stage(duration = 120, target = 300D)])
+ * &#064;RunWith(GrinderRunner)
+ * class TestRunner {
+ * 	&#064;Test
+ * 	public void test() {
+ *       ...
+ *    }
+ * }
+ * </pre>
+ *
+ * This annotation is ignored when the script runs in the JUnit context or in the script validation.
+ *
+ * @see Stage
+ * @since 3.5.3
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+@Inherited
+public @interface ArrivalRate {
+	/**
+	 * Runs per second at the beginning.
+	 *
+	 * @return runs per second
+	 */
+	double value();
+
+	/**
+	 * Stages which change the rate linearly from the rate at the end of the previous stage. The
+	 * rate at the end of the last stage is kept afterwards.
+	 *
+	 * @return stages
+	 */
+	Stage[] stages() default {};
+
+	/**
+	 * Maximum delay in milliseconds for the run to be started after its scheduled time.
+	 *
+	 * @return maximum delay in milliseconds
+	 */
+	long maxDelay() default 1000;
+
+	/**
+	 * Whether to report the test times corrected for the coordinated omission beside the raw ones.
+	 * The test times of a run which starts late are counted from its scheduled time.
+	 *
+	 * @return true to report the corrected test times
+	 * @since 3.5.3
+	 */
+	boolean correctLatency() default false;
+}
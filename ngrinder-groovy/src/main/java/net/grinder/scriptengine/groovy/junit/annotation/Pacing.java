@@ -0,0 +1,63 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package net.grinder.scriptengine.groovy.junit.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * In nGrinder test, this annotation makes each thread start its runs at the given interval. The
+ * thread waits for the rest of the interval after a run ends. A run which takes longer than the
+ * interval delays the next run, which starts right after it.
+ *
+ * <pre>
+ * // Each thread starts a run every second and the test times are also reported corrected.
+ * &#064;Pacing(value = 1000L, correctLatency = true)
+ * &#064;RunWith(GrinderRunner)
+ * class TestRunner {
+ * 	&#064;Test
+ * 	public void test() {
+ *       ...
+ *    }
+ * }
+ * </pre>
+ *
+ * This annotation is ignored when the script runs in the JUnit context or in the script validation,
+ * or when the script has {@link ArrivalRate} as well.
+ *
+ * @since 3.5.3
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+@Inherited
+public @interface Pacing {
+	/**
+	 * Interval between the starts of the runs of a thread in milliseconds.
+	 *
+	 * @return interval in milliseconds
+	 */
+	long value();
+
+	/**
+	 * Whether to report the test times corrected for the coordinated omission beside the raw ones.
+	 * A run which takes longer than the interval makes the thread omit the runs it should have
+	 * started meanwhile, and the omitted runs are counted as if they waited for the slow one.
+	 *
+	 * @return true to report the corrected test times
+	 */
+	boolean correctLatency() default false;
+}
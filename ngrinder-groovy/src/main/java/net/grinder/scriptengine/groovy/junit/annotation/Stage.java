@@ -0,0 +1,42 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package net.grinder.scriptengine.groovy.junit.annotation;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * A stage of {@link ArrivalRate}, in which the rate changes linearly to the target.
+ *
+ * @see ArrivalRate
+ * @since 3.5.3
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({})
+public @interface Stage {
+	/**
+	 * Duration of the stage in seconds.
+	 *
+	 * @return duration in seconds
+	 */
+	int duration();
+
+	/**
+	 * Runs per second at the end of the stage.
+	 *
+	 * @return runs per second
+	 */
+	double target();
+}
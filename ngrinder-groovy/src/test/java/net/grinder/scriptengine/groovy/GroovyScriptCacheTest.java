@@ -0,0 +1,109 @@
+package net.grinder.scriptengine.groovy;
+
+import org.apache.commons.io.FileUtils;
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class GroovyScriptCacheTest {
+	private File scriptDirectory;
+	private File cacheDirectory;
+	private CompilerConfiguration configuration;
+
+	@Before
+	public void before() throws IOException {
+		File base = new File(FileUtils.getTempDirectory(), "groovy-cache-test-" + System.nanoTime());
+		scriptDirectory = new File(base, "script");
+		cacheDirectory = new File(base, "cache");
+		FileUtils.forceMkdir(scriptDirectory);
+		configuration = new CompilerConfiguration();
+		configuration.setSourceEncoding("UTF-8");
+		configuration.setClasspathList(Collections.singletonList(scriptDirectory.getAbsolutePath()));
+	}
+
+	@After
+	public void after() {
+		FileUtils.deleteQuietly(scriptDirectory.getParentFile());
+	}
+
+	@Test
+	public void testLoadCompiledScript() throws Exception {
+		File script = write("TestRunner.groovy", "class TestRunner { static String hello() { Helper.name() } }");
+		write("Helper.groovy", "class Helper { static String name() { 'helper' } }");
+		GroovyScriptCache cache = new GroovyScriptCache(cacheDirectory);
+		String key = cache.getKey(script);
+
+		Class<?> first = cache.load(script, getClass().getClassLoader(), configuration);
+		assertThat(first.getName(), is("TestRunner"));
+		assertThat(first.getMethod("hello").invoke(null), is((Object) "helper"));
+		assertThat(new File(cacheDirectory, key + "/Helper.class").isFile(), is(true));
+
+		// Loaded from the classes compiled by the first one.
+		File mainClassFile = new File(cacheDirectory, key + "/" + GroovyScriptCache.MAIN_CLASS_FILE);
+		long compiled = mainClassFile.lastModified();
+		Class<?> second = cache.load(script, getClass().getClassLoader(), configuration);
+		assertThat(second.getMethod("hello").invoke(null), is((Object) "helper"));
+		assertThat(second, is(not((Object) first)));
+		assertThat(mainClassFile.lastModified(), is(compiled));
+
+		// A change of the sources it may refer to compiles it again.
+		write("Helper.groovy", "class Helper { static String name() { 'changed' } }");
+		assertThat(cache.getKey(script), is(not(key)));
+		Class<?> third = cache.load(script, getClass().getClassLoader(), configuration);
+		assertThat(third.getMethod("hello").invoke(null), is((Object) "changed"));
+	}
+
+	@Test
+	public void testTamperedClasses() throws Exception {
+		File script = write("TestRunner.groovy", "class TestRunner { static String hello() { 'hello' } }");
+		GroovyScriptCache cache = new GroovyScriptCache(cacheDirectory);
+		assertThat(cache.load(script, getClass().getClassLoader(), configuration), notNullValue());
+
+		// Classes which are not compiled by the cache are not loaded.
+		File entry = new File(cacheDirectory, cache.getKey(script));
+		FileUtils.writeByteArrayToFile(new File(entry, "Injected.class"), new byte[]{1});
+		assertThat(cache.load(script, getClass().getClassLoader(), configuration), nullValue());
+		FileUtils.deleteQuietly(new File(entry, "Injected.class"));
+		assertThat(cache.load(script, getClass().getClassLoader(), configuration), notNullValue());
+
+		FileUtils.writeByteArrayToFile(new File(entry, "TestRunner.class"), new byte[]{1}, true);
+		assertThat(cache.load(script, getClass().getClassLoader(), configuration), nullValue());
+	}
+
+	@Test
+	public void testCompileError() throws Exception {
+		File script = write("TestRunner.groovy", "class TestRunner {{}");
+		GroovyScriptCache cache = new GroovyScriptCache(cacheDirectory);
+		assertThat(cache.load(script, getClass().getClassLoader(), configuration), nullValue());
+		assertThat(new File(cacheDirectory, cache.getKey(script) + "/" + GroovyScriptCache.MAIN_CLASS_FILE).exists(),
+				is(false));
+	}
+
+	@Test
+	public void testFromSystemProperty() {
+		assertThat(GroovyScriptCache.fromSystemProperty(), nullValue());
+		System.setProperty(GroovyScriptCache.PROP_GROOVY_CACHE_DIRECTORY, cacheDirectory.getAbsolutePath());
+		try {
+			assertThat(GroovyScriptCache.fromSystemProperty(), notNullValue());
+		} finally {
+			System.clearProperty(GroovyScriptCache.PROP_GROOVY_CACHE_DIRECTORY);
+		}
+	}
+
+	private File write(String name, String source) throws IOException {
+		File file = new File(scriptDirectory, name);
+		FileUtils.writeStringToFile(file, source, "UTF-8");
+		return file;
+	}
+}
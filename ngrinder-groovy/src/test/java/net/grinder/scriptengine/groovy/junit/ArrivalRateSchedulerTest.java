@@ -0,0 +1,58 @@
+package net.grinder.scriptengine.groovy.junit;
+
+import net.grinder.scriptengine.groovy.junit.annotation.ArrivalRate;
+import net.grinder.scriptengine.groovy.junit.annotation.Stage;
+import org.junit.Test;
+import org.ngrinder.statistics.IterationScheduleRecorder;
+
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class ArrivalRateSchedulerTest {
+
+	@ArrivalRate(10)
+	private static class ConstantRate {
+	}
+
+	@ArrivalRate(value = 0, stages = {@Stage(duration = 10, target = 20), @Stage(duration = 10, target = 20)},
+			maxDelay = 500)
+	private static class RampingRate {
+	}
+
+	private ArrivalRateScheduler createScheduler(Class<?> klass, double share) {
+		return new ArrivalRateScheduler(klass.getAnnotation(ArrivalRate.class), share,
+				IterationScheduleRecorder.getInstance());
+	}
+
+	@Test
+	public void testSchedule() {
+		ArrivalRateScheduler scheduler = createScheduler(ConstantRate.class, 0.5);
+		assertThat(scheduler.getRunCountAt(10), closeTo(50, 0.001));
+		assertThat(scheduler.getTimeOfRun(5), closeTo(1, 0.001));
+
+		scheduler = createScheduler(RampingRate.class, 1);
+		// Ramps up to 20 per second in 10 seconds, which makes 100 runs.
+		assertThat(scheduler.getRunCountAt(10), closeTo(100, 0.001));
+		assertThat(scheduler.getRunCountAt(20), closeTo(300, 0.001));
+		assertThat(scheduler.getRunCountAt(30), closeTo(500, 0.001));
+		assertThat(scheduler.getTimeOfRun(25), closeTo(5, 0.001));
+		assertThat(scheduler.getTimeOfRun(200), closeTo(15, 0.001));
+		assertThat(scheduler.getTimeOfRun(400), closeTo(25, 0.001));
+	}
+
+	@Test
+	public void testReserve() {
+		IterationScheduleRecorder.getInstance().drain();
+		ArrivalRateScheduler scheduler = createScheduler(ConstantRate.class, 1);
+		assertThat(scheduler.reserve(1000), is(0L));
+		assertThat(scheduler.reserve(1000), is(100L));
+		assertThat(scheduler.reserve(1050), is(150L));
+		// The runs scheduled before 1 second ago are dropped. The run at 2.0 seconds starts late.
+		assertThat(scheduler.reserve(4000), is(-1000L));
+		assertThat(scheduler.reserve(4000), is(-900L));
+		long[] counts = IterationScheduleRecorder.getInstance().drain();
+		assertThat(counts[0], is(2L));
+		assertThat(counts[1], is(17L));
+	}
+}
@@ -0,0 +1,25 @@
+package net.grinder.scriptengine.groovy.junit;
+
+import net.grinder.scriptengine.groovy.junit.annotation.Pacing;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class PacerTest {
+
+	@Pacing(value = 1000, correctLatency = true)
+	private static class PacedEverySecond {
+	}
+
+	@Test
+	public void testReserve() {
+		Pacer pacer = new Pacer(PacedEverySecond.class.getAnnotation(Pacing.class));
+		assertThat(pacer.isCorrectLatency(), is(true));
+		assertThat(pacer.reserve(10_000), is(0L));
+		assertThat(pacer.reserve(10_300), is(700L));
+		// The run took longer than the interval. The next one starts right away.
+		assertThat(pacer.reserve(12_500), is(-500L));
+		assertThat(pacer.reserve(12_600), is(900L));
+	}
+}
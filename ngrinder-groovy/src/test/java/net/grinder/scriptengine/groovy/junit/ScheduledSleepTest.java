@@ -0,0 +1,77 @@
+package net.grinder.scriptengine.groovy.junit;
+
+import net.grinder.common.GrinderProperties;
+import net.grinder.script.Grinder;
+import net.grinder.script.InternalScriptContext;
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ScheduledSleepTest {
+
+	@After
+	public void after() {
+		Grinder.grinder = null;
+	}
+
+	@Test
+	public void testToSleeperTime() {
+		assertThat(ScheduledSleep.toSleeperTime(1000, 2), is(500L));
+		assertThat(ScheduledSleep.toSleeperTime(1000, 0.5), is(2000L));
+		// Rounded up not to wake up early.
+		assertThat(ScheduledSleep.toSleeperTime(1, 3), is(1L));
+	}
+
+	@Test
+	public void testSleepIsNotScaledByFactor() throws Exception {
+		InternalScriptContext context = mockContext(3);
+		long start = System.currentTimeMillis();
+		long remaining = ScheduledSleep.sleepUntil(start + 300);
+		long elapsed = System.currentTimeMillis() - start;
+		assertThat(remaining, is(lessThan(1L)));
+		assertThat(elapsed, is(greaterThanOrEqualTo(300L)));
+		assertThat(elapsed, is(lessThan(600L)));
+		verify(context, atLeastOnce()).sleep(100, 0);
+	}
+
+	@Test
+	public void testSleepWithoutThinkTimes() throws Exception {
+		InternalScriptContext context = mockContext(0);
+		long start = System.currentTimeMillis();
+		ScheduledSleep.sleepUntil(start + 300);
+		assertThat(System.currentTimeMillis() - start, is(greaterThanOrEqualTo(300L)));
+		// The sleeper is still asked to find out the shutdown.
+		verify(context, atLeastOnce()).sleep(0, 0);
+	}
+
+	/*
+	 * Context whose sleeper scales the sleep times by the given factor.
+	 */
+	private InternalScriptContext mockContext(final double factor) throws Exception {
+		InternalScriptContext context = mock(InternalScriptContext.class);
+		GrinderProperties properties = new GrinderProperties();
+		properties.setDouble(ScheduledSleep.GRINDER_PROP_SLEEP_TIME_FACTOR, factor);
+		when(context.getProperties()).thenReturn(properties);
+		doAnswer(new Answer<Void>() {
+			@Override
+			public Void answer(InvocationOnMock invocation) throws Throwable {
+				Thread.sleep((long) ((Long) invocation.getArgument(0) * factor));
+				return null;
+			}
+		}).when(context).sleep(anyLong(), anyLong());
+		Grinder.grinder = context;
+		return context;
+	}
+}
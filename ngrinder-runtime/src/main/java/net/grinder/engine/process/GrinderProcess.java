@@ -37,8 +37,17 @@ import net.grinder.engine.common.EngineException;
 import net.grinder.engine.communication.ConsoleListener;
 import net.grinder.engine.messages.InitialiseGrinderMessage;
 import net.grinder.engine.process.dcr.DCRContextImplementation;
+import net.grinder.messages.agent.ClockOffsetMessage;
+import net.grinder.messages.console.AbstractReportMessage;
 import net.grinder.messages.console.RegisterTestsMessage;
-import net.grinder.messages.console.ReportStatisticsMessage;
+import net.grinder.messages.console.ReportDnsCacheMessage;
+import net.grinder.messages.console.ReportErrorsMessage;
+import net.grinder.messages.console.ReportGeneratorLoadMessage;
+import net.grinder.messages.console.ReportIterationScheduleMessage;
+import net.grinder.messages.console.ReportProcessStatisticsMessage;
+import net.grinder.messages.console.ReportProcessSummaryMessage;
+import net.grinder.messages.console.ReportTestStatisticsMessage;
+import net.grinder.messages.console.ReportTimeBucketMessage;
 import net.grinder.messages.console.WorkerAddress;
 import net.grinder.messages.console.WorkerProcessReportMessage;
 import net.grinder.script.Grinder;
@@ -56,19 +65,30 @@ import net.grinder.synchronisation.ClientBarrierGroups;
 import net.grinder.synchronisation.LocalBarrierGroups;
 import net.grinder.util.*;
 import net.grinder.util.ListenerSupport.Informer;
-import net.grinder.util.thread.BooleanCondition;
 import net.grinder.util.thread.Condition;
+import org.ngrinder.clock.ClockCorrection;
+import org.ngrinder.clock.ClockOffsetEstimator;
 import org.ngrinder.dns.LocalManagedDnsProxy;
 import org.ngrinder.dns.NameServiceProxy;
+import org.ngrinder.statistics.DnsCacheRecorder;
+import org.ngrinder.statistics.ErrorRecorder;
+import org.ngrinder.statistics.GeneratorLoadMonitor;
+import org.ngrinder.statistics.IterationScheduleRecorder;
+import org.ngrinder.statistics.LatencyHistogramRecorder;
+import org.ngrinder.statistics.LatencyHistograms;
+import org.ngrinder.statistics.TimeBucketRecorder;
+import org.ngrinder.statistics.TimeBuckets;
 import org.slf4j.ILoggerFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.lang.reflect.Method;
 import java.net.UnknownHostException;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
 
 import static java.lang.System.getProperty;
 
@@ -86,12 +106,41 @@ import static java.lang.System.getProperty;
  */
 final class GrinderProcess {
 
+	/**
+	 * Property to select the kind of threads which run the virtual users. {@value #THREAD_MODE_PLATFORM} or
+	 * {@value #THREAD_MODE_VIRTUAL}.
+	 */
+	static final String GRINDER_PROP_THREAD_MODE = "grinder.threadMode";
+	static final String THREAD_MODE_PLATFORM = "platform";
+	static final String THREAD_MODE_VIRTUAL = "virtual";
+
+	/**
+	 * Property to count the finished tests in time buckets of the given milliseconds as well. 0 not to.
+	 */
+	static final String GRINDER_PROP_TIME_BUCKET_SIZE = "grinder.timeBucketSize";
+	static final String GRINDER_PROP_REPORT_TO_CONSOLE_INTERVAL = "grinder.reportToConsole.interval";
+
+	/**
+	 * Property set by the agent to the local port of its statistics aggregator. The tests and the
+	 * statistics are reported through it rather than to the console directly if it's set.
+	 */
+	static final String GRINDER_PROP_AGGREGATOR_PORT = "grinder.aggregatorPort";
+
+	/**
+	 * Property to report the summary of each process to the console as well, so that the console can break
+	 * the statistics down by agent.
+	 */
+	static final String GRINDER_PROP_AGENT_STATISTICS = "grinder.agentStatistics";
+
 	private final Logger m_terminalLogger;
 	private Logger m_logger = null;
 	private final Logger m_dataLogger;
 	private final LoggerContext m_logbackLoggerContext;
 	private final boolean m_reportTimesToConsole;
+	private final boolean m_reportProcessSummary;
 	private final QueuedSender m_consoleSender;
+	private final ClientSender m_aggregatorSender;
+	private final VuserThreadFactory m_threadFactory;
 	private final Sleeper m_sleeper;
 	private final InitialiseGrinderMessage m_initialisationMessage;
 	private final ConsoleListener m_consoleListener;
@@ -99,6 +148,9 @@ final class GrinderProcess {
 	private final TestStatisticsMap m_accumulatedStatistics;
 	private final TestStatisticsHelperImplementation m_testStatisticsHelper;
 	private final TestRegistryImplementation m_testRegistryImplementation;
+	private final LatencyHistogramRecorder m_latencyRecorder = new LatencyHistogramRecorder();
+	private final TimeBucketRecorder m_timeBucketRecorder;
+	private long m_reportedDroppedTests = 0;
 	private final Condition m_eventSynchronisation = new Condition();
 	private final MessagePump m_messagePump;
 
@@ -125,6 +177,8 @@ final class GrinderProcess {
 	 */
 	public GrinderProcess(final Receiver agentReceiver) throws GrinderException {
 		try {
+			// A process started ahead of the test by the agent may wait for long.
+			WorkerWarmUp.start();
 			m_initialisationMessage = (InitialiseGrinderMessage) agentReceiver.waitForMessage();
 
 			if (m_initialisationMessage == null) {
@@ -141,6 +195,11 @@ final class GrinderProcess {
 			m_terminalLogger = LoggerFactory.getLogger(workerName);
 
 			m_reportTimesToConsole = properties.getBoolean("grinder.reportTimesToConsole", true);
+			m_reportProcessSummary = properties.getBoolean(GRINDER_PROP_AGENT_STATISTICS, false);
+
+			final int timeBucketSize = properties.getInt(GRINDER_PROP_TIME_BUCKET_SIZE, 0);
+			m_timeBucketRecorder = timeBucketSize > 0 ? new TimeBucketRecorder(timeBucketSize,
+					properties.getInt(GRINDER_PROP_REPORT_TO_CONSOLE_INTERVAL, 500)) : null;
 
 			m_logbackLoggerContext = configureLogging(workerName, logDirectory);
 			m_logger = LoggerFactory.getLogger("worker." + workerName);
@@ -163,15 +222,32 @@ final class GrinderProcess {
 
 			final MessageDispatchSender messageDispatcher = new MessageDispatchSender();
 
+			// Timestamps are converted into the console time by the clock offset the agent knows
+			// and by the offsets the console estimates while running.
+			ClockOffsetEstimator.Estimate clockOffset = ClockCorrection.readFrom(properties);
+			if (clockOffset != null) {
+				ClockCorrection.getInstance().set(clockOffset);
+				m_logger.info("clock offset from the console is {}", clockOffset);
+			}
+			messageDispatcher.set(ClockOffsetMessage.class, new MessageDispatchRegistry.AbstractHandler<ClockOffsetMessage>() {
+				@Override
+				public void handle(ClockOffsetMessage message) {
+					ClockCorrection.getInstance().set(message.getEstimate());
+				}
+			});
+
 			final BarrierGroups barrierGroups;
 
 			if (m_initialisationMessage.getReportToConsole()) {
 				m_consoleSender = new QueuedSenderDecorator(ClientSender.connect(new ConnectorFactory(
 						ConnectionType.WORKER).create(properties), new WorkerAddress(workerIdentity)));
 
+				m_aggregatorSender = connectAggregator(properties, workerIdentity);
+
 				barrierGroups = new ClientBarrierGroups(m_consoleSender, messageDispatcher);
 			} else {
 				m_consoleSender = new NullQueuedSender();
+				m_aggregatorSender = null;
 				barrierGroups = new LocalBarrierGroups();
 			}
 
@@ -204,8 +280,18 @@ final class GrinderProcess {
 
 			final Logger externalLogger = new ExternalLogger(m_logger, m_threadContexts);
 
-			m_sleeper = new SleeperImplementation(m_times.getTimeAuthority(), externalLogger, properties.getDouble(
-					"grinder.sleepTimeFactor", 1.0d), properties.getDouble("grinder.sleepTimeVariation", 0.2d));
+			m_threadFactory = VuserThreadFactory.create(
+					properties.getProperty(GRINDER_PROP_THREAD_MODE, THREAD_MODE_PLATFORM), m_terminalLogger);
+
+			final double sleepTimeFactor = properties.getDouble("grinder.sleepTimeFactor", 1.0d);
+			final double sleepTimeVariation = properties.getDouble("grinder.sleepTimeVariation", 0.2d);
+			if (THREAD_MODE_VIRTUAL.equals(m_threadFactory.getMode())) {
+				m_sleeper = new ParkingSleeper(m_times.getTimeAuthority(), externalLogger, sleepTimeFactor,
+						sleepTimeVariation);
+			} else {
+				m_sleeper = new SleeperImplementation(m_times.getTimeAuthority(), externalLogger, sleepTimeFactor,
+						sleepTimeVariation);
+			}
 
 			final Statistics scriptStatistics = new ScriptStatisticsImplementation(m_threadContexts,
 					m_statisticsServices, m_consoleSender);
@@ -219,7 +305,8 @@ final class GrinderProcess {
 
 			final InternalScriptContext scriptContext = new ScriptContextImplementation(workerIdentity,
 					m_initialisationMessage.getFirstWorkerIdentity(), m_threadContexts, properties,
-					externalLogger, m_sleeper, new SSLControlImplementation(m_threadContexts),
+					externalLogger, m_sleeper,
+					new HandshakeTimingSSLControl(new SSLControlImplementation(m_threadContexts), scriptStatistics),
 					scriptStatistics, m_testRegistryImplementation, delegatingThreadStarter, threadStopper,
 					barrierGroups, barrierIdentityGenerator);
 
@@ -319,8 +406,8 @@ final class GrinderProcess {
 
 			m_logger.info(numbers.toString());
 
-			final short numberOfThreads = properties.getShort("grinder.threads", (short) 1);
-			final int reportToConsoleInterval = properties.getInt("grinder.reportToConsole.interval", 500);
+			final int numberOfThreads = properties.getInt("grinder.threads", 1);
+			final int reportToConsoleInterval = properties.getInt(GRINDER_PROP_REPORT_TO_CONSOLE_INTERVAL, 500);
 			final int duration = properties.getInt("grinder.duration", 0);
 
 			final Instrumenter instrumenter = scriptEngineContainer.createInstrumenter();
@@ -364,16 +451,16 @@ final class GrinderProcess {
 
 			m_dataLogger.info(dataLogHeader.toString());
 
-			sendStatusMessage(ProcessReport.STATE_STARTED, (short) 0, numberOfThreads);
+			sendStatusMessage(ProcessReport.STATE_STARTED, 0, numberOfThreads);
 			boolean threadRampUp = properties.getBoolean("grinder.threadRampUp", false);
 			final ThreadSynchronisation threadSynchronisation = threadRampUp ?
 					new ThreadRampUpEnabledThreadSynchronisation(m_eventSynchronisation, m_sleeper) :
 					new ThreadSynchronisation(m_eventSynchronisation);
 
-			m_terminalLogger.info("Starting threads");
+			m_terminalLogger.info("Starting {} {} threads", numberOfThreads, m_threadFactory.getMode());
 
 			synchronized (m_eventSynchronisation) {
-				m_threadStarter = new ThreadStarterImplementation(threadSynchronisation, scriptEngine);
+				m_threadStarter = new ThreadStarterImplementation(threadSynchronisation, scriptEngine, m_threadFactory);
 
 				for (int i = 0; i < numberOfThreads; i++) {
 					m_threadStarter.startThread(null);
@@ -386,7 +473,9 @@ final class GrinderProcess {
 
 			m_logger.info("Start time is {} ms since Epoch", m_times.getExecutionStartTime());
 
-			final TimerTask reportTimerTask = new ReportToConsoleTimerTask(threadSynchronisation);
+			GeneratorLoadMonitor.getInstance().start();
+
+			final ReportToConsoleTimerTask reportTimerTask = new ReportToConsoleTimerTask(threadSynchronisation);
 			final TimerTask shutdownTimerTask = new ShutdownTimerTask();
 
 			// Schedule a regular statistics report to the console. We don't
@@ -434,6 +523,7 @@ final class GrinderProcess {
 						m_threadContexts.shutdownAll();
 
 						// Interrupt any sleepers.
+						m_sleeper.shutdown();
 						SleeperImplementation.shutdownAllCurrentSleepers();
 
 						final long time = System.currentTimeMillis();
@@ -457,10 +547,15 @@ final class GrinderProcess {
 			scriptEngine.shutdown();
 
 			// Final report to the console.
-			reportTimerTask.run();
+			reportTimerTask.runFinally();
+			GeneratorLoadMonitor.getInstance().stop();
+
+			if (m_aggregatorSender != null) {
+				m_aggregatorSender.shutdown();
+			}
 
 			if (!m_communicationShutdown) {
-				sendStatusMessage(ProcessReport.STATE_FINISHED, (short) 0, (short) 0);
+				sendStatusMessage(ProcessReport.STATE_FINISHED, 0, 0);
 			}
 
 			m_consoleSender.shutdown();
@@ -512,11 +607,17 @@ final class GrinderProcess {
 
 	private class ReportToConsoleTimerTask extends TimerTask {
 		private final ThreadSynchronisation m_threads;
+		private volatile boolean m_finalReport = false;
 
 		public ReportToConsoleTimerTask(final ThreadSynchronisation threads) {
 			m_threads = threads;
 		}
 
+		public void runFinally() {
+			m_finalReport = true;
+			run();
+		}
+
 		@Override
 		public void run() {
 			if (!m_communicationShutdown) {
@@ -528,16 +629,38 @@ final class GrinderProcess {
 					// avoid a race condition when new tests are being added.
 					final Collection<Test> newTests = m_testRegistryImplementation.getNewTests();
 
-					if (newTests != null) {
-						m_consoleSender.send(new RegisterTestsMessage(newTests));
+					if (sample.size() > 0 && !m_reportTimesToConsole) {
+						m_testStatisticsHelper.removeTestTimeFromSample(sample);
 					}
 
-					if (sample.size() > 0) {
-						if (!m_reportTimesToConsole) {
-							m_testStatisticsHelper.removeTestTimeFromSample(sample);
+					// The histograms of the interval travel with its statistics.
+					final LatencyHistograms histograms = m_latencyRecorder.drain();
+					final LatencyHistograms reportedHistograms = m_reportTimesToConsole ? histograms : null;
+
+					final List<AbstractReportMessage> reports = drainReports(sample, histograms);
+
+					if (m_aggregatorSender != null) {
+						// All reports of the interval go to the agent at once, which forwards them together.
+						final ReportProcessStatisticsMessage report = new ReportProcessStatisticsMessage(newTests,
+								sample.size() > 0 ? sample : null, reportedHistograms, reports, m_finalReport);
+						if (m_finalReport) {
+							sendFinalReport(report);
+						} else {
+							// Sent even though empty, which keeps the connection to the agent active.
+							m_aggregatorSender.send(report);
+						}
+					} else {
+						if (newTests != null) {
+							m_consoleSender.send(new RegisterTestsMessage(newTests));
+						}
+
+						if (sample.size() > 0) {
+							m_consoleSender.send(new ReportTestStatisticsMessage(sample, reportedHistograms));
 						}
 
-						m_consoleSender.send(new ReportStatisticsMessage(sample));
+						for (AbstractReportMessage each : reports) {
+							m_consoleSender.send(each);
+						}
 					}
 
 					sendStatusMessage(ProcessReport.STATE_RUNNING, m_threads.getNumberOfRunningThreads(),
@@ -551,14 +674,98 @@ final class GrinderProcess {
 		}
 	}
 
-	private void sendStatusMessage(final short state, final short numberOfThreads, final short totalNumberOfThreads)
+	private ClientSender connectAggregator(final GrinderProperties properties, final WorkerIdentity workerIdentity) {
+		final int port = properties.getInt(GRINDER_PROP_AGGREGATOR_PORT, 0);
+		if (port <= 0) {
+			return null;
+		}
+		try {
+			return ClientSender.connect(new Connector("127.0.0.1", port, ConnectionType.WORKER),
+					new WorkerAddress(workerIdentity));
+		} catch (final CommunicationException e) {
+			m_terminalLogger.warn("Failed to connect to the statistics aggregator of the agent. "
+					+ "Report to the console directly.", e);
+			return null;
+		}
+	}
+
+	private void sendFinalReport(final ReportProcessStatisticsMessage report) {
+		// The agent answers once it has forwarded all reports of this process, so that the console
+		// has them before this process reports that it's finished. The message inside the request
+		// doesn't get the address of the connection, so it tells the worker by itself.
+		report.setWorkerIdentity(m_initialisationMessage.getWorkerIdentity());
+		try {
+			m_aggregatorSender.blockingSend(report);
+		} catch (final CommunicationException e) {
+			m_terminalLogger.warn("The agent didn't confirm the final report of this process.", e);
+		}
+	}
+
+	private List<AbstractReportMessage> drainReports(final TestStatisticsMap sample,
+			final LatencyHistograms histograms) {
+		final List<AbstractReportMessage> reports = new ArrayList<AbstractReportMessage>();
+
+		if (m_reportProcessSummary) {
+			// Reported even though nothing was tested so that an idle process shows up as well.
+			final StatisticsSet totals = sample.nonCompositeStatisticsTotals();
+			final TestStatisticsQueries queries = m_statisticsServices.getTestStatisticsQueries();
+			final long testTime = totals.getSum(
+					m_statisticsServices.getStatisticsIndexMap().getLongSampleIndex("timedTests"));
+			reports.add(new ReportProcessSummaryMessage(queries.getNumberOfTests(totals),
+					queries.getNumberOfErrors(totals), testTime,
+					histograms != null && m_reportTimesToConsole ? histograms.getTotal() : null));
+		}
+
+		if (m_timeBucketRecorder != null) {
+			final TimeBuckets timeBuckets = m_timeBucketRecorder.drain();
+			if (timeBuckets != null) {
+				reports.add(new ReportTimeBucketMessage(timeBuckets));
+			}
+			final long droppedTests = m_timeBucketRecorder.getDroppedTests();
+			if (droppedTests > m_reportedDroppedTests) {
+				m_logger.warn("{} tests are not counted in the {} ms time buckets because the report was late.",
+						droppedTests - m_reportedDroppedTests, m_timeBucketRecorder.getBucketSize());
+				m_reportedDroppedTests = droppedTests;
+			}
+		}
+
+		final long[] iterations = IterationScheduleRecorder.getInstance().drain();
+		if (iterations != null) {
+			reports.add(new ReportIterationScheduleMessage(iterations[0], iterations[1]));
+		}
+
+		final long[] dnsCache = DnsCacheRecorder.getInstance().drain();
+		if (dnsCache != null) {
+			reports.add(new ReportDnsCacheMessage(dnsCache[0], dnsCache[1]));
+		}
+
+		final Map<Integer, Map<String, Long>> errors = ErrorRecorder.getInstance().drain();
+		if (errors != null) {
+			reports.add(new ReportErrorsMessage(errors));
+		}
+
+		final GeneratorLoadMonitor.Sample load = GeneratorLoadMonitor.getInstance().drain();
+		if (load != null) {
+			reports.add(new ReportGeneratorLoadMessage(load.getProcessCpu(), load.getSystemCpu(),
+					load.getGcTime(), load.getMaxSchedulingLag(), load.getInterval()));
+		}
+		return reports;
+	}
+
+	private void sendStatusMessage(final short state, final int numberOfThreads, final int totalNumberOfThreads)
 			throws CommunicationException {
 
-		m_consoleSender.send(new WorkerProcessReportMessage(state, numberOfThreads, totalNumberOfThreads));
+		// The report message carries shorts. Thread counts beyond it are only possible with virtual threads.
+		m_consoleSender.send(new WorkerProcessReportMessage(state, toShort(numberOfThreads),
+				toShort(totalNumberOfThreads)));
 
 		m_consoleSender.flush();
 	}
 
+	private static short toShort(final int value) {
+		return (short) Math.min(value, Short.MAX_VALUE);
+	}
+
 	private class ShutdownTimerTask extends TimerTask {
 		@Override
 		public void run() {
@@ -579,13 +786,14 @@ final class GrinderProcess {
 	 * </p>
 	 */
 	static class ThreadSynchronisation implements WorkerThreadSynchronisation {
-		final BooleanCondition m_started = new BooleanCondition();
+		// Not a monitor, so that the virtual threads waiting for the start release their carrier threads.
+		final CountDownLatch m_started = new CountDownLatch(1);
 		final Condition m_threadEventCondition;
 
-		short m_numberCreated = 0;
-		short m_numberAwaitingStart = 0;
-		short m_numberFinished = 0;
-		short m_numberRunning = 0;
+		int m_numberCreated = 0;
+		int m_numberAwaitingStart = 0;
+		int m_numberFinished = 0;
+		int m_numberRunning = 0;
 
 		ThreadSynchronisation(final Condition condition) {
 			m_threadEventCondition = condition;
@@ -595,9 +803,9 @@ final class GrinderProcess {
 		/**
 		 * The number of worker threads that have been created but not run to completion.
 		 */
-		public short getNumberOfRunningThreads() {
+		public int getNumberOfRunningThreads() {
 			synchronized (m_threadEventCondition) {
-				return (short) (m_numberCreated - m_numberFinished);
+				return m_numberCreated - m_numberFinished;
 			}
 		}
 
@@ -614,7 +822,7 @@ final class GrinderProcess {
 		/**
 		 * The number of worker threads that have been created.
 		 */
-		public short getTotalNumberOfThreads() {
+		public int getTotalNumberOfThreads() {
 			synchronized (m_threadEventCondition) {
 				return m_numberCreated;
 			}
@@ -636,7 +844,7 @@ final class GrinderProcess {
 				m_numberAwaitingStart = 0;
 			}
 
-			m_started.set(true);
+			m_started.countDown();
 		}
 
 		@Override
@@ -649,7 +857,11 @@ final class GrinderProcess {
 				}
 			}
 
-			m_started.await(true);
+			try {
+				m_started.await();
+			} catch (final InterruptedException e) {
+				throw new UncheckedInterruptedException(e);
+			}
 		}
 
 		@Override
@@ -705,7 +917,7 @@ final class GrinderProcess {
 		}
 
 		@Override
-		public short getNumberOfRunningThreads() {
+		public int getNumberOfRunningThreads() {
 			synchronized (m_threadEventCondition) {
 				return m_numberRunning;
 			}
@@ -736,9 +948,9 @@ final class GrinderProcess {
 		/**
 		 * The number of worker threads that have been created but not run to completion.
 		 */
-		public short getNumberOfNotFinishedThreads() {
+		public int getNumberOfNotFinishedThreads() {
 			synchronized (m_threadEventCondition) {
-				return (short) (m_numberCreated - m_numberFinished);
+				return m_numberCreated - m_numberFinished;
 			}
 		}
 
@@ -801,6 +1013,7 @@ final class GrinderProcess {
 		private final ThreadSynchronisation m_threadSynchronisation;
 		private final ScriptEngine m_scriptEngine;
 		private final WorkerRunnableFactory m_defaultWorkerRunnableFactory;
+		private final VuserThreadFactory m_threadFactory;
 
 		private final ProcessLifeCycleListener m_threadLifeCycleCallbacks = new ProcessLifeCycleListener() {
 			@Override
@@ -827,9 +1040,11 @@ final class GrinderProcess {
 		private int m_i = -1;
 
 		private ThreadStarterImplementation(final ThreadSynchronisation threadSynchronisation,
-		                                    final ScriptEngine scriptEngine) {
+		                                    final ScriptEngine scriptEngine,
+		                                    final VuserThreadFactory threadFactory) {
 			m_threadSynchronisation = threadSynchronisation;
 			m_scriptEngine = scriptEngine;
+			m_threadFactory = threadFactory;
 
 			m_defaultWorkerRunnableFactory = new WorkerRunnableFactory() {
 				@Override
@@ -847,7 +1062,8 @@ final class GrinderProcess {
 			}
 
 			final ThreadContext threadContext = new ThreadContextImplementation(
-					m_initialisationMessage.getProperties(), m_statisticsServices, threadNumber, m_dataLogger);
+					m_initialisationMessage.getProperties(), m_statisticsServices, threadNumber, m_dataLogger,
+					m_latencyRecorder, m_timeBucketRecorder);
 
 			final WorkerRunnableFactory workerRunnableFactory;
 
@@ -866,14 +1082,73 @@ final class GrinderProcess {
 					m_threadLifeCycleCallbacks, m_initialisationMessage.getProperties(), m_sleeper,
 					workerRunnableFactory);
 
-			final Thread t = new Thread(runnable, "thread " + threadNumber);
-			t.setDaemon(true);
+			final Thread t = m_threadFactory.newThread(runnable, "thread " + threadNumber);
 			t.start();
 
 			return threadNumber;
 		}
 	}
 
+	/**
+	 * Create the threads which run the virtual users.
+	 * <p/>
+	 * In {@value #THREAD_MODE_VIRTUAL} mode, virtual threads are used so that a worker process can hold far more
+	 * virtual users waiting on I/O than platform threads allow. As the worker is built for Java 8, the virtual
+	 * threads are created reflectively and the platform threads are used if the running JVM doesn't support them.
+	 * <p/>
+	 * The virtual users sleep with {@link ParkingSleeper} and wait for the start on a latch, so they don't hold their
+	 * carrier threads there. Before Java 24, a virtual thread blocked in a monitor still pins its carrier, which
+	 * includes the barriers of the script and the libraries synchronizing on monitors such as HTTPClient. Those
+	 * waits are limited to about the number of the carrier threads at once.
+	 * <p/>
+	 * Package scope for unit tests.
+	 */
+	static class VuserThreadFactory {
+		private final Object m_virtualThreadBuilder;
+		private final Method m_unstarted;
+
+		private VuserThreadFactory(final Object virtualThreadBuilder, final Method unstarted) {
+			m_virtualThreadBuilder = virtualThreadBuilder;
+			m_unstarted = unstarted;
+		}
+
+		static VuserThreadFactory create(final String mode, final Logger logger) {
+			if (THREAD_MODE_VIRTUAL.equalsIgnoreCase(mode)) {
+				try {
+					final Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+					final Method unstarted = Class.forName("java.lang.Thread$Builder")
+							.getMethod("unstarted", Runnable.class);
+					return new VuserThreadFactory(builder, unstarted);
+				} catch (final Exception e) {
+					logger.warn("Virtual threads are not supported by Java {}. Platform threads are used instead.",
+							getProperty("java.version"));
+				}
+			}
+			return new VuserThreadFactory(null, null);
+		}
+
+		String getMode() {
+			return m_virtualThreadBuilder == null ? THREAD_MODE_PLATFORM : THREAD_MODE_VIRTUAL;
+		}
+
+		Thread newThread(final Runnable runnable, final String name) throws EngineException {
+			final Thread thread;
+			if (m_virtualThreadBuilder == null) {
+				thread = new Thread(runnable);
+				thread.setDaemon(true);
+			} else {
+				try {
+					// Virtual threads are always daemon threads.
+					thread = (Thread) m_unstarted.invoke(m_virtualThreadBuilder, runnable);
+				} catch (final Exception e) {
+					throw new EngineException("Failed to create the virtual thread " + name, e);
+				}
+			}
+			thread.setName(name);
+			return thread;
+		}
+	}
+
 	/**
 	 * Package scope for unit tests.
 	 */
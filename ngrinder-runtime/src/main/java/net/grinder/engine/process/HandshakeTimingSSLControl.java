@@ -0,0 +1,222 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.grinder.engine.process;
+
+import net.grinder.script.InvalidContextException;
+import net.grinder.script.SSLControl;
+import net.grinder.script.Statistics;
+import org.ngrinder.statistics.HttpPhaseStatistics;
+
+import javax.net.ssl.*;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.security.GeneralSecurityException;
+import java.security.KeyManagementException;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SSLControl} which measures the TLS handshakes of the sockets created from its SSL
+ * contexts.
+ * <p/>
+ * The HTTP plugin creates the SSL sockets of its connections from the SSL context of this
+ * control. The sockets it creates are handshaken right away instead of on the first write, so
+ * that the handshake time is added to the test in progress as {@link HttpPhaseStatistics#TLS_TIME_KEY}.
+ * It's the same time the first write would have waited for.
+ *
+ * @since 3.5.3
+ */
+final class HandshakeTimingSSLControl implements SSLControl {
+	private final SSLControl delegate;
+	private final Statistics statistics;
+
+	HandshakeTimingSSLControl(SSLControl delegate, Statistics statistics) {
+		this.delegate = delegate;
+		this.statistics = statistics;
+	}
+
+	@Override
+	public void setKeyManagers(KeyManager[] keyManagers) throws InvalidContextException {
+		delegate.setKeyManagers(keyManagers);
+	}
+
+	@Override
+	public void setKeyStoreFile(String keyStoreFileName, String password, String keyStoreType)
+			throws GeneralSecurityException, InvalidContextException, IOException {
+		delegate.setKeyStoreFile(keyStoreFileName, password, keyStoreType);
+	}
+
+	@Override
+	public void setKeyStoreFile(String keyStoreFileName, String password)
+			throws GeneralSecurityException, InvalidContextException, IOException {
+		delegate.setKeyStoreFile(keyStoreFileName, password);
+	}
+
+	@Override
+	public void setKeyStore(InputStream keyStoreInputStream, String password, String keyStoreType)
+			throws GeneralSecurityException, InvalidContextException, IOException {
+		delegate.setKeyStore(keyStoreInputStream, password, keyStoreType);
+	}
+
+	@Override
+	public void setKeyStore(InputStream keyStoreInputStream, String password)
+			throws GeneralSecurityException, InvalidContextException, IOException {
+		delegate.setKeyStore(keyStoreInputStream, password);
+	}
+
+	/**
+	 * Get the SSL context of the current thread. It's wrapped on each call, which the HTTP plugin
+	 * makes only when it opens a new connection.
+	 *
+	 * @return SSL context whose sockets are handshaken when they are created
+	 * @throws SSLContextFactoryException if the context can't be created
+	 */
+	@Override
+	public SSLContext getSSLContext() throws SSLContextFactoryException {
+		SSLContext context = delegate.getSSLContext();
+		return new TimingSSLContext(new TimingSSLContextSpi(context, statistics), context);
+	}
+
+	@Override
+	public boolean getShareContextBetweenRuns() {
+		return delegate.getShareContextBetweenRuns();
+	}
+
+	@Override
+	public void setShareContextBetweenRuns(boolean b) {
+		delegate.setShareContextBetweenRuns(b);
+	}
+
+	private static final class TimingSSLContext extends SSLContext {
+		private TimingSSLContext(SSLContextSpi spi, SSLContext context) {
+			super(spi, context.getProvider(), context.getProtocol());
+		}
+	}
+
+	private static final class TimingSSLContextSpi extends SSLContextSpi {
+		private final SSLContext context;
+		private final Statistics statistics;
+
+		private TimingSSLContextSpi(SSLContext context, Statistics statistics) {
+			this.context = context;
+			this.statistics = statistics;
+		}
+
+		@Override
+		protected void engineInit(KeyManager[] keyManagers, TrustManager[] trustManagers, SecureRandom random)
+				throws KeyManagementException {
+			context.init(keyManagers, trustManagers, random);
+		}
+
+		@Override
+		protected SSLSocketFactory engineGetSocketFactory() {
+			return new TimingSSLSocketFactory(context.getSocketFactory(), statistics);
+		}
+
+		@Override
+		protected SSLServerSocketFactory engineGetServerSocketFactory() {
+			return context.getServerSocketFactory();
+		}
+
+		@Override
+		protected SSLEngine engineCreateSSLEngine() {
+			return context.createSSLEngine();
+		}
+
+		@Override
+		protected SSLEngine engineCreateSSLEngine(String host, int port) {
+			return context.createSSLEngine(host, port);
+		}
+
+		@Override
+		protected SSLSessionContext engineGetServerSessionContext() {
+			return context.getServerSessionContext();
+		}
+
+		@Override
+		protected SSLSessionContext engineGetClientSessionContext() {
+			return context.getClientSessionContext();
+		}
+	}
+
+	private static final class TimingSSLSocketFactory extends SSLSocketFactory {
+		private final SSLSocketFactory delegate;
+		private final Statistics statistics;
+
+		private TimingSSLSocketFactory(SSLSocketFactory delegate, Statistics statistics) {
+			this.delegate = delegate;
+			this.statistics = statistics;
+		}
+
+		@Override
+		public String[] getDefaultCipherSuites() {
+			return delegate.getDefaultCipherSuites();
+		}
+
+		@Override
+		public String[] getSupportedCipherSuites() {
+			return delegate.getSupportedCipherSuites();
+		}
+
+		@Override
+		public Socket createSocket() throws IOException {
+			// Not connected yet.
+			return delegate.createSocket();
+		}
+
+		@Override
+		public Socket createSocket(Socket socket, String host, int port, boolean autoClose) throws IOException {
+			return handshake(delegate.createSocket(socket, host, port, autoClose));
+		}
+
+		@Override
+		public Socket createSocket(String host, int port) throws IOException {
+			return handshake(delegate.createSocket(host, port));
+		}
+
+		@Override
+		public Socket createSocket(String host, int port, InetAddress localHost, int localPort) throws IOException {
+			return handshake(delegate.createSocket(host, port, localHost, localPort));
+		}
+
+		@Override
+		public Socket createSocket(InetAddress host, int port) throws IOException {
+			return handshake(delegate.createSocket(host, port));
+		}
+
+		@Override
+		public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort)
+				throws IOException {
+			return handshake(delegate.createSocket(address, port, localAddress, localPort));
+		}
+
+		private Socket handshake(Socket socket) throws IOException {
+			if (!(socket instanceof SSLSocket)) {
+				return socket;
+			}
+			final long start = System.nanoTime();
+			try {
+				((SSLSocket) socket).startHandshake();
+			} catch (IOException e) {
+				socket.close();
+				throw e;
+			}
+			HttpPhaseStatistics.recordHandshake(statistics,
+					TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+			return socket;
+		}
+	}
+}
@@ -0,0 +1,131 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.grinder.engine.process;
+
+import net.grinder.common.UncheckedInterruptedException;
+import net.grinder.util.Sleeper;
+import net.grinder.util.TimeAuthority;
+import org.slf4j.Logger;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@link Sleeper} which parks the sleeping threads instead of waiting on a monitor, so that a
+ * sleeping virtual thread releases its carrier thread. Otherwise, it sleeps as
+ * {@link net.grinder.util.SleeperImplementation} does.
+ *
+ * @since 3.5.3
+ */
+final class ParkingSleeper implements Sleeper {
+	private final TimeAuthority m_timeAuthority;
+	private final Logger m_logger;
+	private final double m_factor;
+	private final double m_limit9975Factor;
+
+	private final Set<Thread> m_sleepingThreads = ConcurrentHashMap.newKeySet();
+	private volatile boolean m_shutdown = false;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param timeAuthority   time authority
+	 * @param logger          logger to log the sleep time. null not to log.
+	 * @param factor          factor applied to every sleep time
+	 * @param limit9975Factor 99.75% of the normal sleep times are within this factor of the given time
+	 */
+	ParkingSleeper(TimeAuthority timeAuthority, Logger logger, double factor, double limit9975Factor) {
+		if (factor < 0 || limit9975Factor < 0) {
+			throw new IllegalArgumentException("Factors must be positive");
+		}
+		m_timeAuthority = timeAuthority;
+		m_logger = logger;
+		m_factor = factor;
+		m_limit9975Factor = limit9975Factor;
+	}
+
+	@Override
+	public void shutdown() {
+		m_shutdown = true;
+		for (Thread each : m_sleepingThreads) {
+			LockSupport.unpark(each);
+		}
+	}
+
+	@Override
+	public long getTimeInMilliseconds() {
+		return m_timeAuthority.getTimeInMilliseconds();
+	}
+
+	@Override
+	public void sleepNormal(long meanTime) throws ShutdownException {
+		sleepNormal(meanTime, (long) ((meanTime * m_limit9975Factor) / 3.0));
+	}
+
+	@Override
+	public void sleepNormal(long meanTime, long sigma) throws ShutdownException {
+		checkShutdown();
+		if (meanTime > 0) {
+			if (sigma > 0) {
+				doSleep(meanTime + (long) (ThreadLocalRandom.current().nextGaussian() * sigma));
+			} else {
+				doSleep(meanTime);
+			}
+		}
+	}
+
+	@Override
+	public void sleepFlat(long maximumTime) throws ShutdownException {
+		checkShutdown();
+		if (maximumTime > 0) {
+			doSleep(ThreadLocalRandom.current().nextLong(maximumTime));
+		}
+	}
+
+	private void doSleep(long time) throws ShutdownException {
+		final long factoredTime = (long) (time * m_factor);
+		if (m_logger != null) {
+			m_logger.info("sleeping for {} ms", factoredTime);
+		}
+		if (time <= 0) {
+			return;
+		}
+		final Thread thread = Thread.currentThread();
+		m_sleepingThreads.add(thread);
+		try {
+			long now = m_timeAuthority.getTimeInMilliseconds();
+			final long wakeUpTime = now + factoredTime;
+			while (now < wakeUpTime) {
+				// The thread is registered before this check, so a shutdown after it unparks the thread.
+				checkShutdown();
+				LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(wakeUpTime - now));
+				if (Thread.interrupted()) {
+					throw new UncheckedInterruptedException(new InterruptedException());
+				}
+				now = m_timeAuthority.getTimeInMilliseconds();
+			}
+		} finally {
+			m_sleepingThreads.remove(thread);
+		}
+	}
+
+	private void checkShutdown() throws ShutdownException {
+		if (m_shutdown) {
+			throw new ShutdownException("Shut down");
+		}
+	}
+}
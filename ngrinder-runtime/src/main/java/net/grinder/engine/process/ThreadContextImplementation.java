@@ -38,6 +38,11 @@ import net.grinder.statistics.StatisticsSet;
 import net.grinder.util.ListenerSupport;
 import net.grinder.util.ListenerSupport.Informer;
 
+import org.ngrinder.clock.ClockCorrection;
+import org.ngrinder.statistics.HttpPhaseStatistics;
+import org.ngrinder.statistics.LatencyCorrection;
+import org.ngrinder.statistics.LatencyHistogramRecorder;
+import org.ngrinder.statistics.TimeBucketRecorder;
 import org.slf4j.Logger;
 import org.slf4j.Marker;
 import org.slf4j.MarkerFactory;
@@ -76,6 +81,21 @@ final class ThreadContextImplementation implements ThreadContext {
 	public ThreadContextImplementation(GrinderProperties properties,
 			StatisticsServices statisticsServices, int threadNumber,
 			Logger dataLogger) throws EngineException {
+		this(properties, statisticsServices, threadNumber, dataLogger, null, null);
+	}
+
+	/**
+	 * Constructor which also records the test time of each successful dispatch into the given
+	 * latency recorder, and each finished dispatch into the given time bucket recorder.
+	 *
+	 * @param latencyRecorder    recorder. null not to record.
+	 * @param timeBucketRecorder recorder. null not to record.
+	 * @since 3.5.3
+	 */
+	public ThreadContextImplementation(GrinderProperties properties,
+			StatisticsServices statisticsServices, int threadNumber,
+			Logger dataLogger, LatencyHistogramRecorder latencyRecorder,
+			TimeBucketRecorder timeBucketRecorder) throws EngineException {
 
 		m_threadNumber = threadNumber;
 		m_threadMarker = MarkerFactory.getMarker("thread-" + threadNumber);
@@ -87,20 +107,20 @@ final class ThreadContextImplementation implements ThreadContext {
 					dataLogger, statisticsServices.getDetailStatisticsView()
 							.getExpressionViews(), m_threadNumber);
 
-			m_dispatchResultReporter = new DispatchResultReporter() {
+			m_dispatchResultReporter = withConsoleClock(withLatencyRecorder(withHttpPhases(new DispatchResultReporter() {
 				public void report(Test test, long startTime,
 						StatisticsSet statistics) {
 					threadDataLogger.report(getRunNumber(), test, startTime,
 							statistics);
 				}
-			};
+			}, statisticsServices), statisticsServices, latencyRecorder, timeBucketRecorder));
 		} else {
-			m_dispatchResultReporter = new DispatchResultReporter() {
+			m_dispatchResultReporter = withConsoleClock(withLatencyRecorder(withHttpPhases(new DispatchResultReporter() {
 				public void report(Test test, long startTime,
 						StatisticsSet statistics) {
 					// Null reporter.
 				}
-			};
+			}, statisticsServices), statisticsServices, latencyRecorder, timeBucketRecorder));
 		}
 
 		registerThreadLifeCycleListener(new SkeletonThreadLifeCycleListener() {
@@ -110,6 +130,70 @@ final class ThreadContextImplementation implements ThreadContext {
 		});
 	}
 
+	/*
+	 * Convert the start time into the console time, so that the data log and the time buckets of
+	 * the agents line up even if their clocks are off.
+	 */
+	private static DispatchResultReporter withConsoleClock(
+			final DispatchResultReporter delegate) {
+		final ClockCorrection clockCorrection = ClockCorrection.getInstance();
+		return new DispatchResultReporter() {
+			public void report(Test test, long startTime,
+					StatisticsSet statistics) {
+				delegate.report(test, clockCorrection.toConsoleTime(startTime),
+						statistics);
+			}
+		};
+	}
+
+	/*
+	 * Complete the HTTP request phases of each dispatch before it's logged and accumulated.
+	 */
+	private static DispatchResultReporter withHttpPhases(
+			final DispatchResultReporter delegate,
+			StatisticsServices statisticsServices) {
+		final HttpPhaseStatistics httpPhases = new HttpPhaseStatistics(
+				statisticsServices.getStatisticsIndexMap());
+		final TestStatisticsHelper testStatisticsHelper = new TestStatisticsHelperImplementation(
+				statisticsServices.getStatisticsIndexMap());
+		return new DispatchResultReporter() {
+			public void report(Test test, long startTime,
+					StatisticsSet statistics) {
+				httpPhases.complete(statistics, testStatisticsHelper.getSuccess(statistics),
+						testStatisticsHelper.getTestTime(statistics));
+				delegate.report(test, startTime, statistics);
+			}
+		};
+	}
+
+	private static DispatchResultReporter withLatencyRecorder(
+			final DispatchResultReporter delegate,
+			StatisticsServices statisticsServices,
+			final LatencyHistogramRecorder latencyRecorder,
+			final TimeBucketRecorder timeBucketRecorder) {
+		if (latencyRecorder == null && timeBucketRecorder == null) {
+			return delegate;
+		}
+		final TestStatisticsHelper testStatisticsHelper = new TestStatisticsHelperImplementation(
+				statisticsServices.getStatisticsIndexMap());
+		return new DispatchResultReporter() {
+			public void report(Test test, long startTime,
+					StatisticsSet statistics) {
+				delegate.report(test, startTime, statistics);
+				final boolean success = testStatisticsHelper.getSuccess(statistics);
+				final long testTime = testStatisticsHelper.getTestTime(statistics);
+				if (success && latencyRecorder != null) {
+					latencyRecorder.record(test.getNumber(), testTime,
+							statistics.isComposite(), LatencyCorrection.current());
+				}
+				// Composite tests are not counted not to count the same transaction twice.
+				if (timeBucketRecorder != null && !statistics.isComposite()) {
+					timeBucketRecorder.record(startTime + testTime, testTime, success);
+				}
+			}
+		};
+	}
+
 	public int getThreadNumber() {
 		return m_threadNumber;
 	}
@@ -0,0 +1,114 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.grinder.engine.process;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Enumeration;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Loads the classes of the worker framework from the class path and exits, so that the JVM
+ * started with <code>-XX:ArchiveClassesAtExit</code> archives them for the class data sharing of
+ * the worker processes.
+ * <p/>
+ * The agent runs it with the class path of the workers. The classes are loaded without being
+ * initialised, and the ones which can't be loaded are skipped.
+ *
+ * @since 3.5.3
+ */
+public final class WorkerClassDump {
+	private static final String[] PACKAGES = {
+		"net/grinder/",
+		"org/ngrinder/",
+		"HTTPClient/",
+		"groovy/lang/",
+		"org/codehaus/groovy/runtime/",
+		"org/codehaus/groovy/reflection/",
+		"org/codehaus/groovy/vmplugin/",
+		"org/codehaus/groovy/control/",
+		"org/codehaus/groovy/ast/",
+		"org/codehaus/groovy/classgen/",
+		"org/python/core/",
+		"ch/qos/logback/",
+		"org/slf4j/",
+		"org/junit/",
+		"org/hamcrest/"
+	};
+
+	/**
+	 * The console and its UI never run in a worker.
+	 */
+	private static final String[] EXCLUDED_PACKAGES = {
+		"net/grinder/console/"
+	};
+
+	private WorkerClassDump() {
+	}
+
+	/**
+	 * Main method.
+	 *
+	 * @param args not used
+	 */
+	public static void main(String[] args) {
+		ClassLoader classLoader = WorkerClassDump.class.getClassLoader();
+		int loaded = 0;
+		for (String each : System.getProperty("java.class.path", "").split(File.pathSeparator)) {
+			if (each.endsWith(".jar")) {
+				loaded += load(new File(each), classLoader);
+			}
+		}
+		new WorkerWarmUp().run();
+		System.out.println(loaded + " classes are loaded");
+		System.exit(0);
+	}
+
+	private static int load(File jar, ClassLoader classLoader) {
+		int loaded = 0;
+		try (JarFile jarFile = new JarFile(jar)) {
+			Enumeration<JarEntry> entries = jarFile.entries();
+			while (entries.hasMoreElements()) {
+				String name = entries.nextElement().getName();
+				if (!name.endsWith(".class") || name.contains("-") || !isWorkerClass(name)) {
+					continue;
+				}
+				try {
+					Class.forName(name.substring(0, name.length() - 6).replace('/', '.'), false, classLoader);
+					loaded++;
+				} catch (Throwable e) {
+					// Depends on a class which is not on the class path.
+				}
+			}
+		} catch (IOException e) {
+			System.err.println("Failed to read " + jar + " : " + e.getMessage());
+		}
+		return loaded;
+	}
+
+	private static boolean isWorkerClass(String name) {
+		for (String each : EXCLUDED_PACKAGES) {
+			if (name.startsWith(each)) {
+				return false;
+			}
+		}
+		for (String each : PACKAGES) {
+			if (name.startsWith(each)) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
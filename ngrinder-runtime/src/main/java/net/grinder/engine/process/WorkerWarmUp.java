@@ -0,0 +1,81 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.grinder.engine.process;
+
+/**
+ * Loads the classes every script needs while the worker process waits for the initialisation
+ * message, so that a process the agent started ahead of the test doesn't load them after the
+ * test started.
+ * <p/>
+ * The classes of the other script language may not be on the class path. They are skipped.
+ *
+ * @since 3.5.3
+ */
+final class WorkerWarmUp implements Runnable {
+	/**
+	 * Classes which are loaded but not initialised.
+	 */
+	private static final String[] CLASSES = {
+		"net.grinder.scriptengine.groovy.GroovyScriptEngineService",
+		"net.grinder.scriptengine.groovy.junit.GrinderRunner",
+		"groovy.lang.GroovyClassLoader",
+		"org.codehaus.groovy.control.CompilationUnit",
+		"net.grinder.scriptengine.jython.JythonScriptEngineService",
+		"org.python.util.PythonInterpreter",
+		"net.grinder.plugin.http.HTTPRequest",
+		"net.grinder.plugin.http.HTTPPluginControl",
+		"HTTPClient.HTTPConnection",
+		"org.junit.runner.JUnitCore"
+	};
+
+	/**
+	 * Classes which are initialised too. Their initialisation has no side effect but the cost.
+	 */
+	private static final String[] INITIALISED_CLASSES = {
+		// Builds the meta class registry of the Groovy runtime.
+		"groovy.lang.GroovySystem"
+	};
+
+	WorkerWarmUp() {
+	}
+
+	/**
+	 * Start to load the classes in a daemon thread.
+	 */
+	static void start() {
+		Thread thread = new Thread(new WorkerWarmUp(), "worker warm up");
+		thread.setDaemon(true);
+		thread.setPriority(Thread.MIN_PRIORITY);
+		thread.start();
+	}
+
+	@Override
+	public void run() {
+		ClassLoader classLoader = WorkerWarmUp.class.getClassLoader();
+		for (String each : CLASSES) {
+			load(each, false, classLoader);
+		}
+		for (String each : INITIALISED_CLASSES) {
+			load(each, true, classLoader);
+		}
+	}
+
+	private static void load(String className, boolean initialise, ClassLoader classLoader) {
+		try {
+			Class.forName(className, initialise, classLoader);
+		} catch (Throwable e) {
+			// Not on the class path or not loadable here. It's loaded or fails as usual later.
+		}
+	}
+}
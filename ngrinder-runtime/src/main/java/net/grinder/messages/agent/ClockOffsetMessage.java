@@ -0,0 +1,24 @@
+package net.grinder.messages.agent;
+
+import net.grinder.communication.Message;
+import org.ngrinder.clock.ClockOffsetEstimator.Estimate;
+
+/**
+ * Message that tells an agent how far its clock is from the console clock. The agent passes it
+ * on to its worker processes, which convert their timestamps into the console time.
+ *
+ * @since 3.5.3
+ */
+public final class ClockOffsetMessage implements Message {
+	private static final long serialVersionUID = 4190865264837320951L;
+
+	private final Estimate estimate;
+
+	public ClockOffsetMessage(Estimate estimate) {
+		this.estimate = estimate;
+	}
+
+	public Estimate getEstimate() {
+		return estimate;
+	}
+}
@@ -0,0 +1,14 @@
+package net.grinder.messages.agent;
+
+import net.grinder.communication.Message;
+
+/**
+ * Message that the agent answers to the final report of a worker process, once all reports of
+ * the process are forwarded to the console. The process reports that it's finished only after
+ * this, so that the console doesn't miss the last interval of the process.
+ *
+ * @since 3.5.3
+ */
+public final class ReportsForwardedMessage implements Message {
+	private static final long serialVersionUID = -4436204391626871953L;
+}
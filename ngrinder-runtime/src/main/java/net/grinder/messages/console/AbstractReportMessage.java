@@ -0,0 +1,57 @@
+package net.grinder.messages.console;
+
+import net.grinder.common.processidentity.WorkerIdentity;
+import net.grinder.communication.Address;
+import net.grinder.communication.AddressAwareMessage;
+
+/**
+ * Base of the messages which a worker process or an agent reports to the console periodically.
+ * <p/>
+ * The console knows the sender by the address of the connection, so that it applies the reports
+ * of each sender in the order they were sent. The reports which the agent relays for its worker
+ * processes carry the identity of the worker explicitly.
+ *
+ * @since 3.5.3
+ */
+public abstract class AbstractReportMessage implements AddressAwareMessage {
+	private static final long serialVersionUID = 3520183750163125483L;
+
+	private transient Address sourceAddress;
+	private WorkerIdentity workerIdentity;
+
+	@Override
+	public void setAddress(Address address) {
+		sourceAddress = address;
+	}
+
+	/**
+	 * Get the address of the connection which the message arrived through.
+	 *
+	 * @return address. null if the message didn't arrive through a connection.
+	 */
+	public Address getSourceAddress() {
+		return sourceAddress;
+	}
+
+	/**
+	 * Set the identity of the worker process which the report is about, when it's not sent by the
+	 * process itself.
+	 *
+	 * @param workerIdentity worker identity
+	 */
+	public void setWorkerIdentity(WorkerIdentity workerIdentity) {
+		this.workerIdentity = workerIdentity;
+	}
+
+	/**
+	 * Get the identity of the worker process which the report is about.
+	 *
+	 * @return worker identity. null if it's neither set nor sent by a worker process.
+	 */
+	public WorkerIdentity getWorkerIdentity() {
+		if (workerIdentity != null) {
+			return workerIdentity;
+		}
+		return sourceAddress instanceof WorkerAddress ? ((WorkerAddress) sourceAddress).getIdentity() : null;
+	}
+}
@@ -0,0 +1,60 @@
+package net.grinder.messages.console;
+
+import net.grinder.common.processidentity.AgentIdentity;
+import net.grinder.communication.Address;
+import net.grinder.communication.AddressAwareMessage;
+import net.grinder.communication.CommunicationException;
+
+/**
+ * Message that answers a clock ping with the agent times when the ping was received and when
+ * this answer was sent. The console knows the agent by the address of the connection.
+ *
+ * @since 3.5.3
+ */
+public final class ClockPongMessage implements AddressAwareMessage {
+	private static final long serialVersionUID = -6327340180564911062L;
+
+	private final long consoleSendTime;
+	private final long agentReceiveTime;
+	private final long agentSendTime;
+
+	private transient AgentAddress agentAddress;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param consoleSendTime  console time when the ping was sent
+	 * @param agentReceiveTime agent time when the ping was received
+	 * @param agentSendTime    agent time when this message is sent
+	 */
+	public ClockPongMessage(long consoleSendTime, long agentReceiveTime, long agentSendTime) {
+		this.consoleSendTime = consoleSendTime;
+		this.agentReceiveTime = agentReceiveTime;
+		this.agentSendTime = agentSendTime;
+	}
+
+	@Override
+	public void setAddress(Address address) throws CommunicationException {
+		try {
+			agentAddress = (AgentAddress) address;
+		} catch (ClassCastException e) {
+			throw new CommunicationException("Not an agent address", e);
+		}
+	}
+
+	public AgentIdentity getAgentIdentity() {
+		return agentAddress == null ? null : agentAddress.getIdentity();
+	}
+
+	public long getConsoleSendTime() {
+		return consoleSendTime;
+	}
+
+	public long getAgentReceiveTime() {
+		return agentReceiveTime;
+	}
+
+	public long getAgentSendTime() {
+		return agentSendTime;
+	}
+}
@@ -0,0 +1,28 @@
+package net.grinder.messages.console;
+
+/**
+ * Message that reports the host name lookups served from or missed by the DNS cache of a worker
+ * process during the last report interval.
+ *
+ * @since 3.5.3
+ */
+public final class ReportDnsCacheMessage extends AbstractReportMessage {
+	private static final long serialVersionUID = 4417053912685207345L;
+
+	private final long hits;
+
+	private final long misses;
+
+	public ReportDnsCacheMessage(long hits, long misses) {
+		this.hits = hits;
+		this.misses = misses;
+	}
+
+	public long getHits() {
+		return hits;
+	}
+
+	public long getMisses() {
+		return misses;
+	}
+}
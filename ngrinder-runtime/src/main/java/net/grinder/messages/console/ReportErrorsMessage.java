@@ -0,0 +1,28 @@
+package net.grinder.messages.console;
+
+import java.util.Map;
+
+/**
+ * Message that reports the failures of a worker process during the last report interval counted
+ * by their categories.
+ *
+ * @since 3.5.3
+ */
+public final class ReportErrorsMessage extends AbstractReportMessage {
+	private static final long serialVersionUID = -6379201852314066327L;
+
+	private final Map<Integer, Map<String, Long>> errors;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param errors failure counts by the category by the test number
+	 */
+	public ReportErrorsMessage(Map<Integer, Map<String, Long>> errors) {
+		this.errors = errors;
+	}
+
+	public Map<Integer, Map<String, Long>> getErrors() {
+		return errors;
+	}
+}
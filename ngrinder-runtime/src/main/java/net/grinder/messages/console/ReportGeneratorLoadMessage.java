@@ -0,0 +1,56 @@
+package net.grinder.messages.console;
+
+/**
+ * Message that reports how busy a worker process was during the last report interval, so that
+ * the console can find the saturated load generators. The console knows the process and its
+ * agent by {@link #getWorkerIdentity()}.
+ *
+ * @since 3.5.3
+ */
+public final class ReportGeneratorLoadMessage extends AbstractReportMessage {
+	private static final long serialVersionUID = 5073152239148725046L;
+
+	private final double processCpu;
+	private final double systemCpu;
+	private final long gcTime;
+	private final long maxSchedulingLag;
+	private final long interval;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param processCpu       CPU used by the process over the capacity of the machine. negative if unknown.
+	 * @param systemCpu        CPU load of the machine. negative if unknown.
+	 * @param gcTime           GC time in milliseconds
+	 * @param maxSchedulingLag max scheduling lag in milliseconds
+	 * @param interval         measured interval in milliseconds
+	 */
+	public ReportGeneratorLoadMessage(double processCpu, double systemCpu, long gcTime, long maxSchedulingLag,
+									  long interval) {
+		this.processCpu = processCpu;
+		this.systemCpu = systemCpu;
+		this.gcTime = gcTime;
+		this.maxSchedulingLag = maxSchedulingLag;
+		this.interval = interval;
+	}
+
+	public double getProcessCpu() {
+		return processCpu;
+	}
+
+	public double getSystemCpu() {
+		return systemCpu;
+	}
+
+	public long getGcTime() {
+		return gcTime;
+	}
+
+	public long getMaxSchedulingLag() {
+		return maxSchedulingLag;
+	}
+
+	public long getInterval() {
+		return interval;
+	}
+}
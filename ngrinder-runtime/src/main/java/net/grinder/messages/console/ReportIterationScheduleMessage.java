@@ -0,0 +1,28 @@
+package net.grinder.messages.console;
+
+/**
+ * Message that reports the iterations which started late or were dropped by the arrival rate
+ * scheduling in a worker process during the last report interval.
+ *
+ * @since 3.5.3
+ */
+public final class ReportIterationScheduleMessage extends AbstractReportMessage {
+	private static final long serialVersionUID = -2260390287353497532L;
+
+	private final long lateIterations;
+
+	private final long droppedIterations;
+
+	public ReportIterationScheduleMessage(long lateIterations, long droppedIterations) {
+		this.lateIterations = lateIterations;
+		this.droppedIterations = droppedIterations;
+	}
+
+	public long getLateIterations() {
+		return lateIterations;
+	}
+
+	public long getDroppedIterations() {
+		return droppedIterations;
+	}
+}
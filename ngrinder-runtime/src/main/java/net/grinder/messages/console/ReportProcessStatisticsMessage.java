@@ -0,0 +1,64 @@
+package net.grinder.messages.console;
+
+import net.grinder.common.Test;
+import net.grinder.statistics.TestStatisticsMap;
+import org.ngrinder.statistics.LatencyHistograms;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Message that reports the new tests, the statistics, the test time histograms and the other
+ * reports of a worker process during the last report interval to the agent which aggregates them
+ * before reporting to the console.
+ *
+ * @since 3.5.3
+ */
+public final class ReportProcessStatisticsMessage extends AbstractReportMessage {
+	private static final long serialVersionUID = 2986420143457818803L;
+
+	private final Collection<Test> newTests;
+	private final TestStatisticsMap statistics;
+	private final LatencyHistograms histograms;
+	private final List<AbstractReportMessage> reports;
+	private final boolean finalReport;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param newTests    tests registered during the last interval. null if there is none.
+	 * @param statistics  statistics during the last interval. null if there is none.
+	 * @param histograms  test time histograms during the last interval. null if there is none.
+	 * @param reports     other reports of the process during the last interval
+	 * @param finalReport true if it's the last report of the process
+	 */
+	public ReportProcessStatisticsMessage(Collection<Test> newTests, TestStatisticsMap statistics,
+										  LatencyHistograms histograms, List<AbstractReportMessage> reports,
+										  boolean finalReport) {
+		this.newTests = newTests;
+		this.statistics = statistics;
+		this.histograms = histograms;
+		this.reports = reports;
+		this.finalReport = finalReport;
+	}
+
+	public Collection<Test> getNewTests() {
+		return newTests;
+	}
+
+	public TestStatisticsMap getStatistics() {
+		return statistics;
+	}
+
+	public LatencyHistograms getHistograms() {
+		return histograms;
+	}
+
+	public List<AbstractReportMessage> getReports() {
+		return reports;
+	}
+
+	public boolean isFinalReport() {
+		return finalReport;
+	}
+}
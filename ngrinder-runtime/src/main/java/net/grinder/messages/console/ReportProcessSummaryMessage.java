@@ -0,0 +1,50 @@
+package net.grinder.messages.console;
+
+import org.ngrinder.statistics.LatencyHistogram;
+
+/**
+ * Message that reports the summary of the non composite tests of a worker process during the
+ * last report interval. The console knows the process and its agent by
+ * {@link #getWorkerIdentity()}.
+ *
+ * @since 3.5.3
+ */
+public final class ReportProcessSummaryMessage extends AbstractReportMessage {
+	private static final long serialVersionUID = -1846573902215740631L;
+
+	private final long tests;
+	private final long errors;
+	private final long testTime;
+	private final LatencyHistogram histogram;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param tests     count of the successful tests
+	 * @param errors    count of the failed tests
+	 * @param testTime  sum of the test times of the successful tests in milliseconds
+	 * @param histogram test time histogram of the successful tests. null if test times are not reported.
+	 */
+	public ReportProcessSummaryMessage(long tests, long errors, long testTime, LatencyHistogram histogram) {
+		this.tests = tests;
+		this.errors = errors;
+		this.testTime = testTime;
+		this.histogram = histogram;
+	}
+
+	public long getTests() {
+		return tests;
+	}
+
+	public long getErrors() {
+		return errors;
+	}
+
+	public long getTestTime() {
+		return testTime;
+	}
+
+	public LatencyHistogram getHistogram() {
+		return histogram;
+	}
+}
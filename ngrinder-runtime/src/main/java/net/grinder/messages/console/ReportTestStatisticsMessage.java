@@ -0,0 +1,37 @@
+package net.grinder.messages.console;
+
+import net.grinder.statistics.TestStatisticsMap;
+import org.ngrinder.statistics.LatencyHistograms;
+
+/**
+ * Message that reports the statistics of the tests during the last report interval along with
+ * their test time histograms, so that the console counts both in the same sample.
+ *
+ * @since 3.5.3
+ */
+public final class ReportTestStatisticsMessage extends AbstractReportMessage {
+	private static final long serialVersionUID = -2710958305547418283L;
+
+	private final TestStatisticsMap statisticsDelta;
+	private final LatencyHistograms histograms;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param statisticsDelta statistics during the last interval
+	 * @param histograms      test time histograms during the last interval. null if the test times
+	 *                        are not reported.
+	 */
+	public ReportTestStatisticsMessage(TestStatisticsMap statisticsDelta, LatencyHistograms histograms) {
+		this.statisticsDelta = statisticsDelta;
+		this.histograms = histograms;
+	}
+
+	public TestStatisticsMap getStatisticsDelta() {
+		return statisticsDelta;
+	}
+
+	public LatencyHistograms getHistograms() {
+		return histograms;
+	}
+}
@@ -0,0 +1,23 @@
+package net.grinder.messages.console;
+
+import org.ngrinder.statistics.TimeBuckets;
+
+/**
+ * Message that reports the tests finished in each time bucket in a worker process during the
+ * last report interval.
+ *
+ * @since 3.5.3
+ */
+public final class ReportTimeBucketMessage extends AbstractReportMessage {
+	private static final long serialVersionUID = -7906218421630482159L;
+
+	private final TimeBuckets timeBuckets;
+
+	public ReportTimeBucketMessage(TimeBuckets timeBuckets) {
+		this.timeBuckets = timeBuckets;
+	}
+
+	public TimeBuckets getTimeBuckets() {
+		return timeBuckets;
+	}
+}
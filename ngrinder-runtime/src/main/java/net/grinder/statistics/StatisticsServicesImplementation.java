@@ -0,0 +1,131 @@
+// Copyright (C) 2000 - 2012 Philip Aston
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.statistics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.ngrinder.statistics.HttpPhaseStatistics;
+
+import static java.util.Arrays.asList;
+
+/**
+ * Singleton implementation of {@link StatisticsServices}.
+ * <p/>
+ * Modified to register the long statistics of {@link HttpPhaseStatistics} next to the ones of
+ * the HTTP plugin. Workers and the console must share this index map.
+ *
+ * @author Philip Aston
+ */
+public final class StatisticsServicesImplementation implements StatisticsServices {
+
+	private static final StatisticsServicesImplementation s_instance;
+
+	static {
+		final List<String> longNames = new ArrayList<String>(asList(
+				"errors",
+				"untimedTests",
+				StatisticsIndexMap.HTTP_PLUGIN_RESPONSE_STATUS_KEY,
+				StatisticsIndexMap.HTTP_PLUGIN_RESPONSE_LENGTH_KEY,
+				StatisticsIndexMap.HTTP_PLUGIN_RESPONSE_ERRORS_KEY,
+				StatisticsIndexMap.HTTP_PLUGIN_DNS_TIME_KEY,
+				StatisticsIndexMap.HTTP_PLUGIN_CONNECT_TIME_KEY,
+				StatisticsIndexMap.HTTP_PLUGIN_FIRST_BYTE_TIME_KEY,
+				"userLong0",
+				"userLong1",
+				"userLong2",
+				"userLong3",
+				"userLong4"));
+		longNames.addAll(HttpPhaseStatistics.LONG_INDEX_NAMES);
+
+		final StatisticsIndexMap statisticsIndexMap = new StatisticsIndexMap(
+				longNames,
+				asList("peakTPS", "userDouble0", "userDouble1", "userDouble2", "userDouble3", "userDouble4"),
+				asList("period"),
+				asList("timedTests"));
+
+		final StatisticExpressionFactory statisticExpressionFactory =
+				new StatisticExpressionFactoryImplementation(statisticsIndexMap);
+
+		s_instance = new StatisticsServicesImplementation(
+				new CommonStatisticsViews(statisticExpressionFactory),
+				statisticExpressionFactory,
+				new StatisticsSetFactory(statisticsIndexMap),
+				statisticsIndexMap,
+				new TestStatisticsQueries(statisticsIndexMap));
+	}
+
+	private final CommonStatisticsViews m_commonStatisticsViews;
+	private final StatisticExpressionFactory m_statisticExpressionFactory;
+	private final StatisticsSetFactory m_statisticsSetFactory;
+	private final StatisticsIndexMap m_statisticsIndexMap;
+	private final TestStatisticsQueries m_testStatisticsQueries;
+
+	/**
+	 * Singleton accessor.
+	 *
+	 * @return The singleton.
+	 */
+	public static StatisticsServices getInstance() {
+		return s_instance;
+	}
+
+	StatisticsServicesImplementation(CommonStatisticsViews commonStatisticsViews,
+			StatisticExpressionFactory statisticExpressionFactory,
+			StatisticsSetFactory statisticsSetFactory,
+			StatisticsIndexMap statisticsIndexMap,
+			TestStatisticsQueries testStatisticsQueries) {
+		m_commonStatisticsViews = commonStatisticsViews;
+		m_statisticExpressionFactory = statisticExpressionFactory;
+		m_statisticsSetFactory = statisticsSetFactory;
+		m_statisticsIndexMap = statisticsIndexMap;
+		m_testStatisticsQueries = testStatisticsQueries;
+	}
+
+	public StatisticsView getDetailStatisticsView() {
+		return m_commonStatisticsViews.getDetailStatisticsView();
+	}
+
+	public StatisticsView getSummaryStatisticsView() {
+		return m_commonStatisticsViews.getSummaryStatisticsView();
+	}
+
+	public StatisticExpressionFactory getStatisticExpressionFactory() {
+		return m_statisticExpressionFactory;
+	}
+
+	public StatisticsSetFactory getStatisticsSetFactory() {
+		return m_statisticsSetFactory;
+	}
+
+	public StatisticsIndexMap getStatisticsIndexMap() {
+		return m_statisticsIndexMap;
+	}
+
+	public TestStatisticsQueries getTestStatisticsQueries() {
+		return m_testStatisticsQueries;
+	}
+
+	public StatisticExpression getTPSExpression() {
+		return m_commonStatisticsViews.getTPSExpression();
+	}
+}
@@ -0,0 +1,99 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.clock;
+
+import net.grinder.common.GrinderProperties;
+import org.ngrinder.clock.ClockOffsetEstimator.Estimate;
+
+/**
+ * Offset of the clock of this process from the console clock, which the console estimated and
+ * sent to the agent. The timestamps recorded in a worker process are converted into the console
+ * time, so that the samples of the agents line up in the same time buckets.
+ * <p/>
+ * It's shared by the process. The conversion is the identity until an estimate is set.
+ *
+ * @since 3.5.3
+ */
+public class ClockCorrection {
+	public static final String PROP_CLOCK_OFFSET = "grinder.clockOffset";
+	public static final String PROP_CLOCK_ROUND_TRIP_DELAY = "grinder.clockRoundTripDelay";
+	public static final String PROP_CLOCK_DRIFT = "grinder.clockDrift";
+	public static final String PROP_CLOCK_REFERENCE_TIME = "grinder.clockReferenceTime";
+
+	private static final ClockCorrection INSTANCE = new ClockCorrection();
+
+	private volatile Estimate estimate = Estimate.ZERO;
+
+	ClockCorrection() {
+	}
+
+	public static ClockCorrection getInstance() {
+		return INSTANCE;
+	}
+
+	public Estimate getEstimate() {
+		return estimate;
+	}
+
+	/**
+	 * Set the estimate of the clock offset.
+	 *
+	 * @param estimate estimate. null to stop the correction.
+	 */
+	public void set(Estimate estimate) {
+		this.estimate = estimate == null ? Estimate.ZERO : estimate;
+	}
+
+	/**
+	 * Convert a time of this process into the console time.
+	 *
+	 * @param localTime milliseconds since Epoch
+	 * @return console time
+	 */
+	public long toConsoleTime(long localTime) {
+		return estimate.toLocalTime(localTime);
+	}
+
+	/**
+	 * Pass the estimate to the worker processes to start.
+	 *
+	 * @param properties worker properties
+	 * @param estimate   estimate. nothing is written if null.
+	 */
+	public static void writeTo(GrinderProperties properties, Estimate estimate) {
+		if (estimate == null) {
+			return;
+		}
+		properties.setLong(PROP_CLOCK_OFFSET, estimate.getOffset());
+		properties.setLong(PROP_CLOCK_ROUND_TRIP_DELAY, estimate.getRoundTripDelay());
+		properties.setDouble(PROP_CLOCK_DRIFT, estimate.getDrift());
+		properties.setLong(PROP_CLOCK_REFERENCE_TIME, estimate.getReferenceTime());
+	}
+
+	/**
+	 * Read the estimate passed by the agent.
+	 *
+	 * @param properties worker properties
+	 * @return estimate. null if the agent doesn't know the offset yet.
+	 */
+	public static Estimate readFrom(GrinderProperties properties) {
+		if (!properties.containsKey(PROP_CLOCK_OFFSET)) {
+			return null;
+		}
+		return new Estimate(properties.getLong(PROP_CLOCK_OFFSET, 0),
+				properties.getLong(PROP_CLOCK_ROUND_TRIP_DELAY, 0),
+				properties.getDouble(PROP_CLOCK_DRIFT, 0),
+				properties.getLong(PROP_CLOCK_REFERENCE_TIME, 0));
+	}
+}
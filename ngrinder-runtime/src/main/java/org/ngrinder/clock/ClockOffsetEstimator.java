@@ -0,0 +1,197 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.clock;
+
+import java.io.Serializable;
+
+/**
+ * Estimates the offset and the drift of a remote clock from round trips in the way of NTP.
+ * <p/>
+ * Each round trip gives four timestamps: <code>t1</code> when the request is sent and
+ * <code>t4</code> when the response is received by the local clock, <code>t2</code> when the
+ * request is received and <code>t3</code> when the response is sent by the remote clock. The
+ * offset of the remote clock is <code>((t2 - t1) + (t3 - t4)) / 2</code> and it's off at most by
+ * half of the round trip delay <code>(t4 - t1) - (t3 - t2)</code>.
+ * <p/>
+ * A round trip delayed by a busy network or a GC is less accurate, so the offset is taken from
+ * the round trip having the smallest delay among the last {@link #FILTER_SIZE} ones. The drift is
+ * the slope fitted to those offsets by least squares once they span {@link #MIN_DRIFT_SPAN}
+ * milliseconds.
+ *
+ * @since 3.5.3
+ */
+public class ClockOffsetEstimator {
+	static final int FILTER_SIZE = 8;
+	static final int HISTORY_SIZE = 32;
+	static final long MIN_DRIFT_SPAN = 60000;
+
+	private final long[] times = new long[FILTER_SIZE];
+	private final long[] offsets = new long[FILTER_SIZE];
+	private final long[] delays = new long[FILTER_SIZE];
+	private int count = 0;
+	private int next = 0;
+
+	// Filtered offsets by the local time.
+	private final long[] historyTimes = new long[HISTORY_SIZE];
+	private final long[] historyOffsets = new long[HISTORY_SIZE];
+	private int historyCount = 0;
+	private int historyNext = 0;
+
+	private Estimate estimate;
+
+	/**
+	 * Add a round trip.
+	 *
+	 * @param t1 local time when the request was sent
+	 * @param t2 remote time when the request was received
+	 * @param t3 remote time when the response was sent
+	 * @param t4 local time when the response was received
+	 * @return estimate updated by the round trip
+	 */
+	public synchronized Estimate add(long t1, long t2, long t3, long t4) {
+		times[next] = t4;
+		offsets[next] = Math.round(((t2 - t1) + (t3 - t4)) / 2D);
+		delays[next] = Math.max((t4 - t1) - (t3 - t2), 0);
+		int added = next;
+		next = (next + 1) % FILTER_SIZE;
+		count = Math.min(count + 1, FILTER_SIZE);
+
+		int best = added;
+		for (int i = 0; i < count; i++) {
+			if (delays[i] < delays[best]) {
+				best = i;
+			}
+		}
+		if (best == added) {
+			// Only a fresh round trip adds a point to fit the drift.
+			historyTimes[historyNext] = times[best];
+			historyOffsets[historyNext] = offsets[best];
+			historyNext = (historyNext + 1) % HISTORY_SIZE;
+			historyCount = Math.min(historyCount + 1, HISTORY_SIZE);
+		}
+		estimate = new Estimate(offsets[best], delays[best], fitDrift(), times[best]);
+		return estimate;
+	}
+
+	/**
+	 * Get the current estimate.
+	 *
+	 * @return estimate. null if no round trip is added.
+	 */
+	public synchronized Estimate getEstimate() {
+		return estimate;
+	}
+
+	private double fitDrift() {
+		if (historyCount < 2) {
+			return 0;
+		}
+		long first = Long.MAX_VALUE;
+		long last = Long.MIN_VALUE;
+		double meanTime = 0;
+		double meanOffset = 0;
+		for (int i = 0; i < historyCount; i++) {
+			first = Math.min(first, historyTimes[i]);
+			last = Math.max(last, historyTimes[i]);
+			meanTime += historyTimes[i];
+			meanOffset += historyOffsets[i];
+		}
+		if (last - first < MIN_DRIFT_SPAN) {
+			return 0;
+		}
+		meanTime /= historyCount;
+		meanOffset /= historyCount;
+		double covariance = 0;
+		double variance = 0;
+		for (int i = 0; i < historyCount; i++) {
+			double time = historyTimes[i] - meanTime;
+			covariance += time * (historyOffsets[i] - meanOffset);
+			variance += time * time;
+		}
+		return variance == 0 ? 0 : covariance / variance;
+	}
+
+	/**
+	 * Offset and drift of a remote clock.
+	 */
+	public static final class Estimate implements Serializable {
+		private static final long serialVersionUID = -3790145306548832734L;
+
+		/**
+		 * No offset.
+		 */
+		public static final Estimate ZERO = new Estimate(0, 0, 0, 0);
+
+		private final long offset;
+		private final long roundTripDelay;
+		private final double drift;
+		private final long referenceTime;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param offset         remote time minus local time in milliseconds at the reference time
+		 * @param roundTripDelay round trip delay in milliseconds of the round trip the offset is from
+		 * @param drift          change of the offset per millisecond
+		 * @param referenceTime  local time when the offset was measured
+		 */
+		public Estimate(long offset, long roundTripDelay, double drift, long referenceTime) {
+			this.offset = offset;
+			this.roundTripDelay = roundTripDelay;
+			this.drift = drift;
+			this.referenceTime = referenceTime;
+		}
+
+		public long getOffset() {
+			return offset;
+		}
+
+		public long getRoundTripDelay() {
+			return roundTripDelay;
+		}
+
+		/**
+		 * Get the max error of the offset, which is half of the round trip delay.
+		 *
+		 * @return error in milliseconds
+		 */
+		public long getError() {
+			return (roundTripDelay + 1) / 2;
+		}
+
+		public double getDrift() {
+			return drift;
+		}
+
+		public long getReferenceTime() {
+			return referenceTime;
+		}
+
+		/**
+		 * Convert a remote time into the local time.
+		 *
+		 * @param remoteTime time of the remote clock in milliseconds since Epoch
+		 * @return time of the local clock
+		 */
+		public long toLocalTime(long remoteTime) {
+			// The drift is so small that the remote time serves as the local time to extrapolate.
+			return remoteTime - offset - Math.round(drift * (remoteTime - referenceTime));
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%+d ms (±%d ms, drift %.1f ppm)", offset, getError(), drift * 1e6);
+		}
+	}
+}
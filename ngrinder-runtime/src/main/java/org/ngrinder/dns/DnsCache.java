@@ -0,0 +1,255 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.dns;
+
+import org.ngrinder.statistics.DnsCacheRecorder;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caches the resolved addresses per host name as long as the TTL of the records.
+ * <p/>
+ * The TTL can be clamped by the <code>ngrinder.dns.cache.min_ttl</code> and
+ * <code>ngrinder.dns.cache.max_ttl</code> system properties in seconds. The names which are hit
+ * repeatedly are resolved again in the background when 3/4 of the TTL passed so that vusers
+ * rarely wait for the name server. The addresses of a name are returned in the round robin order.
+ * <p/>
+ * The names which don't exist are cached for <code>ngrinder.dns.cache.negative_ttl</code> seconds
+ * so that a mistyped host doesn't send every vuser to the name server. At most
+ * <code>ngrinder.dns.cache.max_entries</code> names are kept and the least recently used ones are
+ * evicted beyond it.
+ *
+ * @since 3.5.3
+ */
+public class DnsCache {
+	public static final String PROP_MIN_TTL = "ngrinder.dns.cache.min_ttl";
+	public static final String PROP_MAX_TTL = "ngrinder.dns.cache.max_ttl";
+	public static final String PROP_NEGATIVE_TTL = "ngrinder.dns.cache.negative_ttl";
+	public static final String PROP_MAX_ENTRIES = "ngrinder.dns.cache.max_entries";
+
+	/**
+	 * The hits which make a name be refreshed in the background.
+	 */
+	static final int PREFETCH_HITS = 2;
+
+	private static final long DEFAULT_NEGATIVE_TTL = 5;
+	private static final int DEFAULT_MAX_ENTRIES = 10000;
+
+	private final Resolution resolution;
+	private final long minTtl;
+	private final long maxTtl;
+	private final long negativeTtl;
+	private final int maxEntries;
+	private final Executor prefetchExecutor;
+	private final DnsCacheRecorder recorder = DnsCacheRecorder.getInstance();
+	private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+	public DnsCache(Resolution resolution) {
+		this(resolution, Long.getLong(PROP_MIN_TTL, 0), Long.getLong(PROP_MAX_TTL, Long.MAX_VALUE / 1000),
+				Long.getLong(PROP_NEGATIVE_TTL, DEFAULT_NEGATIVE_TTL),
+				Integer.getInteger(PROP_MAX_ENTRIES, DEFAULT_MAX_ENTRIES), createPrefetchExecutor());
+	}
+
+	DnsCache(Resolution resolution, long minTtl, long maxTtl, long negativeTtl, int maxEntries,
+			 Executor prefetchExecutor) {
+		this.resolution = resolution;
+		this.minTtl = minTtl;
+		this.maxTtl = Math.max(minTtl, maxTtl);
+		this.negativeTtl = negativeTtl;
+		this.maxEntries = Math.max(1, maxEntries);
+		this.prefetchExecutor = prefetchExecutor;
+		recorder.activate();
+	}
+
+	private static ExecutorService createPrefetchExecutor() {
+		return Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "dns-prefetch");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Get the addresses of the given host name.
+	 *
+	 * @param name host name
+	 * @return addresses rotated by each call
+	 * @throws UnknownHostException occurs when name is not available in DNS
+	 */
+	public InetAddress[] get(String name) throws UnknownHostException {
+		long now = currentTimeMillis();
+		Entry entry = entries.get(name);
+		if (entry == null || entry.isExpired(now)) {
+			recorder.recordMiss();
+			try {
+				entry = resolve(name, now);
+			} catch (UnknownHostException e) {
+				if (negativeTtl > 0) {
+					put(name, new Entry(null, now, now + negativeTtl * 1000, Long.MAX_VALUE));
+				}
+				throw e;
+			}
+		} else {
+			recorder.recordHit();
+			entry.lastAccess = now;
+			if (entry.shouldPrefetch(now)) {
+				prefetch(name, entry);
+			}
+		}
+		if (entry.addresses == null) {
+			throw new UnknownHostException(name);
+		}
+		return entry.next();
+	}
+
+	private Entry resolve(String name, long now) throws UnknownHostException {
+		Answer answer = resolution.resolve(name);
+		long ttl = Math.min(Math.max(answer.ttl, minTtl), maxTtl) * 1000;
+		Entry entry = new Entry(answer.addresses, now, now + ttl, now + ttl * 3 / 4);
+		put(name, entry);
+		return entry;
+	}
+
+	private void put(String name, Entry entry) {
+		entries.put(name, entry);
+		if (entries.size() > maxEntries) {
+			evict(entry.lastAccess);
+		}
+	}
+
+	/**
+	 * Evict the expired entries and then the least recently used ones down to 3/4 of the max
+	 * entries, so that the eviction doesn't run on every new name.
+	 */
+	private synchronized void evict(long now) {
+		int target = maxEntries - maxEntries / 4;
+		entries.values().removeIf(each -> each.isExpired(now));
+		int excess = entries.size() - target;
+		if (excess <= 0) {
+			return;
+		}
+		List<Map.Entry<String, Entry>> candidates = new ArrayList<>(entries.entrySet());
+		candidates.sort(Comparator.comparingLong(each -> each.getValue().lastAccess));
+		for (int i = 0; i < excess && i < candidates.size(); i++) {
+			Map.Entry<String, Entry> each = candidates.get(i);
+			entries.remove(each.getKey(), each.getValue());
+		}
+	}
+
+	int size() {
+		return entries.size();
+	}
+
+	private void prefetch(final String name, final Entry entry) {
+		try {
+			prefetchExecutor.execute(() -> {
+				try {
+					resolve(name, currentTimeMillis());
+				} catch (UnknownHostException e) {
+					// Keep the current addresses until they expire.
+					entry.refreshing.set(false);
+				}
+			});
+		} catch (RuntimeException e) {
+			entry.refreshing.set(false);
+		}
+	}
+
+	long currentTimeMillis() {
+		return System.currentTimeMillis();
+	}
+
+	/**
+	 * Resolves the host name from the name servers.
+	 */
+	public interface Resolution {
+		Answer resolve(String name) throws UnknownHostException;
+	}
+
+	/**
+	 * Addresses of a host name and the TTL of them in seconds.
+	 */
+	public static class Answer {
+		private final InetAddress[] addresses;
+		private final long ttl;
+
+		public Answer(InetAddress[] addresses, long ttl) {
+			this.addresses = addresses;
+			this.ttl = ttl;
+		}
+	}
+
+	private static class Entry {
+		private final InetAddress[] addresses;
+		private final long expiresAt;
+		private final long refreshAt;
+		private final AtomicInteger cursor = new AtomicInteger();
+		private final AtomicInteger hits = new AtomicInteger();
+		private final AtomicBoolean refreshing = new AtomicBoolean();
+		private volatile long lastAccess;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param addresses addresses of the name. null if the name doesn't exist.
+		 * @param now       current time
+		 * @param expiresAt time when the entry expires
+		 * @param refreshAt time after which the entry is refreshed in the background
+		 */
+		Entry(InetAddress[] addresses, long now, long expiresAt, long refreshAt) {
+			this.addresses = addresses;
+			this.lastAccess = now;
+			this.expiresAt = expiresAt;
+			this.refreshAt = refreshAt;
+		}
+
+		boolean isExpired(long now) {
+			return now >= expiresAt;
+		}
+
+		/**
+		 * Count a hit and check whether the entry should be refreshed. Only the hits since the entry
+		 * was resolved or refreshed count, so a name not used any more is left to expire.
+		 */
+		boolean shouldPrefetch(long now) {
+			if (hits.incrementAndGet() < PREFETCH_HITS || now < refreshAt
+					|| !refreshing.compareAndSet(false, true)) {
+				return false;
+			}
+			hits.set(0);
+			return true;
+		}
+
+		InetAddress[] next() {
+			int length = addresses.length;
+			int offset = (cursor.getAndIncrement() & Integer.MAX_VALUE) % length;
+			InetAddress[] rotated = new InetAddress[length];
+			for (int i = 0; i < length; i++) {
+				rotated[i] = addresses[(offset + i) % length];
+			}
+			return rotated;
+		}
+	}
+}
@@ -17,6 +17,8 @@ import org.xbill.DNS.*;
 
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * DNS Java DNS resolver.
@@ -26,10 +28,26 @@ import java.net.UnknownHostException;
  */
 @SuppressWarnings({"restriction", "WeakerAccess"})
 public class LocalManagedDnsImpl implements NameServiceProxy {
+	private static final int[] ADDRESS_TYPES = {Type.A, Type.AAAA};
+
+	private final Resolver resolver;
+	private final DnsCache dnsCache;
 
 	public LocalManagedDnsImpl() {
+		this(null);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param resolver resolver to query the address records. null to use the default resolver.
+	 * @since 3.5.3
+	 */
+	LocalManagedDnsImpl(Resolver resolver) {
 		Cache cache = createCache();
 		Lookup.setDefaultCache(cache, DClass.IN);
+		this.resolver = resolver;
+		this.dnsCache = new DnsCache(this::resolve);
 	}
 
 	protected Cache createCache() {
@@ -37,7 +55,9 @@ public class LocalManagedDnsImpl implements NameServiceProxy {
 	}
 
 	/**
-	 * Finds A records (ip addresses) for the host name.
+	 * Finds A and AAAA records (ip addresses) for the host name.
+	 * <p/>
+	 * The addresses are cached as long as the TTL of the records.
 	 *
 	 * @param name host name to resolve.
 	 * @return All the ip addresses found for the host name.
@@ -45,22 +65,42 @@ public class LocalManagedDnsImpl implements NameServiceProxy {
 	 */
 	@Override
 	public InetAddress[] lookupAllHostAddr(String name) throws UnknownHostException {
-		try {
-			final Lookup lookup = new Lookup(name, Type.A);
-			Record[] records = lookup.run();
-			if (records == null) {
-				throw new UnknownHostException(name);
-			}
+		return dnsCache.get(name);
+	}
 
-			InetAddress[] array = new InetAddress[records.length];
-			for (int i = 0; i < records.length; i++) {
-				ARecord a = (ARecord) records[i];
-				array[i] = a.getAddress();
+	private DnsCache.Answer resolve(String name) throws UnknownHostException {
+		List<InetAddress> addresses = new ArrayList<>();
+		long ttl = Long.MAX_VALUE;
+		try {
+			for (int type : ADDRESS_TYPES) {
+				final Lookup lookup = new Lookup(name, type);
+				// The addresses are cached by the TTL in DnsCache. Ask the name server whenever it's expired.
+				lookup.setCache(null);
+				if (resolver != null) {
+					lookup.setResolver(resolver);
+				}
+				Record[] records = lookup.run();
+				if (records == null) {
+					continue;
+				}
+				for (Record each : records) {
+					if (each instanceof ARecord) {
+						addresses.add(((ARecord) each).getAddress());
+					} else if (each instanceof AAAARecord) {
+						addresses.add(((AAAARecord) each).getAddress());
+					} else {
+						continue;
+					}
+					ttl = Math.min(ttl, each.getTTL());
+				}
 			}
-			return array;
 		} catch (TextParseException e) {
 			throw new UnknownHostException(e.getMessage());
 		}
+		if (addresses.isEmpty()) {
+			throw new UnknownHostException(name);
+		}
+		return new DnsCache.Answer(addresses.toArray(new InetAddress[0]), ttl);
 	}
 
 	/**
@@ -37,6 +37,9 @@ public class NGrinderSecurityManager extends SecurityManager {
 	private static final String NGRINDER_CONTROLLER_TEMP_FOLDER = "tmp";
 	private static final String NGRINDER_CONTEXT_CONTROLLER = "controller";
 
+	private static final String GROOVY_SCRIPT_CACHE = "net.grinder.scriptengine.groovy.GroovyScriptCache";
+	private static final String GROOVY_CLASS_LOADER = "groovy.lang.GroovyClassLoader";
+
 	private String workDirectory = System.getProperty("user.dir");
 	private String controllerHomeDir = "";
 	private String controllerHomeTmpDir = "";
@@ -45,11 +48,14 @@ public class NGrinderSecurityManager extends SecurityManager {
 	private final String pythonPath = System.getProperty("python.path");
 	private final String pythonHome = System.getProperty("python.home");
 	private final String pythonCache = System.getProperty("python.cachedir");
+	private final String groovyCache = System.getProperty("ngrinder.groovy.cachedir");
 	private final String etcHosts = System.getProperty("ngrinder.etc.hosts", "");
 	private final String consoleIP = System.getProperty("ngrinder.console.ip", "127.0.0.1");
+	private final int aggregatorPort = Integer.getInteger("ngrinder.aggregator.port", 0);
 	private final List<String> allowedHost = new ArrayList<String>();
 	private final List<String> writeAllowedDirectory = new ArrayList<String>();
 	private final List<String> deleteAllowedDirectory = new ArrayList<String>();
+	private String groovyCacheDirectory;
 
 	{
 		this.init();
@@ -109,6 +115,9 @@ public class NGrinderSecurityManager extends SecurityManager {
 		if (isNotEmpty(pythonCache)) {
 			writeAllowedDirectory.add(pythonCache);
 		}
+		if (isNotEmpty(groovyCache)) {
+			groovyCacheDirectory = normalize(new File(groovyCache).getAbsolutePath(), null);
+		}
 		writeAllowedDirectory.add(workDirectory);
 		writeAllowedDirectory.add(logDirectory);
 		writeAllowedDirectory.add(getTempDirectoryPath());
@@ -263,6 +272,10 @@ public class NGrinderSecurityManager extends SecurityManager {
 				return;
 			}
 		}
+		if (filePath != null && groovyCacheDirectory != null && filePath.startsWith(groovyCacheDirectory)
+				&& isWrittenByGroovyScriptCache()) {
+			return;
+		}
 		throw new SecurityException("File write access on " + file + "(" + filePath + ") is not allowed.");
 	}
 
@@ -293,12 +306,28 @@ public class NGrinderSecurityManager extends SecurityManager {
 
 	@Override
 	public void checkConnect(String host, int port) {
-		this.netWorkAccessAllowed(host);
+		this.netWorkAccessAllowed(host, port);
 	}
 
 	@Override
 	public void checkConnect(String host, int port, Object context) {
-		this.netWorkAccessAllowed(host);
+		this.netWorkAccessAllowed(host, port);
+	}
+
+	/*
+	 * The compiled script cache is written only by the cache itself while it compiles a script. The scripts may not
+	 * write there even through the cache, so no class loaded by a groovy class loader may be on the stack.
+	 */
+	private boolean isWrittenByGroovyScriptCache() {
+		boolean cache = false;
+		for (Class<?> each : getClassContext()) {
+			ClassLoader loader = each.getClassLoader();
+			if (loader != null && loader.getClass().getName().startsWith(GROOVY_CLASS_LOADER)) {
+				return false;
+			}
+			cache |= GROOVY_SCRIPT_CACHE.equals(each.getName());
+		}
+		return cache;
 	}
 
 	private boolean isAgentWorkerLogFile(String file) {
@@ -313,14 +342,18 @@ public class NGrinderSecurityManager extends SecurityManager {
 	}
 
 	/**
-	 * NetWork access is allowed on "ngrinder.etc.hosts".
+	 * NetWork access is allowed on "ngrinder.etc.hosts" and the statistics aggregator of the agent.
 	 *
 	 * @param host host name
+	 * @param port port
 	 */
-	private void netWorkAccessAllowed(String host) {
+	private void netWorkAccessAllowed(String host, int port) {
 		if (allowedHost.contains(host)) {
 			return;
 		}
+		if (aggregatorPort > 0 && port == aggregatorPort && "127.0.0.1".equals(host)) {
+			return;
+		}
 		throw new SecurityException("NetWork access on " + host + " is not allowed. Please add " + host
 				+ " on the target host setting.");
 	}
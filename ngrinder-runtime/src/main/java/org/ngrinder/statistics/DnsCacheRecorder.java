@@ -0,0 +1,67 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.statistics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the host name lookups which were served from the DNS cache of a worker process.
+ * <p/>
+ * The cache lives in the name service of the JVM while the counts are reported by the worker
+ * process, so the recorder is shared in the process.
+ *
+ * @since 3.5.3
+ */
+public class DnsCacheRecorder {
+	private static final DnsCacheRecorder INSTANCE = new DnsCacheRecorder();
+
+	private volatile boolean active;
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	DnsCacheRecorder() {
+	}
+
+	public static DnsCacheRecorder getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Mark that the DNS cache is used in this process. The counts are reported only after it's
+	 * activated.
+	 */
+	public void activate() {
+		active = true;
+	}
+
+	public void recordHit() {
+		hits.incrementAndGet();
+	}
+
+	public void recordMiss() {
+		misses.incrementAndGet();
+	}
+
+	/**
+	 * Take the counts recorded since the last drain.
+	 *
+	 * @return hit and miss counts. null if the DNS cache is not used.
+	 */
+	public long[] drain() {
+		if (!active) {
+			return null;
+		}
+		return new long[]{hits.getAndSet(0), misses.getAndSet(0)};
+	}
+}
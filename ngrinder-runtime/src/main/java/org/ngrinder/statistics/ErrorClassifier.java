@@ -0,0 +1,108 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.statistics;
+
+import javax.net.ssl.SSLException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+
+/**
+ * Classifies the failures of tests into the categories which are counted instead of logged.
+ * <p/>
+ * Network failures are found anywhere in the cause chain because HTTP clients and scripts
+ * usually wrap them. A failed assertion after an error response is counted by the status class
+ * of the response. Any other failure is counted by the simple class name of its root cause.
+ *
+ * @since 3.5.3
+ */
+public final class ErrorClassifier {
+	public static final String HTTP_4XX = "HTTP_4xx";
+	public static final String HTTP_5XX = "HTTP_5xx";
+	public static final String CONNECT_TIMEOUT = "Connect_Timeout";
+	public static final String CONNECT_FAILURE = "Connect_Failure";
+	public static final String READ_TIMEOUT = "Read_Timeout";
+	public static final String DNS_FAILURE = "DNS_Failure";
+	public static final String TLS_FAILURE = "TLS_Failure";
+	public static final String ASSERTION = "Assertion";
+	public static final String UNKNOWN = "Unknown";
+
+	// The cause chain is not followed further, in case it's cyclic.
+	private static final int MAX_CAUSE_DEPTH = 20;
+
+	private ErrorClassifier() {
+	}
+
+	/**
+	 * Classify a failure.
+	 *
+	 * @param throwable      failure. null if the test failed without an exception.
+	 * @param responseStatus status of the last HTTP response of the test. 0 if there is none.
+	 * @return category
+	 */
+	public static String classify(Throwable throwable, long responseStatus) {
+		Throwable rootCause = throwable;
+		int depth = 0;
+		for (Throwable each = throwable; each != null && depth < MAX_CAUSE_DEPTH; each = each.getCause(), depth++) {
+			String category = classifyNetworkFailure(each);
+			if (category != null) {
+				return category;
+			}
+			rootCause = each;
+		}
+		String statusCategory = classifyStatus(responseStatus);
+		if (statusCategory != null && (rootCause == null || rootCause instanceof AssertionError)) {
+			return statusCategory;
+		}
+		if (rootCause == null) {
+			return UNKNOWN;
+		}
+		if (rootCause instanceof AssertionError) {
+			return ASSERTION;
+		}
+		return rootCause.getClass().getSimpleName();
+	}
+
+	/**
+	 * Get the category of an HTTP response status.
+	 *
+	 * @param responseStatus response status
+	 * @return category. null if the status is not an error.
+	 */
+	public static String classifyStatus(long responseStatus) {
+		if (responseStatus >= 500 && responseStatus < 600) {
+			return HTTP_5XX;
+		} else if (responseStatus >= 400 && responseStatus < 500) {
+			return HTTP_4XX;
+		}
+		return null;
+	}
+
+	private static String classifyNetworkFailure(Throwable throwable) {
+		if (throwable instanceof UnknownHostException) {
+			return DNS_FAILURE;
+		} else if (throwable instanceof SSLException) {
+			return TLS_FAILURE;
+		} else if (throwable instanceof SocketTimeoutException) {
+			// The JDK tells a connect timeout from a read timeout only by the message.
+			String message = throwable.getMessage();
+			return message != null && message.toLowerCase().contains("connect") ? CONNECT_TIMEOUT : READ_TIMEOUT;
+		} else if (throwable instanceof ConnectException || throwable instanceof NoRouteToHostException) {
+			String message = throwable.getMessage();
+			return message != null && message.toLowerCase().contains("timed out") ? CONNECT_TIMEOUT : CONNECT_FAILURE;
+		}
+		return null;
+	}
+}
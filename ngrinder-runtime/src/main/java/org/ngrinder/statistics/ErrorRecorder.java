@@ -0,0 +1,75 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.statistics;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Counts the failures of each test by their categories in a worker process.
+ * <p/>
+ * Failures are caught by the script engine while the counts are reported by the worker
+ * process, so the recorder is shared in the process.
+ *
+ * @see ErrorClassifier
+ * @since 3.5.3
+ */
+public class ErrorRecorder {
+	private static final ErrorRecorder INSTANCE = new ErrorRecorder();
+
+	// Guarded by this.
+	private Map<Integer, Map<String, Long>> counts = new HashMap<Integer, Map<String, Long>>();
+	private final Set<String> recordedCategories = new HashSet<String>();
+
+	ErrorRecorder() {
+	}
+
+	public static ErrorRecorder getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Count a failure.
+	 *
+	 * @param testNumber number of the failed test. 0 if the test is not known.
+	 * @param category   category of the failure
+	 * @return true if it's the first failure of the category of the test in this process
+	 */
+	public synchronized boolean record(int testNumber, String category) {
+		Map<String, Long> testCounts = counts.get(testNumber);
+		if (testCounts == null) {
+			testCounts = new HashMap<String, Long>();
+			counts.put(testNumber, testCounts);
+		}
+		Long count = testCounts.get(category);
+		testCounts.put(category, count == null ? 1 : count + 1);
+		return recordedCategories.add(testNumber + ":" + category);
+	}
+
+	/**
+	 * Take the counts recorded since the last drain.
+	 *
+	 * @return failure counts by the category by the test number. null if no test failed.
+	 */
+	public synchronized Map<Integer, Map<String, Long>> drain() {
+		if (counts.isEmpty()) {
+			return null;
+		}
+		Map<Integer, Map<String, Long>> drained = counts;
+		counts = new HashMap<Integer, Map<String, Long>>();
+		return drained;
+	}
+}
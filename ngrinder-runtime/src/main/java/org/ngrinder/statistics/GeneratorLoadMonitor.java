@@ -0,0 +1,226 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.statistics;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures how busy the worker process itself is, so that the console can tell when the load
+ * generator rather than the target limits the test.
+ * <ul>
+ * <li>Scheduling lag : how late the threads start their work. The paced and arrival rate runs
+ * record how late they start after their scheduled time, and a sampler thread records how much
+ * its own short sleeps overshoot, which covers the GC pauses and the CPU starvation of the
+ * unscheduled runs.</li>
+ * <li>GC time : time spent by the garbage collectors.</li>
+ * <li>CPU : CPU time of this process over the capacity of the machine, and the CPU load of the
+ * whole machine.</li>
+ * </ul>
+ * The runs are in the script engine while the measures are reported by the worker process, so the
+ * monitor is shared in the process.
+ *
+ * @since 3.5.3
+ */
+public class GeneratorLoadMonitor {
+	private static final GeneratorLoadMonitor INSTANCE = new GeneratorLoadMonitor();
+
+	/**
+	 * Sleep of the sampler thread in milliseconds. The overshoot beyond it is the lag.
+	 */
+	static final long SAMPLER_SLEEP = 10;
+
+	private final AtomicLong maxSchedulingLag = new AtomicLong();
+
+	// Guarded by this.
+	private Thread sampler;
+	private long lastTime;
+	private long lastCpuTime;
+	private long lastGcTime;
+
+	GeneratorLoadMonitor() {
+	}
+
+	public static GeneratorLoadMonitor getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Start measuring. The measures are drained only after it's started.
+	 */
+	public synchronized void start() {
+		if (sampler != null) {
+			return;
+		}
+		maxSchedulingLag.set(0);
+		lastTime = System.nanoTime();
+		lastCpuTime = getProcessCpuTime();
+		lastGcTime = getGcTime();
+		sampler = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				sample();
+			}
+		}, "generator load monitor");
+		sampler.setDaemon(true);
+		sampler.start();
+	}
+
+	/**
+	 * Stop measuring.
+	 */
+	public synchronized void stop() {
+		if (sampler != null) {
+			sampler.interrupt();
+			sampler = null;
+		}
+	}
+
+	/**
+	 * Record how late a run started after its scheduled time.
+	 *
+	 * @param lag lag in milliseconds. it's ignored unless positive.
+	 */
+	public void recordSchedulingLag(long lag) {
+		long max = maxSchedulingLag.get();
+		while (lag > max && !maxSchedulingLag.compareAndSet(max, lag)) {
+			max = maxSchedulingLag.get();
+		}
+	}
+
+	/**
+	 * Take the measures since the last drain.
+	 *
+	 * @return measures. null if it's not started.
+	 */
+	public synchronized Sample drain() {
+		if (sampler == null) {
+			return null;
+		}
+		long now = System.nanoTime();
+		long cpuTime = getProcessCpuTime();
+		long gcTime = getGcTime();
+		long elapsed = now - lastTime;
+		double processCpu = -1;
+		if (cpuTime >= 0 && lastCpuTime >= 0 && elapsed > 0) {
+			processCpu = Math.min((double) (cpuTime - lastCpuTime)
+					/ (elapsed * Runtime.getRuntime().availableProcessors()), 1);
+		}
+		Sample sample = new Sample(processCpu, getSystemCpuLoad(), Math.max(gcTime - lastGcTime, 0),
+				maxSchedulingLag.getAndSet(0), TimeUnit.NANOSECONDS.toMillis(elapsed));
+		lastTime = now;
+		lastCpuTime = cpuTime;
+		lastGcTime = gcTime;
+		return sample;
+	}
+
+	private void sample() {
+		while (!Thread.currentThread().isInterrupted()) {
+			long start = System.nanoTime();
+			try {
+				Thread.sleep(SAMPLER_SLEEP);
+			} catch (InterruptedException e) {
+				return;
+			}
+			recordSchedulingLag(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) - SAMPLER_SLEEP);
+		}
+	}
+
+	/*
+	 * Get the CPU time of this process in nanoseconds. -1 if the JVM doesn't provide it.
+	 */
+	private static long getProcessCpuTime() {
+		OperatingSystemMXBean bean = ManagementFactory.getOperatingSystemMXBean();
+		if (bean instanceof com.sun.management.OperatingSystemMXBean) {
+			return ((com.sun.management.OperatingSystemMXBean) bean).getProcessCpuTime();
+		}
+		return -1;
+	}
+
+	/*
+	 * Get the recent CPU load of the machine between 0 and 1. -1 if the JVM doesn't provide it.
+	 */
+	private static double getSystemCpuLoad() {
+		OperatingSystemMXBean bean = ManagementFactory.getOperatingSystemMXBean();
+		if (bean instanceof com.sun.management.OperatingSystemMXBean) {
+			return ((com.sun.management.OperatingSystemMXBean) bean).getSystemCpuLoad();
+		}
+		return -1;
+	}
+
+	private static long getGcTime() {
+		List<GarbageCollectorMXBean> beans = ManagementFactory.getGarbageCollectorMXBeans();
+		long total = 0;
+		for (GarbageCollectorMXBean each : beans) {
+			long time = each.getCollectionTime();
+			if (time > 0) {
+				total += time;
+			}
+		}
+		return total;
+	}
+
+	/**
+	 * Measures of a worker process during an interval.
+	 */
+	public static final class Sample {
+		private final double processCpu;
+		private final double systemCpu;
+		private final long gcTime;
+		private final long maxSchedulingLag;
+		private final long interval;
+
+		Sample(double processCpu, double systemCpu, long gcTime, long maxSchedulingLag, long interval) {
+			this.processCpu = processCpu;
+			this.systemCpu = systemCpu;
+			this.gcTime = gcTime;
+			this.maxSchedulingLag = maxSchedulingLag;
+			this.interval = interval;
+		}
+
+		/**
+		 * Get the CPU used by this process over the capacity of the machine.
+		 *
+		 * @return ratio between 0 and 1. negative if unknown.
+		 */
+		public double getProcessCpu() {
+			return processCpu;
+		}
+
+		/**
+		 * Get the CPU load of the machine.
+		 *
+		 * @return ratio between 0 and 1. negative if unknown.
+		 */
+		public double getSystemCpu() {
+			return systemCpu;
+		}
+
+		public long getGcTime() {
+			return gcTime;
+		}
+
+		public long getMaxSchedulingLag() {
+			return maxSchedulingLag;
+		}
+
+		public long getInterval() {
+			return interval;
+		}
+	}
+}
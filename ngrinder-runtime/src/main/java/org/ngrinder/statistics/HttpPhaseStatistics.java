@@ -0,0 +1,128 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.statistics;
+
+import net.grinder.common.GrinderException;
+import net.grinder.script.Grinder;
+import net.grinder.script.Statistics;
+import net.grinder.statistics.StatisticsIndexMap;
+import net.grinder.statistics.StatisticsSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.unmodifiableList;
+
+/**
+ * Statistics which break the time of the HTTP requests of a test down into phases.
+ * <p/>
+ * The HTTP plugin records the time to resolve the host, the time to establish the connection
+ * which includes the former, and the time to the first byte of the response which includes the
+ * connection and the TLS handshake. These are completed by
+ * <ul>
+ * <li>{@link #TLS_TIME_KEY} : time of the TLS handshakes, which the worker measures on the SSL
+ * sockets of the HTTP plugin</li>
+ * <li>{@link #DOWNLOAD_TIME_KEY} : time of a successful test after the first bytes of its
+ * responses, which is mostly spent to receive the response bodies</li>
+ * </ul>
+ * Their mean values are registered as summary statistics when a worker reports the first test
+ * which sent HTTP requests, so they flow to the console with the other test statistics.
+ *
+ * @since 3.5.3
+ */
+public final class HttpPhaseStatistics {
+	private static final Logger LOGGER = LoggerFactory.getLogger(HttpPhaseStatistics.class);
+
+	public static final String TLS_TIME_KEY = "httpplugin.tlsTime";
+	public static final String DOWNLOAD_TIME_KEY = "httpplugin.downloadTime";
+
+	/**
+	 * Long statistics added to the statistics index map.
+	 */
+	public static final List<String> LONG_INDEX_NAMES = unmodifiableList(asList(TLS_TIME_KEY, DOWNLOAD_TIME_KEY));
+
+	private static final String[][] SUMMARY_EXPRESSIONS = {
+			{"Mean TLS handshake time", "(/ " + TLS_TIME_KEY + " (+ (count timedTests) untimedTests))"},
+			{"Mean download time", "(/ " + DOWNLOAD_TIME_KEY + " (+ (count timedTests) untimedTests))"}
+	};
+
+	private static final AtomicBoolean REGISTERED = new AtomicBoolean(false);
+
+	private final StatisticsIndexMap.LongIndex firstByteTimeIndex;
+	private final StatisticsIndexMap.LongIndex downloadTimeIndex;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param indexMap statistics index map
+	 */
+	public HttpPhaseStatistics(StatisticsIndexMap indexMap) {
+		this.firstByteTimeIndex = indexMap.getLongIndex(StatisticsIndexMap.HTTP_PLUGIN_FIRST_BYTE_TIME_KEY);
+		this.downloadTimeIndex = indexMap.getLongIndex(DOWNLOAD_TIME_KEY);
+	}
+
+	/**
+	 * Complete the phases of a finished test before it's reported.
+	 *
+	 * @param statistics statistics of the test
+	 * @param success    true if the test succeeded
+	 * @param testTime   test time in milliseconds
+	 */
+	public void complete(StatisticsSet statistics, boolean success, long testTime) {
+		if (downloadTimeIndex == null) {
+			return;
+		}
+		final long firstByteTime = statistics.getValue(firstByteTimeIndex);
+		if (firstByteTime <= 0) {
+			return;
+		}
+		if (success) {
+			statistics.addValue(downloadTimeIndex, Math.max(testTime - firstByteTime, 0));
+		}
+		registerSummaryExpressions();
+	}
+
+	/**
+	 * Add the time of a TLS handshake to the test in progress of the current thread.
+	 *
+	 * @param statistics script statistics
+	 * @param time       handshake time in milliseconds
+	 */
+	public static void recordHandshake(Statistics statistics, long time) {
+		if (!statistics.isTestInProgress()) {
+			return;
+		}
+		try {
+			statistics.getForCurrentTest().addLong(TLS_TIME_KEY, time);
+		} catch (GrinderException e) {
+			LOGGER.debug("The TLS handshake time is not recorded", e);
+		}
+	}
+
+	private static void registerSummaryExpressions() {
+		if (Grinder.grinder == null || !REGISTERED.compareAndSet(false, true)) {
+			return;
+		}
+		for (String[] each : SUMMARY_EXPRESSIONS) {
+			try {
+				Grinder.grinder.getStatistics().registerSummaryExpression(each[0], each[1]);
+			} catch (GrinderException e) {
+				LOGGER.error("Error while registering {} : {}", each[0], e.getMessage());
+			}
+		}
+	}
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.statistics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the iterations which started late or were dropped by the arrival rate scheduling in a
+ * worker process.
+ * <p/>
+ * The scheduler lives in the script engine while the counts are reported by the worker process,
+ * so the recorder is shared in the process.
+ *
+ * @since 3.5.3
+ */
+public class IterationScheduleRecorder {
+	private static final IterationScheduleRecorder INSTANCE = new IterationScheduleRecorder();
+
+	private volatile boolean active;
+	private final AtomicLong late = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+
+	IterationScheduleRecorder() {
+	}
+
+	public static IterationScheduleRecorder getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Mark that the iterations are scheduled in this process. The counts are reported only after
+	 * it's activated.
+	 */
+	public void activate() {
+		active = true;
+	}
+
+	public void recordLate() {
+		late.incrementAndGet();
+	}
+
+	public void recordDropped(long count) {
+		if (count > 0) {
+			dropped.addAndGet(count);
+		}
+	}
+
+	/**
+	 * Take the counts recorded since the last drain.
+	 *
+	 * @return late and dropped iteration counts. null if the iterations are not scheduled.
+	 */
+	public long[] drain() {
+		if (!active) {
+			return null;
+		}
+		return new long[]{late.getAndSet(0), dropped.getAndSet(0)};
+	}
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.statistics;
+
+/**
+ * Correction of the coordinated omission in the test times of the current run of a worker thread.
+ * <p/>
+ * A thread which waits for a stalled target doesn't send the requests it should have sent in the
+ * meantime, so the test times it measures look better than the users experience. When the
+ * schedule of the runs is known, the script engine sets the correction of each run and the test
+ * times of the run are also recorded corrected, beside the raw ones:
+ * <ul>
+ * <li>Runs paced at an expected interval back-fill the runs omitted by a long test time.
+ * See {@link LatencyHistogram#recordCorrected(long, long)}.</li>
+ * <li>Runs scheduled at an arrival rate add the delay of their start from the scheduled time.</li>
+ * </ul>
+ * The correction is kept for the thread until the next run sets another one, so that the tests
+ * reported after the run ends are corrected as well.
+ *
+ * @since 3.5.3
+ */
+public final class LatencyCorrection {
+	private static final ThreadLocal<LatencyCorrection> CURRENT = new ThreadLocal<LatencyCorrection>();
+
+	private final long expectedInterval;
+	private final long startDelay;
+
+	LatencyCorrection(long expectedInterval, long startDelay) {
+		this.expectedInterval = Math.max(expectedInterval, 0);
+		this.startDelay = Math.max(startDelay, 0);
+	}
+
+	/**
+	 * Set the correction of the current run of this thread.
+	 *
+	 * @param expectedInterval expected interval between the runs of this thread in milliseconds.
+	 *                         0 if the runs are not paced.
+	 * @param startDelay       delay of the start of the run from its scheduled time in milliseconds
+	 */
+	public static void set(long expectedInterval, long startDelay) {
+		CURRENT.set(new LatencyCorrection(expectedInterval, startDelay));
+	}
+
+	/**
+	 * Stop correcting the test times of this thread.
+	 */
+	public static void clear() {
+		CURRENT.remove();
+	}
+
+	/**
+	 * Get the correction of the current run of this thread.
+	 *
+	 * @return correction. null if the test times are not corrected.
+	 */
+	public static LatencyCorrection current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Record the corrected test time into the given histogram.
+	 *
+	 * @param histogram histogram
+	 * @param testTime  raw test time in milliseconds
+	 */
+	public void record(LatencyHistogram histogram, long testTime) {
+		histogram.recordCorrected(testTime + startDelay, expectedInterval);
+	}
+
+	public long getExpectedInterval() {
+		return expectedInterval;
+	}
+
+	public long getStartDelay() {
+		return startDelay;
+	}
+}
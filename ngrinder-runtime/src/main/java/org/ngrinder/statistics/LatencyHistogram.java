@@ -0,0 +1,241 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.statistics;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Compact, mergeable histogram of test times.
+ * <p/>
+ * Values below 128 are counted exactly. Larger values are counted in log2 scaled buckets which are
+ * split into 64 linear sub buckets, so that the relative error of a reported percentile never
+ * exceeds 1/64 (about 1.6%). Histograms recorded in different worker processes can be merged
+ * by {@link #add(LatencyHistogram)} without losing any precision.
+ * <p/>
+ * This class is not thread safe. Callers should synchronize on the instance if it's shared.
+ *
+ * @since 3.5.3
+ */
+public class LatencyHistogram implements Serializable {
+	private static final long serialVersionUID = -5132467391803124613L;
+
+	private static final int SUB_BUCKET_HALF_BITS = 6;
+	private static final int SUB_BUCKET_HALF_COUNT = 1 << SUB_BUCKET_HALF_BITS;
+	private static final int SUB_BUCKET_COUNT = SUB_BUCKET_HALF_COUNT << 1;
+
+	private transient long[] counts = new long[SUB_BUCKET_COUNT];
+	private transient long totalCount;
+	private transient long sum;
+	private transient long min = Long.MAX_VALUE;
+	private transient long max;
+
+	/**
+	 * Record the given value once.
+	 *
+	 * @param value value in milliseconds
+	 */
+	public void record(long value) {
+		record(value, 1);
+	}
+
+	/**
+	 * Record the given value the given times.
+	 *
+	 * @param value value in milliseconds. negative values are treated as 0.
+	 * @param count count
+	 */
+	public void record(long value, long count) {
+		if (count <= 0) {
+			return;
+		}
+		value = Math.max(value, 0);
+		int index = indexOf(value);
+		ensureCapacity(index + 1);
+		counts[index] += count;
+		totalCount += count;
+		sum += value * count;
+		min = Math.min(min, value);
+		max = Math.max(max, value);
+	}
+
+	/**
+	 * Record the given value, and also the values which the runs omitted while the value was
+	 * being measured would have taken. A run is expected every given interval, so a value longer
+	 * than the interval has delayed the following runs. Each of them is back-filled with the value
+	 * less the multiple of the interval, as long as it's still longer than the interval.
+	 *
+	 * @param value            value in milliseconds
+	 * @param expectedInterval expected interval between the runs in milliseconds. 0 or negative
+	 *                         not to back-fill.
+	 */
+	public void recordCorrected(long value, long expectedInterval) {
+		record(value);
+		if (expectedInterval <= 0) {
+			return;
+		}
+		for (long missing = value - expectedInterval; missing >= expectedInterval; missing -= expectedInterval) {
+			record(missing);
+		}
+	}
+
+	/**
+	 * Merge the given histogram into this histogram.
+	 *
+	 * @param other histogram to be merged
+	 */
+	public void add(LatencyHistogram other) {
+		if (other == null || other.totalCount == 0) {
+			return;
+		}
+		ensureCapacity(other.counts.length);
+		for (int i = 0; i < other.counts.length; i++) {
+			counts[i] += other.counts[i];
+		}
+		totalCount += other.totalCount;
+		sum += other.sum;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+	}
+
+	/**
+	 * Clear all recorded values.
+	 */
+	public void reset() {
+		Arrays.fill(counts, 0);
+		totalCount = 0;
+		sum = 0;
+		min = Long.MAX_VALUE;
+		max = 0;
+	}
+
+	/**
+	 * Create the copy of this histogram.
+	 *
+	 * @return copied histogram
+	 */
+	public LatencyHistogram copy() {
+		LatencyHistogram copied = new LatencyHistogram();
+		copied.add(this);
+		return copied;
+	}
+
+	/**
+	 * Get the value at the given percentile.
+	 *
+	 * @param percentile percentile between 0 and 100
+	 * @return the largest value which the given percentage of recorded values are equal or less
+	 * than. 0 if nothing is recorded.
+	 */
+	public long getValueAtPercentile(double percentile) {
+		if (totalCount == 0) {
+			return 0;
+		}
+		double requested = Math.min(Math.max(percentile, 0), 100);
+		long countAtPercentile = Math.max((long) Math.ceil((requested / 100) * totalCount), 1);
+		long accumulated = 0;
+		for (int i = 0; i < counts.length; i++) {
+			accumulated += counts[i];
+			if (accumulated >= countAtPercentile) {
+				return Math.max(Math.min(highestEquivalentValue(i), max), min);
+			}
+		}
+		return max;
+	}
+
+	public long getTotalCount() {
+		return totalCount;
+	}
+
+	public long getMin() {
+		return totalCount == 0 ? 0 : min;
+	}
+
+	public long getMax() {
+		return max;
+	}
+
+	public double getMean() {
+		return totalCount == 0 ? 0 : ((double) sum) / totalCount;
+	}
+
+	public boolean isEmpty() {
+		return totalCount == 0;
+	}
+
+	static int indexOf(long value) {
+		if (value < SUB_BUCKET_COUNT) {
+			return (int) value;
+		}
+		int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_HALF_BITS;
+		return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF_COUNT
+				+ (int) (value >> shift) - SUB_BUCKET_HALF_COUNT;
+	}
+
+	static long highestEquivalentValue(int index) {
+		if (index < SUB_BUCKET_COUNT) {
+			return index;
+		}
+		int offset = index - SUB_BUCKET_COUNT;
+		int shift = offset / SUB_BUCKET_HALF_COUNT + 1;
+		long subBucket = offset % SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT;
+		return (subBucket << shift) + (1L << shift) - 1;
+	}
+
+	private void ensureCapacity(int length) {
+		if (counts.length < length) {
+			counts = Arrays.copyOf(counts, Math.max(length, counts.length * 2));
+		}
+	}
+
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+		out.writeLong(totalCount);
+		out.writeLong(sum);
+		out.writeLong(min);
+		out.writeLong(max);
+		int nonZeroBuckets = 0;
+		for (long each : counts) {
+			if (each != 0) {
+				nonZeroBuckets++;
+			}
+		}
+		// Only the used buckets are written, which keeps the message small.
+		out.writeInt(nonZeroBuckets);
+		for (int i = 0; i < counts.length; i++) {
+			if (counts[i] != 0) {
+				out.writeShort(i);
+				out.writeLong(counts[i]);
+			}
+		}
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		counts = new long[SUB_BUCKET_COUNT];
+		totalCount = in.readLong();
+		sum = in.readLong();
+		min = in.readLong();
+		max = in.readLong();
+		int nonZeroBuckets = in.readInt();
+		for (int i = 0; i < nonZeroBuckets; i++) {
+			int index = in.readUnsignedShort();
+			ensureCapacity(index + 1);
+			counts[index] = in.readLong();
+		}
+	}
+}
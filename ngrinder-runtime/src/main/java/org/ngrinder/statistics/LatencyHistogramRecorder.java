@@ -0,0 +1,120 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.statistics;
+
+/**
+ * Collects the test times of successful tests per test in a worker process.
+ * <p/>
+ * Worker threads record into one of the stripes chosen by the thread, so threads rarely wait for
+ * each other. The report timer periodically drains the interval histograms by {@link #drain()},
+ * which swaps the stripes by a {@link WriterReaderPhaser} so that recording is never blocked by
+ * the drain, and no test time is lost or counted in two intervals.
+ *
+ * @since 3.5.3
+ */
+public class LatencyHistogramRecorder {
+	private static final int MAX_STRIPES = 64;
+
+	private final WriterReaderPhaser phaser = new WriterReaderPhaser();
+	private final int mask;
+	private volatile LatencyHistograms[] active;
+	// Guarded by the reader lock of the phaser.
+	private LatencyHistograms[] inactive;
+
+	public LatencyHistogramRecorder() {
+		this(Runtime.getRuntime().availableProcessors() * 2);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param concurrency expected number of the threads which record at once
+	 */
+	LatencyHistogramRecorder(int concurrency) {
+		int count = Math.min(MAX_STRIPES, Integer.highestOneBit(Math.max(1, concurrency - 1)) << 1);
+		this.mask = count - 1;
+		this.active = createStripes(count);
+		this.inactive = createStripes(count);
+	}
+
+	private static LatencyHistograms[] createStripes(int count) {
+		LatencyHistograms[] stripes = new LatencyHistograms[count];
+		for (int i = 0; i < count; i++) {
+			stripes[i] = new LatencyHistograms();
+		}
+		return stripes;
+	}
+
+	/**
+	 * Record the test time of the given test.
+	 *
+	 * @param testNumber test number
+	 * @param testTime   test time in milliseconds
+	 * @param composite  true if the test wraps other tests. composite tests are not counted in
+	 *                   the total histogram not to count the same transaction twice.
+	 */
+	public void record(int testNumber, long testTime, boolean composite) {
+		record(testNumber, testTime, composite, null);
+	}
+
+	/**
+	 * Record the test time of the given test, and also the corrected test time into the corrected
+	 * total histogram.
+	 *
+	 * @param testNumber test number
+	 * @param testTime   test time in milliseconds
+	 * @param composite  true if the test wraps other tests
+	 * @param correction correction of the current run. null if the test time is not corrected.
+	 */
+	public void record(int testNumber, long testTime, boolean composite, LatencyCorrection correction) {
+		final long criticalValue = phaser.writerCriticalSectionEnter();
+		try {
+			final LatencyHistograms stripe = active[(int) Thread.currentThread().getId() & mask];
+			synchronized (stripe) {
+				stripe.record(testNumber, testTime, composite, correction);
+			}
+		} finally {
+			phaser.writerCriticalSectionExit(criticalValue);
+		}
+	}
+
+	/**
+	 * Take the histograms recorded since the last drain and start the new interval.
+	 *
+	 * @return histograms. null if nothing was recorded.
+	 */
+	public LatencyHistograms drain() {
+		phaser.readerLock();
+		try {
+			final LatencyHistograms[] drained = active;
+			active = inactive;
+			phaser.flipPhase();
+			inactive = drained;
+
+			LatencyHistograms result = null;
+			for (LatencyHistograms each : drained) {
+				if (!each.isEmpty()) {
+					if (result == null) {
+						result = new LatencyHistograms();
+					}
+					result.add(each);
+				}
+				each.reset();
+			}
+			return result;
+		} finally {
+			phaser.readerUnlock();
+		}
+	}
+}
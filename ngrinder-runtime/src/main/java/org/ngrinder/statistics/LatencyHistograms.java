@@ -0,0 +1,139 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.statistics;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Test time histograms of the successful tests per test, of the total and of the total corrected
+ * for the coordinated omission, during a report interval.
+ * <p/>
+ * This class is not thread safe.
+ *
+ * @since 3.5.3
+ */
+public class LatencyHistograms implements Serializable {
+	private static final long serialVersionUID = 4290174527608417365L;
+
+	private final Map<Integer, LatencyHistogram> histograms = new HashMap<Integer, LatencyHistogram>();
+	private final LatencyHistogram total = new LatencyHistogram();
+	private LatencyHistogram correctedTotal;
+
+	/**
+	 * Record the test time of the given test.
+	 *
+	 * @param testNumber test number
+	 * @param testTime   test time in milliseconds
+	 * @param composite  true if the test wraps other tests. composite tests are not counted in
+	 *                   the total histogram not to count the same transaction twice.
+	 * @param correction correction of the current run. null if the test time is not corrected.
+	 */
+	public void record(int testNumber, long testTime, boolean composite, LatencyCorrection correction) {
+		getHistogram(testNumber).record(testTime);
+		if (!composite) {
+			total.record(testTime);
+			if (correction != null) {
+				correction.record(getCorrectedTotalForUpdate(), testTime);
+			}
+		}
+	}
+
+	/**
+	 * Add all histograms of the given one.
+	 *
+	 * @param other histograms to add
+	 */
+	public void add(LatencyHistograms other) {
+		for (Map.Entry<Integer, LatencyHistogram> each : other.histograms.entrySet()) {
+			getHistogram(each.getKey()).add(each.getValue());
+		}
+		total.add(other.total);
+		if (other.correctedTotal != null && !other.correctedTotal.isEmpty()) {
+			getCorrectedTotalForUpdate().add(other.correctedTotal);
+		}
+	}
+
+	private LatencyHistogram getHistogram(int testNumber) {
+		LatencyHistogram histogram = histograms.get(testNumber);
+		if (histogram == null) {
+			histogram = new LatencyHistogram();
+			histograms.put(testNumber, histogram);
+		}
+		return histogram;
+	}
+
+	private LatencyHistogram getCorrectedTotalForUpdate() {
+		if (correctedTotal == null) {
+			correctedTotal = new LatencyHistogram();
+		}
+		return correctedTotal;
+	}
+
+	/**
+	 * Reset all histograms. They are kept to be reused.
+	 */
+	public void reset() {
+		for (LatencyHistogram each : histograms.values()) {
+			each.reset();
+		}
+		total.reset();
+		if (correctedTotal != null) {
+			correctedTotal.reset();
+		}
+	}
+
+	/**
+	 * Check if no test time is recorded.
+	 *
+	 * @return true if empty
+	 */
+	public boolean isEmpty() {
+		for (LatencyHistogram each : histograms.values()) {
+			if (!each.isEmpty()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Get the histograms of the tests in which any test time is recorded.
+	 *
+	 * @return histograms by the test number
+	 */
+	public Map<Integer, LatencyHistogram> getHistograms() {
+		Map<Integer, LatencyHistogram> result = new HashMap<Integer, LatencyHistogram>();
+		for (Map.Entry<Integer, LatencyHistogram> each : histograms.entrySet()) {
+			if (!each.getValue().isEmpty()) {
+				result.put(each.getKey(), each.getValue());
+			}
+		}
+		return result;
+	}
+
+	public LatencyHistogram getTotal() {
+		return total;
+	}
+
+	/**
+	 * Get the total histogram of the corrected test times.
+	 *
+	 * @return histogram. null if no test time was corrected.
+	 */
+	public LatencyHistogram getCorrectedTotal() {
+		return correctedTotal == null || correctedTotal.isEmpty() ? null : correctedTotal;
+	}
+}
@@ -0,0 +1,172 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.statistics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the tests finished in a worker process in fixed sized, wall clock aligned time buckets.
+ * <p/>
+ * Buckets are kept in a ring which is reused across drains, so recording allocates nothing and
+ * the memory is bounded by the ring size. The report timer takes the recorded buckets by
+ * {@link #drain()}. A bucket which is still in the ring when its slot is needed by a bucket
+ * {@link #getCapacity()} buckets later was not drained in time, and its tests are dropped and
+ * counted by {@link #getDroppedTests()}.
+ *
+ * @since 3.5.3
+ */
+public class TimeBucketRecorder {
+	/**
+	 * Smallest bucket size in milliseconds.
+	 */
+	public static final int MIN_BUCKET_SIZE = 50;
+
+	private final int bucketSize;
+	private final Bucket[] buckets;
+	private final AtomicLong droppedTests = new AtomicLong();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param bucketSize     bucket size in milliseconds
+	 * @param reportInterval interval of the drains in milliseconds. The ring holds the buckets of
+	 *                       four intervals.
+	 */
+	public TimeBucketRecorder(int bucketSize, int reportInterval) {
+		this.bucketSize = Math.max(bucketSize, MIN_BUCKET_SIZE);
+		int capacity = Math.max(16, 4 * reportInterval / this.bucketSize);
+		this.buckets = new Bucket[capacity];
+		for (int i = 0; i < capacity; i++) {
+			buckets[i] = new Bucket();
+		}
+	}
+
+	/**
+	 * Record a finished test.
+	 *
+	 * @param endTime  time the test finished in milliseconds since epoch
+	 * @param testTime test time in milliseconds
+	 * @param success  true if the test succeeded
+	 */
+	public void record(long endTime, long testTime, boolean success) {
+		long index = endTime / bucketSize;
+		Bucket bucket = buckets[(int) (index % buckets.length)];
+		synchronized (bucket) {
+			if (bucket.index != index) {
+				if (bucket.isRecorded() && bucket.index > index) {
+					// The slot is already taken by a newer bucket.
+					droppedTests.incrementAndGet();
+					return;
+				}
+				if (bucket.isRecorded()) {
+					droppedTests.addAndGet(bucket.tests + bucket.errors);
+				}
+				bucket.reset(index);
+			}
+			if (success) {
+				bucket.tests++;
+				bucket.testTime += testTime;
+				bucket.maxTestTime = Math.max(bucket.maxTestTime, testTime);
+			} else {
+				bucket.errors++;
+			}
+		}
+	}
+
+	/**
+	 * Take the buckets recorded since the last drain in the order of time.
+	 *
+	 * @return recorded buckets. null if nothing was recorded.
+	 */
+	public TimeBuckets drain() {
+		long[] startTimes = new long[buckets.length];
+		long[] tests = new long[buckets.length];
+		long[] errors = new long[buckets.length];
+		long[] testTimes = new long[buckets.length];
+		long[] maxTestTimes = new long[buckets.length];
+		int count = 0;
+		for (Bucket bucket : buckets) {
+			synchronized (bucket) {
+				if (!bucket.isRecorded()) {
+					continue;
+				}
+				startTimes[count] = bucket.index * bucketSize;
+				tests[count] = bucket.tests;
+				errors[count] = bucket.errors;
+				testTimes[count] = bucket.testTime;
+				maxTestTimes[count] = bucket.maxTestTime;
+				count++;
+				bucket.reset(bucket.index);
+			}
+		}
+		if (count == 0) {
+			return null;
+		}
+		// The ring starts at an arbitrary slot.
+		Integer[] order = new Integer[count];
+		for (int i = 0; i < count; i++) {
+			order[i] = i;
+		}
+		final long[] unsorted = startTimes;
+		Arrays.sort(order, (a, b) -> Long.compare(unsorted[a], unsorted[b]));
+		return new TimeBuckets(bucketSize, reorder(startTimes, order), reorder(tests, order),
+			reorder(errors, order), reorder(testTimes, order), reorder(maxTestTimes, order));
+	}
+
+	private static long[] reorder(long[] values, Integer[] order) {
+		long[] result = new long[order.length];
+		for (int i = 0; i < order.length; i++) {
+			result[i] = values[order[i]];
+		}
+		return result;
+	}
+
+	public int getBucketSize() {
+		return bucketSize;
+	}
+
+	public int getCapacity() {
+		return buckets.length;
+	}
+
+	/**
+	 * Get the count of the tests which were not drained in time and dropped.
+	 *
+	 * @return dropped test count
+	 */
+	public long getDroppedTests() {
+		return droppedTests.get();
+	}
+
+	private static class Bucket {
+		private long index = -1;
+		private long tests;
+		private long errors;
+		private long testTime;
+		private long maxTestTime;
+
+		private boolean isRecorded() {
+			return tests != 0 || errors != 0;
+		}
+
+		private void reset(long index) {
+			this.index = index;
+			this.tests = 0;
+			this.errors = 0;
+			this.testTime = 0;
+			this.maxTestTime = 0;
+		}
+	}
+}
@@ -0,0 +1,84 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.statistics;
+
+import java.io.Serializable;
+
+/**
+ * Tests finished in fixed sized time buckets which are aligned to the wall clock.
+ * <p/>
+ * The bucket of a test is decided by the time it finished, so a bucket starting at <code>t</code>
+ * counts the tests finished in <code>[t, t + bucketSize)</code>. Buckets recorded in different
+ * worker processes can be added up by their start times.
+ *
+ * @since 3.5.3
+ */
+public class TimeBuckets implements Serializable {
+	private static final long serialVersionUID = 6218944081376254517L;
+
+	private final int bucketSize;
+	private final long[] startTimes;
+	private final long[] tests;
+	private final long[] errors;
+	private final long[] testTimes;
+	private final long[] maxTestTimes;
+
+	/**
+	 * Constructor. All arrays are indexed by the bucket.
+	 *
+	 * @param bucketSize   bucket size in milliseconds
+	 * @param startTimes   start times of the buckets in milliseconds since epoch
+	 * @param tests        counts of the successful tests
+	 * @param errors       counts of the failed tests
+	 * @param testTimes    sums of the test times of the successful tests
+	 * @param maxTestTimes max test times of the successful tests
+	 */
+	public TimeBuckets(int bucketSize, long[] startTimes, long[] tests, long[] errors, long[] testTimes,
+					   long[] maxTestTimes) {
+		this.bucketSize = bucketSize;
+		this.startTimes = startTimes;
+		this.tests = tests;
+		this.errors = errors;
+		this.testTimes = testTimes;
+		this.maxTestTimes = maxTestTimes;
+	}
+
+	public int getBucketSize() {
+		return bucketSize;
+	}
+
+	public int size() {
+		return startTimes.length;
+	}
+
+	public long getStartTime(int bucket) {
+		return startTimes[bucket];
+	}
+
+	public long getTests(int bucket) {
+		return tests[bucket];
+	}
+
+	public long getErrors(int bucket) {
+		return errors[bucket];
+	}
+
+	public long getTestTime(int bucket) {
+		return testTimes[bucket];
+	}
+
+	public long getMaxTestTime(int bucket) {
+		return maxTestTimes[bucket];
+	}
+}
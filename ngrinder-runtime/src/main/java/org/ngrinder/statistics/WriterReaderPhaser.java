@@ -0,0 +1,84 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.statistics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Lets a reader swap the data which writers record into without blocking the writers.
+ * <p/>
+ * Writers wrap each update of the active data by {@link #writerCriticalSectionEnter()} and
+ * {@link #writerCriticalSectionExit(long)}, which never block. A reader holding
+ * {@link #readerLock()} replaces the active data and then calls {@link #flipPhase()}, which
+ * returns once all writers which might still see the replaced data have left. The replaced data
+ * can be read without any lock after that.
+ * <p/>
+ * This is the writer reader phaser of HdrHistogram by Gil Tene.
+ *
+ * @since 3.5.3
+ */
+public class WriterReaderPhaser {
+	private static final long FLIP_YIELD_TIME = 10000;
+
+	private final AtomicLong startEpoch = new AtomicLong(0);
+	private final AtomicLong evenEndEpoch = new AtomicLong(0);
+	private final AtomicLong oddEndEpoch = new AtomicLong(Long.MIN_VALUE);
+	private final ReentrantLock readerLock = new ReentrantLock();
+
+	/**
+	 * Enter a writer critical section.
+	 *
+	 * @return value to pass to {@link #writerCriticalSectionExit(long)}
+	 */
+	public long writerCriticalSectionEnter() {
+		return startEpoch.getAndIncrement();
+	}
+
+	/**
+	 * Exit the writer critical section entered by {@link #writerCriticalSectionEnter()}.
+	 *
+	 * @param criticalValueAtEnter value returned when it was entered
+	 */
+	public void writerCriticalSectionExit(long criticalValueAtEnter) {
+		(criticalValueAtEnter < 0 ? oddEndEpoch : evenEndEpoch).getAndIncrement();
+	}
+
+	public void readerLock() {
+		readerLock.lock();
+	}
+
+	public void readerUnlock() {
+		readerLock.unlock();
+	}
+
+	/**
+	 * Wait until all writers which entered before this call have left. It must be called while
+	 * holding the reader lock.
+	 */
+	public void flipPhase() {
+		if (!readerLock.isHeldByCurrentThread()) {
+			throw new IllegalStateException("The reader lock is not held");
+		}
+		final boolean nextPhaseIsEven = startEpoch.get() < 0;
+		final long initialStartValue = nextPhaseIsEven ? 0 : Long.MIN_VALUE;
+		(nextPhaseIsEven ? evenEndEpoch : oddEndEpoch).set(initialStartValue);
+		final long startValueAtFlip = startEpoch.getAndSet(initialStartValue);
+		final AtomicLong endEpoch = nextPhaseIsEven ? oddEndEpoch : evenEndEpoch;
+		while (endEpoch.get() != startValueAtFlip) {
+			LockSupport.parkNanos(FLIP_YIELD_TIME);
+		}
+	}
+}
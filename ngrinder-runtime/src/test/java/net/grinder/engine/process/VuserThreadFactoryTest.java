@@ -0,0 +1,120 @@
+package net.grinder.engine.process;
+
+import net.grinder.util.Sleeper;
+import net.grinder.util.StandardTimeAuthority;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class VuserThreadFactoryTest {
+	private static final Logger LOGGER = LoggerFactory.getLogger(VuserThreadFactoryTest.class);
+
+	@Test
+	public void testPlatformThreads() throws Exception {
+		GrinderProcess.VuserThreadFactory factory = GrinderProcess.VuserThreadFactory.create(
+				GrinderProcess.THREAD_MODE_PLATFORM, LOGGER);
+		assertThat(factory.getMode(), is(GrinderProcess.THREAD_MODE_PLATFORM));
+		Thread thread = factory.newThread(new Runnable() {
+			@Override
+			public void run() {
+			}
+		}, "thread 0");
+		assertThat(thread.getName(), is("thread 0"));
+		assertThat(thread.isDaemon(), is(true));
+		assertThat(isVirtual(thread), is(false));
+	}
+
+	@Test
+	public void testVirtualThreadsOrFallback() throws Exception {
+		GrinderProcess.VuserThreadFactory factory = GrinderProcess.VuserThreadFactory.create(
+				GrinderProcess.THREAD_MODE_VIRTUAL, LOGGER);
+		boolean supported = hasVirtualThreads();
+		assertThat(factory.getMode(),
+				is(supported ? GrinderProcess.THREAD_MODE_VIRTUAL : GrinderProcess.THREAD_MODE_PLATFORM));
+		Thread thread = factory.newThread(new Runnable() {
+			@Override
+			public void run() {
+			}
+		}, "thread 1");
+		assertThat(thread.getName(), is("thread 1"));
+		assertThat(thread.isDaemon(), is(true));
+		assertThat(isVirtual(thread), is(supported));
+	}
+
+	@Test
+	public void testSleepingVusersDontHoldCarriers() throws Exception {
+		GrinderProcess.VuserThreadFactory factory = GrinderProcess.VuserThreadFactory.create(
+				GrinderProcess.THREAD_MODE_VIRTUAL, LOGGER);
+		// Platform threads don't have carriers, but they should sleep as well.
+		int count = hasVirtualThreads() ? 2000 : 50;
+		final Sleeper sleeper = new ParkingSleeper(new StandardTimeAuthority(), null, 1, 0);
+		final CountDownLatch finished = new CountDownLatch(count);
+		final AtomicInteger failures = new AtomicInteger();
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int i = 0; i < count; i++) {
+			threads.add(factory.newThread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						sleeper.sleepNormal(500, 0);
+					} catch (Sleeper.ShutdownException e) {
+						failures.incrementAndGet();
+					}
+					finished.countDown();
+				}
+			}, "thread " + i));
+		}
+		long start = System.currentTimeMillis();
+		for (Thread each : threads) {
+			each.start();
+		}
+		assertTrue(finished.await(30, TimeUnit.SECONDS));
+		assertThat(failures.get(), is(0));
+		// Sleeping on monitors would run them in batches of the carrier threads.
+		assertThat(System.currentTimeMillis() - start, lessThan(3000L));
+	}
+
+	@Test
+	public void testShutdownWakesUpSleepers() throws Exception {
+		final Sleeper sleeper = new ParkingSleeper(new StandardTimeAuthority(), null, 1, 0);
+		final CountDownLatch shutdown = new CountDownLatch(1);
+		Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					sleeper.sleepNormal(60000, 0);
+				} catch (Sleeper.ShutdownException e) {
+					shutdown.countDown();
+				}
+			}
+		});
+		thread.start();
+		Thread.sleep(100);
+		sleeper.shutdown();
+		assertTrue(shutdown.await(5, TimeUnit.SECONDS));
+	}
+
+	private static boolean hasVirtualThreads() {
+		try {
+			Thread.class.getMethod("ofVirtual");
+			return true;
+		} catch (NoSuchMethodException e) {
+			return false;
+		}
+	}
+
+	private static boolean isVirtual(Thread thread) throws Exception {
+		return hasVirtualThreads() && (Boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.clock;
+
+import net.grinder.common.GrinderProperties;
+import org.junit.Test;
+import org.ngrinder.clock.ClockOffsetEstimator.Estimate;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class ClockOffsetEstimatorTest {
+
+	@Test
+	public void testOffsetOfTheFastestRoundTrip() {
+		ClockOffsetEstimator estimator = new ClockOffsetEstimator();
+		assertThat(estimator.getEstimate(), nullValue());
+
+		// The remote clock is 500 ms ahead. The request took 10 ms and the response 30 ms.
+		Estimate estimate = estimator.add(1000, 1510, 1512, 1042);
+		assertThat(estimate.getOffset(), is(490L));
+		assertThat(estimate.getRoundTripDelay(), is(40L));
+
+		// A symmetric and fast round trip wins.
+		estimate = estimator.add(3000, 3502, 3503, 3005);
+		assertThat(estimate.getOffset(), is(500L));
+		assertThat(estimate.getRoundTripDelay(), is(4L));
+		assertThat(estimate.getError(), is(2L));
+
+		// A slow one doesn't change the estimate.
+		estimate = estimator.add(5000, 5900, 5901, 5402);
+		assertThat(estimate.getOffset(), is(500L));
+		assertThat(estimate.getDrift(), is(0D));
+		assertThat(estimate.toLocalTime(10500), is(10000L));
+	}
+
+	@Test
+	public void testDrift() {
+		ClockOffsetEstimator estimator = new ClockOffsetEstimator();
+		Estimate estimate = null;
+		// The remote clock gains 1 ms every 10 seconds.
+		for (long time = 0; time <= 120000; time += 10000) {
+			long offset = 100 + time / 10000;
+			estimate = estimator.add(time, time + offset + 1, time + offset + 1, time + 2);
+		}
+		assertThat(estimate.getOffset(), is(112L));
+		assertThat(estimate.getDrift(), closeTo(0.0001, 1e-9));
+		// 100 seconds later, the remote clock is ahead by 10 ms more.
+		assertThat(estimate.toLocalTime(220000 + 122), is(220000L));
+	}
+
+	@Test
+	public void testProperties() {
+		GrinderProperties properties = new GrinderProperties();
+		assertThat(ClockCorrection.readFrom(properties), nullValue());
+		ClockCorrection.writeTo(properties, new Estimate(-30, 4, 0.00002, 1000));
+		Estimate estimate = ClockCorrection.readFrom(properties);
+		assertThat(estimate.getOffset(), is(-30L));
+		assertThat(estimate.getRoundTripDelay(), is(4L));
+		assertThat(estimate.getDrift(), is(0.00002));
+		assertThat(estimate.getReferenceTime(), is(1000L));
+
+		ClockCorrection correction = new ClockCorrection();
+		assertThat(correction.toConsoleTime(1000), is(1000L));
+		correction.set(estimate);
+		assertThat(correction.toConsoleTime(1000), is(1030L));
+	}
+}
@@ -0,0 +1,200 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.dns;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.ngrinder.statistics.DnsCacheRecorder;
+import org.xbill.DNS.*;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class DnsCacheTest {
+	private DatagramSocket socket;
+	private final AtomicInteger queries = new AtomicInteger();
+
+	@Before
+	public void before() throws IOException {
+		// In process name server which knows only www.ngrinder.test
+		socket = new DatagramSocket(0, InetAddress.getLoopbackAddress());
+		Thread server = new Thread(() -> {
+			byte[] buffer = new byte[512];
+			while (!socket.isClosed()) {
+				try {
+					DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+					socket.receive(packet);
+					queries.incrementAndGet();
+					byte[] response = answer(new Message(packet.getData())).toWire();
+					socket.send(new DatagramPacket(response, response.length, packet.getSocketAddress()));
+				} catch (IOException e) {
+					// Closed
+				}
+			}
+		});
+		server.setDaemon(true);
+		server.start();
+		DnsCacheRecorder.getInstance().drain();
+	}
+
+	@After
+	public void after() {
+		socket.close();
+	}
+
+	private Message answer(Message query) throws IOException {
+		Message response = new Message(query.getHeader().getID());
+		response.getHeader().setFlag(Flags.QR);
+		Record question = query.getQuestion();
+		response.addRecord(question, Section.QUESTION);
+		if (!question.getName().equals(Name.fromString("www.ngrinder.test."))) {
+			response.getHeader().setRcode(Rcode.NXDOMAIN);
+		} else if (question.getType() == Type.A) {
+			response.addRecord(new ARecord(question.getName(), DClass.IN, 60, InetAddress.getByName("10.0.0.1")),
+					Section.ANSWER);
+			response.addRecord(new ARecord(question.getName(), DClass.IN, 30, InetAddress.getByName("10.0.0.2")),
+					Section.ANSWER);
+		} else if (question.getType() == Type.AAAA) {
+			response.addRecord(new AAAARecord(question.getName(), DClass.IN, 60, InetAddress.getByName("fd00::1")),
+					Section.ANSWER);
+		}
+		return response;
+	}
+
+	@Test
+	public void testLookupFromNameServer() throws UnknownHostException {
+		SimpleResolver resolver = new SimpleResolver(new InetSocketAddress(InetAddress.getLoopbackAddress(),
+				socket.getLocalPort()));
+		LocalManagedDnsImpl dns = new LocalManagedDnsImpl(resolver);
+
+		InetAddress[] first = dns.lookupAllHostAddr("www.ngrinder.test");
+		assertThat(first.length, is(3));
+		assertThat(queries.get(), is(2));
+
+		InetAddress[] second = dns.lookupAllHostAddr("www.ngrinder.test");
+		assertThat(queries.get(), is(2));
+		assertThat(second[0], is(first[1]));
+		assertThat(second[2], is(first[0]));
+
+		try {
+			dns.lookupAllHostAddr("www.not-exist.test");
+			fail("Unknown host should not be resolved");
+		} catch (UnknownHostException e) {
+			// Expected
+		}
+		assertThat(DnsCacheRecorder.getInstance().drain(), is(new long[]{1, 2}));
+	}
+
+	@Test
+	public void testExpireAndPrefetch() throws UnknownHostException {
+		final AtomicInteger resolved = new AtomicInteger();
+		final long[] now = {0};
+		final InetAddress address = InetAddress.getByName("10.0.0.1");
+		DnsCache cache = new DnsCache(name -> {
+			resolved.incrementAndGet();
+			return new DnsCache.Answer(new InetAddress[]{address}, 0);
+		}, 10, 100, 0, 100, Runnable::run) {
+			@Override
+			long currentTimeMillis() {
+				return now[0];
+			}
+		};
+
+		// The TTL is clamped to 10 seconds.
+		cache.get("www.ngrinder.test");
+		now[0] = 7000;
+		cache.get("www.ngrinder.test");
+		assertThat(resolved.get(), is(1));
+
+		// Hit again after 3/4 of the TTL. It's refreshed in the background.
+		now[0] = 8000;
+		cache.get("www.ngrinder.test");
+		assertThat(resolved.get(), is(2));
+		now[0] = 17000;
+		cache.get("www.ngrinder.test");
+		assertThat(resolved.get(), is(2));
+
+		now[0] = 18000;
+		cache.get("www.ngrinder.test");
+		assertThat(resolved.get(), is(3));
+		assertThat(DnsCacheRecorder.getInstance().drain(), is(new long[]{3, 2}));
+	}
+
+	@Test
+	public void testNegativeCacheAndEviction() throws UnknownHostException {
+		final AtomicInteger resolved = new AtomicInteger();
+		final long[] now = {0};
+		final InetAddress address = InetAddress.getByName("10.0.0.1");
+		DnsCache cache = new DnsCache(name -> {
+			resolved.incrementAndGet();
+			if (name.startsWith("none")) {
+				throw new UnknownHostException(name);
+			}
+			return new DnsCache.Answer(new InetAddress[]{address}, 60);
+		}, 0, 100, 5, 4, Runnable::run) {
+			@Override
+			long currentTimeMillis() {
+				return now[0];
+			}
+		};
+
+		for (int i = 0; i < 2; i++) {
+			try {
+				cache.get("none.ngrinder.test");
+				fail("Unknown host should not be resolved");
+			} catch (UnknownHostException e) {
+				// Expected
+			}
+		}
+		assertThat(resolved.get(), is(1));
+		now[0] = 5000;
+		try {
+			cache.get("none.ngrinder.test");
+			fail("Unknown host should not be resolved");
+		} catch (UnknownHostException e) {
+			// Expected
+		}
+		assertThat(resolved.get(), is(2));
+
+		// The expired and then the least recently used names are evicted beyond 4 names.
+		now[0] = 20000;
+		cache.get("www0.ngrinder.test");
+		for (int i = 1; i < 4; i++) {
+			now[0]++;
+			cache.get("www" + i + ".ngrinder.test");
+		}
+		now[0]++;
+		cache.get("www0.ngrinder.test");
+		now[0]++;
+		cache.get("www4.ngrinder.test");
+		assertThat(cache.size(), is(3));
+		resolved.set(0);
+		cache.get("www0.ngrinder.test");
+		cache.get("www4.ngrinder.test");
+		assertThat(resolved.get(), is(0));
+		cache.get("www1.ngrinder.test");
+		assertThat(resolved.get(), is(1));
+		DnsCacheRecorder.getInstance().drain();
+	}
+}
@@ -65,35 +65,4 @@ public class LocalManagedDnsTest {
 		NameStore.getInstance().reset();
 		localDNS.lookupAllHostAddr("www.wowwowwowow11.com");
 	}
-
-	int count = 0;
-
-	@Test
-	public void testCache() throws UnknownHostException {
-
-		final Cache cache = new Cache() {
-			@Override
-			public SetResponse lookupRecords(Name name, int type, int minCred) {
-				final SetResponse setResponse = super.lookupRecords(name, type, minCred);
-				if (count++ == 0) {
-					assertThat(setResponse.isUnknown(), is(true));
-				} else {
-					assertThat(setResponse.isUnknown(), is(false));
-				}
-				return setResponse;    //To change body of overridden methods use File | Settings | File Templates.
-			}
-
-		};
-		LocalManagedDnsImpl impl = new LocalManagedDnsImpl() {
-			@Override
-			protected Cache createCache() {
-				return cache;
-			}
-		};
-		assertThat(impl.lookupAllHostAddr("www.google.com"), notNullValue());
-		assertThat(impl.lookupAllHostAddr("www.google.com"), notNullValue());
-		assertThat(impl.lookupAllHostAddr("www.google.com"), notNullValue());
-		assertThat(impl.lookupAllHostAddr("www.google.com"), notNullValue());
-		assertThat(impl.lookupAllHostAddr("www.google.com"), notNullValue());
-	}
 }
@@ -38,6 +38,7 @@ public class SecurityManagerTest {
 		System.setProperty("ngrinder.exec.path", PATH);
 		System.setProperty("ngrinder.etc.hosts", "10.34.64.36,CN14748-D-1:127.0.0.1,localhost:127.0.0.1");
 		System.setProperty("ngrinder.console.ip", "10.34.63.53");
+		System.setProperty("ngrinder.groovy.cachedir", PATH + "groovy_cache");
 		preSecurityManager = System.getSecurityManager();
 		System.setSecurityManager(new MockNGrinderSecurityManager());
 	}
@@ -45,6 +46,7 @@ public class SecurityManagerTest {
 	@After
 	public  void disableSecurity() {
 		System.setSecurityManager(preSecurityManager);
+		System.clearProperty("ngrinder.groovy.cachedir");
 	}
 
 
@@ -92,4 +94,9 @@ public class SecurityManagerTest {
 		}
 	}
 
+	@Test(expected = SecurityException.class)
+	public void testNotAllowedGroovyCacheAccess() throws IOException {
+		// Only the compiled script cache may write into it.
+		new FileWriter(PATH + "groovy_cache/Injected.class").close();
+	}
 }
@@ -0,0 +1,62 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.statistics;
+
+import org.junit.Test;
+
+import javax.net.ssl.SSLHandshakeException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.ngrinder.statistics.ErrorClassifier.*;
+
+public class ErrorClassifierTest {
+
+	@Test
+	public void testClassifyNetworkFailures() {
+		assertThat(classify(new RuntimeException(new UnknownHostException("nowhere")), 0), is(DNS_FAILURE));
+		assertThat(classify(new SSLHandshakeException("handshake"), 0), is(TLS_FAILURE));
+		assertThat(classify(new SocketTimeoutException("connect timed out"), 0), is(CONNECT_TIMEOUT));
+		assertThat(classify(new SocketTimeoutException("Read timed out"), 0), is(READ_TIMEOUT));
+		assertThat(classify(new ConnectException("Connection refused"), 0), is(CONNECT_FAILURE));
+	}
+
+	@Test
+	public void testClassifyScriptFailures() {
+		assertThat(classify(new AssertionError("expected 200"), 0), is(ASSERTION));
+		assertThat(classify(new AssertionError("expected 200"), 503), is(HTTP_5XX));
+		assertThat(classify(null, 404), is(HTTP_4XX));
+		assertThat(classify(null, 0), is(UNKNOWN));
+		assertThat(classify(new IllegalStateException(new NullPointerException()), 500), is("NullPointerException"));
+	}
+
+	@Test
+	public void testRecord() {
+		ErrorRecorder recorder = new ErrorRecorder();
+		assertThat(recorder.record(1, ASSERTION), is(true));
+		assertThat(recorder.record(1, ASSERTION), is(false));
+		assertThat(recorder.record(2, ASSERTION), is(true));
+
+		Map<Integer, Map<String, Long>> errors = recorder.drain();
+		assertThat(errors.get(1).get(ASSERTION), is(2L));
+		assertThat(errors.get(2).get(ASSERTION), is(1L));
+		assertThat(recorder.drain(), nullValue());
+		// Only the first one of the category is told.
+		assertThat(recorder.record(1, ASSERTION), is(false));
+	}
+}
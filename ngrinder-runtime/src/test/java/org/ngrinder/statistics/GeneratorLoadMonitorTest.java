@@ -0,0 +1,45 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.statistics;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class GeneratorLoadMonitorTest {
+
+	@Test
+	public void testDrain() {
+		GeneratorLoadMonitor monitor = new GeneratorLoadMonitor();
+		assertThat(monitor.drain(), nullValue());
+
+		monitor.start();
+		try {
+			monitor.recordSchedulingLag(-10);
+			monitor.recordSchedulingLag(300);
+			monitor.recordSchedulingLag(200);
+			GeneratorLoadMonitor.Sample sample = monitor.drain();
+			assertThat(sample.getMaxSchedulingLag(), greaterThanOrEqualTo(300L));
+			assertThat(sample.getGcTime(), greaterThanOrEqualTo(0L));
+			assertThat(sample.getProcessCpu(), lessThanOrEqualTo(1D));
+
+			// The lag is taken by the drain.
+			assertThat(monitor.drain().getMaxSchedulingLag(), lessThan(300L));
+		} finally {
+			monitor.stop();
+		}
+		assertThat(monitor.drain(), nullValue());
+	}
+}
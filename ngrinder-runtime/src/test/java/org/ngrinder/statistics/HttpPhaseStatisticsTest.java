@@ -0,0 +1,61 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.statistics;
+
+import net.grinder.statistics.StatisticsIndexMap;
+import net.grinder.statistics.StatisticsServices;
+import net.grinder.statistics.StatisticsServicesImplementation;
+import net.grinder.statistics.StatisticsSet;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class HttpPhaseStatisticsTest {
+	private final StatisticsServices statisticsServices = StatisticsServicesImplementation.getInstance();
+	private final StatisticsIndexMap indexMap = statisticsServices.getStatisticsIndexMap();
+	private final StatisticsIndexMap.LongIndex firstByteTime =
+		indexMap.getLongIndex(StatisticsIndexMap.HTTP_PLUGIN_FIRST_BYTE_TIME_KEY);
+
+	@Test
+	public void testIndexMap() {
+		assertThat(indexMap.getLongIndex(HttpPhaseStatistics.TLS_TIME_KEY), notNullValue());
+		assertThat(indexMap.getLongIndex(HttpPhaseStatistics.DOWNLOAD_TIME_KEY), notNullValue());
+		// The indices of the grinder are kept.
+		assertThat(indexMap.getLongIndex("userLong4"), notNullValue());
+		assertThat(indexMap.getLongSampleIndex("timedTests"), notNullValue());
+	}
+
+	@Test
+	public void testComplete() {
+		HttpPhaseStatistics httpPhases = new HttpPhaseStatistics(indexMap);
+		StatisticsIndexMap.LongIndex downloadTime = indexMap.getLongIndex(HttpPhaseStatistics.DOWNLOAD_TIME_KEY);
+
+		StatisticsSet statistics = statisticsServices.getStatisticsSetFactory().create();
+		statistics.addValue(firstByteTime, 30);
+		httpPhases.complete(statistics, true, 100);
+		assertThat(statistics.getValue(downloadTime), is(70L));
+
+		// Failed tests are not counted.
+		statistics = statisticsServices.getStatisticsSetFactory().create();
+		statistics.addValue(firstByteTime, 30);
+		httpPhases.complete(statistics, false, 100);
+		assertThat(statistics.getValue(downloadTime), is(0L));
+
+		// No HTTP request.
+		statistics = statisticsServices.getStatisticsSetFactory().create();
+		httpPhases.complete(statistics, true, 100);
+		assertThat(statistics.getValue(downloadTime), is(0L));
+	}
+}
@@ -0,0 +1,174 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.statistics;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class LatencyHistogramTest {
+
+	@Test
+	public void testExactValuesBelowSubBucketCount() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 1; i <= 100; i++) {
+			histogram.record(i);
+		}
+		assertThat(histogram.getTotalCount(), is(100L));
+		assertThat(histogram.getValueAtPercentile(50), is(50L));
+		assertThat(histogram.getValueAtPercentile(99), is(99L));
+		assertThat(histogram.getValueAtPercentile(100), is(100L));
+		assertThat(histogram.getMin(), is(1L));
+		assertThat(histogram.getMean(), closeTo(50.5, 0.001));
+	}
+
+	@Test
+	public void testRelativeErrorOfLargeValues() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 1; i <= 100000; i++) {
+			histogram.record(i);
+		}
+		assertThat((double) histogram.getValueAtPercentile(50), closeTo(50000, 50000 / 64.0));
+		assertThat((double) histogram.getValueAtPercentile(99), closeTo(99000, 99000 / 64.0));
+		assertThat(histogram.getValueAtPercentile(100), is(100000L));
+	}
+
+	@Test
+	public void testBucketBoundary() {
+		for (long value : new long[]{127, 128, 129, 255, 256, 1023, 1024, 123456789L}) {
+			int index = LatencyHistogram.indexOf(value);
+			assertThat(LatencyHistogram.highestEquivalentValue(index), greaterThanOrEqualTo(value));
+			if (index > 0) {
+				assertThat(LatencyHistogram.highestEquivalentValue(index - 1), lessThan(value));
+			}
+		}
+	}
+
+	@Test
+	public void testMerge() {
+		LatencyHistogram first = new LatencyHistogram();
+		LatencyHistogram second = new LatencyHistogram();
+		for (int i = 0; i < 90; i++) {
+			first.record(10);
+		}
+		for (int i = 0; i < 10; i++) {
+			second.record(5000);
+		}
+		first.add(second);
+		assertThat(first.getTotalCount(), is(100L));
+		assertThat(first.getValueAtPercentile(90), is(10L));
+		assertThat((double) first.getValueAtPercentile(95), closeTo(5000, 5000 / 64.0));
+		assertThat(first.getMax(), is(5000L));
+	}
+
+	@Test
+	public void testSerialization() throws Exception {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(3, 10);
+		histogram.record(70000);
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(histogram);
+		out.close();
+		LatencyHistogram read = (LatencyHistogram) new ObjectInputStream(
+				new ByteArrayInputStream(bytes.toByteArray())).readObject();
+
+		assertThat(read.getTotalCount(), is(11L));
+		assertThat(read.getValueAtPercentile(50), is(3L));
+		assertThat(read.getValueAtPercentile(100), is(70000L));
+		assertThat(read.getMin(), is(3L));
+	}
+
+	@Test
+	public void testRecorderDrain() {
+		LatencyHistogramRecorder recorder = new LatencyHistogramRecorder();
+		recorder.record(1, 10, false);
+		recorder.record(2, 20, true);
+		LatencyHistograms drained = recorder.drain();
+		assertThat(drained.getHistograms().size(), is(2));
+		assertThat(drained.getTotal().getTotalCount(), is(1L));
+		assertThat(recorder.drain(), nullValue());
+	}
+
+	@Test
+	public void testNoTestTimeIsLostWhileDraining() throws InterruptedException {
+		final LatencyHistogramRecorder recorder = new LatencyHistogramRecorder(2);
+		final int threads = 4;
+		final int records = 20000;
+		final CountDownLatch finished = new CountDownLatch(threads);
+		List<Thread> recorders = new ArrayList<Thread>();
+		for (int i = 0; i < threads; i++) {
+			recorders.add(new Thread(new Runnable() {
+				public void run() {
+					for (int j = 0; j < records; j++) {
+						recorder.record(1, j % 100, false);
+					}
+					finished.countDown();
+				}
+			}));
+		}
+		for (Thread each : recorders) {
+			each.start();
+		}
+		long total = 0;
+		while (finished.getCount() > 0) {
+			total += count(recorder.drain());
+		}
+		total += count(recorder.drain());
+		assertThat(total, is((long) threads * records));
+	}
+
+	private static long count(LatencyHistograms histograms) {
+		return histograms == null ? 0 : histograms.getTotal().getTotalCount();
+	}
+
+	@Test
+	public void testRecordCorrected() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		// A run of 1 second paced every 100ms has omitted 9 runs which would have taken 900ms to 100ms.
+		histogram.recordCorrected(1000, 100);
+		assertThat(histogram.getTotalCount(), is(10L));
+		assertThat(histogram.getMin(), is(100L));
+
+		histogram.reset();
+		histogram.recordCorrected(50, 100);
+		histogram.recordCorrected(1000, 0);
+		assertThat(histogram.getTotalCount(), is(2L));
+	}
+
+	@Test
+	public void testRecorderCorrection() {
+		LatencyHistogramRecorder recorder = new LatencyHistogramRecorder();
+		recorder.record(1, 10, false);
+		recorder.record(1, 30, false, new LatencyCorrection(0, 20));
+		recorder.record(2, 30, true, new LatencyCorrection(0, 20));
+		LatencyHistograms drained = recorder.drain();
+		assertThat(drained.getTotal().getTotalCount(), is(2L));
+		assertThat(drained.getCorrectedTotal().getTotalCount(), is(1L));
+		assertThat(drained.getCorrectedTotal().getMax(), is(50L));
+
+		recorder.record(1, 10, false);
+		assertThat(recorder.drain().getCorrectedTotal(), nullValue());
+	}
+}
@@ -0,0 +1,60 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ngrinder.statistics;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class TimeBucketRecorderTest {
+
+	@Test
+	public void testRecordIntoAlignedBuckets() {
+		TimeBucketRecorder recorder = new TimeBucketRecorder(100, 500);
+		// Recorded in the reverse order so that the ring doesn't start from the first bucket.
+		recorder.record(10_250, 30, true);
+		recorder.record(10_199, 20, true);
+		recorder.record(10_100, 10, true);
+		recorder.record(10_120, 50, false);
+
+		TimeBuckets buckets = recorder.drain();
+		assertThat(buckets.getBucketSize(), is(100));
+		assertThat(buckets.size(), is(2));
+		assertThat(buckets.getStartTime(0), is(10_100L));
+		assertThat(buckets.getTests(0), is(2L));
+		assertThat(buckets.getErrors(0), is(1L));
+		assertThat(buckets.getTestTime(0), is(30L));
+		assertThat(buckets.getMaxTestTime(0), is(20L));
+		assertThat(buckets.getStartTime(1), is(10_200L));
+		assertThat(buckets.getTests(1), is(1L));
+
+		assertThat(recorder.drain(), nullValue());
+	}
+
+	@Test
+	public void testDropUndrainedBucket() {
+		TimeBucketRecorder recorder = new TimeBucketRecorder(100, 500);
+		long ringTime = 100L * recorder.getCapacity();
+		recorder.record(1_000, 10, true);
+		recorder.record(1_000 + ringTime, 10, true);
+		// The older one can't take the slot back.
+		recorder.record(1_000, 10, true);
+
+		assertThat(recorder.getDroppedTests(), is(2L));
+		TimeBuckets buckets = recorder.drain();
+		assertThat(buckets.size(), is(1));
+		assertThat(buckets.getStartTime(0), is(1_000 + ringTime));
+	}
+}